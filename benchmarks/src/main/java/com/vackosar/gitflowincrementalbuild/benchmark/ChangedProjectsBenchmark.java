@@ -0,0 +1,69 @@
+package com.vackosar.gitflowincrementalbuild.benchmark;
+
+import com.vackosar.gitflowincrementalbuild.control.ChangedProjects;
+import com.vackosar.gitflowincrementalbuild.control.Property;
+import com.vackosar.gitflowincrementalbuild.control.jgit.GitFactory;
+import org.apache.maven.project.MavenProject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ChangedProjects#get()}: {@link DifferentFilesBenchmark the diff} plus the mapping of the changed files to the modules.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ChangedProjectsBenchmark {
+
+    @Param({ "100", "1000" })
+    private int modules;
+
+    @Param({ "10" })
+    private int filesPerModule;
+
+    @Param({ "10" })
+    private int commits;
+
+    @Param({ "10", "500" })
+    private int diffSize;
+
+    private SyntheticRepository repository;
+    private ChangedProjects changedProjects;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        repository = SyntheticRepository.create(modules, filesPerModule, commits, diffSize, 10);
+        Properties properties = new Properties();
+        properties.setProperty(Property.referenceBranch.fullName(), SyntheticRepository.DEVELOP);
+        changedProjects = new Components(repository.createSession(properties)).changedProjects;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        GitFactory.destroy();
+        repository.close();
+    }
+
+    @Benchmark
+    public Set<MavenProject> get() throws Exception {
+        return changedProjects.get();
+    }
+}
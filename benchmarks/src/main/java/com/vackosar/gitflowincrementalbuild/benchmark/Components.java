@@ -0,0 +1,77 @@
+package com.vackosar.gitflowincrementalbuild.benchmark;
+
+import com.vackosar.gitflowincrementalbuild.boundary.Configuration;
+import com.vackosar.gitflowincrementalbuild.control.ChangeClassifier;
+import com.vackosar.gitflowincrementalbuild.control.ChangedProjects;
+import com.vackosar.gitflowincrementalbuild.control.DifferentFiles;
+import com.vackosar.gitflowincrementalbuild.control.DownstreamPropagation;
+import com.vackosar.gitflowincrementalbuild.control.Modules;
+import com.vackosar.gitflowincrementalbuild.control.PhaseTimings;
+import com.vackosar.gitflowincrementalbuild.control.PomChangeAnalyzer;
+import org.apache.maven.execution.MavenSession;
+
+import javax.inject.Inject;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Wires the components of gitflow-incremental-builder for a given session, like Sisu would do within Maven (but without a container).
+ */
+public class Components {
+
+    public final MavenSession mavenSession;
+    public final Configuration.Provider configProvider;
+    public final PhaseTimings phaseTimings = new PhaseTimings();
+    public final DifferentFiles differentFiles = new DifferentFiles();
+    public final Modules modules = new Modules();
+    public final PomChangeAnalyzer pomChangeAnalyzer = new PomChangeAnalyzer();
+    public final ChangeClassifier changeClassifier = new ChangeClassifier();
+    public final DownstreamPropagation downstreamPropagation = new DownstreamPropagation();
+    public final ChangedProjects changedProjects = new ChangedProjects();
+
+    public Components(MavenSession mavenSession) {
+        this.mavenSession = mavenSession;
+        this.configProvider = new Configuration.Provider(mavenSession);
+        List<Object> all = new ArrayList<>(Arrays.asList(mavenSession, configProvider, phaseTimings, differentFiles, modules, pomChangeAnalyzer,
+                changeClassifier, downstreamPropagation, changedProjects));
+        for (Object component : all) {
+            inject(component, all.toArray());
+        }
+    }
+
+    /**
+     * Sets each {@link Inject} field of the given target to the first given dependency that is assignable to the type of the field.
+     *
+     * @param target the object to inject into
+     * @param dependencies the candidates to inject
+     * @return the target
+     */
+    public static <T> T inject(T target, Object... dependencies) {
+        for (Class<?> type = target.getClass(); type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (!field.isAnnotationPresent(Inject.class)) {
+                    continue;
+                }
+                for (Object dependency : dependencies) {
+                    if (field.getType().isInstance(dependency)) {
+                        set(field, target, dependency);
+                        break;
+                    }
+                }
+            }
+        }
+        return target;
+    }
+
+    private static void set(Field field, Object target, Object value) {
+        field.setAccessible(true);
+        try {
+            field.set(target, value);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Failed to inject " + field, e);
+        }
+    }
+}
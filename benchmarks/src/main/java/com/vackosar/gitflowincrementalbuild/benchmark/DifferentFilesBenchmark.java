@@ -0,0 +1,75 @@
+package com.vackosar.gitflowincrementalbuild.benchmark;
+
+import com.vackosar.gitflowincrementalbuild.control.DifferentFiles;
+import com.vackosar.gitflowincrementalbuild.control.Property;
+import com.vackosar.gitflowincrementalbuild.control.jgit.GitFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link DifferentFiles#get()}: the diff of the feature branch to the merge base with the reference branch (plus the status of the
+ * working tree, if enabled).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DifferentFilesBenchmark {
+
+    @Param({ "100", "1000" })
+    private int modules;
+
+    @Param({ "10" })
+    private int filesPerModule;
+
+    @Param({ "10" })
+    private int commits;
+
+    @Param({ "10", "500" })
+    private int diffSize;
+
+    @Param({ "false", "true" })
+    private boolean uncommitted;
+
+    private SyntheticRepository repository;
+    private DifferentFiles differentFiles;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        repository = SyntheticRepository.create(modules, filesPerModule, commits, diffSize, 10);
+        Properties properties = new Properties();
+        properties.setProperty(Property.referenceBranch.fullName(), SyntheticRepository.DEVELOP);
+        properties.setProperty(Property.uncommited.fullName(), String.valueOf(uncommitted));
+        properties.setProperty(Property.untracked.fullName(), String.valueOf(uncommitted));
+        differentFiles = new Components(repository.createSession(properties)).differentFiles;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        GitFactory.destroy();
+        repository.close();
+    }
+
+    @Benchmark
+    public Set<Path> get() throws Exception {
+        return differentFiles.get();
+    }
+}
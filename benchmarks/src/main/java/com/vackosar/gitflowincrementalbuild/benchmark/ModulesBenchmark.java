@@ -0,0 +1,60 @@
+package com.vackosar.gitflowincrementalbuild.benchmark;
+
+import com.vackosar.gitflowincrementalbuild.control.Modules;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.project.MavenProject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Modules#createPathMap(MavenSession)} which resolves the (real) path of each module of the reactor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ModulesBenchmark {
+
+    @Param({ "100", "1000", "5000" })
+    private int modules;
+
+    private SyntheticRepository repository;
+    private MavenSession session;
+    private Modules pathMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        repository = SyntheticRepository.create(modules, 1, 0, 0, 10);
+        Components components = new Components(repository.createSession(new Properties()));
+        session = components.mavenSession;
+        pathMapper = components.modules;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        repository.close();
+    }
+
+    @Benchmark
+    public Map<Path, MavenProject> createPathMap() {
+        return pathMapper.createPathMap(session);
+    }
+}
@@ -0,0 +1,232 @@
+package com.vackosar.gitflowincrementalbuild.benchmark;
+
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.graph.DefaultProjectDependencyGraph;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.PersonIdent;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.TimeZone;
+
+/**
+ * Generates a git repository that contains a multi-module project of configurable size, together with the respective reactor.
+ * <p>
+ * The repository has an initial commit on {@code master} from which two branches are created:
+ * </p>
+ * <ul>
+ * <li>{@value #DEVELOP} with {@code commits} commits that do not touch any module (so that the merge base has to be calculated)</li>
+ * <li>{@value #FEATURE} (checked out) with {@code commits} commits that change {@code diffSize} files in total, spread evenly across the
+ * modules</li>
+ * </ul>
+ * <p>
+ * Each module depends on its predecessor, forming dependency chains of {@code chainLength} modules.
+ * </p>
+ */
+public class SyntheticRepository implements Closeable {
+
+    public static final String DEVELOP = "refs/heads/develop";
+    public static final String FEATURE = "refs/heads/feature";
+
+    private static final String GROUP_ID = "benchmark";
+    private static final String VERSION = "1.0";
+    private static final String POM_XML = "pom.xml";
+    private static final PersonIdent AUTHOR = new PersonIdent("Benchmark", "benchmark@example.com", new Date(0), TimeZone.getTimeZone("UTC"));
+
+    private final Path root;
+    private final int moduleCount;
+    private final int filesPerModule;
+    private final int chainLength;
+    private final List<MavenProject> projects = new ArrayList<>();
+
+    private SyntheticRepository(Path root, int moduleCount, int filesPerModule, int chainLength) {
+        this.root = root;
+        this.moduleCount = moduleCount;
+        this.filesPerModule = filesPerModule;
+        this.chainLength = chainLength;
+    }
+
+    /**
+     * Generates a repository in a new temporary directory.
+     *
+     * @param moduleCount the number of modules (excluding the aggregator)
+     * @param filesPerModule the number of source files per module
+     * @param commits the number of commits on each branch
+     * @param diffSize the number of files that are changed on {@value #FEATURE} (at most {@code moduleCount * filesPerModule})
+     * @param chainLength the length of the dependency chains
+     * @return the generated repository
+     */
+    public static SyntheticRepository create(int moduleCount, int filesPerModule, int commits, int diffSize, int chainLength) throws Exception {
+        SyntheticRepository repository = new SyntheticRepository(
+                Files.createTempDirectory("gib-benchmark").toRealPath(), moduleCount, filesPerModule, chainLength);
+        repository.generate(commits, Math.min(diffSize, moduleCount * filesPerModule));
+        return repository;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Creates a session for the entire reactor, sorted by the dependencies of the modules.
+     *
+     * @param gibProperties the gitflow-incremental-builder properties to set on the top level project
+     * @return a new session
+     */
+    public MavenSession createSession(Properties gibProperties) throws Exception {
+        MavenProject topLevelProject = projects.get(0);
+        topLevelProject.getModel().setProperties(new Properties());
+        topLevelProject.getProperties().putAll(gibProperties);
+
+        DefaultMavenExecutionRequest request = new DefaultMavenExecutionRequest();
+        request.setBaseDirectory(root.toFile());
+        request.setGoals(new ArrayList<>(Collections.singletonList("install")));
+        MavenSession session = new MavenSession(null, (RepositorySystemSession) null, request, new DefaultMavenExecutionResult());
+        DefaultProjectDependencyGraph graph = new DefaultProjectDependencyGraph(projects);
+        session.setProjects(graph.getSortedProjects());
+        session.setAllProjects(graph.getSortedProjects());
+        session.setProjectDependencyGraph(graph);
+        return session;
+    }
+
+    @Override
+    public void close() throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void generate(int commits, int diffSize) throws Exception {
+        List<String> moduleNames = new ArrayList<>();
+        for (int i = 0; i < moduleCount; i++) {
+            moduleNames.add(String.format("module-%05d", i));
+        }
+        projects.add(createProject(root, "aggregator", "pom", null));
+        writePom(root, "aggregator", "pom", null, moduleNames);
+        for (int i = 0; i < moduleCount; i++) {
+            Path moduleDir = root.resolve(moduleNames.get(i));
+            String dependency = i % chainLength != 0 ? moduleNames.get(i - 1) : null;
+            projects.add(createProject(moduleDir, moduleNames.get(i), "jar", dependency));
+            writePom(moduleDir, moduleNames.get(i), "jar", dependency, Collections.emptyList());
+            for (int j = 0; j < filesPerModule; j++) {
+                Path file = sourceFile(i, j);
+                Files.createDirectories(file.getParent());
+                Files.write(file, ("class Class" + j + " {\n}\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        try (Git git = Git.init().setDirectory(root.toFile()).call()) {
+            git.add().addFilepattern(".").call();
+            commit(git, "initial");
+            git.branchCreate().setName(shortName(DEVELOP)).call();
+            git.branchCreate().setName(shortName(FEATURE)).call();
+
+            git.checkout().setName(shortName(DEVELOP)).call();
+            for (int c = 0; c < commits; c++) {
+                Files.write(root.resolve("develop.txt"), ("commit " + c + "\n").getBytes(StandardCharsets.UTF_8));
+                git.add().addFilepattern("develop.txt").call();
+                commit(git, "develop " + c);
+            }
+
+            git.checkout().setName(shortName(FEATURE)).call();
+            int commitCount = Math.max(commits, 1);
+            for (int c = 0; c < commitCount; c++) {
+                for (int k = c; k < diffSize; k += commitCount) {
+                    // spread the changes across the modules first
+                    Path file = sourceFile(k % moduleCount, k / moduleCount);
+                    Files.write(file, ("// changed\n").getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+                    git.add().addFilepattern(root.relativize(file).toString().replace('\\', '/')).call();
+                }
+                commit(git, "feature " + c);
+            }
+        }
+    }
+
+    private Path sourceFile(int module, int index) {
+        return root.resolve(String.format("module-%05d/src/main/java/benchmark/m%05d/Class%d.java", module, module, index));
+    }
+
+    private static void commit(Git git, String message) throws Exception {
+        git.commit().setMessage(message).setAuthor(AUTHOR).setCommitter(AUTHOR).setAllowEmpty(true).call();
+    }
+
+    private static String shortName(String branch) {
+        return branch.substring("refs/heads/".length());
+    }
+
+    private static MavenProject createProject(Path dir, String artifactId, String packaging, String dependencyArtifactId) {
+        Model model = new Model();
+        model.setGroupId(GROUP_ID);
+        model.setArtifactId(artifactId);
+        model.setVersion(VERSION);
+        model.setPackaging(packaging);
+        model.setProperties(new Properties());
+        if (dependencyArtifactId != null) {
+            Dependency dependency = new Dependency();
+            dependency.setGroupId(GROUP_ID);
+            dependency.setArtifactId(dependencyArtifactId);
+            dependency.setVersion(VERSION);
+            model.addDependency(dependency);
+        }
+        MavenProject project = new MavenProject(model);
+        project.setFile(dir.resolve(POM_XML).toFile());
+        project.setExecutionRoot("pom".equals(packaging));
+        return project;
+    }
+
+    private static void writePom(Path dir, String artifactId, String packaging, String dependencyArtifactId, List<String> modules)
+            throws IOException {
+        StringBuilder pom = new StringBuilder()
+                .append("<project>\n")
+                .append("    <modelVersion>4.0.0</modelVersion>\n")
+                .append("    <groupId>").append(GROUP_ID).append("</groupId>\n")
+                .append("    <artifactId>").append(artifactId).append("</artifactId>\n")
+                .append("    <version>").append(VERSION).append("</version>\n")
+                .append("    <packaging>").append(packaging).append("</packaging>\n");
+        if (!modules.isEmpty()) {
+            pom.append("    <modules>\n");
+            modules.forEach(module -> pom.append("        <module>").append(module).append("</module>\n"));
+            pom.append("    </modules>\n");
+        }
+        if (dependencyArtifactId != null) {
+            pom.append("    <dependencies>\n")
+                    .append("        <dependency>\n")
+                    .append("            <groupId>").append(GROUP_ID).append("</groupId>\n")
+                    .append("            <artifactId>").append(dependencyArtifactId).append("</artifactId>\n")
+                    .append("            <version>").append(VERSION).append("</version>\n")
+                    .append("        </dependency>\n")
+                    .append("    </dependencies>\n");
+        }
+        pom.append("</project>\n");
+        Files.createDirectories(dir);
+        Files.write(dir.resolve(POM_XML), pom.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
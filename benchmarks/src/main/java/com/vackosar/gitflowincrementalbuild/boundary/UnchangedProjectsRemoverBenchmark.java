@@ -0,0 +1,109 @@
+package com.vackosar.gitflowincrementalbuild.boundary;
+
+import com.vackosar.gitflowincrementalbuild.benchmark.Components;
+import com.vackosar.gitflowincrementalbuild.benchmark.SyntheticRepository;
+import com.vackosar.gitflowincrementalbuild.control.ChangedProjects;
+import com.vackosar.gitflowincrementalbuild.control.Property;
+import com.vackosar.gitflowincrementalbuild.control.jgit.GitFactory;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.project.MavenProject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the graph calculations of {@link UnchangedProjectsRemover} (impacted downstream modules, upstream modules, modification of the
+ * project list) for a given set of changed modules.
+ * <p>
+ * The changed modules are determined once (via git) before the measurement, so only the calculations are measured.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class UnchangedProjectsRemoverBenchmark {
+
+    @Param({ "100", "1000", "5000" })
+    private int modules;
+
+    @Param({ "10", "100" })
+    private int changedModules;
+
+    @Param({ "10" })
+    private int chainLength;
+
+    @Param({ "false", "true" })
+    private boolean buildUpstream;
+
+    private SyntheticRepository repository;
+    private MavenSession session;
+    private List<MavenProject> reactorProjects;
+    private UnchangedProjectsRemover remover;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        repository = SyntheticRepository.create(modules, 1, 1, changedModules, chainLength);
+        Properties properties = new Properties();
+        properties.setProperty(Property.referenceBranch.fullName(), SyntheticRepository.DEVELOP);
+        properties.setProperty(Property.buildUpstream.fullName(), String.valueOf(buildUpstream));
+        Components components = new Components(repository.createSession(properties));
+        session = components.mavenSession;
+        reactorProjects = new ArrayList<>(session.getProjects());
+
+        Set<MavenProject> changed = components.changedProjects.get();
+        Map<MavenProject, Set<Path>> changedFiles = new HashMap<>();
+        changed.forEach(project -> changedFiles.put(project, components.changedProjects.getChangedFiles(project)));
+        GitFactory.destroy();
+        ChangedProjects precalculatedChangedProjects = new ChangedProjects() {
+            @Override
+            public Set<MavenProject> get(Set<MavenProject> scope) {
+                return changed;
+            }
+
+            @Override
+            public Set<Path> getChangedFiles(MavenProject project) {
+                return changedFiles.get(project);
+            }
+        };
+        remover = Components.inject(new UnchangedProjectsRemover(), session, components.configProvider, precalculatedChangedProjects,
+                components.changeClassifier, components.downstreamPropagation, components.pomChangeAnalyzer, components.phaseTimings);
+    }
+
+    @Setup(Level.Invocation)
+    public void resetProjects() {
+        session.setProjects(new ArrayList<>(reactorProjects));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        repository.close();
+    }
+
+    @Benchmark
+    public List<MavenProject> act() throws Exception {
+        remover.act();
+        return session.getProjects();
+    }
+}
@@ -0,0 +1,145 @@
+package com.vackosar.gitflowincrementalbuild.boundary;
+
+import com.vackosar.gitflowincrementalbuild.control.MergeBases;
+import com.vackosar.gitflowincrementalbuild.control.Property;
+import com.vackosar.gitflowincrementalbuild.control.jgit.GitFactory;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.execution.ProjectDependencyGraph;
+import org.apache.maven.graph.DefaultProjectDependencyGraph;
+import org.apache.maven.project.DuplicateProjectException;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.dag.CycleDetectedException;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Repository;
+
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Calculates the impacted modules of multiple base branches (e.g. the branches of a merge queue or of all open pull requests) against the
+ * same reference in a single JVM, for {@link ImpactCli}.
+ * <p>
+ * The reactor (including its dependency graph), the git repository (with its ref database and pack caches) and the {@link MergeBases} are
+ * read or calculated once and shared by all branches, which are processed in parallel. Each branch has its own session and components,
+ * comparing the branch to the reference without checking it out, so neither branches are fetched nor uncommitted or untracked changes
+ * are considered. One report per branch is written to the output directory, in the same format as the output of {@link ImpactCli}.
+ * </p>
+ */
+class BatchImpact {
+
+    private final MavenProject topLevelProject;
+    private final ProjectDependencyGraph graph;
+    private final Path outputDirectory;
+    private final int threads;
+    private final MergeBases mergeBases = new MergeBases();
+
+    /**
+     * @param projects the projects of the reactor, starting with the top level project (with all properties set)
+     * @param outputDirectory the directory to write the reports to
+     * @param threads the maximum number of branches to process in parallel
+     */
+    BatchImpact(List<MavenProject> projects, Path outputDirectory, int threads) throws CycleDetectedException, DuplicateProjectException {
+        this.topLevelProject = projects.get(0);
+        this.graph = new DefaultProjectDependencyGraph(projects);
+        this.outputDirectory = outputDirectory;
+        this.threads = threads;
+    }
+
+    /**
+     * Calculates and writes the reports, printing a line {@code <base branch>\t<report file>} per branch (in the given order).
+     *
+     * @param baseBranches the base branches (duplicates are ignored)
+     * @param out the stream to print the reports to
+     * @param err the stream to print failures to
+     * @return whether the reports of all branches have been written
+     */
+    boolean run(List<String> baseBranches, PrintStream out, PrintStream err) throws Exception {
+        Files.createDirectories(outputDirectory);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, baseBranches.size())));
+        try {
+            // all configurations are created before any branch is processed and might modify the properties of the top level project
+            Map<String, Callable<Path>> tasks = new LinkedHashMap<>();
+            Set<String> fileNames = new HashSet<>();
+            Repository repository = null;
+            for (String baseBranch : new LinkedHashSet<>(baseBranches)) {
+                Path report = outputDirectory.resolve(toFileName(baseBranch, fileNames));
+                MavenSession session = ImpactCli.createSession(topLevelProject, graph);
+                Configuration.Provider configProvider = new Configuration.Provider(session);
+                configProvider.override(overrides(baseBranch, report, configProvider.get()));
+                if (repository == null) {
+                    repository = GitFactory.getOrCreateThreadLocalGit(session, configProvider.get()).getRepository();
+                }
+                UnchangedProjectsRemover remover = ImpactCli.createRemover(session, configProvider, mergeBases);
+                Repository sharedRepository = repository;
+                tasks.put(baseBranch, () -> calculate(remover, sharedRepository, report));
+            }
+            Map<String, Future<Path>> reports = new LinkedHashMap<>();
+            tasks.forEach((baseBranch, task) -> reports.put(baseBranch, executor.submit(task)));
+
+            boolean success = true;
+            for (Map.Entry<String, Future<Path>> entry : reports.entrySet()) {
+                try {
+                    out.println(entry.getKey() + "\t" + entry.getValue().get());
+                } catch (ExecutionException e) {
+                    err.println(entry.getKey() + "\tfailed to calculate the impacted modules: " + e.getCause());
+                    success = false;
+                }
+            }
+            return success;
+        } finally {
+            executor.shutdownNow();
+            GitFactory.destroy();
+        }
+    }
+
+    private Path calculate(UnchangedProjectsRemover remover, Repository repository, Path report) throws Exception {
+        // each thread uses its own Git instance, but all of them share the same repository (released again by destroy())
+        repository.incrementOpen();
+        GitFactory.bind(Git.wrap(repository));
+        try {
+            remover.adjustProjects();
+            Files.write(report, ImpactCli.format(remover.getLastImpact(), topLevelProject.getBasedir().toPath()), StandardCharsets.UTF_8);
+            return report;
+        } finally {
+            GitFactory.destroy();
+        }
+    }
+
+    private static Map<Property, String> overrides(String baseBranch, Path report, Configuration configuration) {
+        Map<Property, String> overrides = new EnumMap<>(Property.class);
+        overrides.put(Property.disableBranchComparison, "false");
+        overrides.put(Property.baseBranch, baseBranch);
+        overrides.put(Property.fetchBaseBranch, "false");
+        overrides.put(Property.fetchReferenceBranch, "false");
+        overrides.put(Property.uncommited, "false");
+        overrides.put(Property.untracked, "false");
+        if (configuration.logImpactedTo.isPresent()) {
+            // the branches must not write to the same file
+            overrides.put(Property.logImpactedTo, report.resolveSibling(report.getFileName() + ".impacted").toString());
+        }
+        return overrides;
+    }
+
+    private static String toFileName(String baseBranch, Set<String> fileNames) {
+        String name = baseBranch.replaceAll("[^A-Za-z0-9._-]", "_");
+        String fileName = name + ".txt";
+        for (int i = 2; !fileNames.add(fileName); i++) {
+            fileName = name + "-" + i + ".txt";
+        }
+        return fileName;
+    }
+}
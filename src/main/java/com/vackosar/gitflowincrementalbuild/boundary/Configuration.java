@@ -1,5 +1,6 @@
 package com.vackosar.gitflowincrementalbuild.boundary;
 
+import com.vackosar.gitflowincrementalbuild.control.DownstreamPropagation;
 import com.vackosar.gitflowincrementalbuild.control.Property;
 import org.apache.maven.execution.MavenExecutionRequest;
 import org.apache.maven.execution.MavenSession;
@@ -10,6 +11,7 @@ import javax.inject.Singleton;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.AbstractMap;
 import java.util.Arrays;
 import java.util.Collections;
@@ -32,6 +34,9 @@ import static java.util.stream.Collectors.toList;
 
 public class Configuration {
 
+    private static final List<String> DOWNSTREAM_SCOPE_KEYS =
+            Arrays.asList("compile", "provided", "runtime", "test", "system", DownstreamPropagation.OPTIONAL);
+
     public final Optional<Predicate<String>> disableIfBranchRegex;
 
     public final boolean disableBranchComparison;
@@ -39,28 +44,55 @@ public class Configuration {
     public final boolean fetchReferenceBranch;
     public final String baseBranch;
     public final boolean fetchBaseBranch;
+    public final Duration fetchFreshnessWindow;
+    public final boolean offline;
+    public final List<String> fetchMirrors;
+    public final boolean fetchWithoutTags;
+    public final Duration credentialsCacheTtl;
     public final boolean useJschAgentProxy;
     public final boolean compareToMergeBase;
+    public final boolean compareToReferenceHead;
     public final boolean uncommited;
     public final boolean untracked;
+    public final boolean parallelWorkingTreeScan;
+    public final boolean trustStatData;
     public final Predicate<String> excludePathRegex;
     public final Predicate<String> includePathRegex;
+    public final boolean ignoreCosmeticPomChanges;
 
     public final boolean buildAll;
     public final boolean buildAllIfNoChanges;
     public final boolean buildDownstream;
+    public final boolean pruneDownstreamOnUnchangedAbi;
+    public final boolean classifyJavaChanges;
+    public final boolean skipDownstreamOnTestOnlyChanges;
+    public final Map<String, Integer> limitDownstreamByScope;
+    public final boolean analyzePomChanges;
     public final BuildUpstreamMode buildUpstreamMode;
     public final boolean skipTestsForUpstreamModules;
     public final Map<String, String> argsForUpstreamModules;
+    public final boolean reuseUpstreamOutputs;
     public final List<Pattern> forceBuildModules;
     public final List<String> excludeDownstreamModulesPackagedAs;
 
     public final boolean failOnMissingGitDir;
     public final boolean failOnError;
     public final Optional<Path> logImpactedTo;
+    public final Optional<Path> writeMetricsTo;
+    public final Optional<Path> writeImpactReportTo;
+    public final boolean writeChangedFilesManifest;
+    public final boolean selectTests;
+    public final int replayCommits;
+
+    // not a property: configurations with overridden properties (replay, batch) compare refs without touching the working tree
+    public final boolean checkoutAllowed;
 
     private Configuration(MavenSession session) {
-        Properties projectProperties = getProjectProperties(session);
+        this(session, Collections.emptyMap());
+    }
+
+    private Configuration(MavenSession session, Map<Property, String> overrides) {
+        Properties projectProperties = withOverrides(getProjectProperties(session), overrides);
         checkProperties(projectProperties);
 
         if (Property.Constants.NEVER_MATCH_REGEX.equals(Property.disableIfBranchRegex.getValue(projectProperties))) {
@@ -77,18 +109,35 @@ public class Configuration {
         fetchReferenceBranch = Boolean.valueOf(Property.fetchReferenceBranch.getValue(projectProperties));
         baseBranch = Property.baseBranch.getValue(projectProperties);
         fetchBaseBranch = Boolean.valueOf(Property.fetchBaseBranch.getValue(projectProperties));
+        fetchFreshnessWindow = parseSeconds(Property.fetchFreshnessWindow, projectProperties);
+        offline = Boolean.valueOf(Property.offline.getValue(projectProperties)) || session.isOffline();
+        fetchMirrors = parseDelimited(Property.fetchMirrors.getValue(projectProperties), ",")
+                .collect(collectingAndThen(toList(), Collections::unmodifiableList));
+        fetchWithoutTags = Boolean.valueOf(Property.fetchWithoutTags.getValue(projectProperties));
+        credentialsCacheTtl = parseSeconds(Property.credentialsCacheTtl, projectProperties);
         useJschAgentProxy = Boolean.valueOf(Property.useJschAgentProxy.getValue(projectProperties));
         compareToMergeBase = Boolean.valueOf(Property.compareToMergeBase.getValue(projectProperties));
+        compareToReferenceHead = Boolean.valueOf(Property.compareToReferenceHead.getValue(projectProperties));
         uncommited = Boolean.valueOf(Property.uncommited.getValue(projectProperties));
         untracked = Boolean.valueOf(Property.untracked.getValue(projectProperties));
+        parallelWorkingTreeScan = Boolean.valueOf(Property.parallelWorkingTreeScan.getValue(projectProperties));
+        trustStatData = Boolean.valueOf(Property.trustStatData.getValue(projectProperties));
         excludePathRegex = compilePattern(Property.excludePathRegex, projectProperties).asPredicate();
         includePathRegex = compilePattern(Property.includePathRegex, projectProperties).asPredicate();
+        ignoreCosmeticPomChanges = Boolean.valueOf(Property.ignoreCosmeticPomChanges.getValue(projectProperties));
 
         // build config
 
         buildAll = Boolean.valueOf(Property.buildAll.getValue(projectProperties));
         buildAllIfNoChanges = Boolean.valueOf(Property.buildAllIfNoChanges.getValue(projectProperties));
         buildDownstream = isBuildStreamActive(Property.buildDownstream, projectProperties, session, MavenExecutionRequest.REACTOR_MAKE_DOWNSTREAM);
+        pruneDownstreamOnUnchangedAbi = Boolean.valueOf(Property.pruneDownstreamOnUnchangedAbi.getValue(projectProperties));
+        classifyJavaChanges = Boolean.valueOf(Property.classifyJavaChanges.getValue(projectProperties));
+        skipDownstreamOnTestOnlyChanges = Boolean.valueOf(Property.skipDownstreamOnTestOnlyChanges.getValue(projectProperties));
+        limitDownstreamByScope = parseDelimited(Property.limitDownstreamByScope.getValue(projectProperties), ",")
+                .map(Configuration::keyValueStringToEntry)
+                .collect(collectingAndThen(toLinkedMap(), Configuration::parseDownstreamScopeLimits));
+        analyzePomChanges = Boolean.valueOf(Property.analyzePomChanges.getValue(projectProperties));
         buildUpstreamMode = parseBuildUpstreamMode(session, projectProperties);
         skipTestsForUpstreamModules = Boolean.valueOf(Property.skipTestsForUpstreamModules.getValue(projectProperties));
 
@@ -96,6 +145,8 @@ public class Configuration {
                 .map(Configuration::keyValueStringToEntry)
                 .collect(collectingAndThen(toLinkedMap(), Collections::unmodifiableMap));
 
+        reuseUpstreamOutputs = Boolean.valueOf(Property.reuseUpstreamOutputs.getValue(projectProperties));
+
         forceBuildModules = parseDelimited(Property.forceBuildModules.getValue(projectProperties), ",")
                 .map(str -> compilePattern(str, Property.forceBuildModules))
                 .collect(collectingAndThen(toList(), Collections::unmodifiableList));
@@ -108,6 +159,13 @@ public class Configuration {
         failOnMissingGitDir = Boolean.valueOf(Property.failOnMissingGitDir.getValue(projectProperties));
         failOnError = Boolean.valueOf(Property.failOnError.getValue(projectProperties));
         logImpactedTo = Optional.ofNullable(Property.logImpactedTo.getValue(projectProperties)).map(Paths::get);
+        writeMetricsTo = Optional.ofNullable(Property.writeMetricsTo.getValue(projectProperties)).map(Paths::get);
+        writeImpactReportTo = Optional.ofNullable(Property.writeImpactReportTo.getValue(projectProperties)).map(Paths::get);
+        writeChangedFilesManifest = Boolean.valueOf(Property.writeChangedFilesManifest.getValue(projectProperties));
+        selectTests = Boolean.valueOf(Property.selectTests.getValue(projectProperties));
+        replayCommits = parseCount(Property.replayCommits, projectProperties);
+
+        checkoutAllowed = overrides.isEmpty();
     }
 
     /**
@@ -147,6 +205,27 @@ public class Configuration {
         return session.getTopLevelProject().getProperties();
     }
 
+    private static Properties withOverrides(Properties projectProperties, Map<Property, String> overrides) {
+        if (overrides.isEmpty()) {
+            return projectProperties;
+        }
+        // system properties take precedence over project properties, so they would silently defeat the overrides
+        String conflictingPropertyNames = overrides.keySet().stream()
+                .flatMap(p -> p.allNames().stream())
+                .filter(System.getProperties()::containsKey)
+                .collect(Collectors.joining(", "));
+        if (!conflictingPropertyNames.isEmpty()) {
+            throw new IllegalArgumentException("GIB properties must not be set via system properties when replaying commits or in batch mode: "
+                    + conflictingPropertyNames);
+        }
+        Properties overridden = new Properties();
+        projectProperties.stringPropertyNames().stream()
+                .filter(name -> overrides.keySet().stream().noneMatch(p -> p.allNames().contains(name)))
+                .forEach(name -> overridden.setProperty(name, projectProperties.getProperty(name)));
+        overrides.forEach((property, value) -> overridden.setProperty(property.fullName(), value));
+        return overridden;
+    }
+
     private static void checkProperties(Properties projectProperties) {
         Set<String> availablePropertyNames = Arrays.stream(Property.values())
                 .flatMap(p -> p.allNames().stream())
@@ -190,6 +269,41 @@ public class Configuration {
         }
     }
 
+    private static Map<String, Integer> parseDownstreamScopeLimits(Map<String, String> limits) {
+        Map<String, Integer> parsed = new LinkedHashMap<>();
+        limits.forEach((scope, limit) -> {
+            if (!DOWNSTREAM_SCOPE_KEYS.contains(scope)) {
+                throw new IllegalArgumentException(
+                        "GIB property " + Property.limitDownstreamByScope.fullOrShortName() + " defines an invalid scope: " + scope);
+            }
+            int parsedLimit = limit.matches("\\d{1,9}") ? Integer.parseInt(limit) : 0;
+            if (parsedLimit < 1) {
+                throw new IllegalArgumentException("GIB property " + Property.limitDownstreamByScope.fullOrShortName()
+                        + " defines an invalid limit for " + scope + " (expected a number > 0): " + limit);
+            }
+            parsed.put(scope, parsedLimit);
+        });
+        return Collections.unmodifiableMap(parsed);
+    }
+
+    private static Duration parseSeconds(Property property, Properties projectProperties) {
+        String value = property.getValue(projectProperties).trim();
+        if (!value.matches("\\d{1,9}")) {
+            throw new IllegalArgumentException(
+                    "GIB property " + property.fullOrShortName() + " defines an invalid number of seconds (expected a number >= 0): " + value);
+        }
+        return Duration.ofSeconds(Long.parseLong(value));
+    }
+
+    private static int parseCount(Property property, Properties projectProperties) {
+        String value = property.getValue(projectProperties).trim();
+        if (!value.matches("\\d{1,9}")) {
+            throw new IllegalArgumentException(
+                    "GIB property " + property.fullOrShortName() + " defines an invalid number (expected a number >= 0): " + value);
+        }
+        return Integer.parseInt(value);
+    }
+
     private static Stream<String> parseDelimited(String value, String delimiter) {
         return value.isEmpty()
                 ? Stream.empty()
@@ -234,6 +348,7 @@ public class Configuration {
         private final MavenSession mavenSession;
 
         private Configuration configuration;
+        private Configuration overridden;
 
         @Inject
         public Provider(MavenSession mavenSession) {
@@ -247,10 +362,26 @@ public class Configuration {
          */
         @Override
         public Configuration get() {
+            if (overridden != null) {
+                return overridden;
+            }
             if (configuration == null) {
                 configuration = new Configuration(mavenSession);
             }
             return configuration;
         }
+
+        /**
+         * Makes {@link #get()} return a configuration in which the given properties are overridden until {@link #clearOverrides()} is called.
+         *
+         * @param overrides the values of the properties to override
+         */
+        void override(Map<Property, String> overrides) {
+            overridden = new Configuration(mavenSession, overrides);
+        }
+
+        void clearOverrides() {
+            overridden = null;
+        }
     }
 }
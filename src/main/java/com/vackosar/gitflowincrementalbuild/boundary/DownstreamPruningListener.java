@@ -0,0 +1,275 @@
+package com.vackosar.gitflowincrementalbuild.boundary;
+
+import com.vackosar.gitflowincrementalbuild.control.AbiFingerprints;
+import com.vackosar.gitflowincrementalbuild.control.SourceFingerprints;
+import org.apache.maven.execution.AbstractExecutionListener;
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.ExecutionListener;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.LocalRepositoryManager;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link ExecutionListener} that skips the build of downstream modules whose changed upstream modules did not change their public API, see
+ * {@link Configuration#pruneDownstreamOnUnchangedAbi}.
+ * <p>
+ * Before an impacted module is built, the ABI fingerprint of its artifact in the local repository is read from the fingerprint that was stored
+ * next to it when it was installed (see {@link #storeReferenceAbi(MavenSession, SourceFingerprints, AbiFingerprints, MavenProject)}), provided
+ * that the artifact was built from the sources of the reference. After the module has been built, this fingerprint is compared with the
+ * fingerprint of the freshly compiled classes.
+ * A downstream module that is not changed itself is skipped if all impacted modules it depends on have either an unchanged ABI or have been
+ * skipped as well. A skipped module is resolved from the local repository by any module that is still built, so it is only skipped if its
+ * artifact is present there.
+ * </p>
+ * <p>
+ * Since Maven offers no way to remove a module from a running build, a module is skipped by removing all its build plugins right before Maven
+ * calculates the execution plan of the module.
+ * </p>
+ */
+class DownstreamPruningListener implements ExecutionListener {
+
+    private static final String EXTENSION_JAR = "jar";
+    private static final String GOAL_TEST_JAR = "test-jar";
+    private static final String PHASE_COMPILE = "compile";
+
+    private Logger logger = LoggerFactory.getLogger(DownstreamPruningListener.class);
+
+    private final ExecutionListener delegate;
+    private final MavenSession mavenSession;
+    private final AbiFingerprints abiFingerprints;
+    private final SourceFingerprints sourceFingerprints;
+    private final ObjectId referenceTree;
+    private final Set<MavenProject> impacted;
+    private final Set<MavenProject> prunable;
+
+    private final Map<MavenProject, Optional<String>> referenceAbis = new ConcurrentHashMap<>();
+    private final Set<MavenProject> abiUnchanged = ConcurrentHashMap.newKeySet();
+    private final Set<MavenProject> pruned = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param delegate the original listener (might be {@code null})
+     * @param mavenSession the current session
+     * @param abiFingerprints the fingerprint calculator
+     * @param sourceFingerprints the source fingerprint calculator (to verify that a stored fingerprint stems from the reference)
+     * @param referenceTree the tree of the reference the changes have been detected against
+     * @param impacted the impacted modules (changed modules and their downstream modules)
+     * @param prunable the downstream modules that may be skipped (must not contain changed modules)
+     */
+    DownstreamPruningListener(ExecutionListener delegate, MavenSession mavenSession, AbiFingerprints abiFingerprints,
+            SourceFingerprints sourceFingerprints, ObjectId referenceTree, Set<MavenProject> impacted, Set<MavenProject> prunable) {
+        this.delegate = delegate != null ? delegate : new AbstractExecutionListener() { };
+        this.mavenSession = mavenSession;
+        this.abiFingerprints = abiFingerprints;
+        this.sourceFingerprints = sourceFingerprints;
+        this.referenceTree = referenceTree;
+        this.impacted = impacted;
+        this.prunable = prunable;
+    }
+
+    @Override
+    public void projectStarted(ExecutionEvent event) {
+        delegate.projectStarted(event);
+        MavenProject project = event.getProject();
+        if (prunable.contains(project) && isPrunable(project)) {
+            logger.info("{}: skipping build, the API of its changed upstream modules is unchanged", project.getArtifactId());
+            project.getBuild().setPlugins(new ArrayList<>());
+            project.getBuild().flushPluginMap();
+            pruned.add(project);
+        } else if (impacted.contains(project)) {
+            referenceAbis.put(project, computeReferenceAbi(project));
+        }
+    }
+
+    @Override
+    public void projectSucceeded(ExecutionEvent event) {
+        MavenProject project = event.getProject();
+        Optional<String> referenceAbi = referenceAbis.get(project);
+        if (referenceAbi != null && referenceAbi.isPresent() && project.hasLifecyclePhase(PHASE_COMPILE)) {
+            Optional<String> currentAbi = compute(project, Paths.get(project.getBuild().getOutputDirectory()));
+            if (referenceAbi.equals(currentAbi)) {
+                logger.info("{}: API is unchanged", project.getArtifactId());
+                abiUnchanged.add(project);
+            }
+        }
+        delegate.projectSucceeded(event);
+    }
+
+    private boolean isPrunable(MavenProject project) {
+        return mavenSession.getProjectDependencyGraph().getUpstreamProjects(project, true).stream()
+                        .filter(impacted::contains)
+                        .allMatch(upstream -> pruned.contains(upstream) || abiUnchanged.contains(upstream))
+                && localArtifact(mavenSession, project).toFile().isFile();
+    }
+
+    /**
+     * Stores the ABI fingerprint of the given freshly installed project next to its artifact in the local repository, so that a later build can
+     * use it as the fingerprint of the reference. The fingerprint is only stored if the sources of the project are committed, otherwise a previously
+     * stored fingerprint is deleted.
+     *
+     * @param mavenSession the current session
+     * @param sourceFingerprints the source fingerprint calculator
+     * @param abiFingerprints the fingerprint calculator
+     * @param project the installed project
+     */
+    static void storeReferenceAbi(MavenSession mavenSession, SourceFingerprints sourceFingerprints, AbiFingerprints abiFingerprints,
+            MavenProject project) throws IOException, GitAPIException {
+        if (!EXTENSION_JAR.equals(extensionOf(project))) {
+            return;
+        }
+        Path artifact = localArtifact(mavenSession, project);
+        Optional<String> sourceFingerprint = sourceFingerprints.compute(project);
+        Optional<String> abi = sourceFingerprint.isPresent() && Files.isRegularFile(artifact)
+                ? abiFingerprints.compute(Paths.get(project.getBuild().getOutputDirectory()))
+                : Optional.empty();
+        if (abi.isPresent()) {
+            abiFingerprints.store(artifact, sourceFingerprint.get(), abi.get());
+        } else {
+            abiFingerprints.deleteStored(artifact);
+        }
+    }
+
+    private Optional<String> computeReferenceAbi(MavenProject project) {
+        // test-jars are not covered by the fingerprint, so the API of a module that provides one can't be verified
+        if (!EXTENSION_JAR.equals(extensionOf(project)) || declaresTestJarGoal(project)) {
+            return Optional.empty();
+        }
+        // the artifact in the local repository might not stem from the reference (e.g. after installing the current sources),
+        // so only a fingerprint that was stored for the sources of the reference is trusted
+        Path artifact = localArtifact(mavenSession, project);
+        try {
+            Optional<String> referenceSources = sourceFingerprints.computeAt(project, referenceTree);
+            Optional<String> referenceAbi = referenceSources.isPresent()
+                    ? abiFingerprints.readStored(artifact, referenceSources.get())
+                    : Optional.empty();
+            if (!referenceAbi.isPresent()) {
+                logger.warn("{}: no API fingerprint of a reference build is stored for {}, downstream modules will not be skipped",
+                        project.getArtifactId(), artifact);
+            }
+            return referenceAbi;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("{}: failed to read reference API fingerprint of {}: {}", project.getArtifactId(), artifact, e.toString());
+            logger.debug("Full exception:", e);
+            return Optional.empty();
+        }
+    }
+
+    private Optional<String> compute(MavenProject project, Path classesDirOrJar) {
+        try {
+            return abiFingerprints.compute(classesDirOrJar);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("{}: failed to compute API fingerprint of {}: {}", project.getArtifactId(), classesDirOrJar, e.toString());
+            logger.debug("Full exception:", e);
+            return Optional.empty();
+        }
+    }
+
+    private static Path localArtifact(MavenSession mavenSession, MavenProject project) {
+        LocalRepositoryManager localRepositoryManager = mavenSession.getRepositorySession().getLocalRepositoryManager();
+        DefaultArtifact artifact = new DefaultArtifact(
+                project.getGroupId(), project.getArtifactId(), "", extensionOf(project), project.getVersion());
+        return localRepositoryManager.getRepository().getBasedir().toPath().resolve(localRepositoryManager.getPathForLocalArtifact(artifact));
+    }
+
+    private static String extensionOf(MavenProject project) {
+        return project.getArtifact().getArtifactHandler().getExtension();
+    }
+
+    private static boolean declaresTestJarGoal(MavenProject project) {
+        return project.getBuildPlugins().stream()
+                .flatMap(plugin -> plugin.getExecutions().stream())
+                .flatMap(execution -> execution.getGoals().stream())
+                .anyMatch(GOAL_TEST_JAR::equals);
+    }
+
+    // plain delegation
+
+    @Override
+    public void projectDiscoveryStarted(ExecutionEvent event) {
+        delegate.projectDiscoveryStarted(event);
+    }
+
+    @Override
+    public void sessionStarted(ExecutionEvent event) {
+        delegate.sessionStarted(event);
+    }
+
+    @Override
+    public void sessionEnded(ExecutionEvent event) {
+        delegate.sessionEnded(event);
+    }
+
+    @Override
+    public void projectSkipped(ExecutionEvent event) {
+        delegate.projectSkipped(event);
+    }
+
+    @Override
+    public void projectFailed(ExecutionEvent event) {
+        delegate.projectFailed(event);
+    }
+
+    @Override
+    public void mojoSkipped(ExecutionEvent event) {
+        delegate.mojoSkipped(event);
+    }
+
+    @Override
+    public void mojoStarted(ExecutionEvent event) {
+        delegate.mojoStarted(event);
+    }
+
+    @Override
+    public void mojoSucceeded(ExecutionEvent event) {
+        delegate.mojoSucceeded(event);
+    }
+
+    @Override
+    public void mojoFailed(ExecutionEvent event) {
+        delegate.mojoFailed(event);
+    }
+
+    @Override
+    public void forkStarted(ExecutionEvent event) {
+        delegate.forkStarted(event);
+    }
+
+    @Override
+    public void forkSucceeded(ExecutionEvent event) {
+        delegate.forkSucceeded(event);
+    }
+
+    @Override
+    public void forkFailed(ExecutionEvent event) {
+        delegate.forkFailed(event);
+    }
+
+    @Override
+    public void forkedProjectStarted(ExecutionEvent event) {
+        delegate.forkedProjectStarted(event);
+    }
+
+    @Override
+    public void forkedProjectSucceeded(ExecutionEvent event) {
+        delegate.forkedProjectSucceeded(event);
+    }
+
+    @Override
+    public void forkedProjectFailed(ExecutionEvent event) {
+        delegate.forkedProjectFailed(event);
+    }
+}
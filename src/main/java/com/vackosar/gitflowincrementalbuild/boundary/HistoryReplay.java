@@ -0,0 +1,188 @@
+package com.vackosar.gitflowincrementalbuild.boundary;
+
+import com.vackosar.gitflowincrementalbuild.control.PhaseTimings;
+import com.vackosar.gitflowincrementalbuild.control.Property;
+import com.vackosar.gitflowincrementalbuild.control.jgit.GitFactory;
+import org.apache.maven.execution.ExecutionListener;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * Replays the last {@link Configuration#replayCommits} commits of the base branch (following only the first parent of merge commits, so on a
+ * mainline each commit is usually a merged change) to evaluate the speed and the build avoidance of the current configuration.
+ * <p>
+ * For each commit, the regular decision logic ({@code DifferentFiles} → {@code ChangedProjects} → impacted and rebuild modules) compares the
+ * commit to its first parent on the current reactor, without fetching, checking out or building anything. The results are written as CSV to
+ * {@value #REPLAY_FILE} in the build directory of the top level project. The peak heap is the sum of the peaks of all heap memory pools during
+ * the replay of the respective commit, so it includes the heap that is occupied by Maven itself.
+ * </p>
+ * <p>
+ * The properties of the reactor projects are restored after each commit, so the arguments for upstream modules of one commit (see
+ * {@link Configuration#argsForUpstreamModules}) neither affect the next commit nor the remaining build.
+ * </p>
+ */
+@Singleton
+@Named
+class HistoryReplay {
+
+    static final String REPLAY_FILE = "gib/replay.csv";
+    static final String CSV_HEADER =
+            "commit,parent,time_ms,peak_heap_bytes,allocated_bytes,changed_files,changed_modules,impacted_modules,rebuild_modules";
+
+    private Logger logger = LoggerFactory.getLogger(HistoryReplay.class);
+
+    @Inject private MavenSession mavenSession;
+    @Inject private Configuration.Provider configProvider;
+    @Inject private UnchangedProjectsRemover unchangedProjectsRemover;
+    @Inject private PhaseTimings phaseTimings;
+
+    /**
+     * Replays the commits and reduces the session to the top level project (with goal {@code validate}) since nothing shall be built.
+     *
+     * @return the written CSV file
+     */
+    Path replay() throws GitAPIException, IOException {
+        Configuration configuration = configProvider.get();
+        List<RevCommit> commits = findCommits(configuration);
+        logger.info("Replaying {} commits of {}...", commits.size(), configuration.baseBranch);
+
+        List<MavenProject> reactorProjects = new ArrayList<>(mavenSession.getProjects());
+        ExecutionListener executionListener = mavenSession.getRequest().getExecutionListener();
+        List<String> lines = new ArrayList<>();
+        lines.add(CSV_HEADER);
+        try {
+            for (RevCommit commit : commits) {
+                lines.add(replay(commit, reactorProjects));
+            }
+        } finally {
+            configProvider.clearOverrides();
+            mavenSession.getRequest().setExecutionListener(executionListener);
+        }
+
+        Path file = getReplayFile();
+        Files.createDirectories(file.getParent());
+        Files.write(file, lines, StandardCharsets.UTF_8);
+        logger.info("Replay of {} commits written to {}, skipping the build.", commits.size(), file);
+
+        mavenSession.setProjects(Collections.singletonList(mavenSession.getTopLevelProject()));
+        mavenSession.getGoals().clear();
+        mavenSession.getGoals().add("validate");
+        return file;
+    }
+
+    private List<RevCommit> findCommits(Configuration configuration) throws IOException {
+        Repository repository = GitFactory.getOrCreateThreadLocalGit(mavenSession, configuration).getRepository();
+        ObjectId start = repository.resolve(configuration.baseBranch);
+        if (start == null) {
+            throw new IllegalArgumentException("Git Ref " + configuration.baseBranch + " not found.");
+        }
+        List<RevCommit> commits = new ArrayList<>();
+        try (RevWalk walk = new RevWalk(repository)) {
+            RevCommit commit = walk.parseCommit(start);
+            while (commits.size() < configuration.replayCommits && commit.getParentCount() > 0) {
+                commits.add(commit);
+                commit = walk.parseCommit(commit.getParent(0));
+            }
+        }
+        return commits;
+    }
+
+    private String replay(RevCommit commit, List<MavenProject> reactorProjects) throws GitAPIException, IOException {
+        String parent = commit.getParent(0).name();
+        Map<Property, String> overrides = new EnumMap<>(Property.class);
+        overrides.put(Property.disableBranchComparison, "false");
+        overrides.put(Property.baseBranch, commit.name());
+        overrides.put(Property.referenceBranch, parent);
+        overrides.put(Property.fetchBaseBranch, "false");
+        overrides.put(Property.fetchReferenceBranch, "false");
+        overrides.put(Property.compareToMergeBase, "false");
+        overrides.put(Property.uncommited, "false");
+        overrides.put(Property.untracked, "false");
+        configProvider.override(overrides);
+
+        mavenSession.setProjects(new ArrayList<>(reactorProjects));
+        // adjustProjects() modifies the properties of upstream modules (e.g. argsForUpstreamModules), which must not leak into the next commit
+        Map<MavenProject, Properties> originalProperties = new IdentityHashMap<>();
+        reactorProjects.forEach(project -> originalProperties.put(project, copy(project.getProperties())));
+        try {
+            phaseTimings.reset();
+            List<MemoryPoolMXBean> heapPools = getHeapPools();
+            heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+            long startNanos = System.nanoTime();
+            try (PhaseTimings.Phase phase = phaseTimings.startMeasuringAllocations("replay")) {
+                unchangedProjectsRemover.adjustProjects();
+            }
+            long millis = (System.nanoTime() - startNanos) / 1_000_000;
+            long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+
+            Map<String, Long> counts = phaseTimings.getCounts();
+            long changedModules = counts.getOrDefault(PhaseTimings.MODULES_CHANGED, 0L);
+            String line = String.join(",", commit.name(), parent, Long.toString(millis), Long.toString(peakHeap),
+                    Long.toString(counts.getOrDefault(PhaseTimings.BYTES_ALLOCATED, 0L)),
+                    Long.toString(counts.getOrDefault(PhaseTimings.FILES_CHANGED, 0L)),
+                    Long.toString(changedModules),
+                    Long.toString(counts.getOrDefault(PhaseTimings.MODULES_IMPACTED, 0L)),
+                    // without changes, only the top level project is "built" (validate)
+                    Long.toString(changedModules > 0 || configProvider.get().buildAllIfNoChanges ? mavenSession.getProjects().size() : 0));
+            logger.debug("Replayed {}: {}", commit.name(), line);
+            return line;
+        } finally {
+            originalProperties.forEach((project, properties) -> {
+                project.getProperties().clear();
+                project.getProperties().putAll(properties);
+            });
+        }
+    }
+
+    private static Properties copy(Properties properties) {
+        Properties copy = new Properties();
+        copy.putAll(properties);
+        return copy;
+    }
+
+    private Path getReplayFile() {
+        MavenProject topLevelProject = mavenSession.getTopLevelProject();
+        return Optional.ofNullable(topLevelProject.getBuild().getDirectory())
+                .map(Paths::get)
+                .orElseGet(() -> topLevelProject.getBasedir().toPath().resolve("target"))
+                .resolve(REPLAY_FILE);
+    }
+
+    private static List<MemoryPoolMXBean> getHeapPools() {
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                heapPools.add(pool);
+            }
+        }
+        return heapPools;
+    }
+}
@@ -0,0 +1,226 @@
+package com.vackosar.gitflowincrementalbuild.boundary;
+
+import com.vackosar.gitflowincrementalbuild.boundary.UnchangedProjectsRemover.Impact;
+import com.vackosar.gitflowincrementalbuild.control.AbiFingerprints;
+import com.vackosar.gitflowincrementalbuild.control.BuildDurations;
+import com.vackosar.gitflowincrementalbuild.control.BuildMetrics;
+import com.vackosar.gitflowincrementalbuild.control.ChangeClassifier;
+import com.vackosar.gitflowincrementalbuild.control.ChangedProjects;
+import com.vackosar.gitflowincrementalbuild.control.DifferentFiles;
+import com.vackosar.gitflowincrementalbuild.control.DownstreamPropagation;
+import com.vackosar.gitflowincrementalbuild.control.MergeBases;
+import com.vackosar.gitflowincrementalbuild.control.Modules;
+import com.vackosar.gitflowincrementalbuild.control.PhaseTimings;
+import com.vackosar.gitflowincrementalbuild.control.PomChangeAnalyzer;
+import com.vackosar.gitflowincrementalbuild.control.PomReactorReader;
+import com.vackosar.gitflowincrementalbuild.control.Property;
+import com.vackosar.gitflowincrementalbuild.control.SourceFingerprints;
+import com.vackosar.gitflowincrementalbuild.control.TestSelection;
+import com.vackosar.gitflowincrementalbuild.control.jgit.GitFactory;
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.execution.ProjectDependencyGraph;
+import org.apache.maven.graph.DefaultProjectDependencyGraph;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.RepositorySystemSession;
+
+import javax.inject.Inject;
+
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Command line entry point that prints the modules gitflow-incremental-builder would build, without starting Maven: the reactor is read via
+ * {@link PomReactorReader} and the regular decision logic of {@link UnchangedProjectsRemover} is applied to it.
+ * <p>
+ * Each determined module is printed as a line {@code <kind>\t<path>}, where kind is {@code changed}, {@code impacted} (including the changed
+ * modules), {@code upstream} or {@code forced} and path is the directory of the module relative to the top level project ({@code .} for the
+ * top level project itself). Configuration properties are read from the poms (as far as {@code PomReactorReader} can resolve them), from
+ * {@code -D} arguments and from system properties.
+ * </p>
+ */
+public class ImpactCli {
+
+    static final String USAGE = "Usage: java -jar gib-impact.jar [-f <pom.xml or directory>] [-D<property>=<value>...]\n"
+            + "       java -jar gib-impact.jar [-f <pom.xml or directory>] [-D<property>=<value>...]"
+            + " --batch <base branch>[,<base branch>...] | --batch-file <file> [--output <directory>] [--threads <number>]";
+
+    static final String BATCH_OUTPUT_DIR = "gib/impact";
+
+    static final int EXIT_OK = 0;
+    static final int EXIT_FAILURE = 1;
+    static final int EXIT_USAGE = 2;
+
+    public static void main(String[] args) {
+        int status = run(args, System.out, System.err);
+        if (status != EXIT_OK) {
+            System.exit(status);
+        }
+    }
+
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        Path pom = Paths.get(".");
+        Properties properties = new Properties();
+        List<String> baseBranches = new ArrayList<>();
+        Path baseBranchesFile = null;
+        Path outputDirectory = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            boolean hasValue = i + 1 < args.length;
+            if (arg.startsWith("-D") && arg.length() > 2) {
+                // like Maven: -Dname without value means true
+                int separator = arg.indexOf('=');
+                properties.setProperty(separator < 0 ? arg.substring(2) : arg.substring(2, separator),
+                        separator < 0 ? Boolean.TRUE.toString() : arg.substring(separator + 1));
+            } else if (("-f".equals(arg) || "--file".equals(arg)) && hasValue) {
+                pom = Paths.get(args[++i]);
+            } else if ("--batch".equals(arg) && hasValue) {
+                baseBranches.addAll(Arrays.asList(args[++i].split(",")));
+            } else if ("--batch-file".equals(arg) && hasValue) {
+                baseBranchesFile = Paths.get(args[++i]);
+            } else if (("-o".equals(arg) || "--output".equals(arg)) && hasValue) {
+                outputDirectory = Paths.get(args[++i]);
+            } else if ("--threads".equals(arg) && hasValue && args[i + 1].matches("[1-9]\\d{0,3}")) {
+                threads = Integer.parseInt(args[++i]);
+            } else if ("-h".equals(arg) || "--help".equals(arg)) {
+                out.println(USAGE);
+                out.println(Property.exemplifyAll());
+                return EXIT_OK;
+            } else {
+                err.println("Unknown argument: " + arg);
+                err.println(USAGE);
+                return EXIT_USAGE;
+            }
+        }
+
+        try {
+            if (baseBranchesFile != null) {
+                Files.readAllLines(baseBranchesFile, StandardCharsets.UTF_8).stream()
+                        .map(String::trim)
+                        .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                        .forEach(baseBranches::add);
+            }
+            baseBranches.removeIf(String::isEmpty);
+            if (baseBranches.isEmpty() && (baseBranchesFile != null || outputDirectory != null)) {
+                err.println("No base branches given for batch mode.");
+                err.println(USAGE);
+                return EXIT_USAGE;
+            }
+
+            List<MavenProject> projects = new PomReactorReader().read(pom);
+            MavenProject topLevelProject = projects.get(0);
+            topLevelProject.setExecutionRoot(true);
+            topLevelProject.getProperties().putAll(properties);
+            if (!baseBranches.isEmpty()) {
+                Path reportDirectory = outputDirectory != null
+                        ? outputDirectory
+                        : Paths.get(topLevelProject.getBuild().getDirectory()).resolve(BATCH_OUTPUT_DIR);
+                return new BatchImpact(projects, reportDirectory, threads).run(baseBranches, out, err) ? EXIT_OK : EXIT_FAILURE;
+            }
+
+            UnchangedProjectsRemover remover = createRemover(createSession(topLevelProject, new DefaultProjectDependencyGraph(projects)));
+            remover.adjustProjects();
+            format(remover.getLastImpact(), topLevelProject.getBasedir().toPath()).forEach(out::println);
+            return EXIT_OK;
+        } catch (Exception e) {
+            err.println("gitflow-incremental-builder failed to calculate the impacted modules: " + e);
+            return EXIT_FAILURE;
+        } finally {
+            GitFactory.destroy();
+        }
+    }
+
+    /**
+     * Creates a session that builds all projects of the given graph, like a plain {@code mvn install} would.
+     *
+     * @param topLevelProject the top level project (with all properties set)
+     * @param graph the graph of the reactor, which can be shared by multiple sessions
+     * @return a new session
+     */
+    static MavenSession createSession(MavenProject topLevelProject, ProjectDependencyGraph graph) {
+        DefaultMavenExecutionRequest request = new DefaultMavenExecutionRequest();
+        request.setBaseDirectory(topLevelProject.getBasedir());
+        request.setGoals(new ArrayList<>(Collections.singletonList("install")));
+        MavenSession session = new MavenSession(null, (RepositorySystemSession) null, request, new DefaultMavenExecutionResult());
+        session.setProjects(graph.getSortedProjects());
+        session.setAllProjects(graph.getSortedProjects());
+        session.setProjectDependencyGraph(graph);
+        session.setCurrentProject(topLevelProject);
+        return session;
+    }
+
+    /**
+     * Wires the components that are required by {@link UnchangedProjectsRemover} for the given session, like Sisu would do within Maven.
+     *
+     * @param session the session
+     * @param sharedComponents components to use instead of new instances (e.g. to share them between multiple sessions)
+     * @return the wired remover
+     */
+    static UnchangedProjectsRemover createRemover(MavenSession session, Object... sharedComponents) {
+        UnchangedProjectsRemover remover = new UnchangedProjectsRemover();
+        List<Object> components = new ArrayList<>(Arrays.asList(sharedComponents));
+        components.addAll(Arrays.asList(session, new Configuration.Provider(session), new PhaseTimings(), new DifferentFiles(),
+                new Modules(), new PomChangeAnalyzer(), new ChangeClassifier(), new DownstreamPropagation(), new ChangedProjects(),
+                new SourceFingerprints(), new UpstreamOutputsWorkspaceReader(), new AbiFingerprints(), new BuildDurations(), new BuildMetrics(),
+                new MergeBases(), new TestSelection(), remover));
+        components.forEach(component -> inject(component, components));
+        return remover;
+    }
+
+    private static void inject(Object target, List<Object> components) {
+        for (Class<?> type = target.getClass(); type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (field.isAnnotationPresent(Inject.class)) {
+                    components.stream()
+                            .filter(field.getType()::isInstance)
+                            .findFirst()
+                            .ifPresent(component -> set(field, target, component));
+                }
+            }
+        }
+    }
+
+    private static void set(Field field, Object target, Object value) {
+        field.setAccessible(true);
+        try {
+            field.set(target, value);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Failed to inject " + field, e);
+        }
+    }
+
+    /**
+     * Formats the given impact as lines {@code <kind>\t<path>}.
+     *
+     * @param impact the impact
+     * @param root the directory to which the paths are relative
+     * @return the lines
+     */
+    static List<String> format(Impact impact, Path root) {
+        List<String> lines = new ArrayList<>();
+        format("changed", impact.changed, root, lines);
+        format("impacted", impact.impacted, root, lines);
+        format("upstream", impact.upstream, root, lines);
+        format("forced", impact.forced, root, lines);
+        return lines;
+    }
+
+    private static void format(String kind, Set<MavenProject> projects, Path root, List<String> lines) {
+        for (MavenProject project : projects) {
+            String path = root.relativize(project.getBasedir().toPath()).toString().replace('\\', '/');
+            lines.add(kind + "\t" + (path.isEmpty() ? "." : path));
+        }
+    }
+}
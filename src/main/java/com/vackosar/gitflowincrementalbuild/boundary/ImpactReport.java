@@ -0,0 +1,159 @@
+package com.vackosar.gitflowincrementalbuild.boundary;
+
+import com.vackosar.gitflowincrementalbuild.boundary.UnchangedProjectsRemover.Impact;
+import org.apache.maven.execution.ProjectDependencyGraph;
+import org.apache.maven.project.MavenProject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the modules of the final project list as JSON, each with the reason why it is built
+ * (see {@link com.vackosar.gitflowincrementalbuild.control.Property#writeImpactReportTo}):
+ * <pre>
+ * {
+ *   "modules": [
+ *     {"artifactId": "b", "path": "b", "role": "changed", "changedFiles": ["b/src/main/java/B.java"], "dependencyPath": ["b"]},
+ *     {"artifactId": "c", "path": "c", "role": "downstream", "changedFiles": ["b/src/main/java/B.java"], "dependencyPath": ["b", "c"]}
+ *   ]
+ * }
+ * </pre>
+ * The role is {@code changed}, {@code downstream}, {@code selected}, {@code upstream}, {@code forced} or {@code unchanged} (for modules that
+ * are built regardless of the changes, e.g. in buildAll mode). For changed and downstream modules, the dependency path leads from a changed module
+ * (via direct dependencies) to the module and the changed files are the ones of that changed module. All paths are relative to the top level
+ * project. Everything is taken from the {@link Impact} and the dependency graph, so no further git operations are required.
+ */
+class ImpactReport {
+
+    private final Impact impact;
+    private final ProjectDependencyGraph graph;
+    private final Path root;
+
+    /**
+     * @param impact the impact of the last adjustment of the project list
+     * @param graph the dependency graph of the reactor
+     * @param root the base directory of the top level project
+     */
+    ImpactReport(Impact impact, ProjectDependencyGraph graph, Path root) {
+        this.impact = impact;
+        this.graph = graph;
+        this.root = root.toAbsolutePath();
+    }
+
+    /**
+     * Writes the report, overwriting the given file if it already exists.
+     *
+     * @param file the file to write
+     * @param projects the final project list of the session
+     */
+    void write(Path file, List<MavenProject> projects) throws IOException {
+        Map<MavenProject, List<MavenProject>> paths = findDependencyPaths();
+        StringBuilder json = new StringBuilder("{\n  \"modules\": [");
+        for (int i = 0; i < projects.size(); i++) {
+            MavenProject project = projects.get(i);
+            List<MavenProject> path = paths.getOrDefault(project, Collections.emptyList());
+            Set<Path> changedFiles = path.isEmpty()
+                    ? Collections.emptySet()
+                    : impact.changedFiles.getOrDefault(path.get(0), Collections.emptySet());
+            json.append(i == 0 ? "\n" : ",\n")
+                    .append("    {\"artifactId\": ").append(quote(project.getArtifactId()))
+                    .append(", \"path\": ").append(quote(relativize(project.getBasedir().toPath())))
+                    .append(", \"role\": ").append(quote(roleOf(project)))
+                    .append(", \"changedFiles\": ").append(changedFiles.stream().map(this::relativize).sorted().map(ImpactReport::quote)
+                            .collect(Collectors.joining(", ", "[", "]")))
+                    .append(", \"dependencyPath\": ").append(path.stream().map(proj -> quote(proj.getArtifactId()))
+                            .collect(Collectors.joining(", ", "[", "]")))
+                    .append('}');
+        }
+        json.append(projects.isEmpty() ? "]\n}\n" : "\n  ]\n}\n");
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.write(file, json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String roleOf(MavenProject project) {
+        if (impact.changed.contains(project)) {
+            return "changed";
+        } else if (impact.impacted.contains(project) && !impact.selected.contains(project)) {
+            return "downstream";
+        } else if (impact.selected.contains(project)) {
+            return "selected";
+        } else if (impact.upstream.contains(project)) {
+            return "upstream";
+        } else if (impact.forced.contains(project)) {
+            return "forced";
+        }
+        return "unchanged";
+    }
+
+    // breadth-first from all changed modules along the direct dependencies, so each impacted module gets a shortest path
+    private Map<MavenProject, List<MavenProject>> findDependencyPaths() {
+        Map<MavenProject, MavenProject> predecessors = new HashMap<>();
+        Deque<MavenProject> queue = new ArrayDeque<>();
+        impact.changed.forEach(proj -> {
+            predecessors.put(proj, proj);
+            queue.add(proj);
+        });
+        while (!queue.isEmpty()) {
+            MavenProject project = queue.poll();
+            for (MavenProject downstream : graph.getDownstreamProjects(project, false)) {
+                if (impact.impacted.contains(downstream) && predecessors.putIfAbsent(downstream, project) == null) {
+                    queue.add(downstream);
+                }
+            }
+        }
+        Map<MavenProject, List<MavenProject>> paths = new HashMap<>();
+        for (MavenProject project : impact.impacted) {
+            List<MavenProject> path = new ArrayList<>();
+            MavenProject current = project;
+            while (predecessors.containsKey(current) && predecessors.get(current) != current) {
+                path.add(0, current);
+                current = predecessors.get(current);
+            }
+            if (predecessors.containsKey(current)) {
+                path.add(0, current);
+            } else {
+                // not reached via direct dependencies within the impacted modules (e.g. limited by pom analysis): any changed upstream module
+                impact.changed.stream()
+                        .filter(changed -> graph.getDownstreamProjects(changed, true).contains(project))
+                        .findFirst()
+                        .ifPresent(changed -> path.addAll(Arrays.asList(changed, project)));
+            }
+            paths.put(project, path);
+        }
+        return paths;
+    }
+
+    private String relativize(Path path) {
+        String relative = root.relativize(path.toAbsolutePath()).toString().replace('\\', '/');
+        return relative.isEmpty() ? "." : relative;
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
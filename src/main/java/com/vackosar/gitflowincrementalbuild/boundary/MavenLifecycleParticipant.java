@@ -1,11 +1,18 @@
 package com.vackosar.gitflowincrementalbuild.boundary;
 
+import com.vackosar.gitflowincrementalbuild.control.AbiFingerprints;
+import com.vackosar.gitflowincrementalbuild.control.BuildDurations;
+import com.vackosar.gitflowincrementalbuild.control.PhaseTimings;
 import com.vackosar.gitflowincrementalbuild.control.Property;
+import com.vackosar.gitflowincrementalbuild.control.SourceFingerprints;
 import com.vackosar.gitflowincrementalbuild.control.jgit.GitFactory;
 import com.vackosar.gitflowincrementalbuild.entity.SkipExecutionException;
 import org.apache.maven.AbstractMavenLifecycleParticipant;
 import org.apache.maven.MavenExecutionException;
+import org.apache.maven.execution.BuildSuccess;
+import org.apache.maven.execution.BuildSummary;
 import org.apache.maven.execution.MavenSession;
+import org.apache.maven.project.MavenProject;
 import org.eclipse.jgit.api.Git;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,6 +22,9 @@ import javax.inject.Named;
 import javax.inject.Singleton;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Singleton
 @Named
@@ -24,8 +34,18 @@ public class MavenLifecycleParticipant extends AbstractMavenLifecycleParticipant
 
     @Inject private UnchangedProjectsRemover unchangedProjectsRemover;
 
+    @Inject private HistoryReplay historyReplay;
+
     @Inject private Configuration.Provider configProvider;
 
+    @Inject private SourceFingerprints sourceFingerprints;
+
+    @Inject private AbiFingerprints abiFingerprints;
+
+    @Inject private PhaseTimings phaseTimings;
+
+    @Inject private BuildDurations buildDurations;
+
     private final String implVersion;
 
     public MavenLifecycleParticipant() {
@@ -46,6 +66,39 @@ public class MavenLifecycleParticipant extends AbstractMavenLifecycleParticipant
         }
     }
 
+    @Override
+    public void afterSessionEnd(MavenSession session) throws MavenExecutionException {
+        if (!Configuration.isEnabled(session) || session.getProjectDependencyGraph() == null) {
+            return;
+        }
+        try {
+            if (configProvider.get().reuseUpstreamOutputs) {
+                storeSourceFingerprints(session);
+            }
+        } catch (Exception e) {
+            logger.warn("gitflow-incremental-builder failed to store source fingerprints: {}", e.toString());
+            logger.debug("Full exception:", e);
+        }
+        try {
+            if (configProvider.get().pruneDownstreamOnUnchangedAbi) {
+                storeReferenceAbis(session);
+            }
+        } catch (Exception e) {
+            logger.warn("gitflow-incremental-builder failed to store API fingerprints: {}", e.toString());
+            logger.debug("Full exception:", e);
+        }
+        try {
+            if (configProvider.get().writeMetricsTo.isPresent()) {
+                storeBuildDurations(session);
+            }
+        } catch (Exception e) {
+            logger.warn("gitflow-incremental-builder failed to store build durations: {}", e.toString());
+            logger.debug("Full exception:", e);
+        } finally {
+            GitFactory.destroy();
+        }
+    }
+
     private void applyPlugin(MavenSession session) throws MavenExecutionException {
 
         if (Configuration.isHelpRequested(session)) {
@@ -72,7 +125,16 @@ public class MavenLifecycleParticipant extends AbstractMavenLifecycleParticipant
             }
 
             logger.info("gitflow-incremental-builder {} starting...", implVersion);
-            unchangedProjectsRemover.act();
+            if (configProvider.get().replayCommits > 0) {
+                historyReplay.replay();
+                logger.info("gitflow-incremental-builder exiting...");
+                return;
+            }
+            phaseTimings.reset();
+            try (PhaseTimings.Phase phase = phaseTimings.startMeasuringAllocations("applyPlugin")) {
+                unchangedProjectsRemover.act();
+            }
+            logger.info("gitflow-incremental-builder timings: {}", phaseTimings.summarize());
         } catch (Exception e) {
             boolean isSkipExecException = e instanceof SkipExecutionException;
             if (!configProvider.get().failOnError || isSkipExecException) {
@@ -96,6 +158,41 @@ public class MavenLifecycleParticipant extends AbstractMavenLifecycleParticipant
         return configuration.disableIfBranchRegex.get().test(branchName);
     }
 
+    private void storeSourceFingerprints(MavenSession session) throws Exception {
+        // the build might have changed the working tree since the start of the session
+        sourceFingerprints.refreshStatus();
+        for (MavenProject project : session.getProjects()) {
+            // note: without compile, the outputs might be stale or missing (e.g. for "mvn validate")
+            if (session.getResult().getBuildSummary(project) instanceof BuildSuccess
+                    && ("pom".equals(project.getPackaging()) || project.hasLifecyclePhase("compile"))) {
+                sourceFingerprints.store(project, project.hasLifecyclePhase("package"));
+            }
+        }
+    }
+
+    private void storeReferenceAbis(MavenSession session) throws Exception {
+        // the build might have changed the working tree since the start of the session
+        sourceFingerprints.refreshStatus();
+        for (MavenProject project : session.getProjects()) {
+            // note: pruned modules have not been installed, so their previously stored fingerprints are kept
+            if (session.getResult().getBuildSummary(project) instanceof BuildSuccess && project.hasLifecyclePhase("install")) {
+                DownstreamPruningListener.storeReferenceAbi(session, sourceFingerprints, abiFingerprints, project);
+            }
+        }
+    }
+
+    private void storeBuildDurations(MavenSession session) throws IOException {
+        Map<MavenProject, Duration> durations = new LinkedHashMap<>();
+        for (MavenProject project : session.getProjects()) {
+            BuildSummary buildSummary = session.getResult().getBuildSummary(project);
+            // note: durations of partial builds (e.g. "mvn validate") would distort the stored durations
+            if (buildSummary instanceof BuildSuccess && ("pom".equals(project.getPackaging()) || project.hasLifecyclePhase("compile"))) {
+                durations.put(project, Duration.ofMillis(buildSummary.getTime()));
+            }
+        }
+        buildDurations.store(durations);
+    }
+
     private void logHelp() {
         logger.info("gitflow-incremental-builder {} help:\n{}\nFor more help see: {}/tree/version/{}#configuration\n",
                 implVersion,
@@ -1,12 +1,23 @@
 package com.vackosar.gitflowincrementalbuild.boundary;
 
 import com.vackosar.gitflowincrementalbuild.boundary.Configuration.BuildUpstreamMode;
+import com.vackosar.gitflowincrementalbuild.control.AbiFingerprints;
+import com.vackosar.gitflowincrementalbuild.control.BuildMetrics;
+import com.vackosar.gitflowincrementalbuild.control.ChangeClassifier;
 import com.vackosar.gitflowincrementalbuild.control.ChangedProjects;
+import com.vackosar.gitflowincrementalbuild.control.DifferentFiles;
+import com.vackosar.gitflowincrementalbuild.control.DownstreamPropagation;
+import com.vackosar.gitflowincrementalbuild.control.PhaseTimings;
+import com.vackosar.gitflowincrementalbuild.control.PomChangeAnalyzer;
+import com.vackosar.gitflowincrementalbuild.control.SourceFingerprints;
+import com.vackosar.gitflowincrementalbuild.control.TestSelection;
 
 import org.apache.maven.execution.MavenExecutionRequest;
 import org.apache.maven.execution.MavenSession;
+import org.apache.maven.execution.ProjectDependencyGraph;
 import org.apache.maven.project.MavenProject;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,6 +30,7 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.regex.Pattern;
@@ -33,19 +45,58 @@ class UnchangedProjectsRemover {
     private static final String MAVEN_TEST_SKIP_EXEC = "skipTests";
     private static final String TEST_JAR_DETECTED = "Dependency with test-jar goal detected. Will compile test sources.";
     private static final String GOAL_TEST_JAR = "test-jar";
+    private static final String PACKAGING_POM = "pom";
+    // not prefixed with "gib." to not be mistaken for (invalid) configuration properties
+    static final String PROPERTY_CHANGED_FILES = "gibChangedFiles";
+    static final String PROPERTY_CHANGED_FILES_MANIFEST = "gibChangedFilesManifest";
+    static final String CHANGED_FILES_MANIFEST = "gib/changed-files.txt";
+    private static final String SUREFIRE_TEST = "test";
+    private static final String SUREFIRE_FAIL_IF_NO_SPECIFIED_TESTS = "surefire.failIfNoSpecifiedTests";
 
     private Logger logger = LoggerFactory.getLogger(UnchangedProjectsRemover.class);
 
     @Inject private ChangedProjects changedProjects;
+    @Inject private ChangeClassifier changeClassifier;
+    @Inject private DownstreamPropagation downstreamPropagation;
+    @Inject private PomChangeAnalyzer pomChangeAnalyzer;
     @Inject private MavenSession mavenSession;
     @Inject private Configuration.Provider configProvider;
+    @Inject private SourceFingerprints sourceFingerprints;
+    @Inject private UpstreamOutputsWorkspaceReader upstreamOutputsReader;
+    @Inject private AbiFingerprints abiFingerprints;
+    @Inject private DifferentFiles differentFiles;
+    @Inject private PhaseTimings phaseTimings;
+    @Inject private BuildMetrics buildMetrics;
+    @Inject private TestSelection testSelection;
+
+    private Impact lastImpact = new Impact();
 
     void act() throws GitAPIException, IOException {
+        final List<MavenProject> reactorProjects = new ArrayList<>(mavenSession.getProjects());
+        // the top level project of the session might change with the project list
+        final MavenProject topLevelProject = mavenSession.getTopLevelProject();
+        adjustProjects();
+        configProvider.get().writeMetricsTo.ifPresent(metricsFilePath -> writeMetricsFile(reactorProjects, metricsFilePath));
+        configProvider.get().writeImpactReportTo.ifPresent(reportFilePath -> writeImpactReport(topLevelProject, reportFilePath));
+        if (configProvider.get().writeChangedFilesManifest) {
+            mavenSession.getProjects().forEach(this::writeChangedFilesManifest);
+        }
+        if (configProvider.get().selectTests) {
+            selectTests();
+        }
+    }
+
+    /**
+     * Removes the unchanged projects from the session (without writing metrics), also used by {@link HistoryReplay}.
+     */
+    void adjustProjects() throws GitAPIException, IOException {
+        lastImpact = new Impact();
         // ensure to write logfile for impaced (even if just empty)
         configProvider.get().logImpactedTo.ifPresent(logFilePath -> writeImpactedLogFile(Collections.emptySet(), logFilePath));
 
         // before checking for any changes, check whether there are _only_ explicitly selected projects (-pl) which have the highest priority
         final Set<MavenProject> selected = ProjectSelectionUtil.gatherSelectedProjects(mavenSession);
+        lastImpact.selected.addAll(selected);
         if (onlySelectedModulesPresent(selected)) {
             printDelimiter();
             logger.info("Building explicitly selected projects (without any adjustment): {}",
@@ -62,7 +113,11 @@ class UnchangedProjectsRemover {
             return;
         }
 
-        final Set<MavenProject> changed = changedProjects.get();
+        final Set<MavenProject> changed = changedProjects.get(ProjectSelectionUtil.gatherScope(mavenSession, selected));
+        phaseTimings.count(PhaseTimings.MODULES_CHANGED, changed.size());
+        lastImpact.changed.addAll(changed);
+        // the changed files are already known from the change detection, so the report does not need another git pass
+        changed.forEach(proj -> lastImpact.changedFiles.put(proj, changedProjects.getChangedFiles(proj)));
         printDelimiter();
         if (changed.isEmpty()) {
             handleNoChangesDetected(selected);
@@ -70,12 +125,22 @@ class UnchangedProjectsRemover {
         }
         logProjects(changed, "Changed Artifacts:");
 
-        final Set<MavenProject> impacted = calculateImpactedProjects(selected, changed);
+        final Set<MavenProject> impacted;
+        try (PhaseTimings.Phase phase = phaseTimings.start("calculateImpacted")) {
+            impacted = calculateImpactedProjects(selected, changed);
+        }
+        phaseTimings.count(PhaseTimings.MODULES_IMPACTED, impacted.size());
+        lastImpact.impacted.addAll(impacted);
 
         configProvider.get().logImpactedTo.ifPresent(logFilePath -> writeImpactedLogFile(impacted, logFilePath));
 
         if (!configProvider.get().buildAll) {
-            modifyProjectList(selected, changed, impacted);
+            try (PhaseTimings.Phase phase = phaseTimings.start("modifyProjectList")) {
+                modifyProjectList(selected, changed, impacted);
+            }
+            if (configProvider.get().pruneDownstreamOnUnchangedAbi && configProvider.get().buildDownstream) {
+                installDownstreamPruning(selected, changed, impacted);
+            }
         } else {
             mavenSession.getProjects().stream()
                     .filter(proj -> !impacted.contains(proj))
@@ -83,6 +148,13 @@ class UnchangedProjectsRemover {
         }
     }
 
+    /**
+     * @return the modules that have been determined by the last call of {@link #adjustProjects()}, also used by {@link ImpactCli}
+     */
+    Impact getLastImpact() {
+        return lastImpact;
+    }
+
     private void writeImpactedLogFile(Set<MavenProject> impacted, Path logFilePath) {
         List<String> projectsToLog = impacted.isEmpty()
                 ? Collections.emptyList()
@@ -98,6 +170,77 @@ class UnchangedProjectsRemover {
         }
     }
 
+    private void writeMetricsFile(List<MavenProject> reactorProjects, Path metricsFilePath) {
+        try {
+            buildMetrics.write(metricsFilePath, reactorProjects);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to write metrics to " + metricsFilePath, e);
+        }
+    }
+
+    private void writeImpactReport(MavenProject topLevelProject, Path reportFilePath) {
+        try {
+            new ImpactReport(lastImpact, mavenSession.getProjectDependencyGraph(), topLevelProject.getBasedir().toPath())
+                    .write(reportFilePath, mavenSession.getProjects());
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to write impact report to " + reportFilePath, e);
+        }
+    }
+
+    private void writeChangedFilesManifest(MavenProject project) {
+        Path basedir = project.getBasedir().toPath();
+        // deleted files cannot be processed by any plugin
+        List<String> changedFiles = lastImpact.changedFiles.getOrDefault(project, Collections.emptySet()).stream()
+                .filter(Files::exists)
+                .map(file -> basedir.relativize(file).toString().replace('\\', '/'))
+                .sorted()
+                .collect(Collectors.toList());
+        Path manifestFilePath = Paths.get(project.getBuild().getDirectory()).resolve(CHANGED_FILES_MANIFEST);
+        logger.debug("Writing changed files of {} to {}: {}", project.getArtifactId(), manifestFilePath, changedFiles);
+        try {
+            Files.createDirectories(manifestFilePath.getParent());
+            Files.write(manifestFilePath, changedFiles, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to write changed files manifest to " + manifestFilePath, e);
+        }
+        project.getProperties().setProperty(PROPERTY_CHANGED_FILES, String.join(",", changedFiles));
+        project.getProperties().setProperty(PROPERTY_CHANGED_FILES_MANIFEST, manifestFilePath.toString());
+    }
+
+    private void selectTests() {
+        // an explicit selection has precedence
+        if (mavenSession.getUserProperties().containsKey(SUREFIRE_TEST)) {
+            return;
+        }
+        lastImpact.changed.stream()
+                .filter(mavenSession.getProjects()::contains)
+                .filter(proj -> !lastImpact.upstream.contains(proj) && !lastImpact.selected.contains(proj))
+                .forEach(proj -> {
+                    Optional<Set<String>> tests;
+                    try (PhaseTimings.Phase phase = phaseTimings.start("selectTests")) {
+                        tests = testSelection.select(proj, lastImpact.changedFiles.getOrDefault(proj, Collections.emptySet()));
+                    } catch (IOException e) {
+                        logger.warn("Failed to select the tests of {}, will run all tests: {}", proj.getArtifactId(), e.toString());
+                        logger.debug("Full exception:", e);
+                        return;
+                    }
+                    tests.ifPresent(selected -> applyTestSelection(proj, selected));
+                });
+    }
+
+    private void applyTestSelection(MavenProject project, Set<String> tests) {
+        Properties projectProperties = project.getProperties();
+        if (tests.isEmpty()) {
+            logger.info("{}: skipping tests (no test is affected by the changes).", project.getArtifactId());
+            projectProperties.setProperty(MAVEN_TEST_SKIP_EXEC, Boolean.TRUE.toString());
+        } else {
+            logger.info("{}: running {} affected test class(es).", project.getArtifactId(), tests.size());
+            projectProperties.setProperty(SUREFIRE_TEST, String.join(",", tests));
+            // not every selected class is necessarily a test (e.g. test utilities)
+            projectProperties.setProperty(SUREFIRE_FAIL_IF_NO_SPECIFIED_TESTS, Boolean.FALSE.toString());
+        }
+    }
+
     private boolean onlySelectedModulesPresent(Set<MavenProject> selected) {
         return !selected.isEmpty() && mavenSession.getProjects().equals(new ArrayList<>(selected));
     }
@@ -139,13 +282,69 @@ class UnchangedProjectsRemover {
         Stream<MavenProject> impacted = selected.isEmpty() ? changed.stream() : Stream.concat(selected.stream(), changed.stream()).distinct();
         // note: buildAll *always* needs impacted incl. downstream, otherwise applyNotImpactedModuleArgs() might disable tests etc. for downstream modules!
         if (cfg.buildAll || cfg.buildDownstream) {
-            impacted = impacted.flatMap(this::streamProjectWithDownstreamProjects);
+            Set<MavenProject> testOnly = cfg.skipDownstreamOnTestOnlyChanges
+                    ? findTestOnlyChanged(selected, changed)
+                    : Collections.emptySet();
+            Set<MavenProject> implementationOnly = cfg.classifyJavaChanges
+                    ? findImplementationOnlyChanged(selected, changed)
+                    : Collections.emptySet();
+            Map<MavenProject, Set<MavenProject>> pomOnly = cfg.analyzePomChanges
+                    ? findPomOnlyChanged(selected, changed)
+                    : Collections.emptyMap();
+            impacted = impacted.flatMap(proj -> {
+                if (testOnly.contains(proj)) {
+                    return Stream.of(proj);
+                }
+                if (pomOnly.containsKey(proj)) {
+                    return Stream.concat(
+                            Stream.of(proj),
+                            pomOnly.get(proj).stream().flatMap(this::streamProjectWithImpactedDownstreamProjects));
+                }
+                return implementationOnly.contains(proj)
+                        ? streamProjectWithDirectDownstreamProjects(proj)
+                        : streamProjectWithImpactedDownstreamProjects(proj);
+            });
         }
         return impacted
                 .filter(mavenSession.getProjects()::contains)   // not deselected
                 .collect(Collectors.toCollection(LinkedHashSet::new));
     }
 
+    private Set<MavenProject> findTestOnlyChanged(Set<MavenProject> selected, Set<MavenProject> changed) {
+        Set<MavenProject> testOnly = changed.stream()
+                .filter(proj -> !selected.contains(proj))
+                .filter(proj -> !projectDeclaresTestJarGoal(proj))
+                .filter(proj -> changeClassifier.isTestOnly(proj, changedProjects.getChangedFiles(proj)))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (!testOnly.isEmpty()) {
+            logProjects(testOnly, "Changed Artifacts with test-only changes (not impacting downstream modules):");
+        }
+        return testOnly;
+    }
+
+    private Map<MavenProject, Set<MavenProject>> findPomOnlyChanged(Set<MavenProject> selected, Set<MavenProject> changed) {
+        Map<MavenProject, Set<MavenProject>> pomOnly = new LinkedHashMap<>();
+        changed.stream()
+                .filter(proj -> !selected.contains(proj))
+                .forEach(proj -> pomChangeAnalyzer.findAffectedDownstreamProjects(proj, changedProjects.getChangedFiles(proj))
+                        .ifPresent(affected -> pomOnly.put(proj, affected)));
+        if (!pomOnly.isEmpty()) {
+            logProjects(pomOnly.keySet(), "Changed Artifacts with analyzed pom.xml changes (impacting only the modules that use the changed elements):");
+        }
+        return pomOnly;
+    }
+
+    private Set<MavenProject> findImplementationOnlyChanged(Set<MavenProject> selected, Set<MavenProject> changed) {
+        Set<MavenProject> implementationOnly = changed.stream()
+                .filter(proj -> !selected.contains(proj))
+                .filter(proj -> changeClassifier.isImplementationOnly(changedProjects.getChangedFiles(proj)))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (!implementationOnly.isEmpty()) {
+            logProjects(implementationOnly, "Changed Artifacts with implementation-only changes (impacting only their direct dependents):");
+        }
+        return implementationOnly;
+    }
+
     private void modifyProjectList(Set<MavenProject> selected, Set<MavenProject> changed, Set<MavenProject> impacted) {
         Set<MavenProject> rebuild = calculateRebuildProjects(selected, changed, impacted);
         if (rebuild.isEmpty()) {
@@ -156,6 +355,8 @@ class UnchangedProjectsRemover {
                     .filter(proj -> matchesAny(proj.getArtifactId(), configProvider.get().forceBuildModules))
                     .map(this::applyUpstreamModuleArgs)
                     .collect(Collectors.toCollection(LinkedHashSet::new));
+            phaseTimings.count(PhaseTimings.MODULES_FORCED, forceBuildModules.size());
+            lastImpact.forced.addAll(forceBuildModules);
             mavenSession.setProjects(mavenSession.getProjects().stream()
                     .filter(proj -> forceBuildModules.contains(proj) || rebuild.contains(proj))
                     .collect(Collectors.toList()));
@@ -164,6 +365,26 @@ class UnchangedProjectsRemover {
         }
     }
 
+    private void installDownstreamPruning(Set<MavenProject> selected, Set<MavenProject> changed, Set<MavenProject> impacted)
+            throws IOException {
+        Set<MavenProject> prunable = impacted.stream()
+                .filter(proj -> !changed.contains(proj) && !selected.contains(proj))
+                .filter(mavenSession.getProjects()::contains)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (prunable.isEmpty()) {
+            return;
+        }
+        Optional<ObjectId> referenceTree = differentFiles.getReferenceTree();
+        if (!referenceTree.isPresent()) {
+            logger.warn("Downstream modules will not be skipped since the reference cannot be resolved.");
+            return;
+        }
+        logger.info("Downstream modules will be skipped if the API of their changed upstream modules is unchanged.");
+        MavenExecutionRequest request = mavenSession.getRequest();
+        request.setExecutionListener(new DownstreamPruningListener(request.getExecutionListener(), mavenSession, abiFingerprints,
+                sourceFingerprints, referenceTree.get(), impacted, prunable));
+    }
+
     private Set<MavenProject> calculateRebuildProjects(Set<MavenProject> selected, Set<MavenProject> changed, Set<MavenProject> impacted) {
         BuildUpstreamMode buildUpstreamMode = configProvider.get().buildUpstreamMode;
         Set<MavenProject> upstreamProjects;
@@ -213,13 +434,47 @@ class UnchangedProjectsRemover {
                     .collect(Collectors.toCollection(LinkedHashSet::new));
         }
 
+        if (configProvider.get().reuseUpstreamOutputs) {
+            removeUpstreamProjectsWithReusableOutputs(upstreamProjects);
+        }
         upstreamProjects.forEach(this::applyUpstreamModuleArgs);
+        phaseTimings.count(PhaseTimings.MODULES_UPSTREAM, upstreamProjects.size());
+        lastImpact.upstream.addAll(upstreamProjects);
 
         return mavenSession.getProjects().stream()
                 .filter(proj -> impacted.contains(proj) || upstreamProjects.contains(proj))
                 .collect(Collectors.toCollection(LinkedHashSet::new));
     }
 
+    private void removeUpstreamProjectsWithReusableOutputs(Set<MavenProject> upstreamProjects) {
+        if (!upstreamOutputsReader.isActive()) {
+            logger.warn("Cannot reuse existing outputs of upstream modules: This Maven version does not consult WorkspaceReaders of extensions.");
+            return;
+        }
+        Set<MavenProject> reused = upstreamProjects.stream()
+                .filter(this::hasReusableOutputs)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (!reused.isEmpty()) {
+            logProjects(reused, "Reusing existing outputs of upstream modules:");
+            upstreamProjects.removeAll(reused);
+        }
+    }
+
+    private boolean hasReusableOutputs(MavenProject project) {
+        try {
+            if (!sourceFingerprints.matchesStored(project)
+                    || !(PACKAGING_POM.equals(project.getPackaging()) || new File(project.getBuild().getOutputDirectory()).isDirectory())) {
+                return false;
+            }
+            upstreamOutputsReader.register(project, sourceFingerprints.wasPackaged(project));
+            return true;
+        } catch (IOException | GitAPIException e) {
+            logger.warn("Failed to check existing outputs of {}, will build it: {}", project.getArtifactId(), e.toString());
+            logger.debug("Full exception:", e);
+            return false;
+        }
+    }
+
     private MavenProject applyUpstreamModuleArgs(MavenProject mavenProject) {
         final Properties projectProperties = mavenProject.getProperties();
         if (configProvider.get().skipTestsForUpstreamModules) {
@@ -267,6 +522,24 @@ class UnchangedProjectsRemover {
                     .filter(proj -> !configProvider.get().excludeDownstreamModulesPackagedAs.contains(proj.getPackaging())));
     }
 
+    private Stream<MavenProject> streamProjectWithImpactedDownstreamProjects(MavenProject project) {
+        Map<String, Integer> limitDownstreamByScope = configProvider.get().limitDownstreamByScope;
+        if (limitDownstreamByScope.isEmpty()) {
+            return streamProjectWithDownstreamProjects(project);
+        }
+        return Stream.concat(
+            Stream.of(project),
+            downstreamPropagation.getDownstreamProjects(project, limitDownstreamByScope).stream()
+                    .filter(proj -> !configProvider.get().excludeDownstreamModulesPackagedAs.contains(proj.getPackaging())));
+    }
+
+    private Stream<MavenProject> streamProjectWithDirectDownstreamProjects(MavenProject project) {
+        return Stream.concat(
+            Stream.of(project),
+            mavenSession.getProjectDependencyGraph().getDownstreamProjects(project, false).stream()
+                    .filter(proj -> !configProvider.get().excludeDownstreamModulesPackagedAs.contains(proj.getPackaging())));
+    }
+
     private Stream<MavenProject> streamUpstreamProjects(MavenProject project) {
         return mavenSession.getProjectDependencyGraph().getUpstreamProjects(project, true).stream();
     }
@@ -275,6 +548,20 @@ class UnchangedProjectsRemover {
         return patterns.stream().anyMatch(pattern -> pattern.matcher(str).matches());
     }
 
+    /**
+     * The modules that have been determined by {@link #adjustProjects()}, each in reactor order (as far as known).
+     */
+    static class Impact {
+
+        final Set<MavenProject> selected = new LinkedHashSet<>();
+        final Set<MavenProject> changed = new LinkedHashSet<>();
+        final Map<MavenProject, Set<Path>> changedFiles = new HashMap<>();
+        // includes changed
+        final Set<MavenProject> impacted = new LinkedHashSet<>();
+        final Set<MavenProject> upstream = new LinkedHashSet<>();
+        final Set<MavenProject> forced = new LinkedHashSet<>();
+    }
+
     private static class ProjectSelectionUtil {
 
         static Set<MavenProject> gatherSelectedProjects(MavenSession mavenSession) {
@@ -288,6 +575,20 @@ class UnchangedProjectsRemover {
                     .collect(Collectors.toCollection(LinkedHashSet::new));
         }
 
+        // changes can only have an effect on the projects of the session if they are located in these projects or their upstream projects
+        // (the latter might not be part of the session if -am is not used)
+        static Set<MavenProject> gatherScope(MavenSession mavenSession, Set<MavenProject> selected) {
+            if (selected.isEmpty()) {
+                return Collections.emptySet();
+            }
+            ProjectDependencyGraph graph = mavenSession.getProjectDependencyGraph();
+            List<MavenProject> projects = mavenSession.getProjects();
+            return mavenSession.getAllProjects().stream()
+                    // the graph of the session is filtered, so this is non-empty for upstream projects of session projects only
+                    .filter(proj -> projects.contains(proj) || !graph.getDownstreamProjects(proj, true).isEmpty())
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+        }
+
         // inspired by: org.apache.maven.graph.DefaultGraphBuilder.isMatchingProject(MavenProject, String, File)
         private static boolean matchesSelector(MavenProject project, String selector, File reactorDirectory) {
             if (selector.contains(":")) {   // [groupId]:artifactId
@@ -0,0 +1,123 @@
+package com.vackosar.gitflowincrementalbuild.boundary;
+
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.repository.WorkspaceReader;
+import org.eclipse.aether.repository.WorkspaceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link WorkspaceReader} that resolves the artifacts of upstream modules that have been removed from the build by GIB because their existing
+ * outputs (from a previous local build) are still valid, see {@link Configuration#reuseUpstreamOutputs}.
+ * <p>
+ * Maven consults the {@code WorkspaceReader}s of build extensions <i>after</i> its own reactor reader, which does not resolve such modules because
+ * they are not built in the current session.
+ * </p>
+ */
+@Singleton
+@Named("gib-upstream-outputs")
+class UpstreamOutputsWorkspaceReader implements WorkspaceReader {
+
+    private static final String TESTS_CLASSIFIER = "tests";
+
+    private Logger logger = LoggerFactory.getLogger(UpstreamOutputsWorkspaceReader.class);
+
+    private final WorkspaceRepository repository = new WorkspaceRepository("gib-upstream-outputs");
+
+    private final Map<String, ReusedProject> reusedProjects = new ConcurrentHashMap<>();
+
+    private volatile boolean consulted;
+
+    /**
+     * Returns whether Maven has picked up this reader (which depends on the Maven version).
+     *
+     * @return {@code true} if Maven has requested the {@link #getRepository() repository} of this reader
+     */
+    boolean isActive() {
+        return consulted;
+    }
+
+    void register(MavenProject project, boolean packaged) {
+        reusedProjects.put(keyOf(project.getGroupId(), project.getArtifactId(), project.getVersion()), new ReusedProject(project, packaged));
+    }
+
+    @Override
+    public WorkspaceRepository getRepository() {
+        // Maven's ChainedWorkspaceReader queries the repository of each reader it chains
+        consulted = true;
+        return repository;
+    }
+
+    @Override
+    public File findArtifact(Artifact artifact) {
+        ReusedProject reused = reusedProjects.get(keyOf(artifact.getGroupId(), artifact.getArtifactId(), artifact.getBaseVersion()));
+        if (reused == null) {
+            return null;
+        }
+        File file = reused.find(artifact);
+        logger.debug("Resolved {} from existing outputs: {}", artifact, file);
+        return file;
+    }
+
+    @Override
+    public List<String> findVersions(Artifact artifact) {
+        return reusedProjects.values().stream()
+                .map(reused -> reused.project)
+                .filter(proj -> proj.getGroupId().equals(artifact.getGroupId()) && proj.getArtifactId().equals(artifact.getArtifactId()))
+                .map(MavenProject::getVersion)
+                .findFirst()
+                .map(Collections::singletonList)
+                .orElse(Collections.emptyList());
+    }
+
+    private static String keyOf(String groupId, String artifactId, String version) {
+        return groupId + ":" + artifactId + ":" + version;
+    }
+
+    private static class ReusedProject {
+
+        private final MavenProject project;
+        private final boolean packaged;
+
+        private ReusedProject(MavenProject project, boolean packaged) {
+            this.project = project;
+            this.packaged = packaged;
+        }
+
+        private File find(Artifact artifact) {
+            if ("pom".equals(artifact.getExtension()) && artifact.getClassifier().isEmpty()) {
+                return project.getFile();
+            }
+            File buildDir = new File(project.getBuild().getDirectory());
+            if (packaged) {
+                String classifierSuffix = artifact.getClassifier().isEmpty() ? "" : "-" + artifact.getClassifier();
+                File packagedFile = new File(buildDir, project.getBuild().getFinalName() + classifierSuffix + "." + artifact.getExtension());
+                if (packagedFile.isFile()) {
+                    return packagedFile;
+                }
+            }
+            if ("jar".equals(artifact.getExtension())) {
+                File outputDir = null;
+                if (artifact.getClassifier().isEmpty()) {
+                    outputDir = new File(project.getBuild().getOutputDirectory());
+                } else if (TESTS_CLASSIFIER.equals(artifact.getClassifier())) {
+                    outputDir = new File(project.getBuild().getTestOutputDirectory());
+                }
+                if (outputDir != null && outputDir.isDirectory()) {
+                    return outputDir;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,448 @@
+package com.vackosar.gitflowincrementalbuild.control;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Computes a fingerprint of the public API ("ABI") of compiled classes, either from a directory (e.g. {@code target/classes}) or from a jar file.
+ * <p>
+ * The fingerprint only covers what other modules can be compiled against: the non-private classes, fields and methods with their signatures,
+ * generic signatures, declared exceptions and runtime visible annotations as well as the values of constants (which are inlined by the compiler)
+ * and the default values of annotation elements. Method bodies, private members and debug information are ignored, so an implementation-only
+ * change yields the same fingerprint.
+ * </p>
+ */
+@Singleton
+@Named
+public class AbiFingerprints {
+
+    static final String STORED_SUFFIX = ".gib-abi";
+    private static final String CLASS_SUFFIX = ".class";
+
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_SYNTHETIC = 0x1000;
+    // public, private, protected, static, final, interface, abstract, annotation, enum
+    private static final int ABI_ACCESS_MASK = 0x0001 | 0x0002 | 0x0004 | 0x0008 | 0x0010 | 0x0200 | 0x0400 | 0x2000 | 0x4000;
+
+    /**
+     * Computes the fingerprint of the classes in the given directory or jar file.
+     *
+     * @param classesDirOrJar the directory or jar file containing the classes
+     * @return the fingerprint or {@link Optional#empty()} if the given path does not exist
+     */
+    public Optional<String> compute(Path classesDirOrJar) throws IOException {
+        TreeMap<String, String> classAbis = new TreeMap<>();
+        if (Files.isDirectory(classesDirOrJar)) {
+            List<Path> classFiles;
+            try (Stream<Path> paths = Files.walk(classesDirOrJar)) {
+                classFiles = paths.filter(path -> path.getFileName().toString().endsWith(CLASS_SUFFIX)).collect(Collectors.toList());
+            }
+            for (Path classFile : classFiles) {
+                try (InputStream in = Files.newInputStream(classFile)) {
+                    putClassAbi(in, classAbis);
+                }
+            }
+        } else if (Files.isRegularFile(classesDirOrJar)) {
+            try (ZipFile jar = new ZipFile(classesDirOrJar.toFile())) {
+                for (Enumeration<? extends ZipEntry> entries = jar.entries(); entries.hasMoreElements();) {
+                    ZipEntry entry = entries.nextElement();
+                    if (!entry.isDirectory() && entry.getName().endsWith(CLASS_SUFFIX)) {
+                        try (InputStream in = jar.getInputStream(entry)) {
+                            putClassAbi(in, classAbis);
+                        }
+                    }
+                }
+            }
+        } else {
+            return Optional.empty();
+        }
+        return Optional.of(digest(classAbis));
+    }
+
+    /**
+     * Stores the fingerprint of the classes of the given artifact next to it (e.g. in the local repository), so that it can later be used as the
+     * fingerprint of the reference by {@link #readStored(Path, String)}.
+     *
+     * @param artifact the artifact the fingerprint belongs to (must exist)
+     * @param sourceFingerprint the fingerprint of the sources the artifact was built from, see {@link SourceFingerprints}
+     * @param fingerprint the fingerprint of the classes of the artifact
+     */
+    public void store(Path artifact, String sourceFingerprint, String fingerprint) throws IOException {
+        List<String> lines = Arrays.asList(
+                sourceFingerprint, String.valueOf(Files.getLastModifiedTime(artifact).toMillis()), fingerprint);
+        Files.write(storedFileOf(artifact), lines, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Deletes the fingerprint that was stored for the given artifact by {@link #store(Path, String, String)}, if any.
+     *
+     * @param artifact the artifact the fingerprint belongs to
+     */
+    public void deleteStored(Path artifact) throws IOException {
+        Files.deleteIfExists(storedFileOf(artifact));
+    }
+
+    /**
+     * Returns the fingerprint that was stored for the given artifact by {@link #store(Path, String, String)}, provided that the artifact was
+     * built from the given sources and has not been replaced since (e.g. by a build that did not store a fingerprint).
+     *
+     * @param artifact the artifact the fingerprint belongs to
+     * @param sourceFingerprint the fingerprint of the sources the artifact is expected to be built from
+     * @return the fingerprint or {@link Optional#empty()} if no matching fingerprint is stored
+     */
+    public Optional<String> readStored(Path artifact, String sourceFingerprint) throws IOException {
+        Path storedFile = storedFileOf(artifact);
+        if (!Files.isRegularFile(storedFile) || !Files.isRegularFile(artifact)) {
+            return Optional.empty();
+        }
+        List<String> lines = Files.readAllLines(storedFile, StandardCharsets.UTF_8);
+        return lines.size() == 3
+                && lines.get(0).equals(sourceFingerprint)
+                && lines.get(1).equals(String.valueOf(Files.getLastModifiedTime(artifact).toMillis()))
+                ? Optional.of(lines.get(2))
+                : Optional.empty();
+    }
+
+    private static Path storedFileOf(Path artifact) {
+        return artifact.resolveSibling(artifact.getFileName() + STORED_SUFFIX);
+    }
+
+    /**
+     * Reads the name, the source file and the referenced classes of a single class file, e.g. for the dependency index of {@link TestSelection}.
+     *
+     * @param in the class file
+     * @return the references of the class
+     */
+    static ClassReferences readReferences(InputStream in) throws IOException {
+        ClassAbi classAbi = new ClassAbi(new DataInputStream(new BufferedInputStream(in)));
+        return new ClassReferences(classAbi.name, classAbi.sourceFile, classAbi.referencedClasses());
+    }
+
+    private static void putClassAbi(InputStream in, TreeMap<String, String> classAbis) throws IOException {
+        ClassAbi classAbi = new ClassAbi(new DataInputStream(new BufferedInputStream(in)));
+        if (classAbi.isApi()) {
+            classAbis.put(classAbi.name, classAbi.toString());
+        }
+    }
+
+    private static String digest(TreeMap<String, String> classAbis) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        classAbis.values().forEach(abi -> digest.update(abi.getBytes(StandardCharsets.UTF_8)));
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * The internal name (e.g. {@code com/example/Foo$Bar}) of a class, the name of its source file (without directory, {@code null} if unknown)
+     * and the internal names of all classes it references in its constant pool, including the types in descriptors and generic signatures.
+     * References to constants of other classes are inlined by the compiler and therefore not contained.
+     */
+    static class ClassReferences {
+
+        final String name;
+        final String sourceFile;
+        final Set<String> references;
+
+        ClassReferences(String name, String sourceFile, Set<String> references) {
+            this.name = name;
+            this.sourceFile = sourceFile;
+            this.references = references;
+        }
+    }
+
+    /**
+     * The API relevant parts of a single class file, see <a href="https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html">JVMS chapter 4</a>.
+     */
+    private static class ClassAbi {
+
+        private static final Pattern DESCRIPTOR_CLASS = Pattern.compile("L([\\w/$]+)[;<]");
+
+        private final Object[] constantPool;
+        private final String name;
+        private String sourceFile;
+        private final boolean api;
+        private final List<String> lines = new ArrayList<>();
+
+        private ClassAbi(DataInputStream in) throws IOException {
+            if (in.readInt() != 0xCAFEBABE) {
+                throw new IOException("Not a class file");
+            }
+            in.readUnsignedShort();     // minor version
+            in.readUnsignedShort();     // major version
+            constantPool = readConstantPool(in);
+
+            int classAccess = in.readUnsignedShort();
+            name = className(in.readUnsignedShort());
+            int superIndex = in.readUnsignedShort();
+            List<String> interfaces = new ArrayList<>();
+            for (int i = in.readUnsignedShort(); i > 0; i--) {
+                interfaces.add(className(in.readUnsignedShort()));
+            }
+            Collections.sort(interfaces);
+
+            List<String> fields = readMembers(in, "field");
+            List<String> methods = readMembers(in, "method");
+
+            String signature = null;
+            String annotations = null;
+            boolean local = false;
+            for (int i = in.readUnsignedShort(); i > 0; i--) {
+                String attributeName = utf8(in.readUnsignedShort());
+                int length = in.readInt();
+                if ("Signature".equals(attributeName)) {
+                    signature = utf8(in.readUnsignedShort());
+                } else if ("RuntimeVisibleAnnotations".equals(attributeName)) {
+                    annotations = readAnnotations(in);
+                } else if ("SourceFile".equals(attributeName)) {
+                    sourceFile = utf8(in.readUnsignedShort());
+                } else if ("InnerClasses".equals(attributeName)) {
+                    // the actual access flags of a nested class (e.g. private) are only available here
+                    for (int j = in.readUnsignedShort(); j > 0; j--) {
+                        int innerIndex = in.readUnsignedShort();
+                        int outerIndex = in.readUnsignedShort();
+                        in.readUnsignedShort();     // simple name
+                        int innerAccess = in.readUnsignedShort();
+                        if (innerIndex != 0 && name.equals(className(innerIndex))) {
+                            classAccess = innerAccess;
+                            // anonymous and local classes are implementation details (no outer class)
+                            local = outerIndex == 0;
+                        }
+                    }
+                } else {
+                    skipFully(in, length);
+                }
+            }
+            api = !local && (classAccess & (ACC_PRIVATE | ACC_SYNTHETIC)) == 0;
+
+            lines.add("class " + name + " " + (classAccess & ABI_ACCESS_MASK) + " extends " + (superIndex == 0 ? "" : className(superIndex))
+                    + " implements " + interfaces + (signature != null ? " signature " + signature : "")
+                    + (annotations != null ? " annotations " + annotations : ""));
+            lines.addAll(fields);
+            lines.addAll(methods);
+        }
+
+        private boolean isApi() {
+            return api;
+        }
+
+        private Set<String> referencedClasses() {
+            Set<String> references = new TreeSet<>();
+            for (Object entry : constantPool) {
+                if (entry instanceof int[] && ((int[]) entry)[0] == 7) {
+                    String className = utf8(((int[]) entry)[1]);
+                    // array classes are given as descriptors
+                    if (className.startsWith("[")) {
+                        addDescriptorClasses(className, references);
+                    } else {
+                        references.add(className);
+                    }
+                } else if (entry instanceof String) {
+                    // descriptors and signatures of fields, methods, local variables etc. (other strings rarely match)
+                    addDescriptorClasses((String) entry, references);
+                }
+            }
+            references.remove(name);
+            return references;
+        }
+
+        private static void addDescriptorClasses(String descriptor, Set<String> references) {
+            Matcher matcher = DESCRIPTOR_CLASS.matcher(descriptor);
+            while (matcher.find()) {
+                references.add(matcher.group(1));
+            }
+        }
+
+        private Object[] readConstantPool(DataInputStream in) throws IOException {
+            Object[] pool = new Object[in.readUnsignedShort()];
+            for (int i = 1; i < pool.length; i++) {
+                int tag = in.readUnsignedByte();
+                switch (tag) {
+                    case 1:     // Utf8
+                        pool[i] = in.readUTF();
+                        break;
+                    case 3:     // Integer
+                        pool[i] = in.readInt();
+                        break;
+                    case 4:     // Float
+                        pool[i] = in.readFloat();
+                        break;
+                    case 5:     // Long
+                        pool[i++] = in.readLong();
+                        break;
+                    case 6:     // Double
+                        pool[i++] = in.readDouble();
+                        break;
+                    case 7:     // Class
+                    case 8:     // String
+                    case 16:    // MethodType
+                    case 19:    // Module
+                    case 20:    // Package
+                        pool[i] = new int[] { tag, in.readUnsignedShort() };
+                        break;
+                    case 9:     // Fieldref
+                    case 10:    // Methodref
+                    case 11:    // InterfaceMethodref
+                    case 12:    // NameAndType
+                    case 17:    // Dynamic
+                    case 18:    // InvokeDynamic
+                        in.readUnsignedShort();
+                        in.readUnsignedShort();
+                        break;
+                    case 15:    // MethodHandle
+                        in.readUnsignedByte();
+                        in.readUnsignedShort();
+                        break;
+                    default:
+                        throw new IOException("Unsupported constant pool tag: " + tag);
+                }
+            }
+            return pool;
+        }
+
+        private List<String> readMembers(DataInputStream in, String kind) throws IOException {
+            List<String> members = new ArrayList<>();
+            for (int i = in.readUnsignedShort(); i > 0; i--) {
+                int memberAccess = in.readUnsignedShort();
+                StringBuilder member = new StringBuilder(kind).append(' ')
+                        .append(utf8(in.readUnsignedShort())).append(' ')
+                        .append(utf8(in.readUnsignedShort())).append(' ')
+                        .append(memberAccess & ABI_ACCESS_MASK);
+                for (int j = in.readUnsignedShort(); j > 0; j--) {
+                    String attributeName = utf8(in.readUnsignedShort());
+                    int length = in.readInt();
+                    if ("Signature".equals(attributeName)) {
+                        member.append(" signature ").append(utf8(in.readUnsignedShort()));
+                    } else if ("ConstantValue".equals(attributeName)) {
+                        member.append(" value ").append(constantValue(in.readUnsignedShort()));
+                    } else if ("Exceptions".equals(attributeName)) {
+                        List<String> exceptions = new ArrayList<>();
+                        for (int k = in.readUnsignedShort(); k > 0; k--) {
+                            exceptions.add(className(in.readUnsignedShort()));
+                        }
+                        Collections.sort(exceptions);
+                        member.append(" throws ").append(exceptions);
+                    } else if ("RuntimeVisibleAnnotations".equals(attributeName)) {
+                        member.append(" annotations ").append(readAnnotations(in));
+                    } else if ("RuntimeVisibleParameterAnnotations".equals(attributeName)) {
+                        List<String> parameterAnnotations = new ArrayList<>();
+                        for (int k = in.readUnsignedByte(); k > 0; k--) {
+                            parameterAnnotations.add(readAnnotations(in));
+                        }
+                        member.append(" parameterAnnotations ").append(parameterAnnotations);
+                    } else if ("AnnotationDefault".equals(attributeName)) {
+                        member.append(" default ").append(readElementValue(in));
+                    } else {
+                        skipFully(in, length);
+                    }
+                }
+                if ((memberAccess & (ACC_PRIVATE | ACC_SYNTHETIC)) == 0) {
+                    members.add(member.toString());
+                }
+            }
+            Collections.sort(members);
+            return members;
+        }
+
+        // see JVMS 4.7.16, the order of the annotations is not relevant
+        private String readAnnotations(DataInputStream in) throws IOException {
+            List<String> annotations = new ArrayList<>();
+            for (int i = in.readUnsignedShort(); i > 0; i--) {
+                annotations.add(readAnnotation(in));
+            }
+            Collections.sort(annotations);
+            return annotations.toString();
+        }
+
+        private String readAnnotation(DataInputStream in) throws IOException {
+            StringBuilder annotation = new StringBuilder("@").append(utf8(in.readUnsignedShort())).append('(');
+            for (int i = in.readUnsignedShort(); i > 0; i--) {
+                annotation.append(utf8(in.readUnsignedShort())).append('=').append(readElementValue(in)).append(i > 1 ? "," : "");
+            }
+            return annotation.append(')').toString();
+        }
+
+        private String readElementValue(DataInputStream in) throws IOException {
+            char tag = (char) in.readUnsignedByte();
+            switch (tag) {
+                case 'e':
+                    return utf8(in.readUnsignedShort()) + "." + utf8(in.readUnsignedShort());
+                case 'c':
+                    return utf8(in.readUnsignedShort()) + ".class";
+                case '@':
+                    return readAnnotation(in);
+                case '[':
+                    List<String> values = new ArrayList<>();
+                    for (int i = in.readUnsignedShort(); i > 0; i--) {
+                        values.add(readElementValue(in));
+                    }
+                    return values.toString();
+                default:
+                    // constants, prefixed with their type (e.g. I for int) since boolean, char etc. are all stored as Integer
+                    Object value = constantPool[in.readUnsignedShort()];
+                    return tag == 's' ? "\"" + value + "\"" : tag + String.valueOf(value);
+            }
+        }
+
+        private String utf8(int index) {
+            return (String) constantPool[index];
+        }
+
+        private String className(int index) {
+            return utf8(((int[]) constantPool[index])[1]);
+        }
+
+        private String constantValue(int index) {
+            Object value = constantPool[index];
+            return value instanceof int[] ? "\"" + utf8(((int[]) value)[1]) + "\"" : String.valueOf(value);
+        }
+
+        private static void skipFully(DataInputStream in, int length) throws IOException {
+            for (int remaining = length; remaining > 0;) {
+                int skipped = in.skipBytes(remaining);
+                if (skipped <= 0) {
+                    throw new EOFException("Unexpected end of class file");
+                }
+                remaining -= skipped;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.join("\n", lines) + "\n";
+        }
+    }
+}
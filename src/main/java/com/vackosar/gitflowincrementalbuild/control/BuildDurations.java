@@ -0,0 +1,108 @@
+package com.vackosar.gitflowincrementalbuild.control;
+
+import com.vackosar.gitflowincrementalbuild.boundary.Configuration;
+import com.vackosar.gitflowincrementalbuild.control.jgit.GitFactory;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.project.MavenProject;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Stores the build durations of the modules of successful builds to be able to estimate the build time that is saved by skipping modules.
+ * <p>
+ * The durations are stored per {@code groupId:artifactId} in {@code gib/build-durations.properties} in the git directory (so they survive
+ * {@code mvn clean}). Each stored duration is replaced by the duration of the latest build of the respective module.
+ * </p>
+ */
+@Singleton
+@Named
+public class BuildDurations {
+
+    static final String DURATIONS_FILE = "gib/build-durations.properties";
+
+    @Inject private MavenSession mavenSession;
+    @Inject private Configuration.Provider configProvider;
+
+    /**
+     * Returns the stored build durations.
+     *
+     * @return the durations by {@link #keyOf(MavenProject) key}
+     */
+    public Map<String, Duration> load() throws IOException {
+        Path file = getFile();
+        if (!Files.exists(file)) {
+            return new HashMap<>();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                FileLock lock = channel.lock()) {
+            return toDurations(read(channel));
+        }
+    }
+
+    /**
+     * Merges the given build durations into the stored durations.
+     *
+     * @param durations the durations of the modules that have been built successfully
+     */
+    public void store(Map<MavenProject, Duration> durations) throws IOException {
+        if (durations.isEmpty()) {
+            return;
+        }
+        Path file = getFile();
+        Files.createDirectories(file.getParent());
+        // coordinate with concurrent builds that use the same repository
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                FileLock lock = channel.lock()) {
+            Properties properties = read(channel);
+            durations.forEach((project, duration) -> properties.setProperty(keyOf(project), Long.toString(duration.toMillis())));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            properties.store(out, "build durations in milliseconds, written by gitflow-incremental-builder");
+            channel.truncate(0);
+            channel.write(ByteBuffer.wrap(out.toByteArray()), 0);
+        }
+    }
+
+    public static String keyOf(MavenProject project) {
+        return project.getGroupId() + ":" + project.getArtifactId();
+    }
+
+    private Path getFile() throws IOException {
+        return GitFactory.getOrCreateThreadLocalGit(mavenSession, configProvider.get()).getRepository().getDirectory().toPath()
+                .resolve(DURATIONS_FILE);
+    }
+
+    // note: the stream is not closed since that would close the channel (and release the lock)
+    private static Properties read(FileChannel channel) throws IOException {
+        Properties properties = new Properties();
+        properties.load(Channels.newInputStream(channel));
+        return properties;
+    }
+
+    private static Map<String, Duration> toDurations(Properties properties) {
+        Map<String, Duration> durations = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            try {
+                durations.put(key, Duration.ofMillis(Long.parseLong(properties.getProperty(key))));
+            } catch (NumberFormatException e) {
+                // ignore a corrupt entry, it will be replaced by the next build of the module
+            }
+        }
+        return durations;
+    }
+}
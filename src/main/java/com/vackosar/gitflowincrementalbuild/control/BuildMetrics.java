@@ -0,0 +1,129 @@
+package com.vackosar.gitflowincrementalbuild.control;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.project.MavenProject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes metrics about the savings of a gitflow-incremental-builder execution in the
+ * <a href="https://github.com/OpenObservability/OpenMetrics/blob/main/specification/OpenMetrics.md">OpenMetrics text format</a>, e.g. to be
+ * picked up by the textfile collector of the Prometheus node exporter.
+ * <p>
+ * The counts and phase durations are taken from {@link PhaseTimings}, the estimated skipped build time is the sum of the {@link BuildDurations}
+ * of the skipped modules (modules without a stored duration are counted separately).
+ * </p>
+ */
+@Singleton
+@Named
+public class BuildMetrics {
+
+    private static final String PREFIX = "gib_";
+
+    private Logger logger = LoggerFactory.getLogger(BuildMetrics.class);
+
+    @Inject private MavenSession mavenSession;
+    @Inject private PhaseTimings phaseTimings;
+    @Inject private BuildDurations buildDurations;
+
+    /**
+     * Writes the metrics to the given file, replacing it atomically (if supported by the file system) so that readers never see a partial file.
+     *
+     * @param file the file to write
+     * @param reactorProjects the projects of the session before they have been modified by gitflow-incremental-builder
+     */
+    public void write(Path file, List<MavenProject> reactorProjects) throws IOException {
+        List<MavenProject> skipped = new ArrayList<>(reactorProjects);
+        skipped.removeAll(mavenSession.getProjects());
+        Map<String, Duration> durations = skipped.isEmpty() ? Collections.emptyMap() : buildDurations.load();
+        Duration skippedTime = Duration.ZERO;
+        int skippedWithoutDuration = 0;
+        for (MavenProject project : skipped) {
+            Duration duration = durations.get(BuildDurations.keyOf(project));
+            if (duration != null) {
+                skippedTime = skippedTime.plus(duration);
+            } else {
+                skippedWithoutDuration++;
+            }
+        }
+
+        Map<String, Long> counts = phaseTimings.getCounts();
+        List<String> lines = new ArrayList<>();
+        gauge(lines, "reactor_modules", "Number of modules in the reactor.", reactorProjects.size());
+        Map<String, Number> modules = new LinkedHashMap<>();
+        modules.put("changed", counts.getOrDefault(PhaseTimings.MODULES_CHANGED, 0L));
+        modules.put("impacted", counts.getOrDefault(PhaseTimings.MODULES_IMPACTED, 0L));
+        modules.put("upstream", counts.getOrDefault(PhaseTimings.MODULES_UPSTREAM, 0L));
+        modules.put("forced", counts.getOrDefault(PhaseTimings.MODULES_FORCED, 0L));
+        modules.put("built", mavenSession.getProjects().size());
+        modules.put("skipped", skipped.size());
+        gauge(lines, "modules", "Number of modules by kind.", null, "kind", modules);
+        gauge(lines, "changed_files", "Number of changed files within the modules of the reactor.",
+                counts.getOrDefault(PhaseTimings.FILES_CHANGED, 0L));
+        // note: phases that have not ended yet (e.g. the entire execution) are not included
+        Map<String, Number> phases = new LinkedHashMap<>();
+        phaseTimings.getDurations().forEach((phase, duration) -> phases.put(phase, toSeconds(duration)));
+        gauge(lines, "phase_duration_seconds", "Duration of the phases of gitflow-incremental-builder.", "seconds", "phase", phases);
+        gauge(lines, "estimated_skipped_build_time_seconds", "Sum of the last recorded build durations of the skipped modules.", "seconds",
+                null, Collections.singletonMap(null, toSeconds(skippedTime)));
+        gauge(lines, "skipped_modules_without_duration", "Number of skipped modules without a recorded build duration.", skippedWithoutDuration);
+        lines.add("# EOF");
+
+        logger.debug("Writing metrics to {}", file);
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tempFile = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tempFile, lines, StandardCharsets.UTF_8);
+            try {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static void gauge(List<String> lines, String name, String help, Number value) {
+        gauge(lines, name, help, null, null, Collections.singletonMap(null, value));
+    }
+
+    private static void gauge(List<String> lines, String name, String help, String unit, String label, Map<String, Number> samples) {
+        String fullName = PREFIX + name;
+        lines.add("# TYPE " + fullName + " gauge");
+        if (unit != null) {
+            lines.add("# UNIT " + fullName + " " + unit);
+        }
+        lines.add("# HELP " + fullName + " " + help);
+        samples.forEach((labelValue, value) -> lines.add(fullName
+                + (label != null ? "{" + label + "=\"" + escape(labelValue) + "\"}" : "")
+                + " " + value));
+    }
+
+    private static BigDecimal toSeconds(Duration duration) {
+        return BigDecimal.valueOf(duration.toMillis(), 3);
+    }
+
+    private static String escape(String labelValue) {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
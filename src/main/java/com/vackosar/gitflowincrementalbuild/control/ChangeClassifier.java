@@ -0,0 +1,88 @@
+package com.vackosar.gitflowincrementalbuild.control;
+
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Resource;
+import org.apache.maven.project.MavenProject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Classifies the changes of a module by the location of its changed files or by comparing their current content with their content in
+ * the reference (see {@link DifferentFiles}).
+ */
+@Singleton
+@Named
+public class ChangeClassifier {
+
+    private static final String JAVA_SUFFIX = ".java";
+    private static final String TEST_DIR = "src/test";
+
+    private Logger logger = LoggerFactory.getLogger(ChangeClassifier.class);
+
+    @Inject private DifferentFiles differentFiles;
+
+    /**
+     * Returns whether all of the given changed files are Java sources that only differ in method bodies, initializer blocks, private members
+     * or comments (see {@link JavaApiSkeleton}). Added or deleted files are never considered implementation-only.
+     *
+     * @param changedFiles the changed files (absolute paths)
+     * @return {@code true} if none of the changes affects the API
+     */
+    public boolean isImplementationOnly(Set<Path> changedFiles) {
+        return !changedFiles.isEmpty() && changedFiles.stream().allMatch(this::isImplementationOnly);
+    }
+
+    /**
+     * Returns whether all of the given changed files belong to the test sources or test resources of the given project (or are located in
+     * {@code src/test}), so that they can't have any effect on downstream modules (unless the project provides a {@code test-jar}).
+     *
+     * @param project the project the changed files belong to
+     * @param changedFiles the changed files (absolute paths)
+     * @return {@code true} if only test files have been changed
+     */
+    public boolean isTestOnly(MavenProject project, Set<Path> changedFiles) {
+        Path basedir = project.getBasedir().toPath().normalize().toAbsolutePath();
+        Build build = project.getBuild();
+        Set<Path> testRoots = Stream.concat(
+                Stream.of(TEST_DIR, build.getTestSourceDirectory()),
+                build.getTestResources().stream().map(Resource::getDirectory))
+                .filter(Objects::nonNull)
+                .map(dir -> basedir.resolve(dir).normalize())
+                .collect(Collectors.toSet());
+        return !changedFiles.isEmpty()
+                && changedFiles.stream().allMatch(changedFile -> testRoots.stream().anyMatch(changedFile::startsWith));
+    }
+
+    private boolean isImplementationOnly(Path changedFile) {
+        if (!changedFile.getFileName().toString().endsWith(JAVA_SUFFIX)) {
+            return false;
+        }
+        try {
+            Optional<String> referenceSkeleton = differentFiles.readReferenceContent(changedFile).map(ChangeClassifier::toSkeleton);
+            Optional<String> currentSkeleton = differentFiles.readCurrentContent(changedFile).map(ChangeClassifier::toSkeleton);
+            boolean implementationOnly = referenceSkeleton.isPresent() && referenceSkeleton.equals(currentSkeleton);
+            logger.debug("Implementation-only change {}: {}", implementationOnly, changedFile);
+            return implementationOnly;
+        } catch (IOException | IllegalArgumentException e) {
+            logger.debug("Failed to classify change of " + changedFile + ":", e);
+            return false;
+        }
+    }
+
+    private static String toSkeleton(byte[] content) {
+        return JavaApiSkeleton.of(new String(content, StandardCharsets.UTF_8));
+    }
+}
@@ -1,5 +1,6 @@
 package com.vackosar.gitflowincrementalbuild.control;
 
+import com.vackosar.gitflowincrementalbuild.boundary.Configuration;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.project.MavenProject;
 import org.eclipse.jgit.api.errors.GitAPIException;
@@ -12,27 +13,70 @@ import javax.inject.Singleton;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Singleton
 @Named
 public class ChangedProjects {
 
+    private static final String POM_XML = "pom.xml";
+
     private Logger logger = LoggerFactory.getLogger(ChangedProjects.class);
 
     @Inject private DifferentFiles differentFiles;
     @Inject private MavenSession mavenSession;
     @Inject private Modules modules;
+    @Inject private Configuration.Provider configProvider;
+    @Inject private PomChangeAnalyzer pomChangeAnalyzer;
+    @Inject private PhaseTimings phaseTimings;
+
+    private final Map<MavenProject, Set<Path>> changedFiles = new ConcurrentHashMap<>();
 
     public Set<MavenProject> get() throws GitAPIException, IOException {
-        Map<Path, MavenProject> modulesPathMap = modules.createPathMap(mavenSession);
-        return differentFiles.get().stream()
-                .map(path -> findProject(path, modulesPathMap))
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
+        return get(Collections.emptySet());
+    }
+
+    /**
+     * Returns the changed projects, only considering changes within the directories of the given projects.
+     *
+     * @param scope the projects to detect changes for (see {@link DifferentFiles#get(Set)}) or an empty set to consider all projects
+     * @return the changed projects
+     */
+    public Set<MavenProject> get(Set<MavenProject> scope) throws GitAPIException, IOException {
+        changedFiles.clear();
+        Set<Path> paths = differentFiles.get(scope);
+        try (PhaseTimings.Phase phase = phaseTimings.start("mapChangedProjects")) {
+            Map<Path, MavenProject> modulesPathMap = modules.createPathMap(mavenSession);
+            boolean ignoreCosmeticPomChanges = configProvider.get().ignoreCosmeticPomChanges;
+            for (Path path : paths) {
+                // only poms of modules, not e.g. a pom.xml that is a test resource
+                if (ignoreCosmeticPomChanges && path.getFileName().toString().equals(POM_XML) && modulesPathMap.containsKey(path.getParent())
+                        && pomChangeAnalyzer.isCosmeticChange(path)) {
+                    logger.info("Ignoring cosmetic change of {}", path);
+                    continue;
+                }
+                MavenProject project = findProject(path, modulesPathMap);
+                if (project != null) {
+                    changedFiles.computeIfAbsent(project, proj -> new HashSet<>()).add(path);
+                }
+            }
+        }
+        phaseTimings.count(PhaseTimings.FILES_CHANGED, changedFiles.values().stream().mapToLong(Set::size).sum());
+        return new HashSet<>(changedFiles.keySet());
+    }
+
+    /**
+     * Returns the changed files of the given project that have been detected by the last call of {@link #get()}.
+     *
+     * @param project a changed project
+     * @return the changed files (absolute paths) or an empty set if the project is not changed
+     */
+    public Set<Path> getChangedFiles(MavenProject project) {
+        return Collections.unmodifiableSet(changedFiles.getOrDefault(project, Collections.emptySet()));
     }
 
     private MavenProject findProject(Path diffPath, Map<Path, MavenProject> modulesPathMap) {
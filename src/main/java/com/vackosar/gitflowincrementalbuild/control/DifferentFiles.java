@@ -5,17 +5,34 @@ import com.vackosar.gitflowincrementalbuild.control.jgit.AgentProxyAwareJschConf
 import com.vackosar.gitflowincrementalbuild.control.jgit.GitFactory;
 import com.vackosar.gitflowincrementalbuild.control.jgit.HttpDelegatingCredentialsProvider;
 import org.apache.maven.execution.MavenSession;
+import org.apache.maven.project.MavenProject;
 import org.eclipse.jgit.api.FetchCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.api.StatusCommand;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.api.errors.JGitInternalException;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.dircache.DirCacheIterator;
+import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevWalk;
-import org.eclipse.jgit.revwalk.filter.RevFilter;
+import org.eclipse.jgit.transport.FetchResult;
 import org.eclipse.jgit.transport.RefSpec;
 import org.eclipse.jgit.transport.SshTransport;
+import org.eclipse.jgit.transport.TagOpt;
+import org.eclipse.jgit.transport.TrackingRefUpdate;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
 import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.WorkingTreeIterator;
+import org.eclipse.jgit.treewalk.WorkingTreeIterator.MetadataDiff;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
 import org.eclipse.jgit.treewalk.filter.TreeFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,12 +42,24 @@ import javax.inject.Named;
 import javax.inject.Singleton;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 @Singleton
@@ -42,30 +71,62 @@ public class DifferentFiles {
     private static final String HEAD = "HEAD";
     private static final String REFS_REMOTES = "refs/remotes/";
     private static final String REFS_HEADS = "refs/heads/";
+    private static final String FETCH_LOCK_DIR = "gib/fetch";
 
     private Logger logger = LoggerFactory.getLogger(DifferentFiles.class);
 
     @Inject private MavenSession mavenSession;
     @Inject private Configuration.Provider configProvider;
+    @Inject private PhaseTimings phaseTimings;
+    // initialized for manually wired instances (e.g. in tests), Sisu replaces it with the shared instance
+    @Inject private MergeBases mergeBases = new MergeBases();
 
     private final Map<String, String> additionalNativeGitEnvironment = new HashMap<>();
 
+    // trees of the last comparison (null if branch comparison is disabled)
+    private volatile ObjectId baseTree;
+    private volatile ObjectId referenceTree;
+
     public Set<Path> get() throws GitAPIException, IOException {
+        return get(Collections.emptySet());
+    }
+
+    /**
+     * Returns the changed files within the directories of the given modules (excluding the directories of nested modules that are not in scope).
+     *
+     * @param scope the modules to detect changes for or an empty set to detect changes in the entire repository
+     * @return the changed files (absolute paths)
+     */
+    public Set<Path> get(Set<MavenProject> scope) throws GitAPIException, IOException {
         Set<Path> paths = new HashSet<>();
+        baseTree = null;
+        referenceTree = null;
 
         Configuration configuration = configProvider.get();
         Worker worker = null;
         try {
             Git git = GitFactory.getOrCreateThreadLocalGit(mavenSession, configuration);
-            worker = new Worker(git, configuration);
+            worker = new Worker(git, configuration, scope);
 
-            worker.fetch();
-            worker.checkout();
-            if (!configuration.disableBranchComparison) {
-                paths.addAll(worker.getBranchDiff());
+            try (PhaseTimings.Phase phase = phaseTimings.start("fetch")) {
+                worker.fetch();
             }
-            if (configuration.uncommited || configuration.untracked) {
-                paths.addAll(worker.getChangesFromStatus());
+            try (PhaseTimings.Phase phase = phaseTimings.start("checkout")) {
+                worker.checkout();
+            }
+            boolean detectStatusChanges = configuration.uncommited || configuration.untracked;
+            if (!configuration.disableBranchComparison && detectStatusChanges && HEAD.equals(configuration.baseBranch)) {
+                // base is HEAD, so branch diff and status can be calculated in a single traversal
+                paths.addAll(worker.getBranchDiffAndChangesFromStatus());
+            } else {
+                if (!configuration.disableBranchComparison) {
+                    paths.addAll(worker.getBranchDiff());
+                }
+                if (detectStatusChanges) {
+                    try (PhaseTimings.Phase phase = phaseTimings.start("status")) {
+                        paths.addAll(worker.getChangesFromStatus());
+                    }
+                }
             }
         } finally {
             if (worker != null) {
@@ -75,6 +136,100 @@ public class DifferentFiles {
         return paths;
     }
 
+    /**
+     * Reads the content of the given file from the reference that {@link #get()} has compared against (the merge base or the head of
+     * the reference branch, or the base branch if {@link Configuration#disableBranchComparison} is set).
+     *
+     * @param path absolute path of a file in the working tree
+     * @return the content or {@link Optional#empty()} if the file does not exist in the reference
+     */
+    public Optional<byte[]> readReferenceContent(Path path) throws IOException {
+        return readContent(path, referenceTree);
+    }
+
+    /**
+     * Returns the tree of the reference that {@link #get()} has compared against, see {@link #readReferenceContent(Path)}.
+     *
+     * @return the tree or {@link Optional#empty()} if it cannot be resolved
+     */
+    public Optional<ObjectId> getReferenceTree() throws IOException {
+        if (referenceTree != null) {
+            return Optional.of(referenceTree);
+        }
+        Configuration configuration = configProvider.get();
+        Repository repository = GitFactory.getOrCreateThreadLocalGit(mavenSession, configuration).getRepository();
+        return Optional.ofNullable(repository.resolve(configuration.baseBranch + "^{tree}"));
+    }
+
+    /**
+     * Reads the current content of the given file: from the working tree if uncommitted or untracked changes are considered,
+     * otherwise from the base branch.
+     *
+     * @param path absolute path of a file in the working tree
+     * @return the content or {@link Optional#empty()} if the file does not exist
+     */
+    public Optional<byte[]> readCurrentContent(Path path) throws IOException {
+        Configuration configuration = configProvider.get();
+        if (configuration.uncommited || configuration.untracked) {
+            return Files.isRegularFile(path) ? Optional.of(Files.readAllBytes(path)) : Optional.empty();
+        }
+        return readContent(path, baseTree);
+    }
+
+    private Optional<byte[]> readContent(Path path, ObjectId tree) throws IOException {
+        Configuration configuration = configProvider.get();
+        Repository repository = GitFactory.getOrCreateThreadLocalGit(mavenSession, configuration).getRepository();
+        ObjectId treeToRead = tree != null ? tree : repository.resolve(configuration.baseBranch + "^{tree}");
+        if (treeToRead == null) {
+            return Optional.empty();
+        }
+        String gitPath = repository.getWorkTree().toPath().normalize().toAbsolutePath().relativize(path).toString().replace('\\', '/');
+        try (TreeWalk treeWalk = TreeWalk.forPath(repository, gitPath, treeToRead)) {
+            return treeWalk != null && treeWalk.getFileMode(0).getObjectType() == Constants.OBJ_BLOB
+                    ? Optional.of(repository.open(treeWalk.getObjectId(0), Constants.OBJ_BLOB).getBytes())
+                    : Optional.empty();
+        }
+    }
+
+    /**
+     * Does not descend into ignored directories of the working tree that are not present in any of the other trees (like {@code target}).
+     */
+    private static class SkipIgnoredUntrackedDirsFilter extends TreeFilter {
+
+        private final int workingTreeIndex;
+
+        SkipIgnoredUntrackedDirsFilter(int workingTreeIndex) {
+            this.workingTreeIndex = workingTreeIndex;
+        }
+
+        @Override
+        public boolean include(TreeWalk walker) throws IOException {
+            if (!walker.isSubtree()) {
+                return true;
+            }
+            WorkingTreeIterator workingTreeIterator = walker.getTree(workingTreeIndex, WorkingTreeIterator.class);
+            if (workingTreeIterator == null || !workingTreeIterator.isEntryIgnored()) {
+                return true;
+            }
+            for (int i = 0; i < walker.getTreeCount(); i++) {
+                if (i != workingTreeIndex && walker.getRawMode(i) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean shouldBeRecursive() {
+            return false;
+        }
+
+        @Override
+        public TreeFilter clone() {
+            return this;
+        }
+    }
+
     /**
      * Only for testing!
      *
@@ -91,21 +246,37 @@ public class DifferentFiles {
         private final Path workTree;
         private final Configuration configuration;
         private final HttpDelegatingCredentialsProvider credentialsProvider;
+        private final Optional<ModuleScopeFilter> scopeFilter;
 
-        public Worker(Git git, Configuration configuration) {
+        public Worker(Git git, Configuration configuration, Set<MavenProject> scope) {
             this.git = git;
             this.workTree = git.getRepository().getWorkTree().toPath().normalize().toAbsolutePath();
             this.configuration = configuration;
-            this.credentialsProvider = new HttpDelegatingCredentialsProvider(workTree, additionalNativeGitEnvironment);
+            this.credentialsProvider = new HttpDelegatingCredentialsProvider(workTree, additionalNativeGitEnvironment, configuration.credentialsCacheTtl);
+            this.scopeFilter = ModuleScopeFilter.create(workTree, mavenSession.getAllProjects(), scope);
+            scopeFilter.ifPresent(filter -> logger.debug("Limiting change detection to {}", filter));
         }
 
         private Set<Path> getBranchDiff() throws IOException {
-            RevCommit base = getBranchCommit(configuration.baseBranch);
+            RevCommit base;
+            RevCommit refHead;
+            try (PhaseTimings.Phase phase = phaseTimings.start("resolveRefs")) {
+                base = getBranchCommit(configuration.baseBranch);
+                refHead = getBranchCommit(configuration.referenceBranch);
+            }
+            RevCommit reference = configuration.compareToMergeBase ? getMergeBase(base, refHead) : refHead;
+            baseTree = base.getTree();
+            referenceTree = reference.getTree();
             final TreeWalk treeWalk = new TreeWalk(git.getRepository());
-            try {
+            try (PhaseTimings.Phase phase = phaseTimings.start("treeDiff")) {
                 treeWalk.addTree(base.getTree());
-                treeWalk.addTree(resolveReference(base).getTree());
-                treeWalk.setFilter(TreeFilter.ANY_DIFF);
+                treeWalk.addTree(reference.getTree());
+                if (configuration.compareToMergeBase && configuration.compareToReferenceHead) {
+                    // three-way: changes that are already present in the reference head are not considered
+                    treeWalk.addTree(refHead.getTree());
+                }
+                treeWalk.setFilter(scopeFilter.<TreeFilter>map(filter -> AndTreeFilter.create(filter, TreeFilter.ANY_DIFF))
+                        .orElse(TreeFilter.ANY_DIFF));
                 treeWalk.setRecursive(true);
                 return getDiff(treeWalk, workTree);
             } finally {
@@ -113,14 +284,151 @@ public class DifferentFiles {
             }
         }
 
+        /**
+         * Combines {@link #getBranchDiff()} and {@link #getChangesFromStatus()} for {@code baseBranch=HEAD} by walking the reference tree,
+         * the {@code HEAD} tree, the index and the working tree at once (instead of walking the commit trees and then the index and the working
+         * tree again via {@link Git#status()}).
+         */
+        private Set<Path> getBranchDiffAndChangesFromStatus() throws IOException {
+            RevCommit base;
+            RevCommit refHead;
+            try (PhaseTimings.Phase phase = phaseTimings.start("resolveRefs")) {
+                base = getBranchCommit(configuration.baseBranch);
+                refHead = getBranchCommit(configuration.referenceBranch);
+            }
+            RevCommit reference = configuration.compareToMergeBase ? getMergeBase(base, refHead) : refHead;
+            baseTree = base.getTree();
+            referenceTree = reference.getTree();
+            try (PhaseTimings.Phase phase = phaseTimings.start("treeDiffAndStatus")) {
+                return walkChanges(reference.getTree(), base.getTree(),
+                        configuration.compareToMergeBase && configuration.compareToReferenceHead ? refHead.getTree() : null);
+            }
+        }
+
+        private Set<Path> walkChanges(ObjectId referenceTreeId, ObjectId headTreeId, ObjectId refHeadTreeId) throws IOException {
+            DirCache dirCache = git.getRepository().readDirCache();
+            if (!configuration.parallelWorkingTreeScan) {
+                return walkChanges(referenceTreeId, headTreeId, refHeadTreeId, dirCache, TreeFilter.ALL, true);
+            }
+            // shard by top level entries, each shard is walked separately in parallel
+            Set<Path> topLevelEntries = walkChanges(referenceTreeId, headTreeId, refHeadTreeId, dirCache, TreeFilter.ALL, false);
+            ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+            try {
+                return pool.submit(() -> topLevelEntries.parallelStream()
+                        .flatMap(entry -> {
+                            TreeFilter shardFilter = PathFilter.create(workTree.relativize(entry).toString().replace('\\', '/'));
+                            try {
+                                return walkChanges(referenceTreeId, headTreeId, refHeadTreeId, dirCache, shardFilter, true).stream();
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        })
+                        .collect(Collectors.toSet()))
+                        .get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while scanning the working tree", e);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof UncheckedIOException
+                        ? ((UncheckedIOException) e.getCause()).getCause()
+                        : new IOException("Failed to scan the working tree", e.getCause());
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        // if not recursive: just returns the (non-ignored) top level entries
+        private Set<Path> walkChanges(ObjectId referenceTreeId, ObjectId headTreeId, ObjectId refHeadTreeId, DirCache dirCache,
+                TreeFilter shardFilter, boolean recursive) throws IOException {
+            final TreeWalk treeWalk = new TreeWalk(git.getRepository());
+            try {
+                int referenceIndex = referenceTreeId != null ? treeWalk.addTree(referenceTreeId) : -1;
+                int headIndex = headTreeId != null ? treeWalk.addTree(headTreeId) : treeWalk.addTree(new EmptyTreeIterator());
+                int dirCacheIndex = treeWalk.addTree(new DirCacheIterator(dirCache));
+                FileTreeIterator workingTreeIterator = new FileTreeIterator(git.getRepository());
+                int workingTreeIndex = treeWalk.addTree(workingTreeIterator);
+                int refHeadIndex = refHeadTreeId != null ? treeWalk.addTree(refHeadTreeId) : -1;
+                workingTreeIterator.setDirCacheIterator(treeWalk, dirCacheIndex);
+                TreeFilter filter = AndTreeFilter.create(shardFilter, new SkipIgnoredUntrackedDirsFilter(workingTreeIndex));
+                treeWalk.setFilter(scopeFilter.<TreeFilter>map(scope -> AndTreeFilter.create(scope, filter)).orElse(filter));
+                treeWalk.setRecursive(recursive);
+
+                final Set<Path> paths = new HashSet<>();
+                while (treeWalk.next()) {
+                    boolean changed = !recursive
+                            || isBranchChange(treeWalk, referenceIndex, headIndex, refHeadIndex)
+                            || configuration.uncommited && isUncommittedChange(treeWalk, headIndex, dirCacheIndex, workingTreeIndex)
+                            || configuration.untracked && isUntracked(treeWalk, dirCacheIndex, workingTreeIndex);
+                    if (changed) {
+                        Path path = Paths.get(treeWalk.getPathString()).normalize();
+                        if (!recursive || pathIncluded(path)) {
+                            paths.add(workTree.resolve(path));
+                        }
+                    }
+                }
+                return paths;
+            } finally {
+                treeWalk.close();
+            }
+        }
+
+        private boolean isBranchChange(TreeWalk treeWalk, int referenceIndex, int headIndex, int refHeadIndex) {
+            if (referenceIndex < 0 || isEqual(treeWalk, referenceIndex, headIndex)) {
+                return false;
+            }
+            if (refHeadIndex >= 0 && isEqual(treeWalk, headIndex, refHeadIndex)) {
+                logger.debug("Change already present in reference head: {}", treeWalk.getPathString());
+                return false;
+            }
+            return true;
+        }
+
+        // same semantics as Status.getUncommittedChanges(): added, changed, removed, missing, modified or conflicting
+        private boolean isUncommittedChange(TreeWalk treeWalk, int headIndex, int dirCacheIndex, int workingTreeIndex) throws IOException {
+            DirCacheIterator dirCacheIterator = treeWalk.getTree(dirCacheIndex, DirCacheIterator.class);
+            if (dirCacheIterator == null) {
+                // removed from index (if tracked in HEAD)
+                return treeWalk.getRawMode(headIndex) != 0;
+            }
+            DirCacheEntry dirCacheEntry = dirCacheIterator.getDirCacheEntry();
+            if (dirCacheEntry.getStage() != DirCacheEntry.STAGE_0 || !isEqual(treeWalk, headIndex, dirCacheIndex)) {
+                return true;
+            }
+            WorkingTreeIterator workingTreeIterator = treeWalk.getTree(workingTreeIndex, WorkingTreeIterator.class);
+            if (workingTreeIterator == null) {
+                // missing in working tree
+                return !dirCacheEntry.isSkipWorkTree();
+            }
+            if (dirCacheEntry.isAssumeValid()) {
+                return false;
+            }
+            if (configuration.trustStatData && workingTreeIterator.compareMetadata(dirCacheEntry) == MetadataDiff.SMUDGED) {
+                // racily clean: metadata is equal, so don't compare the content
+                return false;
+            }
+            return workingTreeIterator.isModified(dirCacheEntry, true, treeWalk.getObjectReader());
+        }
+
+        private boolean isUntracked(TreeWalk treeWalk, int dirCacheIndex, int workingTreeIndex) throws IOException {
+            WorkingTreeIterator workingTreeIterator = treeWalk.getTree(workingTreeIndex, WorkingTreeIterator.class);
+            return workingTreeIterator != null && treeWalk.getRawMode(dirCacheIndex) == 0 && !workingTreeIterator.isEntryIgnored();
+        }
+
         private void checkout() throws IOException, GitAPIException {
+            if (!configuration.checkoutAllowed) {
+                return;
+            }
             if (! (HEAD.equals(configuration.baseBranch) || configuration.baseBranch.startsWith("worktrees/")) && ! git.getRepository().getFullBranch().equals(configuration.baseBranch)) {
                 logger.info("Checking out base branch " + configuration.baseBranch + "...");
                 git.checkout().setName(configuration.baseBranch).call();
             }
         }
 
-        private void fetch() throws GitAPIException {
+        private void fetch() throws GitAPIException, IOException {
+            if (configuration.offline && (configuration.fetchReferenceBranch || configuration.fetchBaseBranch)) {
+                logger.info("Skipping fetch in offline mode.");
+                return;
+            }
             if (!configuration.disableBranchComparison && configuration.fetchReferenceBranch) {
                 fetch(configuration.referenceBranch);
             }
@@ -129,17 +437,89 @@ public class DifferentFiles {
             }
         }
 
-        private void fetch(String branchName) throws GitAPIException {
-            logger.info("Fetching branch " + branchName);
+        private void fetch(String branchName) throws GitAPIException, IOException {
             if (!branchName.startsWith(REFS_REMOTES)) {
                 throw new IllegalArgumentException("Branch name '" + branchName + "' is not tracking branch name since it does not start " + REFS_REMOTES);
             }
+            if (configuration.fetchFreshnessWindow.isZero()) {
+                doFetch(branchName);
+                return;
+            }
+            // coordinate with concurrent builds that use the same repository: the lock file records the time of the last fetch of the branch
+            Path lockFile = git.getRepository().getDirectory().toPath().resolve(FETCH_LOCK_DIR)
+                    .resolve(URLEncoder.encode(branchName, StandardCharsets.UTF_8.name()));
+            Files.createDirectories(lockFile.getParent());
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                    FileLock lock = channel.lock()) {
+                long lastFetch = readLastFetch(channel);
+                long now = System.currentTimeMillis();
+                if (lastFetch > 0 && now - lastFetch < configuration.fetchFreshnessWindow.toMillis()) {
+                    logger.info("Skipping fetch of branch {} since it has been fetched {} ms ago.", branchName, now - lastFetch);
+                    return;
+                }
+                doFetch(branchName);
+                channel.truncate(0);
+                channel.write(ByteBuffer.wrap(Long.toString(now).getBytes(StandardCharsets.UTF_8)), 0);
+            }
+        }
+
+        private long readLastFetch(FileChannel channel) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(32);
+            channel.read(buffer, 0);
+            String content = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8).trim();
+            return content.matches("\\d{1,19}") ? Long.parseLong(content) : 0;
+        }
+
+        private void doFetch(String branchName) throws GitAPIException {
             String remoteName = extractRemoteName(branchName);
             String shortName = extractShortName(remoteName, branchName);
+            RefSpec refSpec = new RefSpec(REFS_HEADS + shortName + ":" + branchName);
+            for (String mirror : configuration.fetchMirrors) {
+                if (fetchFromMirror(mirror, refSpec)) {
+                    return;
+                }
+            }
+            logger.info("Fetching branch " + branchName);
+            createFetchCommand(remoteName, refSpec).call();
+        }
+
+        // the mirror is only used if it provides the branch and if the branch can be updated with its commit (no non-fast-forward update)
+        private boolean fetchFromMirror(String mirror, RefSpec refSpec) {
+            logger.info("Fetching branch {} from mirror {}", refSpec.getDestination(), mirror);
+            try {
+                FetchResult fetchResult = createFetchCommand(mirror, refSpec).call();
+                TrackingRefUpdate update = fetchResult.getTrackingRefUpdate(refSpec.getDestination());
+                if (fetchResult.getAdvertisedRef(refSpec.getSource()) == null || update != null && !isSuccessful(update.getResult())) {
+                    logger.info("Mirror {} does not provide the required commit of branch {}.", mirror, refSpec.getDestination());
+                    return false;
+                }
+                return true;
+            } catch (GitAPIException | JGitInternalException e) {
+                logger.info("Failed to fetch branch {} from mirror {}: {}", refSpec.getDestination(), mirror, e.getMessage());
+                return false;
+            }
+        }
+
+        private boolean isSuccessful(RefUpdate.Result result) {
+            switch (result) {
+                case NEW:
+                case NO_CHANGE:
+                case FAST_FORWARD:
+                case FORCED:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        private FetchCommand createFetchCommand(String remote, RefSpec refSpec) {
             FetchCommand fetchCommand = git.fetch()
                     .setCredentialsProvider(credentialsProvider)
-                    .setRemote(remoteName)
-                    .setRefSpecs(new RefSpec(REFS_HEADS + shortName + ":" + branchName));
+                    .setRemote(remote)
+                    .setRefSpecs(refSpec);
+            if (configuration.fetchWithoutTags) {
+                fetchCommand.setTagOpt(TagOpt.NO_TAGS);
+            }
             if (configuration.useJschAgentProxy) {
                 fetchCommand.setTransportConfigCallback(transport -> {
                     if (transport instanceof SshTransport) {
@@ -147,7 +527,7 @@ public class DifferentFiles {
                     }
                 });
             }
-            fetchCommand.call();
+            return fetchCommand;
         }
 
         private String extractRemoteName(String branchName) {
@@ -159,12 +539,10 @@ public class DifferentFiles {
         }
 
         private RevCommit getMergeBase(RevCommit baseCommit, RevCommit referenceHeadCommit) throws IOException {
-            RevWalk walk = new RevWalk(git.getRepository());
-            walk.setRevFilter(RevFilter.MERGE_BASE);
-            walk.markStart(walk.lookupCommit(baseCommit));
-            walk.markStart(walk.lookupCommit(referenceHeadCommit));
-            RevCommit commit = walk.next();
-            walk.close();
+            RevCommit commit;
+            try (PhaseTimings.Phase phase = phaseTimings.start("mergeBase")) {
+                commit = mergeBases.get(git.getRepository(), baseCommit, referenceHeadCommit);
+            }
             logger.info("Using merge base of id: " + commit.getId());
             return commit;
         }
@@ -172,6 +550,14 @@ public class DifferentFiles {
         private Set<Path> getDiff(TreeWalk treeWalk, Path gitDir) throws IOException {
             final Set<Path> paths = new HashSet<>();
             while (treeWalk.next()) {
+                // with the reference head as third tree, ANY_DIFF also matches changes that are only present in the reference head
+                if (treeWalk.getTreeCount() > 2 && isEqual(treeWalk, 0, 1)) {
+                    continue;
+                }
+                if (treeWalk.getTreeCount() > 2 && isEqual(treeWalk, 0, 2)) {
+                    logger.debug("Change already present in reference head: {}", treeWalk.getPathString());
+                    continue;
+                }
                 Path path = Paths.get(treeWalk.getPathString()).normalize();
                 if (pathIncluded(path)) {
                     paths.add(gitDir.resolve(path));
@@ -180,6 +566,10 @@ public class DifferentFiles {
             return paths;
         }
 
+        private boolean isEqual(TreeWalk treeWalk, int tree, int otherTree) {
+            return treeWalk.idEqual(tree, otherTree) && treeWalk.getRawMode(tree) == treeWalk.getRawMode(otherTree);
+        }
+
         private RevCommit getBranchCommit(String branchName) throws IOException {
             ObjectId objectId = git.getRepository().resolve(branchName);
 
@@ -193,9 +583,16 @@ public class DifferentFiles {
             return commit;
         }
 
-        private Set<Path> getChangesFromStatus() throws GitAPIException {
+        private Set<Path> getChangesFromStatus() throws GitAPIException, IOException {
+            if (configuration.parallelWorkingTreeScan || configuration.trustStatData) {
+                return walkChanges(null, git.getRepository().resolve(HEAD + "^{tree}"), null);
+            }
             Set<String> changes = new HashSet<>();
-            Status status = git.status().call();
+            StatusCommand statusCommand = git.status();
+            scopeFilter.map(ModuleScopeFilter::getRootDirs)
+                    .filter(rootDirs -> !rootDirs.contains(""))
+                    .ifPresent(rootDirs -> rootDirs.forEach(statusCommand::addPath));
+            Status status = statusCommand.call();
             if (configuration.uncommited) {
                 changes.addAll(status.getUncommittedChanges());
             }
@@ -203,6 +600,7 @@ public class DifferentFiles {
                 changes.addAll(status.getUntracked());
             }
             return changes.stream()
+                    .filter(change -> scopeFilter.map(filter -> filter.includes(change)).orElse(true))
                     .map(Paths::get)
                     .map(Path::normalize)
                     .filter(this::pathIncluded)
@@ -210,19 +608,14 @@ public class DifferentFiles {
                     .collect(Collectors.toSet());
         }
 
-        private RevCommit resolveReference(RevCommit base) throws IOException {
-            RevCommit refHead = getBranchCommit(configuration.referenceBranch);
-            if (configuration.compareToMergeBase) {
-                return getMergeBase(base, refHead);
-            } else {
-                return refHead;
-            }
-        }
-
         private boolean pathIncluded(Path path) {
             boolean excluded = configuration.excludePathRegex.test(path.toString());
             boolean included = !excluded && configuration.includePathRegex.test(path.toString());
             logger.debug("included {}: {}", included, path);
+            phaseTimings.count(PhaseTimings.FILES_DIFFED, 1);
+            if (included) {
+                phaseTimings.count(PhaseTimings.PATHS_MATCHED, 1);
+            }
             return included;
         }
     }
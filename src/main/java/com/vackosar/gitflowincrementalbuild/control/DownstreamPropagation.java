@@ -0,0 +1,90 @@
+package com.vackosar.gitflowincrementalbuild.control;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.execution.ProjectDependencyGraph;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.project.MavenProject;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Calculates the downstream modules of a module by walking the declared dependencies of the reactor modules, taking into account their scopes and
+ * optional flags.
+ * <p>
+ * A rule {@code scope=N} limits how far a change propagates once it has passed a dependency of that scope: the dependent module itself is the
+ * first hop, so e.g. {@code test=1} impacts a module that has a test-scoped dependency on the changed module but none of its own downstream modules.
+ * The special key {@code optional} applies to dependencies that are marked as optional. Dependencies that are not covered by any rule and
+ * relations that are not declared as dependencies (e.g. parent modules or plugin dependencies) always propagate.
+ * </p>
+ */
+@Singleton
+@Named
+public class DownstreamPropagation {
+
+    public static final String OPTIONAL = "optional";
+
+    private static final int UNLIMITED = Integer.MAX_VALUE;
+
+    @Inject private MavenSession mavenSession;
+
+    /**
+     * Returns the downstream modules of the given module that are reached according to the given rules.
+     *
+     * @param project the changed module
+     * @param maxDepthByScope maximum propagation depth per dependency scope (or {@link #OPTIONAL})
+     * @return the reached downstream modules in reactor order (without the given module)
+     */
+    public List<MavenProject> getDownstreamProjects(MavenProject project, Map<String, Integer> maxDepthByScope) {
+        ProjectDependencyGraph graph = mavenSession.getProjectDependencyGraph();
+        // remaining hops per reached module
+        Map<MavenProject, Integer> reached = new HashMap<>();
+        Deque<MavenProject> queue = new ArrayDeque<>();
+        reached.put(project, UNLIMITED);
+        queue.add(project);
+        while (!queue.isEmpty()) {
+            MavenProject upstream = queue.poll();
+            int remaining = reached.get(upstream);
+            if (remaining == 0) {
+                continue;
+            }
+            for (MavenProject downstream : graph.getDownstreamProjects(upstream, false)) {
+                int downstreamRemaining = Math.min(remaining, getMaxDepth(upstream, downstream, maxDepthByScope)) - 1;
+                if (downstreamRemaining > reached.getOrDefault(downstream, -1)) {
+                    reached.put(downstream, downstreamRemaining);
+                    queue.add(downstream);
+                }
+            }
+        }
+        return graph.getDownstreamProjects(project, true).stream()
+                .filter(reached::containsKey)
+                .collect(Collectors.toList());
+    }
+
+    private static int getMaxDepth(MavenProject upstream, MavenProject downstream, Map<String, Integer> maxDepthByScope) {
+        List<Dependency> dependencies = downstream.getDependencies().stream()
+                .filter(dep -> dep.getGroupId().equals(upstream.getGroupId()) && dep.getArtifactId().equals(upstream.getArtifactId()))
+                .collect(Collectors.toList());
+        if (dependencies.isEmpty()) {
+            return UNLIMITED;
+        }
+        // the least restrictive dependency wins (e.g. a compile dependency on the jar and a test dependency on the test-jar)
+        return dependencies.stream()
+                .mapToInt(dep -> getMaxDepth(dep, maxDepthByScope))
+                .max()
+                .getAsInt();
+    }
+
+    private static int getMaxDepth(Dependency dependency, Map<String, Integer> maxDepthByScope) {
+        int maxDepth = maxDepthByScope.getOrDefault(dependency.getScope() != null ? dependency.getScope() : "compile", UNLIMITED);
+        return dependency.isOptional() ? Math.min(maxDepth, maxDepthByScope.getOrDefault(OPTIONAL, UNLIMITED)) : maxDepth;
+    }
+}
@@ -0,0 +1,126 @@
+package com.vackosar.gitflowincrementalbuild.control;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Emits custom JDK Flight Recorder events if the {@code jdk.jfr} API is available at runtime (JDK 9+ or JDK 8u262+).
+ * <p>
+ * The events are defined dynamically via {@code jdk.jfr.EventFactory} and reflection since this extension must be usable on runtimes without
+ * {@code jdk.jfr}. Without that API (or if anything goes wrong while defining the events) all methods are no-ops.
+ * </p>
+ */
+final class FlightRecorderEvents {
+
+    static final String PHASE_EVENT_NAME = "com.vackosar.gitflowincrementalbuild.Phase";
+    static final String COUNT_EVENT_NAME = "com.vackosar.gitflowincrementalbuild.Count";
+
+    private static final String CATEGORY = "gitflow-incremental-builder";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FlightRecorderEvents.class);
+
+    // keeping a reference to the factories keeps the event types registered
+    private static final Optional<Object> PHASE_EVENT_FACTORY = createFactory(PHASE_EVENT_NAME, "GIB Phase", "phase", String.class);
+    private static final Optional<Object> COUNT_EVENT_FACTORY = createFactory(COUNT_EVENT_NAME, "GIB Count", "count", String.class, "value", long.class);
+
+    private FlightRecorderEvents() {
+    }
+
+    static boolean isAvailable() {
+        return PHASE_EVENT_FACTORY.isPresent() && COUNT_EVENT_FACTORY.isPresent();
+    }
+
+    /**
+     * Begins a phase event that is committed via {@link Event#commit()}.
+     *
+     * @param phase the name of the phase
+     * @return the started event (a no-op if JFR is not available)
+     */
+    static Event beginPhase(String phase) {
+        Event event = Event.create(PHASE_EVENT_FACTORY, phase);
+        event.invoke("begin");
+        return event;
+    }
+
+    static void commitCount(String name, long value) {
+        Event.create(COUNT_EVENT_FACTORY, name, value).commit();
+    }
+
+    private static Optional<Object> createFactory(String eventName, String label, Object... fieldNamesAndTypes) {
+        try {
+            Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement");
+            Constructor<?> annotationElementConstructor = annotationElementClass.getConstructor(Class.class, Object.class);
+            List<Object> eventAnnotations = Arrays.asList(
+                    annotationElementConstructor.newInstance(Class.forName("jdk.jfr.Name"), eventName),
+                    annotationElementConstructor.newInstance(Class.forName("jdk.jfr.Label"), label),
+                    annotationElementConstructor.newInstance(Class.forName("jdk.jfr.Category"), new String[] { CATEGORY }));
+
+            Constructor<?> valueDescriptorConstructor = Class.forName("jdk.jfr.ValueDescriptor").getConstructor(Class.class, String.class, List.class);
+            List<Object> fields = new ArrayList<>();
+            for (int i = 0; i < fieldNamesAndTypes.length; i += 2) {
+                fields.add(valueDescriptorConstructor.newInstance(fieldNamesAndTypes[i + 1], fieldNamesAndTypes[i], Collections.emptyList()));
+            }
+
+            Method create = Class.forName("jdk.jfr.EventFactory").getMethod("create", List.class, List.class);
+            return Optional.of(create.invoke(null, eventAnnotations, fields));
+        } catch (ClassNotFoundException e) {
+            LOGGER.debug("JDK Flight Recorder is not available, not emitting {} events.", eventName);
+            return Optional.empty();
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            LOGGER.debug("Failed to define JDK Flight Recorder event " + eventName + ":", e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Wraps a {@code jdk.jfr.Event} (or nothing if JFR is not available).
+     */
+    static final class Event {
+
+        private final Object event;
+
+        private Event(Object event) {
+            this.event = event;
+        }
+
+        private static Event create(Optional<Object> factory, Object... values) {
+            return new Event(factory.map(fac -> {
+                try {
+                    Object event = Class.forName("jdk.jfr.EventFactory").getMethod("newEvent").invoke(fac);
+                    Method set = Class.forName("jdk.jfr.Event").getMethod("set", int.class, Object.class);
+                    for (int i = 0; i < values.length; i++) {
+                        set.invoke(event, i, values[i]);
+                    }
+                    return event;
+                } catch (ReflectiveOperationException | RuntimeException e) {
+                    LOGGER.debug("Failed to create JDK Flight Recorder event:", e);
+                    return null;
+                }
+            }).orElse(null));
+        }
+
+        void commit() {
+            invoke("end");
+            invoke("commit");
+        }
+
+        private void invoke(String methodName) {
+            if (event == null) {
+                return;
+            }
+            try {
+                Class.forName("jdk.jfr.Event").getMethod(methodName).invoke(event);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                LOGGER.debug("Failed to invoke " + methodName + "() on JDK Flight Recorder event:", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.vackosar.gitflowincrementalbuild.control;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reduces Java source code to the parts that other classes can be compiled against: package, imports, non-private type and member declarations
+ * (incl. annotations and field initializers) but without method bodies, initializer blocks, private members and comments.
+ * <p>
+ * This is a deliberately simple token-based approach (no full parser): two sources with equal skeletons only differ in their implementation.
+ * Anything that is not understood results in a larger skeleton, so that such a change is rather considered an API change than the other way round.
+ * </p>
+ */
+final class JavaApiSkeleton {
+
+    private static final Set<String> TYPE_KEYWORDS = new HashSet<>(Arrays.asList("class", "interface", "enum", "record"));
+    private static final String PRIVATE = "private";
+
+    private final List<String> tokens;
+    private final List<String> skeleton = new ArrayList<>();
+    private int pos;
+
+    private JavaApiSkeleton(String source) {
+        this.tokens = tokenize(source);
+    }
+
+    /**
+     * Returns the API skeleton of the given Java source.
+     *
+     * @param source the Java source code
+     * @return the skeleton as a string of whitespace separated tokens
+     * @throws IllegalArgumentException if the source is malformed (e.g. unbalanced braces)
+     */
+    static String of(String source) {
+        JavaApiSkeleton javaApiSkeleton = new JavaApiSkeleton(source);
+        javaApiSkeleton.parseMembers(false);
+        if (javaApiSkeleton.pos < javaApiSkeleton.tokens.size()) {
+            throw new IllegalArgumentException("Unbalanced braces");
+        }
+        return String.join(" ", javaApiSkeleton.skeleton);
+    }
+
+    // parses member (or top level) declarations until the closing brace of the enclosing type (if any)
+    private void parseMembers(boolean inType) {
+        while (pos < tokens.size()) {
+            if (tokens.get(pos).equals("}")) {
+                return;
+            }
+            parseMember();
+        }
+        if (inType) {
+            throw new IllegalArgumentException("Unexpected end of type body");
+        }
+    }
+
+    private void parseMember() {
+        int start = pos;
+        int depth = 0;
+        boolean typeDeclaration = false;
+        boolean isPrivate = false;
+        boolean hasParens = false;
+        while (pos < tokens.size()) {
+            String token = tokens.get(pos);
+            if (depth == 0) {
+                if (token.equals(";")) {
+                    pos++;
+                    addUnlessPrivate(start, pos, isPrivate);
+                    return;
+                } else if (token.equals("=")) {
+                    // field with initializer: keep everything up to the terminating semicolon
+                    skipToSemicolon();
+                    addUnlessPrivate(start, pos, isPrivate);
+                    return;
+                } else if (token.equals("{")) {
+                    break;
+                } else if (token.equals(PRIVATE)) {
+                    isPrivate = true;
+                } else if (TYPE_KEYWORDS.contains(token) && isTypeName(pos + 1) && (pos == start || !tokens.get(pos - 1).equals("."))) {
+                    typeDeclaration = true;
+                } else if (token.equals("(")) {
+                    hasParens = true;
+                }
+            }
+            depth += depthChange(token);
+            pos++;
+        }
+        if (pos >= tokens.size()) {
+            throw new IllegalArgumentException("Unexpected end of declaration");
+        }
+
+        // pos is at "{"
+        if (typeDeclaration) {
+            if (isPrivate) {
+                skipBlock();
+                return;
+            }
+            boolean isEnum = tokens.subList(start, pos).contains("enum");
+            skeleton.addAll(tokens.subList(start, pos + 1));
+            pos++;
+            if (isEnum) {
+                parseEnumConstants();
+            }
+            parseMembers(true);
+            skeleton.add("}");
+            pos++;
+        } else if (hasParens && !isPrivate) {
+            // method or constructor: keep the signature, drop the body
+            skeleton.addAll(tokens.subList(start, pos));
+            skeleton.add("{}");
+            skipBlock();
+        } else {
+            // initializer block or private method
+            skipBlock();
+        }
+    }
+
+    private void parseEnumConstants() {
+        int start = pos;
+        int depth = 0;
+        while (pos < tokens.size()) {
+            String token = tokens.get(pos);
+            if (depth == 0 && (token.equals(";") || token.equals("}"))) {
+                break;
+            }
+            depth += depthChange(token);
+            pos++;
+        }
+        skeleton.addAll(tokens.subList(start, pos));
+        if (pos < tokens.size() && tokens.get(pos).equals(";")) {
+            skeleton.add(";");
+            pos++;
+        }
+    }
+
+    private void skipToSemicolon() {
+        int depth = 0;
+        while (pos < tokens.size()) {
+            String token = tokens.get(pos++);
+            if (depth == 0 && token.equals(";")) {
+                return;
+            }
+            depth += depthChange(token);
+        }
+        throw new IllegalArgumentException("Unexpected end of field declaration");
+    }
+
+    private void skipBlock() {
+        int depth = 0;
+        do {
+            if (pos >= tokens.size()) {
+                throw new IllegalArgumentException("Unexpected end of block");
+            }
+            depth += depthChange(tokens.get(pos++));
+        } while (depth > 0);
+    }
+
+    private boolean isTypeName(int index) {
+        return index < tokens.size() && Character.isJavaIdentifierStart(tokens.get(index).charAt(0));
+    }
+
+    private void addUnlessPrivate(int start, int end, boolean isPrivate) {
+        if (!isPrivate) {
+            skeleton.addAll(tokens.subList(start, end));
+        }
+    }
+
+    private static int depthChange(String token) {
+        switch (token) {
+            case "(":
+            case "[":
+            case "{":
+                return 1;
+            case ")":
+            case "]":
+            case "}":
+                return -1;
+            default:
+                return 0;
+        }
+    }
+
+    private static List<String> tokenize(String source) {
+        List<String> tokens = new ArrayList<>();
+        int length = source.length();
+        int i = 0;
+        while (i < length) {
+            char c = source.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (source.startsWith("//", i)) {
+                int end = source.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else if (source.startsWith("/*", i)) {
+                int end = source.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (source.startsWith("\"\"\"", i)) {
+                int end = source.indexOf("\"\"\"", i + 3);
+                int next = end < 0 ? length : end + 3;
+                tokens.add(source.substring(i, next));
+                i = next;
+            } else if (c == '"' || c == '\'') {
+                int end = i + 1;
+                while (end < length && source.charAt(end) != c) {
+                    end += source.charAt(end) == '\\' ? 2 : 1;
+                }
+                int next = Math.min(end + 1, length);
+                tokens.add(source.substring(i, next));
+                i = next;
+            } else if (Character.isJavaIdentifierPart(c)) {
+                int end = i + 1;
+                while (end < length && (Character.isJavaIdentifierPart(source.charAt(end)) || source.charAt(end) == '.'
+                        && Character.isDigit(c))) {
+                    end++;
+                }
+                tokens.add(source.substring(i, end));
+                i = end;
+            } else {
+                tokens.add(String.valueOf(c));
+                i++;
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,67 @@
+package com.vackosar.gitflowincrementalbuild.control;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches merge bases by the ids of the compared commits, so that walking the (possibly long) shared history is done only once per pair of
+ * commits, e.g. for multiple base branches that are compared to the same reference branch in batch mode.
+ */
+@Singleton
+@Named
+public class MergeBases {
+
+    private final Map<List<ObjectId>, ObjectId> mergeBases = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the merge base of the given commits.
+     *
+     * @param repository the repository containing the commits
+     * @param baseCommit the first commit
+     * @param referenceCommit the second commit
+     * @return the merge base or {@code null} if the commits do not have a common ancestor
+     */
+    public RevCommit get(Repository repository, RevCommit baseCommit, RevCommit referenceCommit) throws IOException {
+        ObjectId mergeBase;
+        try {
+            mergeBase = mergeBases.computeIfAbsent(Arrays.asList(baseCommit.copy(), referenceCommit.copy()), commits -> {
+                try {
+                    return calculate(repository, commits.get(0), commits.get(1));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (mergeBase == null) {
+            return null;
+        }
+        try (RevWalk walk = new RevWalk(repository)) {
+            return walk.parseCommit(mergeBase);
+        }
+    }
+
+    private static ObjectId calculate(Repository repository, ObjectId baseCommit, ObjectId referenceCommit) throws IOException {
+        try (RevWalk walk = new RevWalk(repository)) {
+            walk.setRevFilter(RevFilter.MERGE_BASE);
+            walk.markStart(walk.parseCommit(baseCommit));
+            walk.markStart(walk.parseCommit(referenceCommit));
+            RevCommit mergeBase = walk.next();
+            return mergeBase != null ? mergeBase.copy() : null;
+        }
+    }
+}
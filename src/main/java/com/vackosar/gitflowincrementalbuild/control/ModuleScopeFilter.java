@@ -0,0 +1,128 @@
+package com.vackosar.gitflowincrementalbuild.control;
+
+import org.apache.maven.project.MavenProject;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Restricts a {@link TreeWalk} to the directories of a given scope of modules, excluding the directories of nested modules that are not in scope.
+ * <p>
+ * A file belongs to the innermost module directory that contains it, so e.g. the files of a parent module are included without descending into
+ * the directories of its submodules (unless these are in scope as well). Files outside of any module directory are excluded.
+ * </p>
+ */
+class ModuleScopeFilter extends TreeFilter {
+
+    private static final String SEPARATOR = "/";
+
+    // paths relative to the work tree, "" for the work tree itself
+    private final Set<String> moduleDirs;
+    private final Set<String> scopeDirs;
+
+    private ModuleScopeFilter(Set<String> moduleDirs, Set<String> scopeDirs) {
+        this.moduleDirs = moduleDirs;
+        this.scopeDirs = scopeDirs;
+    }
+
+    /**
+     * Creates a filter for the given scope.
+     *
+     * @param workTree the work tree of the repository (absolute, normalized path)
+     * @param allProjects all modules of the reactor
+     * @param scope the modules in scope (a subset of {@code allProjects})
+     * @return the filter or {@link Optional#empty()} if the scope is empty or if any module is located outside of the work tree
+     */
+    static Optional<ModuleScopeFilter> create(Path workTree, Collection<MavenProject> allProjects, Collection<MavenProject> scope) {
+        if (scope.isEmpty()) {
+            return Optional.empty();
+        }
+        Set<Path> moduleDirs = allProjects.stream()
+                .map(proj -> proj.getBasedir().toPath().normalize().toAbsolutePath())
+                .collect(Collectors.toSet());
+        if (!moduleDirs.stream().allMatch(dir -> dir.startsWith(workTree))) {
+            return Optional.empty();
+        }
+        Set<String> scopeDirs = scope.stream()
+                .map(proj -> toRelativePath(workTree, proj.getBasedir().toPath().normalize().toAbsolutePath()))
+                .collect(Collectors.toSet());
+        return Optional.of(new ModuleScopeFilter(
+                moduleDirs.stream().map(dir -> toRelativePath(workTree, dir)).collect(Collectors.toSet()),
+                scopeDirs));
+    }
+
+    /**
+     * Returns the outermost directories in scope, e.g. to limit {@link org.eclipse.jgit.api.StatusCommand} via {@code addPath()}.
+     *
+     * @return relative paths, containing {@code ""} if the work tree itself is in scope
+     */
+    Set<String> getRootDirs() {
+        return scopeDirs.stream()
+                .filter(dir -> scopeDirs.stream().noneMatch(other -> !other.equals(dir) && isAncestorOrSelf(other, dir)))
+                .collect(Collectors.toCollection(HashSet::new));
+    }
+
+    /**
+     * Returns whether the given file is in scope.
+     *
+     * @param path path of a file, relative to the work tree and separated by {@code /}
+     * @return {@code true} if the innermost module directory of the file is in scope
+     */
+    boolean includes(String path) {
+        String dir = path;
+        do {
+            dir = getParent(dir);
+            if (moduleDirs.contains(dir)) {
+                return scopeDirs.contains(dir);
+            }
+        } while (!dir.isEmpty());
+        return false;
+    }
+
+    @Override
+    public boolean include(TreeWalk walker) {
+        String path = walker.getPathString();
+        if (!walker.isSubtree()) {
+            return includes(path);
+        }
+        // descend into directories in scope and into all directories on the way to them
+        if (scopeDirs.stream().anyMatch(dir -> isAncestorOrSelf(path, dir))) {
+            return true;
+        }
+        return moduleDirs.contains(path) ? scopeDirs.contains(path) : includes(path);
+    }
+
+    @Override
+    public boolean shouldBeRecursive() {
+        return false;
+    }
+
+    @Override
+    public TreeFilter clone() {
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "MODULE_SCOPE(" + scopeDirs + ")";
+    }
+
+    private static boolean isAncestorOrSelf(String ancestor, String path) {
+        return ancestor.isEmpty() || path.equals(ancestor) || path.startsWith(ancestor + SEPARATOR);
+    }
+
+    private static String getParent(String path) {
+        int index = path.lastIndexOf(SEPARATOR);
+        return index < 0 ? "" : path.substring(0, index);
+    }
+
+    private static String toRelativePath(Path workTree, Path dir) {
+        return workTree.relativize(dir).toString().replace('\\', '/');
+    }
+}
@@ -0,0 +1,151 @@
+package com.vackosar.gitflowincrementalbuild.control;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Records the durations of the phases of a gitflow-incremental-builder execution and some object counts, e.g. to find out where the time is spent.
+ * <p>
+ * Each phase and each count is also emitted as a JDK Flight Recorder event (see {@link FlightRecorderEvents}), so the phases can be correlated with
+ * e.g. GC or I/O activity in a recording of the Maven JVM.
+ * </p>
+ */
+@Singleton
+@Named
+public class PhaseTimings {
+
+    public static final String FILES_DIFFED = "files diffed";
+    public static final String PATHS_MATCHED = "paths matched";
+    public static final String MODULES_CHANGED = "modules changed";
+    public static final String MODULES_IMPACTED = "modules impacted";
+    public static final String MODULES_UPSTREAM = "modules upstream";
+    public static final String MODULES_FORCED = "modules forced";
+    public static final String FILES_CHANGED = "files changed";
+    public static final String BYTES_ALLOCATED = "bytes allocated";
+
+    private final Map<String, Long> durationNanos = new LinkedHashMap<>();
+    private final Map<String, Long> counts = new LinkedHashMap<>();
+
+    /**
+     * Clears all recorded durations and counts (of a previous execution in the same JVM).
+     */
+    public synchronized void reset() {
+        durationNanos.clear();
+        counts.clear();
+    }
+
+    /**
+     * Starts the given phase which ends when closing the returned {@link Phase}. The durations of a phase that is started multiple times add up.
+     * A phase is only recorded once it has ended.
+     *
+     * @param name the name of the phase
+     * @return the started phase
+     */
+    public Phase start(String name) {
+        return new Phase(name, false);
+    }
+
+    /**
+     * Like {@link #start(String)} but additionally counts the bytes that are allocated by the current thread until the phase has ended as
+     * {@link #BYTES_ALLOCATED} (if supported by the JVM). This is an upper bound of the heap that is occupied by the phase.
+     * Nested phases should not measure their allocations since they would be counted twice.
+     *
+     * @param name the name of the phase
+     * @return the started phase
+     */
+    public Phase startMeasuringAllocations(String name) {
+        return new Phase(name, true);
+    }
+
+    /**
+     * Adds the given value to the given count.
+     *
+     * @param name the name of the count, e.g. {@link #FILES_DIFFED}
+     * @param value the value to add
+     */
+    public synchronized void count(String name, long value) {
+        counts.merge(name, value, Long::sum);
+    }
+
+    public synchronized Map<String, Duration> getDurations() {
+        return Collections.unmodifiableMap(durationNanos.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> Duration.ofNanos(entry.getValue()), (a, b) -> a, LinkedHashMap::new)));
+    }
+
+    public synchronized Map<String, Long> getCounts() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(counts));
+    }
+
+    /**
+     * Returns a one-line summary of all recorded durations (in the order in which the phases have ended first) and counts and emits
+     * the counts as JDK Flight Recorder events.
+     *
+     * @return the summary
+     */
+    public synchronized String summarize() {
+        counts.forEach(FlightRecorderEvents::commitCount);
+        String durations = durationNanos.entrySet().stream()
+                .map(entry -> entry.getKey() + " " + Duration.ofNanos(entry.getValue()).toMillis() + " ms")
+                .collect(Collectors.joining(", "));
+        String countsSummary = counts.entrySet().stream()
+                .map(entry -> entry.getKey() + ": " + entry.getValue())
+                .collect(Collectors.joining(", "));
+        return countsSummary.isEmpty() ? durations : durations + "; " + countsSummary;
+    }
+
+    private synchronized void record(String name, long nanos) {
+        durationNanos.merge(name, nanos, Long::sum);
+    }
+
+    // com.sun.management.ThreadMXBean is not part of the Java SE API, so it is accessed via reflection
+    private static long currentThreadAllocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        try {
+            Method getThreadAllocatedBytes = Class.forName("com.sun.management.ThreadMXBean").getMethod("getThreadAllocatedBytes", long.class);
+            return getThreadAllocatedBytes.getDeclaringClass().isInstance(threadMXBean)
+                    ? (long) getThreadAllocatedBytes.invoke(threadMXBean, Thread.currentThread().getId())
+                    : -1;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * A running phase, to be used via try-with-resources.
+     */
+    public final class Phase implements AutoCloseable {
+
+        private final String name;
+        private final long startNanos;
+        private final long startAllocatedBytes;
+        private final FlightRecorderEvents.Event event;
+
+        private Phase(String name, boolean measureAllocations) {
+            this.name = name;
+            startAllocatedBytes = measureAllocations ? currentThreadAllocatedBytes() : -1;
+            event = FlightRecorderEvents.beginPhase(name);
+            startNanos = System.nanoTime();
+        }
+
+        @Override
+        public void close() {
+            record(name, System.nanoTime() - startNanos);
+            event.commit();
+            if (startAllocatedBytes >= 0) {
+                long endAllocatedBytes = currentThreadAllocatedBytes();
+                if (endAllocatedBytes >= startAllocatedBytes) {
+                    count(BYTES_ALLOCATED, endAllocatedBytes - startAllocatedBytes);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.vackosar.gitflowincrementalbuild.control;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.DependencyManagement;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginManagement;
+import org.apache.maven.model.Profile;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Analyzes a change of a {@code pom.xml} by comparing its reference and current revision (see {@link DifferentFiles}) to find out which downstream
+ * modules are actually affected by the change.
+ * <p>
+ * Only changes of {@code <properties>}, {@code <dependencyManagement>} and {@code <build><pluginManagement>} are analyzed. Any other change, any
+ * changed property that is not only used by the managed entries (and might therefore be read implicitly, e.g. by a plugin) and any changed managed
+ * dependency (which might be used transitively) is considered to affect all downstream modules. So only the downstream modules using a changed
+ * managed plugin or referencing a changed property of such a plugin via {@code ${...}} are considered affected.
+ * </p>
+ */
+@Singleton
+@Named
+public class PomChangeAnalyzer {
+
+    private static final String POM_XML = "pom.xml";
+
+    private Logger logger = LoggerFactory.getLogger(PomChangeAnalyzer.class);
+
+    @Inject private DifferentFiles differentFiles;
+    @Inject private MavenSession mavenSession;
+
+    /**
+     * Returns the downstream modules of the given module that are affected by the changes of the given files if only the {@code pom.xml} of the
+     * module has been changed.
+     *
+     * @param project a changed module
+     * @param changedFiles the changed files of the module (absolute paths)
+     * @return the affected downstream modules or {@link Optional#empty()} if all downstream modules have to be considered as affected
+     */
+    public Optional<Set<MavenProject>> findAffectedDownstreamProjects(MavenProject project, Set<Path> changedFiles) {
+        Path pomFile = project.getBasedir().toPath().normalize().toAbsolutePath().resolve(POM_XML);
+        if (!changedFiles.equals(Collections.singleton(pomFile))) {
+            return Optional.empty();
+        }
+        try {
+            Optional<byte[]> referenceContent = differentFiles.readReferenceContent(pomFile);
+            Optional<byte[]> currentContent = differentFiles.readCurrentContent(pomFile);
+            if (!referenceContent.isPresent() || !currentContent.isPresent()) {
+                return Optional.empty();
+            }
+            return findAffectedDownstreamProjects(project, readModel(referenceContent.get()), readModel(currentContent.get()));
+        } catch (IOException | XmlPullParserException e) {
+            logger.debug("Failed to analyze changes of " + pomFile + ":", e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns whether the reference and the current revision of the given {@code pom.xml} are equal after normalizing them (which removes
+     * formatting, comments and the order of elements and properties).
+     *
+     * @param pomFile a changed {@code pom.xml} (absolute path)
+     * @return {@code true} if the change is purely cosmetic
+     */
+    public boolean isCosmeticChange(Path pomFile) {
+        try {
+            Optional<byte[]> referenceContent = differentFiles.readReferenceContent(pomFile);
+            Optional<byte[]> currentContent = differentFiles.readCurrentContent(pomFile);
+            return referenceContent.isPresent() && currentContent.isPresent()
+                    && normalize(readModel(referenceContent.get())).equals(normalize(readModel(currentContent.get())));
+        } catch (IOException | XmlPullParserException e) {
+            logger.debug("Failed to compare revisions of " + pomFile + ":", e);
+            return false;
+        }
+    }
+
+    private Optional<Set<MavenProject>> findAffectedDownstreamProjects(MavenProject project, Model reference, Model current) {
+        Model currentRemainder = current.clone();
+        removeAnalyzedSections(currentRemainder);
+        String currentRemainderXml = toXml(currentRemainder);
+        Model referenceRemainder = reference.clone();
+        removeAnalyzedSections(referenceRemainder);
+        if (!toXml(referenceRemainder).equals(currentRemainderXml)) {
+            logger.debug("{}: pom.xml contains changes that are not analyzed.", project.getArtifactId());
+            return Optional.empty();
+        }
+
+        Set<String> changedProperties = findChangedProperties(reference.getProperties(), current.getProperties());
+        Map<String, String> currentDependencies = toXmlByKey(getManagedDependencies(current), Dependency::getManagementKey, Model::addDependency);
+        Map<String, String> currentPlugins = toXmlByKey(getManagedPlugins(current), Plugin::getKey, PomChangeAnalyzer::addPlugin);
+        Set<String> changedDependencies = findChangedKeys(
+                toXmlByKey(getManagedDependencies(reference), Dependency::getManagementKey, Model::addDependency), currentDependencies);
+        Set<String> changedPlugins = findChangedKeys(
+                toXmlByKey(getManagedPlugins(reference), Plugin::getKey, PomChangeAnalyzer::addPlugin), currentPlugins);
+
+        // managed entries that reference changed properties are changed as well
+        Set<String> managedProperties = new HashSet<>();
+        findReferencingKeys(currentDependencies, changedProperties, managedProperties).forEach(changedDependencies::add);
+        findReferencingKeys(currentPlugins, changedProperties, managedProperties).forEach(changedPlugins::add);
+        addDerivingProperties(managedProperties, changedProperties, current.getProperties());
+        if (changedProperties.stream().anyMatch(prop -> references(currentRemainderXml, prop))) {
+            logger.debug("{}: pom.xml references changed properties outside of the analyzed sections.", project.getArtifactId());
+            return Optional.empty();
+        }
+        // even if referenced by downstream modules, such properties might also be read implicitly (e.g. maven.compiler.release by a plugin)
+        Set<String> unmanagedProperties = new HashSet<>(changedProperties);
+        unmanagedProperties.removeAll(managedProperties);
+        if (!unmanagedProperties.isEmpty()) {
+            logger.debug("{}: changed properties might be used implicitly: {}", project.getArtifactId(), unmanagedProperties);
+            return Optional.empty();
+        }
+        // any module might use a managed dependency transitively, whether other modules declare it directly or not
+        if (!changedDependencies.isEmpty()) {
+            logger.debug("{}: changed managed dependencies might be used transitively: {}", project.getArtifactId(), changedDependencies);
+            return Optional.empty();
+        }
+
+        Set<MavenProject> affected = new LinkedHashSet<>();
+        for (MavenProject downstream : mavenSession.getProjectDependencyGraph().getDownstreamProjects(project, true)) {
+            String downstreamXml = toXml(downstream.getOriginalModel());
+            if (changedProperties.stream().anyMatch(prop -> references(downstreamXml, prop))
+                    || downstream.getBuildPlugins().stream().map(Plugin::getKey).anyMatch(changedPlugins::contains)) {
+                affected.add(downstream);
+            }
+        }
+        return Optional.of(affected);
+    }
+
+    private static Model readModel(byte[] content) throws IOException, XmlPullParserException {
+        return new MavenXpp3Reader().read(new ByteArrayInputStream(content), false);
+    }
+
+    // properties are compared separately since their order is not defined
+    private static String normalize(Model model) {
+        Model normalized = model.clone();
+        StringBuilder properties = new StringBuilder(new TreeMap<>(normalized.getProperties()).toString());
+        normalized.setProperties(new Properties());
+        for (Profile profile : normalized.getProfiles()) {
+            properties.append(new TreeMap<>(profile.getProperties()));
+            profile.setProperties(new Properties());
+        }
+        return toXml(normalized) + properties;
+    }
+
+    private static void removeAnalyzedSections(Model model) {
+        model.setProperties(new Properties());
+        model.setDependencyManagement(null);
+        if (model.getBuild() != null) {
+            model.getBuild().setPluginManagement(null);
+        }
+    }
+
+    private static Set<String> findChangedProperties(Properties reference, Properties current) {
+        Set<String> names = new HashSet<>(reference.stringPropertyNames());
+        names.addAll(current.stringPropertyNames());
+        Set<String> changed = names.stream()
+                .filter(name -> !Objects.equals(reference.getProperty(name), current.getProperty(name)))
+                .collect(Collectors.toCollection(HashSet::new));
+        // properties that reference changed properties are changed as well
+        boolean added = true;
+        while (added) {
+            added = false;
+            for (String name : current.stringPropertyNames()) {
+                if (!changed.contains(name) && changed.stream().anyMatch(prop -> references(current.getProperty(name), prop))) {
+                    changed.add(name);
+                    added = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    private static Set<String> findChangedKeys(Map<String, String> reference, Map<String, String> current) {
+        Set<String> keys = new HashSet<>(reference.keySet());
+        keys.addAll(current.keySet());
+        return keys.stream()
+                .filter(key -> !Objects.equals(reference.get(key), current.get(key)))
+                .collect(Collectors.toCollection(HashSet::new));
+    }
+
+    private static Set<String> findReferencingKeys(Map<String, String> xmlByKey, Set<String> properties, Set<String> referencedProperties) {
+        Set<String> keys = new HashSet<>();
+        xmlByKey.forEach((key, xml) -> properties.stream()
+                .filter(prop -> references(xml, prop))
+                .forEach(prop -> {
+                    keys.add(key);
+                    referencedProperties.add(prop);
+                }));
+        return keys;
+    }
+
+    // adds the changed properties the given properties are derived from, e.g. foo.major for <foo.version>${foo.major}.1</foo.version>
+    private static void addDerivingProperties(Set<String> properties, Set<String> changedProperties, Properties current) {
+        boolean added = true;
+        while (added) {
+            added = false;
+            for (String name : changedProperties) {
+                if (!properties.contains(name)
+                        && properties.stream().anyMatch(prop -> references(current.getProperty(prop, ""), name))) {
+                    properties.add(name);
+                    added = true;
+                }
+            }
+        }
+    }
+
+    private static boolean references(String text, String property) {
+        return text.contains("${" + property + "}");
+    }
+
+    private static List<Dependency> getManagedDependencies(Model model) {
+        DependencyManagement dependencyManagement = model.getDependencyManagement();
+        return dependencyManagement != null ? dependencyManagement.getDependencies() : Collections.emptyList();
+    }
+
+    private static List<Plugin> getManagedPlugins(Model model) {
+        PluginManagement pluginManagement = model.getBuild() != null ? model.getBuild().getPluginManagement() : null;
+        return pluginManagement != null ? pluginManagement.getPlugins() : Collections.emptyList();
+    }
+
+    private static void addPlugin(Model model, Plugin plugin) {
+        model.setBuild(new Build());
+        model.getBuild().addPlugin(plugin);
+    }
+
+    // serializes each element separately to be able to compare them
+    private static <T> Map<String, String> toXmlByKey(List<T> elements, Function<T, String> keyFunction, BiConsumer<Model, T> addFunction) {
+        Map<String, String> xmlByKey = new LinkedHashMap<>();
+        for (T element : elements) {
+            Model model = new Model();
+            addFunction.accept(model, element);
+            xmlByKey.put(keyFunction.apply(element), toXml(model));
+        }
+        return xmlByKey;
+    }
+
+    private static String toXml(Model model) {
+        StringWriter writer = new StringWriter();
+        try {
+            new MavenXpp3Writer().write(writer, model);
+        } catch (IOException e) {
+            // not expected for a StringWriter
+            throw new IllegalStateException(e);
+        }
+        return writer.toString();
+    }
+}
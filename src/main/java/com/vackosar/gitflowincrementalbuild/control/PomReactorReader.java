@@ -0,0 +1,402 @@
+package com.vackosar.gitflowincrementalbuild.control;
+
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.project.MavenProject;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the reactor of a multi-module project from its {@code pom.xml} files without starting Maven: a single StAX pass per file picks up the
+ * coordinates, {@code <parent>}, {@code <modules>}, {@code <dependencies>}, {@code <build><plugins>} (coordinates only) and {@code <properties>},
+ * everything else is skipped.
+ * <p>
+ * This is only an approximation of the models that Maven would build: {@code groupId}, {@code version}, properties, dependencies and build
+ * plugins are inherited from parent poms that can be found via their {@code relativePath}, {@code ${...}} expressions are interpolated with these properties and the
+ * project coordinates, and dependencies on reactor modules without (resolvable) version are aligned to the version of the module (e.g. if
+ * they are managed in a parent). Profiles, imports, plugins and extensions are <i>not</i> evaluated and the build directories are the defaults
+ * of the super POM.
+ * </p>
+ */
+public class PomReactorReader {
+
+    private static final String POM_XML = "pom.xml";
+    private static final String DEFAULT_RELATIVE_PATH = "../" + POM_XML;
+    private static final Pattern EXPRESSION = Pattern.compile("\\$\\{([^}]+)}");
+    private static final int MAX_INTERPOLATION_DEPTH = 10;
+
+    private final XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+    private final Map<Path, Pom> poms = new HashMap<>();
+
+    public PomReactorReader() {
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * Reads the given project and all its (transitive) modules.
+     *
+     * @param pomFileOrDirectory the {@code pom.xml} of the top level project or the directory containing it
+     * @return the projects in the order of their declaration, starting with the top level project
+     * @throws IOException if a {@code pom.xml} cannot be found or parsed
+     */
+    public List<MavenProject> read(Path pomFileOrDirectory) throws IOException {
+        List<MavenProject> projects = new ArrayList<>();
+        collect(toPomFile(pomFileOrDirectory), null, projects, new HashSet<>());
+        alignDependencyVersions(projects);
+        return projects;
+    }
+
+    private void collect(Path pomFile, MavenProject aggregator, List<MavenProject> projects, Set<Path> visited) throws IOException {
+        if (!Files.isRegularFile(pomFile)) {
+            throw new IOException("Module " + pomFile + (aggregator != null ? " of " + aggregator.getFile() : "") + " does not exist.");
+        }
+        if (!visited.add(pomFile.toRealPath())) {
+            return;
+        }
+        Pom pom = load(pomFile);
+        MavenProject project = pom.toProject();
+        if (aggregator != null && pom.parent != null && isSameProject(aggregator, pom.parent)) {
+            project.setParent(aggregator);
+        }
+        projects.add(project);
+        for (String module : pom.modules) {
+            collect(toPomFile(pomFile.getParent().resolve(module)), project, projects, visited);
+        }
+    }
+
+    private Pom load(Path pomFile) throws IOException {
+        Path normalized = pomFile.toRealPath();
+        Pom pom = poms.get(normalized);
+        if (pom == null) {
+            pom = parse(normalized);
+            // the model as declared in the file, like MavenProject.getOriginalModel() within Maven
+            pom.originalModel = pom.toModel().clone();
+            // put before inheriting to stop at (invalid) parent cycles
+            poms.put(normalized, pom);
+            inherit(pom);
+            // inherited dependencies are interpolated in the context of the inheriting pom
+            for (Dependency dependency : pom.dependencies) {
+                pom.uninterpolatedDependencies.add(dependency.clone());
+            }
+            for (Plugin plugin : pom.plugins) {
+                pom.uninterpolatedPlugins.add(plugin.clone());
+            }
+            pom.interpolate();
+        }
+        return pom;
+    }
+
+    private void inherit(Pom pom) throws IOException {
+        if (pom.parent == null) {
+            return;
+        }
+        if (pom.groupId == null) {
+            pom.groupId = pom.parent.getGroupId();
+        }
+        if (pom.version == null) {
+            pom.version = pom.parent.getVersion();
+        }
+        String relativePath = pom.parent.getRelativePath();
+        if (relativePath != null && !relativePath.isEmpty()) {
+            Path parentFile = toPomFile(pom.file.getParent().resolve(relativePath));
+            if (Files.isRegularFile(parentFile)) {
+                Pom parentPom = load(parentFile);
+                if (pom.parent.getGroupId().equals(parentPom.groupId) && pom.parent.getArtifactId().equals(parentPom.artifactId)) {
+                    Properties properties = new Properties();
+                    properties.putAll(parentPom.properties);
+                    properties.putAll(pom.properties);
+                    pom.properties = properties;
+                    Set<String> declared = pom.dependencies.stream().map(Dependency::getManagementKey).collect(Collectors.toSet());
+                    parentPom.uninterpolatedDependencies.stream()
+                            .filter(dependency -> !declared.contains(dependency.getManagementKey()))
+                            .map(Dependency::clone)
+                            .forEach(pom.dependencies::add);
+                    Set<String> declaredPlugins = pom.plugins.stream().map(Plugin::getKey).collect(Collectors.toSet());
+                    parentPom.uninterpolatedPlugins.stream()
+                            .filter(plugin -> !declaredPlugins.contains(plugin.getKey()))
+                            .map(Plugin::clone)
+                            .forEach(pom.plugins::add);
+                }
+            }
+        }
+    }
+
+    private Pom parse(Path pomFile) throws IOException {
+        Pom pom = new Pom(pomFile);
+        Deque<String> path = new ArrayDeque<>();
+        StringBuilder text = new StringBuilder();
+        Dependency dependency = null;
+        Plugin plugin = null;
+        try (InputStream in = Files.newInputStream(pomFile)) {
+            XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(in);
+            try {
+                while (reader.hasNext()) {
+                    switch (reader.next()) {
+                        case XMLStreamConstants.START_ELEMENT:
+                            path.addLast(reader.getLocalName());
+                            text.setLength(0);
+                            if (path.size() == 2 && "parent".equals(reader.getLocalName())) {
+                                pom.parent = new Parent();
+                                pom.parent.setRelativePath(DEFAULT_RELATIVE_PATH);
+                            } else if (path.size() == 3 && "dependency".equals(reader.getLocalName()) && isIn(path, "dependencies")) {
+                                dependency = new Dependency();
+                                pom.dependencies.add(dependency);
+                            } else if (path.size() == 4 && "plugin".equals(reader.getLocalName()) && isIn(path, "build", "plugins")) {
+                                plugin = new Plugin();
+                                pom.plugins.add(plugin);
+                            }
+                            break;
+                        case XMLStreamConstants.CHARACTERS:
+                        case XMLStreamConstants.CDATA:
+                            text.append(reader.getText());
+                            break;
+                        case XMLStreamConstants.END_ELEMENT:
+                            handleEnd(pom, dependency, plugin, path, text.toString().trim());
+                            path.removeLast();
+                            break;
+                        default:
+                            break;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to parse " + pomFile + ": " + e.getMessage(), e);
+        }
+        if (pom.artifactId == null) {
+            throw new IOException("Missing artifactId in " + pomFile);
+        }
+        return pom;
+    }
+
+    private static void handleEnd(Pom pom, Dependency dependency, Plugin plugin, Deque<String> path, String text) {
+        String name = path.getLast();
+        switch (path.size()) {
+            case 2:
+                switch (name) {
+                    case "groupId": pom.groupId = text; break;
+                    case "artifactId": pom.artifactId = text; break;
+                    case "version": pom.version = text; break;
+                    case "packaging": pom.packaging = text; break;
+                    default: break;
+                }
+                break;
+            case 3:
+                if (isIn(path, "parent")) {
+                    switch (name) {
+                        case "groupId": pom.parent.setGroupId(text); break;
+                        case "artifactId": pom.parent.setArtifactId(text); break;
+                        case "version": pom.parent.setVersion(text); break;
+                        case "relativePath": pom.parent.setRelativePath(text); break;
+                        default: break;
+                    }
+                } else if (isIn(path, "modules") && "module".equals(name)) {
+                    pom.modules.add(text);
+                } else if (isIn(path, "properties")) {
+                    pom.properties.setProperty(name, text);
+                }
+                break;
+            case 4:
+                if (dependency != null && isIn(path, "dependencies")) {
+                    switch (name) {
+                        case "groupId": dependency.setGroupId(text); break;
+                        case "artifactId": dependency.setArtifactId(text); break;
+                        case "version": dependency.setVersion(text); break;
+                        case "type": dependency.setType(text); break;
+                        case "classifier": dependency.setClassifier(text); break;
+                        case "scope": dependency.setScope(text); break;
+                        case "optional": dependency.setOptional(text); break;
+                        default: break;
+                    }
+                }
+                break;
+            case 5:
+                if (plugin != null && isIn(path, "build", "plugins")) {
+                    switch (name) {
+                        case "groupId": plugin.setGroupId(text); break;
+                        case "artifactId": plugin.setArtifactId(text); break;
+                        case "version": plugin.setVersion(text); break;
+                        default: break;
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    // whether the path below <project> starts with the given element names
+    private static boolean isIn(Deque<String> path, String... names) {
+        return path.stream().skip(1).limit(names.length).collect(Collectors.toList()).equals(Arrays.asList(names));
+    }
+
+    private static boolean isSameProject(MavenProject project, Parent parent) {
+        return project.getGroupId().equals(parent.getGroupId()) && project.getArtifactId().equals(parent.getArtifactId());
+    }
+
+    private static void alignDependencyVersions(List<MavenProject> projects) {
+        Map<String, String> versions = new HashMap<>();
+        projects.forEach(proj -> versions.put(proj.getGroupId() + ":" + proj.getArtifactId(), proj.getVersion()));
+        for (MavenProject project : projects) {
+            for (Dependency dependency : project.getDependencies()) {
+                String moduleVersion = versions.get(dependency.getGroupId() + ":" + dependency.getArtifactId());
+                if (moduleVersion != null && (dependency.getVersion() == null || dependency.getVersion().contains("${"))) {
+                    dependency.setVersion(moduleVersion);
+                }
+            }
+        }
+    }
+
+    private static Path toPomFile(Path pomFileOrDirectory) {
+        return Files.isDirectory(pomFileOrDirectory) ? pomFileOrDirectory.resolve(POM_XML) : pomFileOrDirectory;
+    }
+
+    static String interpolate(String value, Function<String, String> lookup) {
+        String result = value;
+        for (int i = 0; result != null && result.contains("${") && i < MAX_INTERPOLATION_DEPTH; i++) {
+            Matcher matcher = EXPRESSION.matcher(result);
+            StringBuffer interpolated = new StringBuffer();
+            while (matcher.find()) {
+                String replacement = lookup.apply(matcher.group(1));
+                matcher.appendReplacement(interpolated, Matcher.quoteReplacement(replacement != null ? replacement : matcher.group()));
+            }
+            matcher.appendTail(interpolated);
+            if (interpolated.toString().equals(result)) {
+                break;
+            }
+            result = interpolated.toString();
+        }
+        return result;
+    }
+
+    private static class Pom {
+
+        private final Path file;
+        private String groupId;
+        private String artifactId;
+        private String version;
+        private String packaging = "jar";
+        private Parent parent;
+        private final List<String> modules = new ArrayList<>();
+        private final List<Dependency> dependencies = new ArrayList<>();
+        private final List<Dependency> uninterpolatedDependencies = new ArrayList<>();
+        private final List<Plugin> plugins = new ArrayList<>();
+        private final List<Plugin> uninterpolatedPlugins = new ArrayList<>();
+        private Model originalModel;
+        private Properties properties = new Properties();
+
+        Pom(Path file) {
+            this.file = file;
+        }
+
+        void interpolate() {
+            Function<String, String> lookup = this::lookup;
+            groupId = PomReactorReader.interpolate(groupId, lookup);
+            artifactId = PomReactorReader.interpolate(artifactId, lookup);
+            version = PomReactorReader.interpolate(version, lookup);
+            packaging = PomReactorReader.interpolate(packaging, lookup);
+            modules.replaceAll(module -> PomReactorReader.interpolate(module, lookup));
+            for (Dependency dependency : dependencies) {
+                dependency.setGroupId(PomReactorReader.interpolate(dependency.getGroupId(), lookup));
+                dependency.setArtifactId(PomReactorReader.interpolate(dependency.getArtifactId(), lookup));
+                dependency.setVersion(PomReactorReader.interpolate(dependency.getVersion(), lookup));
+                dependency.setType(PomReactorReader.interpolate(dependency.getType(), lookup));
+                dependency.setClassifier(PomReactorReader.interpolate(dependency.getClassifier(), lookup));
+                dependency.setScope(PomReactorReader.interpolate(dependency.getScope(), lookup));
+            }
+            for (Plugin plugin : plugins) {
+                plugin.setGroupId(PomReactorReader.interpolate(plugin.getGroupId(), lookup));
+                plugin.setArtifactId(PomReactorReader.interpolate(plugin.getArtifactId(), lookup));
+                plugin.setVersion(PomReactorReader.interpolate(plugin.getVersion(), lookup));
+            }
+        }
+
+        private String lookup(String expression) {
+            switch (expression) {
+                case "project.groupId":
+                case "pom.groupId":
+                    return groupId;
+                case "project.artifactId":
+                case "pom.artifactId":
+                    return artifactId;
+                case "project.version":
+                case "pom.version":
+                case "version":
+                    return version;
+                case "project.parent.groupId":
+                    return parent != null ? parent.getGroupId() : null;
+                case "project.parent.version":
+                    return parent != null ? parent.getVersion() : null;
+                case "project.basedir":
+                case "basedir":
+                    return file.getParent().toString();
+                default:
+                    return properties.getProperty(expression);
+            }
+        }
+
+        Model toModel() {
+            Model model = new Model();
+            model.setModelVersion("4.0.0");
+            model.setGroupId(groupId);
+            model.setArtifactId(artifactId);
+            model.setVersion(version);
+            model.setPackaging(packaging);
+            model.setParent(parent);
+            model.setModules(new ArrayList<>(modules));
+            model.setDependencies(new ArrayList<>(dependencies));
+            model.setProperties((Properties) properties.clone());
+            Build build = new Build();
+            build.setPlugins(new ArrayList<>(plugins));
+            model.setBuild(build);
+            return model;
+        }
+
+        MavenProject toProject() {
+            Model model = toModel();
+
+            // defaults of the super POM
+            Path basedir = file.getParent();
+            Path target = basedir.resolve("target");
+            Build build = model.getBuild();
+            build.setDirectory(target.toString());
+            build.setOutputDirectory(target.resolve("classes").toString());
+            build.setTestOutputDirectory(target.resolve("test-classes").toString());
+            build.setSourceDirectory(basedir.resolve("src/main/java").toString());
+            build.setTestSourceDirectory(basedir.resolve("src/test/java").toString());
+            build.setFinalName(artifactId + "-" + version);
+
+            MavenProject project = new MavenProject(model);
+            project.setOriginalModel(originalModel.clone());
+            project.setFile(file.toFile());
+            return project;
+        }
+    }
+}
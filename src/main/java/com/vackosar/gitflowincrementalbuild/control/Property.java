@@ -20,20 +20,35 @@ public enum Property {
     fetchReferenceBranch("false", "frb", true),
     baseBranch("HEAD", "bb"),
     fetchBaseBranch("false", "fbb", true),
+    fetchFreshnessWindow("0", "ffw"),
+    offline("false", "o", true),
+    fetchMirrors("", "fm"),
+    fetchWithoutTags("false", "fwt", true),
+    credentialsCacheTtl("0", "cct"),
     useJschAgentProxy("true", "ujap"),
     compareToMergeBase("true", "ctmb", true),
+    compareToReferenceHead("false", "ctrh", true),
     uncommited("true", "uc", true),
     untracked("true", "ut", true),
+    parallelWorkingTreeScan("false", "pwts", true),
+    trustStatData("false", "tsd", true),
     excludePathRegex(Constants.NEVER_MATCH_REGEX, "epr"),
     includePathRegex(Constants.ALWAYS_MATCH_REGEX, "ipr"),
+    ignoreCosmeticPomChanges("false", "icpc", true),
 
     buildAll("false", "ba", true),
     buildAllIfNoChanges("false", "bainc", true),
     buildDownstream("always", "bd", true),
+    pruneDownstreamOnUnchangedAbi("false", "pdoua", true),
+    classifyJavaChanges("false", "cjc", true),
+    skipDownstreamOnTestOnlyChanges("false", "sdotoc", true),
+    limitDownstreamByScope("", "ldbs"),
+    analyzePomChanges("false", "apc", true),
     buildUpstream("derived", "bu", true),
     buildUpstreamMode("changed", "bum"),
     skipTestsForUpstreamModules("false", "stfum", true),
     argsForUpstreamModules("", "afum"),
+    reuseUpstreamOutputs("false", "ruo", true),
     forceBuildModules("", "fbm"),
     excludeDownstreamModulesPackagedAs("", "edmpa") {
         @Override
@@ -44,7 +59,12 @@ public enum Property {
 
     failOnMissingGitDir("true", "fomgd", true),
     failOnError("true", "foe", true),
-    logImpactedTo(null, "lit");
+    logImpactedTo(null, "lit"),
+    writeMetricsTo(null, "wmt"),
+    writeImpactReportTo(null, "wirt"),
+    writeChangedFilesManifest("false", "wcfm", true),
+    selectTests("false", "st", true),
+    replayCommits("0", "rc");
 
     public static final String PREFIX = "gib.";
 
@@ -0,0 +1,232 @@
+package com.vackosar.gitflowincrementalbuild.control;
+
+import com.vackosar.gitflowincrementalbuild.boundary.Configuration;
+import com.vackosar.gitflowincrementalbuild.control.jgit.GitFactory;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.execution.ProjectDependencyGraph;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Computes and stores a fingerprint of the sources of a module that is derived from the committed git objects of the module directory, the
+ * {@code pom.xml} files of its parents and its upstream modules in the reactor (since the outputs of a module also depend on the state of its
+ * dependencies): the directory of an upstream module or only its {@code pom.xml} in case of {@code pom} packaging. A fingerprint is only available if none of these paths contains uncommitted or untracked changes (ignoring the
+ * build directory of the module), otherwise there is no reliable way to tell whether the existing build outputs match the current sources.
+ * <p>
+ * The git status of the working tree is only computed once per session (see {@link #refreshStatus()}).
+ * </p>
+ * <p>
+ * The stored fingerprint is located in {@code target/gib/source-fingerprint} and is accompanied by the information whether the module was packaged
+ * when the fingerprint was stored.
+ * </p>
+ */
+@Singleton
+@Named
+public class SourceFingerprints {
+
+    static final String FINGERPRINT_FILE = "gib/source-fingerprint";
+    private static final String PACKAGED_MARKER = "packaged";
+    private static final String POM_PACKAGING = "pom";
+
+    private Logger logger = LoggerFactory.getLogger(SourceFingerprints.class);
+
+    @Inject private MavenSession mavenSession;
+    @Inject private Configuration.Provider configProvider;
+
+    private SessionStatus sessionStatus;
+
+    /**
+     * Returns the current fingerprint of the given project's sources.
+     *
+     * @param project the project to fingerprint
+     * @return the fingerprint or {@link Optional#empty()} if the project is not (fully) committed
+     */
+    public Optional<String> compute(MavenProject project) throws IOException, GitAPIException {
+        Git git = GitFactory.getOrCreateThreadLocalGit(mavenSession, configProvider.get());
+        Repository repository = git.getRepository();
+        ObjectId headTree = repository.resolve(Constants.HEAD + "^{tree}");
+        if (headTree == null) {
+            return Optional.empty();
+        }
+        Status status = getStatus(git);
+        String relativeBuildDir = buildDirectoryOf(project, repository.getWorkTree().toPath().toRealPath());
+        return compute(project, repository, headTree, relativePath -> isClean(status, relativePath, relativeBuildDir));
+    }
+
+    /**
+     * Returns the fingerprint of the given project's sources as committed in the given tree (ignoring the working tree).
+     *
+     * @param project the project to fingerprint
+     * @param tree the tree to read the sources from, e.g. the tree of the reference commit
+     * @return the fingerprint or {@link Optional#empty()} if the project does not exist in the given tree
+     */
+    public Optional<String> computeAt(MavenProject project, ObjectId tree) throws IOException {
+        Repository repository = GitFactory.getOrCreateThreadLocalGit(mavenSession, configProvider.get()).getRepository();
+        return compute(project, repository, tree, relativePath -> true);
+    }
+
+    private Optional<String> compute(MavenProject project, Repository repository, ObjectId tree, Predicate<String> isClean) throws IOException {
+        Path workTree = repository.getWorkTree().toPath().toRealPath();
+        Set<String> relativePaths = new LinkedHashSet<>();
+        relativePaths.add(toGitPath(workTree, project.getBasedir().toPath()));
+        Set<File> parentFiles = new HashSet<>();
+        for (MavenProject parent = project.getParent(); parent != null && parent.getFile() != null; parent = parent.getParent()) {
+            relativePaths.add(toGitPath(workTree, parent.getFile().toPath()));
+            parentFiles.add(parent.getFile());
+        }
+        ProjectDependencyGraph dependencyGraph = mavenSession.getProjectDependencyGraph();
+        if (dependencyGraph != null) {
+            // parents are upstream projects as well, but only their pom.xml is relevant (their directories usually contain all modules)
+            for (MavenProject upstream : dependencyGraph.getUpstreamProjects(project, true)) {
+                if (upstream.getFile() == null || parentFiles.contains(upstream.getFile())) {
+                    continue;
+                }
+                relativePaths.add(toGitPath(workTree, POM_PACKAGING.equals(upstream.getPackaging())
+                        ? upstream.getFile().toPath()
+                        : upstream.getBasedir().toPath()));
+            }
+        }
+
+        StringBuilder fingerprint = new StringBuilder();
+        for (String relativePath : relativePaths) {
+            Optional<ObjectId> objectId = resolve(repository, tree, relativePath);
+            if (!objectId.isPresent() || !isClean.test(relativePath)) {
+                logger.debug("{}: no source fingerprint available due to missing or uncommitted path: {}", project.getArtifactId(), relativePath);
+                return Optional.empty();
+            }
+            fingerprint.append(relativePath).append('=').append(objectId.get().name()).append(';');
+        }
+        return Optional.of(fingerprint.toString());
+    }
+
+    /**
+     * Discards the git status that was computed for the current session, e.g. because the build might have changed the working tree since.
+     */
+    public synchronized void refreshStatus() {
+        sessionStatus = null;
+    }
+
+    /**
+     * Returns whether the fingerprint that was stored for the given project by {@link #store(MavenProject, boolean)} matches the current fingerprint.
+     *
+     * @param project the project to check
+     * @return whether the stored fingerprint matches
+     */
+    public boolean matchesStored(MavenProject project) throws IOException, GitAPIException {
+        Optional<List<String>> stored = readStored(project);
+        if (!stored.isPresent() || stored.get().isEmpty()) {
+            return false;
+        }
+        return compute(project).map(stored.get().get(0)::equals).orElse(false);
+    }
+
+    /**
+     * Returns whether the given project was packaged when its fingerprint was stored.
+     *
+     * @param project the project to check
+     * @return whether the project was packaged
+     */
+    public boolean wasPackaged(MavenProject project) throws IOException {
+        return readStored(project).map(lines -> lines.contains(PACKAGED_MARKER)).orElse(false);
+    }
+
+    /**
+     * Stores the current fingerprint of the given project, if available.
+     *
+     * @param project the project to store the fingerprint for
+     * @param packaged whether the project was packaged
+     */
+    public void store(MavenProject project, boolean packaged) throws IOException, GitAPIException {
+        Path fingerprintFile = fingerprintFileOf(project);
+        Optional<String> fingerprint = compute(project);
+        if (!fingerprint.isPresent()) {
+            Files.deleteIfExists(fingerprintFile);
+            return;
+        }
+        List<String> lines = packaged ? Arrays.asList(fingerprint.get(), PACKAGED_MARKER) : Arrays.asList(fingerprint.get());
+        Files.createDirectories(fingerprintFile.getParent());
+        Files.write(fingerprintFile, lines, StandardCharsets.UTF_8);
+        logger.debug("{}: stored source fingerprint {}", project.getArtifactId(), fingerprint.get());
+    }
+
+    private Optional<List<String>> readStored(MavenProject project) throws IOException {
+        Path fingerprintFile = fingerprintFileOf(project);
+        return Files.isRegularFile(fingerprintFile)
+                ? Optional.of(Files.readAllLines(fingerprintFile, StandardCharsets.UTF_8))
+                : Optional.empty();
+    }
+
+    private static Path fingerprintFileOf(MavenProject project) {
+        return Paths.get(project.getBuild().getDirectory()).resolve(FINGERPRINT_FILE);
+    }
+
+    private static Optional<ObjectId> resolve(Repository repository, ObjectId tree, String relativePath) throws IOException {
+        if (relativePath.isEmpty()) {
+            return Optional.of(tree);
+        }
+        try (TreeWalk treeWalk = TreeWalk.forPath(repository, relativePath, tree)) {
+            return treeWalk != null ? Optional.of(treeWalk.getObjectId(0)) : Optional.empty();
+        }
+    }
+
+    private synchronized Status getStatus(Git git) throws GitAPIException {
+        if (sessionStatus == null || sessionStatus.session != mavenSession) {
+            sessionStatus = new SessionStatus(mavenSession, git.status().call());
+        }
+        return sessionStatus.status;
+    }
+
+    private static boolean isClean(Status status, String relativePath, String relativeBuildDir) {
+        return Stream.concat(status.getUncommittedChanges().stream(), status.getUntracked().stream())
+                .filter(path -> relativePath.isEmpty() || path.equals(relativePath) || path.startsWith(relativePath + "/"))
+                .allMatch(path -> relativeBuildDir != null && path.startsWith(relativeBuildDir + "/"));
+    }
+
+    // null if the build directory does not exist (so it cannot contain any untracked files)
+    private static String buildDirectoryOf(MavenProject project, Path workTree) throws IOException {
+        Path buildDir = Paths.get(project.getBuild().getDirectory());
+        return Files.exists(buildDir) ? toGitPath(workTree, buildDir) : null;
+    }
+
+    private static String toGitPath(Path workTree, Path path) throws IOException {
+        return workTree.relativize(path.toRealPath()).toString().replace('\\', '/');
+    }
+
+    private static class SessionStatus {
+
+        private final MavenSession session;
+        private final Status status;
+
+        private SessionStatus(MavenSession session, Status status) {
+            this.session = session;
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.vackosar.gitflowincrementalbuild.control;
+
+import com.vackosar.gitflowincrementalbuild.control.AbiFingerprints.ClassReferences;
+import org.apache.maven.project.MavenProject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Selects the test classes of a changed module that (transitively) reference the changed classes of the module, based on a class level dependency
+ * index that is read from the compiled classes and test classes of the module.
+ * <p>
+ * The index is stored in {@code target/gib/test-index} and is refreshed incrementally: only class files with a different size or modification time
+ * than at the time of the last refresh are read again. No selection is made (so all tests are run) if any changed file is not a Java source of the
+ * module, if there are no compiled test classes or if the compiled classes are stale, which means that any unchanged source file is newer than the
+ * newest class file (e.g. after switching branches without building).
+ * </p>
+ * <p>
+ * The selection is an approximation: classes that are only used via reflection (or constants, which are inlined by the compiler) are not found.
+ * </p>
+ */
+@Singleton
+@Named
+public class TestSelection {
+
+    static final String INDEX_FILE = "gib/test-index";
+
+    private static final String JAVA_SUFFIX = ".java";
+    private static final String CLASS_SUFFIX = ".class";
+    private static final String KIND_MAIN = "main";
+    private static final String KIND_TEST = "test";
+
+    private Logger logger = LoggerFactory.getLogger(TestSelection.class);
+
+    /**
+     * Selects the test classes of the given module that are affected by the given changed files.
+     *
+     * @param project the changed module
+     * @param changedFiles the changed files of the module (absolute paths)
+     * @return the fully qualified names of the affected test classes (can be empty) or {@link Optional#empty()} if all tests shall be run
+     */
+    public Optional<Set<String>> select(MavenProject project, Set<Path> changedFiles) throws IOException {
+        Path classesDir = Paths.get(project.getBuild().getOutputDirectory());
+        Path testClassesDir = Paths.get(project.getBuild().getTestOutputDirectory());
+        if (!Files.isDirectory(testClassesDir)) {
+            return fallback(project, "no compiled test classes");
+        }
+
+        List<Path> sourceRoots = toPaths(project.getCompileSourceRoots());
+        List<Path> testSourceRoots = toPaths(project.getTestCompileSourceRoots());
+        Set<String> changedSources = new HashSet<>();
+        Set<String> changedTestSources = new HashSet<>();
+        for (Path changedFile : changedFiles) {
+            Optional<String> source = relativeSource(changedFile, sourceRoots);
+            Optional<String> testSource = relativeSource(changedFile, testSourceRoots);
+            if (source.isPresent()) {
+                changedSources.add(source.get());
+            } else if (testSource.isPresent()) {
+                changedTestSources.add(testSource.get());
+            } else {
+                return fallback(project, "changed file is not a Java source: " + changedFile);
+            }
+        }
+
+        Map<String, IndexEntry> index = refreshIndex(project, classesDir, testClassesDir);
+        long lastCompiled = index.values().stream().mapToLong(entry -> entry.lastModified).max().orElse(0);
+        Optional<Path> newerSource = findNewerSource(Stream.concat(sourceRoots.stream(), testSourceRoots.stream()), changedFiles, lastCompiled);
+        if (newerSource.isPresent()) {
+            return fallback(project, "compiled classes are older than unchanged source " + newerSource.get());
+        }
+
+        Map<String, Set<String>> classesBySource = new HashMap<>();
+        Map<String, Set<String>> referencedBy = new HashMap<>();
+        Set<String> testClasses = new HashSet<>();
+        for (IndexEntry entry : index.values()) {
+            classesBySource.computeIfAbsent(entry.source(), source -> new HashSet<>()).add(entry.name);
+            entry.references.forEach(reference -> referencedBy.computeIfAbsent(reference, ref -> new HashSet<>()).add(entry.name));
+            if (entry.test) {
+                testClasses.add(entry.name);
+            }
+        }
+
+        Set<String> affected = new HashSet<>();
+        Deque<String> queue = new ArrayDeque<>();
+        Stream.concat(changedSources.stream(), changedTestSources.stream())
+                .flatMap(source -> classesBySource.getOrDefault(source, Collections.emptySet()).stream())
+                .forEach(queue::add);
+        while (!queue.isEmpty()) {
+            String name = queue.poll();
+            if (affected.add(name)) {
+                queue.addAll(referencedBy.getOrDefault(name, Collections.emptySet()));
+            }
+        }
+
+        Set<String> selected = affected.stream()
+                .filter(testClasses::contains)
+                .map(TestSelection::toTopLevelClassName)
+                .collect(Collectors.toCollection(TreeSet::new));
+        // new (not yet compiled) tests and deleted tests (which are filtered by surefire)
+        changedTestSources.forEach(source -> selected.add(toTopLevelClassName(source.substring(0, source.length() - JAVA_SUFFIX.length()))));
+        logger.debug("{}: selected tests: {}", project.getArtifactId(), selected);
+        return Optional.of(selected);
+    }
+
+    private Optional<Set<String>> fallback(MavenProject project, String reason) {
+        logger.info("{}: running all tests ({}).", project.getArtifactId(), reason);
+        return Optional.empty();
+    }
+
+    private static List<Path> toPaths(Collection<String> roots) {
+        return roots.stream().map(Paths::get).map(Path::normalize).collect(Collectors.toList());
+    }
+
+    // e.g. "com/example/Foo.java"
+    private static Optional<String> relativeSource(Path file, List<Path> roots) {
+        if (!file.getFileName().toString().endsWith(JAVA_SUFFIX)) {
+            return Optional.empty();
+        }
+        return roots.stream()
+                .filter(file.normalize()::startsWith)
+                .findFirst()
+                .map(root -> toUnixPath(root.relativize(file.normalize())));
+    }
+
+    private static Optional<Path> findNewerSource(Stream<Path> roots, Set<Path> changedFiles, long lastCompiled) throws IOException {
+        Set<Path> normalizedChangedFiles = changedFiles.stream().map(Path::normalize).collect(Collectors.toSet());
+        for (Path root : (Iterable<Path>) roots.filter(Files::isDirectory)::iterator) {
+            try (Stream<Path> files = Files.find(root, Integer.MAX_VALUE, (path, attributes) -> attributes.isRegularFile()
+                    && attributes.lastModifiedTime().toMillis() > lastCompiled
+                    && path.getFileName().toString().endsWith(JAVA_SUFFIX))) {
+                Optional<Path> newer = files.filter(path -> !normalizedChangedFiles.contains(path.normalize())).findFirst();
+                if (newer.isPresent()) {
+                    return newer;
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private Map<String, IndexEntry> refreshIndex(MavenProject project, Path classesDir, Path testClassesDir) throws IOException {
+        Path indexFile = Paths.get(project.getBuild().getDirectory()).resolve(INDEX_FILE);
+        Map<String, IndexEntry> previous = readIndex(indexFile);
+        Map<String, IndexEntry> index = new LinkedHashMap<>();
+        int read = 0;
+        for (Path classFile : findClassFiles(classesDir, testClassesDir)) {
+            boolean test = classFile.startsWith(testClassesDir);
+            String key = (test ? KIND_TEST : KIND_MAIN) + ":" + toUnixPath((test ? testClassesDir : classesDir).relativize(classFile));
+            BasicFileAttributes attributes = Files.readAttributes(classFile, BasicFileAttributes.class);
+            IndexEntry entry = previous.get(key);
+            if (entry == null || entry.size != attributes.size() || entry.lastModified != attributes.lastModifiedTime().toMillis()) {
+                try (InputStream in = Files.newInputStream(classFile)) {
+                    entry = new IndexEntry(test, attributes.size(), attributes.lastModifiedTime().toMillis(), AbiFingerprints.readReferences(in));
+                }
+                read++;
+            }
+            index.put(key, entry);
+        }
+        if (read > 0 || !index.keySet().equals(previous.keySet())) {
+            logger.debug("{}: refreshing test index ({} of {} class files read)", project.getArtifactId(), read, index.size());
+            writeIndex(indexFile, index);
+        }
+        return index;
+    }
+
+    private static Set<Path> findClassFiles(Path... dirs) throws IOException {
+        // a set, as the test classes directory might be located within the classes directory
+        Set<Path> classFiles = new LinkedHashSet<>();
+        for (Path dir : dirs) {
+            if (Files.isDirectory(dir)) {
+                try (Stream<Path> paths = Files.walk(dir)) {
+                    paths.filter(path -> path.getFileName().toString().endsWith(CLASS_SUFFIX)).forEach(classFiles::add);
+                }
+            }
+        }
+        return classFiles;
+    }
+
+    // one line per class file: <kind>:<path>\t<size>\t<last modified>\t<name>\t<source file>\t<references>
+    private static Map<String, IndexEntry> readIndex(Path indexFile) {
+        Map<String, IndexEntry> index = new HashMap<>();
+        if (!Files.isRegularFile(indexFile)) {
+            return index;
+        }
+        try {
+            for (String line : Files.readAllLines(indexFile, StandardCharsets.UTF_8)) {
+                String[] columns = line.split("\t", -1);
+                Set<String> references = columns[5].isEmpty() ? Collections.emptySet() : new HashSet<>(Arrays.asList(columns[5].split(" ")));
+                index.put(columns[0], new IndexEntry(columns[0].startsWith(KIND_TEST + ":"), Long.parseLong(columns[1]), Long.parseLong(columns[2]),
+                        new ClassReferences(columns[3], columns[4].isEmpty() ? null : columns[4], references)));
+            }
+        } catch (IOException | RuntimeException e) {
+            // rebuilt from scratch
+            return new HashMap<>();
+        }
+        return index;
+    }
+
+    private static void writeIndex(Path indexFile, Map<String, IndexEntry> index) throws IOException {
+        List<String> lines = index.entrySet().stream()
+                .map(e -> String.join("\t", e.getKey(), Long.toString(e.getValue().size), Long.toString(e.getValue().lastModified), e.getValue().name,
+                        Optional.ofNullable(e.getValue().sourceFile).orElse(""), String.join(" ", e.getValue().references)))
+                .collect(Collectors.toList());
+        Files.createDirectories(indexFile.getParent());
+        Files.write(indexFile, lines, StandardCharsets.UTF_8);
+    }
+
+    private static String toTopLevelClassName(String internalName) {
+        int nested = internalName.indexOf('$');
+        return (nested < 0 ? internalName : internalName.substring(0, nested)).replace('/', '.');
+    }
+
+    private static String toUnixPath(Path path) {
+        return path.toString().replace('\\', '/');
+    }
+
+    private static class IndexEntry {
+
+        private final boolean test;
+        private final long size;
+        private final long lastModified;
+        private final String name;
+        private final String sourceFile;
+        private final Set<String> references;
+
+        private IndexEntry(boolean test, long size, long lastModified, ClassReferences classReferences) {
+            this.test = test;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.name = classReferences.name;
+            this.sourceFile = classReferences.sourceFile;
+            this.references = classReferences.references;
+        }
+
+        // e.g. "com/example/Foo.java" for com/example/Foo$Bar
+        private String source() {
+            int packageEnd = name.lastIndexOf('/');
+            return sourceFile != null
+                    ? name.substring(0, packageEnd + 1) + sourceFile
+                    : toTopLevelClassName(name).replace('.', '/') + JAVA_SUFFIX;
+        }
+    }
+}
@@ -5,11 +5,14 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -32,21 +35,41 @@ import org.slf4j.LoggerFactory;
  * This provider will suppress any console input requests (see
  * <a href="https://git-scm.com/docs/git#Documentation/git.txt-codeGITTERMINALPROMPTcode">GIT_TERMINAL_PROMPT</a>).
  * </p>
+ * <p>
+ * Optionally, looked up credentials are cached in memory for the lifetime of the JVM (e.g. a Maven daemon) for a given time, so that subsequent
+ * builds don't have to invoke native Git again. A cached entry is wiped as soon as JGit reports it as invalid via {@link #reset(URIish)} and
+ * expired entries are wiped on the next lookup.
+ * </p>
  *
  * @see <a href="https://git-scm.com/docs/git-credential">Git documentation: git credential</a>
  */
 public class HttpDelegatingCredentialsProvider extends CredentialsProvider {
 
+    private static final Map<CacheKey, CachedCredentials> CACHE = new ConcurrentHashMap<>();
+
+    private static final FS FS_DETECTED = FS.detect();
+
     private Logger logger = LoggerFactory.getLogger(HttpDelegatingCredentialsProvider.class);
 
     private final Path projectDir;
     private final Map<String, String> additionalNativeGitEnvironment;
+    private final Duration cacheTtl;
 
     private final Map<URIish, CredentialsPair> credentials = new HashMap<>();
 
     public HttpDelegatingCredentialsProvider(Path projectDir, Map<String, String> additionalNativeGitEnvironment) {
+        this(projectDir, additionalNativeGitEnvironment, Duration.ZERO);
+    }
+
+    /**
+     * @param projectDir the directory to invoke native Git in
+     * @param additionalNativeGitEnvironment additional environment entries for native Git
+     * @param cacheTtl time to keep looked up credentials in the JVM wide cache ({@link Duration#ZERO} disables the cache)
+     */
+    public HttpDelegatingCredentialsProvider(Path projectDir, Map<String, String> additionalNativeGitEnvironment, Duration cacheTtl) {
         this.projectDir = projectDir;
         this.additionalNativeGitEnvironment = additionalNativeGitEnvironment;
+        this.cacheTtl = cacheTtl;
     }
 
     @Override
@@ -71,7 +94,7 @@ public class HttpDelegatingCredentialsProvider extends CredentialsProvider {
 
         CredentialsPair credentialsPair = credentials.computeIfAbsent(uri, u -> {
             try {
-                return lookupCredentials(uri);
+                return lookupCachedCredentials(uri);
             } catch (IOException | InterruptedException | RuntimeException e) {
                 logger.warn("Failed to look up credentials via 'git credential fill' for: " + uri, e);
                 return null;
@@ -100,22 +123,52 @@ public class HttpDelegatingCredentialsProvider extends CredentialsProvider {
     @Override
     // see also: org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider.clear()
     public void reset(URIish uri) {
-        Optional.ofNullable(credentials.remove(uri))
-                .ifPresent(credPair -> {
-                    credPair.username = null;
-                    Arrays.fill(credPair.password, (char) 0);
-                    credPair.password = null;
-                });
+        Optional.ofNullable(credentials.remove(uri)).ifPresent(CredentialsPair::wipe);
+        // the credentials are reset by JGit if they are not valid (anymore)
+        Optional.ofNullable(CACHE.remove(new CacheKey(projectDir, uri))).ifPresent(cached -> cached.credentialsPair.wipe());
     }
 
+    /**
+     * Wipes the credentials of this instance (but not the cached credentials).
+     */
     public void resetAll() {
-        new HashSet<>(credentials.keySet()).forEach(this::reset);
+        new HashSet<>(credentials.keySet()).forEach(uri -> credentials.remove(uri).wipe());
+    }
+
+    /**
+     * Wipes all cached credentials.
+     */
+    public static void clearCache() {
+        new HashSet<>(CACHE.keySet()).forEach(key -> Optional.ofNullable(CACHE.remove(key)).ifPresent(cached -> cached.credentialsPair.wipe()));
+    }
+
+    // the cache holds its own copy since the instances wipe their credentials after each fetch
+    private CredentialsPair lookupCachedCredentials(URIish uri) throws IOException, InterruptedException {
+        long now = System.nanoTime();
+        // wipe all expired entries, not only the one that is looked up
+        CACHE.forEach((cacheKey, cached) -> {
+            if (now - cached.expiresAt >= 0 && CACHE.remove(cacheKey, cached)) {
+                cached.credentialsPair.wipe();
+            }
+        });
+        if (cacheTtl.isZero()) {
+            return lookupCredentials(uri);
+        }
+        CacheKey key = new CacheKey(projectDir, uri);
+        CachedCredentials cached = CACHE.get(key);
+        if (cached != null) {
+            logger.debug("Using cached credentials for: {}", uri);
+            return cached.credentialsPair.copy();
+        }
+        CredentialsPair credentialsPair = lookupCredentials(uri);
+        Optional.ofNullable(CACHE.put(key, new CachedCredentials(credentialsPair.copy(), now + cacheTtl.toNanos())))
+                .ifPresent(replaced -> replaced.credentialsPair.wipe());
+        return credentialsPair;
     }
 
     private CredentialsPair lookupCredentials(URIish uri) throws IOException, InterruptedException {
-        // utilize JGit command execution capabilities
-        FS fs = FS.detect();
-        ProcessBuilder procBuilder = fs.runInShell("git", new String[] {"credential", "fill"});
+        // utilize JGit command execution capabilities, but invoke native Git directly (without any shell)
+        ProcessBuilder procBuilder = new ProcessBuilder("git", "credential", "fill");
 
         // prevent native git from requesting console input (not implemented)
         procBuilder.environment().put("GIT_TERMINAL_PROMPT", "0");
@@ -126,7 +179,7 @@ public class HttpDelegatingCredentialsProvider extends CredentialsProvider {
         }
         procBuilder.directory(projectDir.toFile());
 
-        ExecutionResult result = fs.execute(procBuilder, new ByteArrayInputStream(buildGitCommandInput(uri).getBytes(Charset.defaultCharset())));
+        ExecutionResult result = FS_DETECTED.execute(procBuilder, new ByteArrayInputStream(buildGitCommandInput(uri).getBytes(Charset.defaultCharset())));
         if (result.getRc() != 0) {
             logger.info(bufferToString(result.getStdout()));
             logger.error(bufferToString(result.getStderr()));
@@ -180,5 +233,54 @@ public class HttpDelegatingCredentialsProvider extends CredentialsProvider {
     private static class CredentialsPair {
         private String username;
         private char[] password;
+
+        private CredentialsPair copy() {
+            CredentialsPair copy = new CredentialsPair();
+            copy.username = username;
+            copy.password = password.clone();
+            return copy;
+        }
+
+        // see also: org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider.clear()
+        private void wipe() {
+            username = null;
+            Arrays.fill(password, (char) 0);
+            password = null;
+        }
+    }
+
+    private static class CachedCredentials {
+        private final CredentialsPair credentialsPair;
+        private final long expiresAt;
+
+        private CachedCredentials(CredentialsPair credentialsPair, long expiresAt) {
+            this.credentialsPair = credentialsPair;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    // credentials might depend on the configuration of the repository
+    private static class CacheKey {
+        private final Path projectDir;
+        private final URIish uri;
+
+        private CacheKey(Path projectDir, URIish uri) {
+            this.projectDir = projectDir;
+            this.uri = uri;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) obj;
+            return projectDir.equals(other.projectDir) && uri.equals(other.uri);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(projectDir, uri);
+        }
     }
 }
\ No newline at end of file
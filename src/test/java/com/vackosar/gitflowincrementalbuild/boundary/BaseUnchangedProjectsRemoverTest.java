@@ -1,6 +1,7 @@
 package com.vackosar.gitflowincrementalbuild.boundary;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anySet;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.withSettings;
@@ -27,11 +28,19 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.powermock.reflect.Whitebox;
 
+import com.vackosar.gitflowincrementalbuild.control.AbiFingerprints;
+import com.vackosar.gitflowincrementalbuild.control.ChangeClassifier;
 import com.vackosar.gitflowincrementalbuild.control.ChangedProjects;
+import com.vackosar.gitflowincrementalbuild.control.DifferentFiles;
+import com.vackosar.gitflowincrementalbuild.control.DownstreamPropagation;
+import com.vackosar.gitflowincrementalbuild.control.PhaseTimings;
+import com.vackosar.gitflowincrementalbuild.control.PomChangeAnalyzer;
 import com.vackosar.gitflowincrementalbuild.control.Property;
+import com.vackosar.gitflowincrementalbuild.control.SourceFingerprints;
 
 /**
  * Tests {@link UnchangedProjectsRemover} with Mockito mocks.
@@ -64,6 +73,30 @@ public abstract class BaseUnchangedProjectsRemoverTest {
     @Mock(lenient = true)
     protected ChangedProjects changedProjectsMock;
 
+    @Mock(lenient = true)
+    protected ChangeClassifier changeClassifierMock;
+
+    @Mock(lenient = true)
+    protected DownstreamPropagation downstreamPropagationMock;
+
+    @Mock(lenient = true)
+    protected PomChangeAnalyzer pomChangeAnalyzerMock;
+
+    @Mock(lenient = true)
+    protected SourceFingerprints sourceFingerprintsMock;
+
+    @Mock(lenient = true)
+    protected UpstreamOutputsWorkspaceReader upstreamOutputsReaderMock;
+
+    @Mock(lenient = true)
+    protected AbiFingerprints abiFingerprintsMock;
+
+    @Mock(lenient = true)
+    protected DifferentFiles differentFilesMock;
+
+    @Spy
+    protected PhaseTimings phaseTimingsSpy;
+
     @InjectMocks
     protected UnchangedProjectsRemover underTest;
 
@@ -91,8 +124,9 @@ public abstract class BaseUnchangedProjectsRemoverTest {
         when(mavenExecutionRequestMock.isRecursive()).thenReturn(true);
         when(mavenSessionMock.getRequest()).thenReturn(mavenExecutionRequestMock);
         when(mavenSessionMock.getProjects()).thenReturn(projects);
+        when(mavenSessionMock.getAllProjects()).thenReturn(allModuleMocks);
         when(mavenSessionMock.getProjectDependencyGraph()).thenReturn(projectDependencyGraphMock);
-        when(changedProjectsMock.get()).thenReturn(changedProjects);
+        when(changedProjectsMock.get(anySet())).thenReturn(changedProjects);
 
         when(mavenSessionMock.getGoals()).thenReturn(new ArrayList<>());
 
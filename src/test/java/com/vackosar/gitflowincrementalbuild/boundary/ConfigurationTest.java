@@ -13,6 +13,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.withSettings;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Properties;
 import java.util.regex.Pattern;
@@ -99,6 +100,109 @@ public class ConfigurationTest {
         assertEquals(ImmutableMap.of("x", "true", "a", "false"), configuration.argsForUpstreamModules);
     }
 
+    @Test
+    public void limitDownstreamByScope() {
+        System.setProperty(Property.limitDownstreamByScope.fullName(), "test=1, optional=2");
+
+        Configuration configuration = new Configuration.Provider(mavenSessionMock).get();
+
+        assertEquals(ImmutableMap.of("test", 1, "optional", 2), configuration.limitDownstreamByScope);
+    }
+
+    @Test
+    public void limitDownstreamByScope_invalidScope() {
+        System.setProperty(Property.limitDownstreamByScope.fullName(), "foo=1");
+
+        assertThatIllegalArgumentException().isThrownBy(() -> new Configuration.Provider(mavenSessionMock).get())
+                .withMessageContaining("invalid scope");
+    }
+
+    @Test
+    public void limitDownstreamByScope_invalidLimit() {
+        System.setProperty(Property.limitDownstreamByScope.fullName(), "test=0");
+
+        assertThatIllegalArgumentException().isThrownBy(() -> new Configuration.Provider(mavenSessionMock).get())
+                .withMessageContaining("invalid limit");
+    }
+
+    @Test
+    public void fetchFreshnessWindow() {
+        System.setProperty(Property.fetchFreshnessWindow.fullName(), "30");
+
+        Configuration configuration = new Configuration.Provider(mavenSessionMock).get();
+
+        assertEquals(Duration.ofSeconds(30), configuration.fetchFreshnessWindow);
+    }
+
+    @Test
+    public void fetchFreshnessWindow_invalid() {
+        System.setProperty(Property.fetchFreshnessWindow.fullName(), "-1");
+
+        assertThatIllegalArgumentException().isThrownBy(() -> new Configuration.Provider(mavenSessionMock).get())
+                .withMessageContaining("invalid number of seconds");
+    }
+
+    @Test
+    public void replayCommits() {
+        projectProperties.setProperty(Property.replayCommits.fullName(), "20");
+
+        Configuration configuration = new Configuration.Provider(mavenSessionMock).get();
+
+        assertEquals(20, configuration.replayCommits);
+    }
+
+    @Test
+    public void replayCommits_invalid() {
+        System.setProperty(Property.replayCommits.fullName(), "x");
+
+        assertThatIllegalArgumentException().isThrownBy(() -> new Configuration.Provider(mavenSessionMock).get())
+                .withMessageContaining("invalid number");
+    }
+
+    @Test
+    public void override() {
+        projectProperties.setProperty(Property.baseBranch.fullName(), "refs/heads/feature");
+        projectProperties.setProperty(Property.referenceBranch.fullName(), "refs/heads/develop");
+        Configuration.Provider provider = new Configuration.Provider(mavenSessionMock);
+
+        provider.override(ImmutableMap.of(Property.baseBranch, "abc"));
+
+        assertEquals("abc", provider.get().baseBranch);
+        assertEquals("refs/heads/develop", provider.get().referenceBranch);
+
+        provider.clearOverrides();
+
+        assertEquals("refs/heads/feature", provider.get().baseBranch);
+    }
+
+    @Test
+    public void override_shortNameInProjectProperties() {
+        projectProperties.setProperty(Property.baseBranch.shortName(), "refs/heads/feature");
+        Configuration.Provider provider = new Configuration.Provider(mavenSessionMock);
+
+        provider.override(ImmutableMap.of(Property.baseBranch, "abc"));
+
+        assertEquals("abc", provider.get().baseBranch);
+    }
+
+    @Test
+    public void override_conflictingSystemProperty() {
+        System.setProperty(Property.baseBranch.fullName(), "refs/heads/feature");
+        Configuration.Provider provider = new Configuration.Provider(mavenSessionMock);
+
+        assertThatIllegalArgumentException().isThrownBy(() -> provider.override(ImmutableMap.of(Property.baseBranch, "abc")))
+                .withMessageContaining(Property.baseBranch.fullName());
+    }
+
+    @Test
+    public void offline_mavenOffline() {
+        when(mavenSessionMock.isOffline()).thenReturn(true);
+
+        Configuration configuration = new Configuration.Provider(mavenSessionMock).get();
+
+        assertTrue(configuration.offline);
+    }
+
     @Test
     public void excludeDownstreamModulesPackagedAs() {
         System.setProperty(Property.excludeDownstreamModulesPackagedAs.fullName(), "ear,war");
@@ -0,0 +1,290 @@
+package com.vackosar.gitflowincrementalbuild.boundary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.ExecutionListener;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.execution.ProjectDependencyGraph;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.LocalRepositoryManager;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.vackosar.gitflowincrementalbuild.control.AbiFingerprints;
+import com.vackosar.gitflowincrementalbuild.control.SourceFingerprints;
+
+@ExtendWith(MockitoExtension.class)
+public class DownstreamPruningListenerTest {
+
+    private static final ObjectId REFERENCE_TREE = ObjectId.fromString("0123456789012345678901234567890123456789");
+
+    @TempDir
+    Path tempDir;
+
+    @Mock(lenient = true)
+    private MavenSession mavenSessionMock;
+
+    @Mock(lenient = true)
+    private ProjectDependencyGraph projectDependencyGraphMock;
+
+    @Mock(lenient = true)
+    private AbiFingerprints abiFingerprintsMock;
+
+    @Mock(lenient = true)
+    private SourceFingerprints sourceFingerprintsMock;
+
+    @Mock
+    private ExecutionListener delegateMock;
+
+    private Path localRepo;
+
+    private MavenProject changed;
+    private MavenProject downstream1;
+    private MavenProject downstream2;
+
+    private DownstreamPruningListener underTest;
+
+    @BeforeEach
+    void before() throws IOException {
+        localRepo = Files.createDirectory(tempDir.resolve("repo"));
+        LocalRepositoryManager localRepositoryManagerMock = mock(LocalRepositoryManager.class);
+        when(localRepositoryManagerMock.getRepository()).thenReturn(new LocalRepository(localRepo.toFile()));
+        when(localRepositoryManagerMock.getPathForLocalArtifact(any())).thenAnswer(invocation -> {
+            Artifact artifact = invocation.getArgument(0);
+            return artifact.getArtifactId() + "." + artifact.getExtension();
+        });
+        RepositorySystemSession repositorySessionMock = mock(RepositorySystemSession.class);
+        when(repositorySessionMock.getLocalRepositoryManager()).thenReturn(localRepositoryManagerMock);
+        when(mavenSessionMock.getRepositorySession()).thenReturn(repositorySessionMock);
+        when(mavenSessionMock.getProjectDependencyGraph()).thenReturn(projectDependencyGraphMock);
+
+        changed = createProject("changed");
+        downstream1 = createProject("downstream1", changed);
+        downstream2 = createProject("downstream2", downstream1, changed);
+
+        Set<MavenProject> impacted = new LinkedHashSet<>(Arrays.asList(changed, downstream1, downstream2));
+        Set<MavenProject> prunable = new LinkedHashSet<>(Arrays.asList(downstream1, downstream2));
+        underTest = new DownstreamPruningListener(delegateMock, mavenSessionMock, abiFingerprintsMock, sourceFingerprintsMock, REFERENCE_TREE,
+                impacted, prunable);
+    }
+
+    @Test
+    public void abiUnchanged() throws IOException {
+        mockAbis(changed, "abi", "abi");
+        installToLocalRepo(downstream1, downstream2);
+
+        build(changed);
+        build(downstream1);
+        build(downstream2);
+
+        assertPruned(downstream1, true);
+        assertPruned(downstream2, true);
+        verify(abiFingerprintsMock, never()).readStored(eq(localRepo.resolve("downstream1.jar")), any());
+        verify(delegateMock, times(3)).projectStarted(any());
+        verify(delegateMock, times(3)).projectSucceeded(any());
+    }
+
+    @Test
+    public void abiChanged() throws IOException {
+        mockAbis(changed, "abi", "changed-abi");
+        mockAbis(downstream1, "abi1", "abi1");
+        installToLocalRepo(downstream1, downstream2);
+
+        build(changed);
+        build(downstream1);
+        build(downstream2);
+
+        assertPruned(downstream1, false);
+        assertPruned(downstream2, false);
+    }
+
+    @Test
+    public void abiUnchanged_downstreamNotInstalled() throws IOException {
+        mockAbis(changed, "abi", "abi");
+        mockAbis(downstream1, "abi1", "abi1");
+        installToLocalRepo(downstream2);
+
+        build(changed);
+        build(downstream1);
+        build(downstream2);
+
+        assertPruned(downstream1, false);
+        assertPruned(downstream2, true);
+    }
+
+    @Test
+    public void abiUnchanged_notCompiled() throws IOException {
+        mockAbis(changed, "abi", "abi");
+        installToLocalRepo(downstream1, downstream2);
+
+        validate(changed);
+        build(downstream1);
+
+        assertPruned(downstream1, false);
+    }
+
+    @Test
+    public void abiUnchanged_testJar() throws IOException {
+        mockAbis(changed, "abi", "abi");
+        installToLocalRepo(downstream1, downstream2);
+        PluginExecution execution = new PluginExecution();
+        execution.addGoal("test-jar");
+        changed.getBuildPlugins().get(0).addExecution(execution);
+
+        build(changed);
+        build(downstream1);
+
+        assertPruned(downstream1, false);
+    }
+
+    @Test
+    public void abiUnchanged_failure() throws IOException {
+        mockAbis(changed, "abi", "abi");
+        when(abiFingerprintsMock.compute(outputDirOf(changed))).thenThrow(new IOException("FAIL !!!"));
+        installToLocalRepo(downstream1, downstream2);
+
+        build(changed);
+        build(downstream1);
+
+        assertPruned(downstream1, false);
+    }
+
+    @Test
+    public void abiUnchanged_noStoredReferenceAbi() throws IOException {
+        // e.g. the artifact in the local repository has been installed from the current sources
+        when(sourceFingerprintsMock.computeAt(changed, REFERENCE_TREE)).thenReturn(Optional.of("sources-changed"));
+        when(abiFingerprintsMock.compute(outputDirOf(changed))).thenReturn(Optional.of("abi"));
+        installToLocalRepo(changed, downstream1, downstream2);
+
+        build(changed);
+        build(downstream1);
+
+        assertPruned(downstream1, false);
+    }
+
+    @Test
+    public void abiUnchanged_referenceSourcesFailure() throws IOException {
+        mockAbis(changed, "abi", "abi");
+        when(sourceFingerprintsMock.computeAt(changed, REFERENCE_TREE)).thenThrow(new IOException("FAIL !!!"));
+        installToLocalRepo(downstream1, downstream2);
+
+        build(changed);
+        build(downstream1);
+
+        assertPruned(downstream1, false);
+    }
+
+    @Test
+    public void storeReferenceAbi() throws Exception {
+        installToLocalRepo(changed);
+        when(sourceFingerprintsMock.compute(changed)).thenReturn(Optional.of("sources-changed"));
+        when(abiFingerprintsMock.compute(outputDirOf(changed))).thenReturn(Optional.of("abi"));
+
+        DownstreamPruningListener.storeReferenceAbi(mavenSessionMock, sourceFingerprintsMock, abiFingerprintsMock, changed);
+
+        verify(abiFingerprintsMock).store(localRepo.resolve("changed.jar"), "sources-changed", "abi");
+    }
+
+    @Test
+    public void storeReferenceAbi_uncommitted() throws Exception {
+        installToLocalRepo(changed);
+        when(sourceFingerprintsMock.compute(changed)).thenReturn(Optional.empty());
+
+        DownstreamPruningListener.storeReferenceAbi(mavenSessionMock, sourceFingerprintsMock, abiFingerprintsMock, changed);
+
+        verify(abiFingerprintsMock).deleteStored(localRepo.resolve("changed.jar"));
+        verify(abiFingerprintsMock, never()).store(any(), any(), any());
+    }
+
+    @Test
+    public void nullDelegate() throws IOException {
+        underTest = new DownstreamPruningListener(null, mavenSessionMock, abiFingerprintsMock, sourceFingerprintsMock, REFERENCE_TREE,
+                Collections.singleton(changed), Collections.emptySet());
+
+        build(changed);
+        underTest.sessionEnded(mock(ExecutionEvent.class));
+    }
+
+    private MavenProject createProject(String artifactId, MavenProject... upstreamProjects) throws IOException {
+        Model model = new Model();
+        model.setGroupId("g");
+        model.setArtifactId(artifactId);
+        model.setVersion("1");
+        MavenProject project = new MavenProject(model);
+        project.setArtifact(new DefaultArtifact("g", artifactId, "1", "compile", "jar", null, new DefaultArtifactHandler("jar")));
+        project.getBuild().setOutputDirectory(Files.createDirectories(tempDir.resolve(artifactId + "/classes")).toString());
+        project.getBuild().addPlugin(new Plugin());
+        when(projectDependencyGraphMock.getUpstreamProjects(project, true)).thenReturn(Arrays.asList(upstreamProjects));
+        return project;
+    }
+
+    private void mockAbis(MavenProject project, String referenceAbi, String currentAbi) throws IOException {
+        String referenceSources = "sources-" + project.getArtifactId();
+        when(sourceFingerprintsMock.computeAt(project, REFERENCE_TREE)).thenReturn(Optional.of(referenceSources));
+        when(abiFingerprintsMock.readStored(localRepo.resolve(project.getArtifactId() + ".jar"), referenceSources))
+                .thenReturn(Optional.of(referenceAbi));
+        when(abiFingerprintsMock.compute(outputDirOf(project))).thenReturn(Optional.of(currentAbi));
+    }
+
+    private void installToLocalRepo(MavenProject... projects) throws IOException {
+        for (MavenProject project : projects) {
+            Files.createFile(localRepo.resolve(project.getArtifactId() + ".jar"));
+        }
+    }
+
+    private static Path outputDirOf(MavenProject project) {
+        return Paths.get(project.getBuild().getOutputDirectory());
+    }
+
+    private void build(MavenProject project) {
+        ExecutionEvent event = mock(ExecutionEvent.class);
+        when(event.getProject()).thenReturn(project);
+        underTest.projectStarted(event);
+        if (!project.getBuildPlugins().isEmpty()) {
+            project.addLifecyclePhase("compile");
+        }
+        underTest.projectSucceeded(event);
+    }
+
+    private void validate(MavenProject project) {
+        ExecutionEvent event = mock(ExecutionEvent.class);
+        when(event.getProject()).thenReturn(project);
+        underTest.projectStarted(event);
+        underTest.projectSucceeded(event);
+    }
+
+    private void assertPruned(MavenProject project, boolean expectPruned) {
+        assertEquals(expectPruned, project.getBuildPlugins().isEmpty(), "Unexpected build plugins of " + project.getArtifactId());
+    }
+}
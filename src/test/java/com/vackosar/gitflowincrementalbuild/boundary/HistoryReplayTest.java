@@ -0,0 +1,108 @@
+package com.vackosar.gitflowincrementalbuild.boundary;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.vackosar.gitflowincrementalbuild.BaseRepoTest;
+import com.vackosar.gitflowincrementalbuild.control.ChangedProjects;
+import com.vackosar.gitflowincrementalbuild.control.DifferentFiles;
+import com.vackosar.gitflowincrementalbuild.control.DownstreamPropagation;
+import com.vackosar.gitflowincrementalbuild.control.Modules;
+import com.vackosar.gitflowincrementalbuild.control.PhaseTimings;
+import com.vackosar.gitflowincrementalbuild.control.PomChangeAnalyzer;
+import com.vackosar.gitflowincrementalbuild.control.Property;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.powermock.reflect.Whitebox;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Tests {@link HistoryReplay} on the test repository with the real change detection (like {@code BaseChangedProjectsTest}).
+ */
+public class HistoryReplayTest extends BaseRepoTest {
+
+    private final HistoryReplay underTest = new HistoryReplay();
+
+    private MavenSession mavenSessionMock;
+
+    @BeforeEach
+    void injectComponents() throws Exception {
+        projectProperties.setProperty(Property.replayCommits.fullName(), "2");
+        mavenSessionMock = getMavenSessionMock();
+        when(mavenSessionMock.getRequest().isRecursive()).thenReturn(true);
+
+        Configuration.Provider configProvider = new Configuration.Provider(mavenSessionMock);
+        PhaseTimings phaseTimings = new PhaseTimings();
+        DifferentFiles differentFiles = new DifferentFiles();
+        Whitebox.setInternalState(differentFiles, mavenSessionMock, configProvider, phaseTimings);
+        PomChangeAnalyzer pomChangeAnalyzer = new PomChangeAnalyzer();
+        Whitebox.setInternalState(pomChangeAnalyzer, mavenSessionMock, differentFiles);
+        ChangedProjects changedProjects = new ChangedProjects();
+        Whitebox.setInternalState(changedProjects, mavenSessionMock, configProvider, phaseTimings, differentFiles, pomChangeAnalyzer,
+                new Modules());
+        DownstreamPropagation downstreamPropagation = new DownstreamPropagation();
+        Whitebox.setInternalState(downstreamPropagation, mavenSessionMock);
+        UnchangedProjectsRemover remover = new UnchangedProjectsRemover();
+        Whitebox.setInternalState(remover, mavenSessionMock, configProvider, phaseTimings, changedProjects, downstreamPropagation,
+                pomChangeAnalyzer);
+
+        Whitebox.setInternalState(underTest, mavenSessionMock, configProvider, phaseTimings, remover);
+    }
+
+    @Test
+    public void replay() throws Exception {
+        Repository repository = localRepoMock.getGit().getRepository();
+        ObjectId head = repository.resolve("HEAD");
+        ObjectId parent = repository.resolve("HEAD^1");
+        ObjectId grandParent = repository.resolve("HEAD^1^1");
+        MavenProject topLevelProject = mavenSessionMock.getTopLevelProject();
+
+        Path csv = underTest.replay();
+
+        assertEquals(topLevelProject.getBasedir().toPath().resolve("target").resolve(HistoryReplay.REPLAY_FILE), csv);
+        List<String> lines = Files.readAllLines(csv, StandardCharsets.UTF_8);
+        assertThat(lines).hasSize(3);
+        assertEquals(HistoryReplay.CSV_HEADER, lines.get(0));
+        // HEAD changes a single file of testJarDependent
+        assertThat(lines.get(1)).matches(head.name() + "," + parent.name() + ",\\d+,\\d+,\\d+,1,1,1,\\d+");
+        assertThat(lines.get(2)).startsWith(parent.name() + "," + grandParent.name() + ",");
+
+        verify(mavenSessionMock).setProjects(Collections.singletonList(topLevelProject));
+        assertEquals("HEAD", Whitebox.<Configuration.Provider>getInternalState(underTest, Configuration.Provider.class).get().baseBranch);
+    }
+
+    @Test
+    public void replay_upstreamModuleArgsRestored() throws Exception {
+        projectProperties.setProperty(Property.buildAll.fullName(), "true");
+        projectProperties.setProperty(Property.skipTestsForUpstreamModules.fullName(), "true");
+        projectProperties.setProperty(Property.argsForUpstreamModules.fullName(), "foo=bar");
+        Map<MavenProject, Properties> originalProperties = new IdentityHashMap<>();
+        mavenSessionMock.getAllProjects().forEach(project -> originalProperties.put(project, copy(project.getProperties())));
+
+        underTest.replay();
+
+        mavenSessionMock.getAllProjects().forEach(project ->
+                assertEquals(originalProperties.get(project), project.getProperties(), project.getArtifactId()));
+    }
+
+    private static Properties copy(Properties properties) {
+        Properties copy = new Properties();
+        copy.putAll(properties);
+        return copy;
+    }
+}
@@ -0,0 +1,141 @@
+package com.vackosar.gitflowincrementalbuild.boundary;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.vackosar.gitflowincrementalbuild.BaseRepoTest;
+import com.vackosar.gitflowincrementalbuild.control.Property;
+
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests {@link ImpactCli} on the test repository with the real change detection (like {@code BaseChangedProjectsTest}).
+ */
+public class ImpactCliTest extends BaseRepoTest {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    @Test
+    public void run() throws Exception {
+        int status = run("-f", repoPath.resolve("parent").toString(), "-D" + Property.buildUpstream.fullName() + "=always");
+
+        assertEquals(ImpactCli.EXIT_OK, status, () -> toString(err));
+        List<String> lines = Arrays.asList(toString(out).split("\\R"));
+        assertThat(lines).filteredOn(line -> line.startsWith("changed\t")).containsExactlyInAnyOrder(
+                "changed\tchild2/subchild2", "changed\tchild3", "changed\tchild4", "changed\ttestJarDependent");
+        // child3 depends on child6 (unchanged)
+        assertThat(lines).contains("impacted\tchild3", "upstream\tchild6");
+        assertThat(lines).filteredOn(line -> line.startsWith("forced\t")).isEmpty();
+    }
+
+    @Test
+    public void run_buildUpstreamDerived() throws Exception {
+        // without -am, "derived" means no upstream modules
+        int status = run("-f", repoPath.resolve("parent/pom.xml").toString());
+
+        assertEquals(ImpactCli.EXIT_OK, status, () -> toString(err));
+        assertThat(toString(out)).contains("changed\tchild3").doesNotContain("upstream\t");
+    }
+
+    @Test
+    public void run_analyzePomChanges() throws Exception {
+        Path root = tempDir.resolve("scratch");
+        String rootPom = "<project><modelVersion>4.0.0</modelVersion>"
+                + "<groupId>g</groupId><artifactId>root</artifactId><version>1</version><packaging>pom</packaging>"
+                + "<properties><foo.version>%s</foo.version></properties>"
+                + "<modules><module>a</module><module>b</module></modules>"
+                + "<build><pluginManagement><plugins>"
+                + "<plugin><groupId>x</groupId><artifactId>foo-plugin</artifactId><version>${foo.version}</version></plugin>"
+                + "</plugins></pluginManagement></build></project>";
+        String modulePom = "<project><modelVersion>4.0.0</modelVersion>"
+                + "<parent><groupId>g</groupId><artifactId>root</artifactId><version>1</version></parent><artifactId>%s</artifactId>%s</project>";
+        Files.createDirectories(root.resolve("a"));
+        Files.createDirectories(root.resolve("b"));
+        Files.write(root.resolve("pom.xml"), String.format(rootPom, "1").getBytes(StandardCharsets.UTF_8));
+        Files.write(root.resolve("a/pom.xml"), String.format(modulePom, "a",
+                "<build><plugins><plugin><groupId>x</groupId><artifactId>foo-plugin</artifactId></plugin></plugins></build>")
+                .getBytes(StandardCharsets.UTF_8));
+        Files.write(root.resolve("b/pom.xml"), String.format(modulePom, "b", "").getBytes(StandardCharsets.UTF_8));
+        try (Git git = Git.init().setDirectory(root.toFile()).call()) {
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("initial").call();
+            git.branchCreate().setName("develop").call();
+            Files.write(root.resolve("pom.xml"), String.format(rootPom, "2").getBytes(StandardCharsets.UTF_8));
+            git.commit().setAll(true).setMessage("plugin version").call();
+        }
+
+        int status = run("-f", root.toString(), "-D" + Property.analyzePomChanges.fullName() + "=true");
+
+        assertEquals(ImpactCli.EXIT_OK, status, () -> toString(err));
+        assertThat(toString(out).split("\\R")).containsExactlyInAnyOrder("changed\t.", "impacted\t.", "impacted\ta");
+    }
+
+    @Test
+    public void run_batch() throws Exception {
+        Path branches = Files.write(tempDir.resolve("branches.txt"), Arrays.asList("# merge queue", "refs/heads/feature/1", ""));
+        Path output = tempDir.resolve("impact");
+
+        int status = run("-f", repoPath.resolve("parent").toString(), "--batch-file", branches.toString(), "--batch", "refs/heads/develop",
+                "-o", output.toString(), "--threads", "2");
+
+        assertEquals(ImpactCli.EXIT_OK, status, () -> toString(err));
+        assertThat(toString(out).split("\\R")).containsExactly(
+                "refs/heads/develop\t" + output.resolve("refs_heads_develop.txt"),
+                "refs/heads/feature/1\t" + output.resolve("refs_heads_feature_1.txt"));
+        assertThat(Files.readAllLines(output.resolve("refs_heads_feature_1.txt"))).filteredOn(line -> line.startsWith("changed\t"))
+                .containsExactlyInAnyOrder("changed\tchild2/subchild2", "changed\tchild3", "changed\tchild4", "changed\ttestJarDependent");
+        // the reference compared to itself
+        assertThat(Files.readAllLines(output.resolve("refs_heads_develop.txt"))).filteredOn(line -> line.startsWith("changed\t")).isEmpty();
+    }
+
+    @Test
+    public void run_batch_missingBranch() throws Exception {
+        int status = run("-f", repoPath.resolve("parent").toString(), "--batch", "refs/heads/missing,refs/heads/feature/1",
+                "-o", tempDir.resolve("impact").toString());
+
+        assertEquals(ImpactCli.EXIT_FAILURE, status);
+        assertThat(toString(err)).startsWith("refs/heads/missing\t");
+        assertThat(toString(out)).startsWith("refs/heads/feature/1\t");
+    }
+
+    @Test
+    public void run_unknownArgument() throws Exception {
+        assertEquals(ImpactCli.EXIT_USAGE, run("--unknown"));
+        assertThat(toString(err)).contains("Unknown argument: --unknown", ImpactCli.USAGE);
+    }
+
+    @Test
+    public void run_help() throws Exception {
+        assertEquals(ImpactCli.EXIT_OK, run("--help"));
+        assertThat(toString(out)).contains(ImpactCli.USAGE, Property.referenceBranch.fullName());
+    }
+
+    @Test
+    public void run_missingPom() throws Exception {
+        assertEquals(ImpactCli.EXIT_FAILURE, run("-f", tempDir.resolve("missing").toString()));
+        assertThat(toString(err)).contains("does not exist");
+    }
+
+    private int run(String... args) throws UnsupportedEncodingException {
+        List<String> allArgs = new ArrayList<>(Arrays.asList(args));
+        projectProperties.stringPropertyNames().forEach(name -> allArgs.add("-D" + name + "=" + projectProperties.getProperty(name)));
+        return ImpactCli.run(allArgs.toArray(new String[0]),
+                new PrintStream(out, true, StandardCharsets.UTF_8.name()), new PrintStream(err, true, StandardCharsets.UTF_8.name()));
+    }
+
+    private static String toString(ByteArrayOutputStream stream) {
+        return new String(stream.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -71,13 +71,13 @@ public class MavenIntegrationTest extends BaseRepoTest {
         LOGGER.info("Default arguments: {}", defaultArgs);
     }
 
-    private static String createPathToSettingsXml() throws URISyntaxException {
+    static String createPathToSettingsXml() throws URISyntaxException {
         URL settingsUrl = Validate.notNull(
                 Thread.currentThread().getContextClassLoader().getResource("settings-it.xml"), "settings-it.xml not found on classpath");
         return Paths.get(settingsUrl.toURI()).toAbsolutePath().toString();
     }
 
-    private static String createUrlToRemoteRepo() throws MalformedURLException {
+    static String createUrlToRemoteRepo() throws MalformedURLException {
         String regularLocalRepo = Validate.notEmpty(System.getProperty("settings.localRepository"), "settings.localRepository not set");
         return Paths.get(regularLocalRepo).toUri().toURL().toString();
     }
@@ -341,7 +341,7 @@ public class MavenIntegrationTest extends BaseRepoTest {
         return output;
     }
 
-    private static String prop(Property property, String value) {
+    static String prop(Property property, String value) {
         String propString =  "-D" + property.fullName();
         if (value != null && !value.isEmpty()) {
             propString += "=" + value;
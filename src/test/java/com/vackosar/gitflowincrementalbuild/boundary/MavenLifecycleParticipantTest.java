@@ -1,10 +1,17 @@
 package com.vackosar.gitflowincrementalbuild.boundary;
 
 import com.vackosar.gitflowincrementalbuild.LoggerSpyUtil;
+import com.vackosar.gitflowincrementalbuild.control.AbiFingerprints;
+import com.vackosar.gitflowincrementalbuild.control.BuildDurations;
+import com.vackosar.gitflowincrementalbuild.control.PhaseTimings;
 import com.vackosar.gitflowincrementalbuild.control.Property;
+import com.vackosar.gitflowincrementalbuild.control.SourceFingerprints;
 import com.vackosar.gitflowincrementalbuild.control.jgit.GitFactory;
 import com.vackosar.gitflowincrementalbuild.entity.SkipExecutionException;
 import org.apache.maven.MavenExecutionException;
+import org.apache.maven.execution.BuildFailure;
+import org.apache.maven.execution.BuildSuccess;
+import org.apache.maven.execution.MavenExecutionResult;
 import org.apache.maven.execution.MavenExecutionRequest;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.execution.ProjectDependencyGraph;
@@ -18,17 +25,22 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.powermock.reflect.Whitebox;
 import org.slf4j.Logger;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Properties;
 
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.matches;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
@@ -50,6 +62,21 @@ public class MavenLifecycleParticipantTest {
     @Mock
     private UnchangedProjectsRemover unchangedProjectsRemoverMock;
 
+    @Mock
+    private SourceFingerprints sourceFingerprintsMock;
+
+    @Mock
+    private AbiFingerprints abiFingerprintsMock;
+
+    @Spy
+    private PhaseTimings phaseTimingsSpy;
+
+    @Mock
+    private BuildDurations buildDurationsMock;
+
+    @Mock
+    private HistoryReplay historyReplayMock;
+
     @InjectMocks
     private MavenLifecycleParticipant underTest = new MavenLifecycleParticipant(TEST_IMPL_VERSION);
 
@@ -82,6 +109,26 @@ public class MavenLifecycleParticipantTest {
         verify(unchangedProjectsRemoverMock).act();
     }
 
+    @Test
+    public void timingsLogged() throws Exception {
+        phaseTimingsSpy.count(PhaseTimings.MODULES_CHANGED, 42);    // from a previous execution
+
+        underTest.afterProjectsRead(mavenSessionMock);
+
+        verify(phaseTimingsSpy).reset();
+        verify(loggerSpy).info(contains("timings"), (Object) matches("applyPlugin \\d+ ms(; bytes allocated: \\d+)?"));
+    }
+
+    @Test
+    public void replayCommits() throws Exception {
+        projectProperties.setProperty(Property.replayCommits.fullName(), "10");
+
+        underTest.afterProjectsRead(mavenSessionMock);
+
+        verify(historyReplayMock).replay();
+        verifyNoInteractions(unchangedProjectsRemoverMock);
+    }
+
     @Test
     public void disabled() throws Exception {
         projectProperties.setProperty(Property.enabled.fullName(), "false");
@@ -187,6 +234,101 @@ public class MavenLifecycleParticipantTest {
         verifyNoInteractions(unchangedProjectsRemoverMock);
     }
 
+    @Test
+    public void afterSessionEnd_reuseUpstreamOutputsDisabled() throws Exception {
+
+        underTest.afterSessionEnd(mavenSessionMock);
+
+        verifyNoInteractions(sourceFingerprintsMock);
+        verifyNoInteractions(buildDurationsMock);
+    }
+
+    @Test
+    public void afterSessionEnd_reuseUpstreamOutputs() throws Exception {
+        projectProperties.setProperty(Property.reuseUpstreamOutputs.fullName(), "true");
+        MavenProject packaged = mockProject("jar", "compile", "package");
+        MavenProject compiled = mockProject("jar", "compile");
+        MavenProject validated = mockProject("jar");
+        MavenProject failed = mockProject("jar", "compile", "package");
+        MavenProject aggregator = mockProject("pom");
+        when(mavenSessionMock.getProjects()).thenReturn(Arrays.asList(packaged, compiled, validated, failed, aggregator));
+        MavenExecutionResult resultMock = mock(MavenExecutionResult.class);
+        when(resultMock.getBuildSummary(Mockito.any())).thenReturn(new BuildSuccess(packaged, 0));
+        when(resultMock.getBuildSummary(failed)).thenReturn(new BuildFailure(failed, 0, new RuntimeException()));
+        when(mavenSessionMock.getResult()).thenReturn(resultMock);
+
+        underTest.afterSessionEnd(mavenSessionMock);
+
+        verify(sourceFingerprintsMock).store(packaged, true);
+        verify(sourceFingerprintsMock).store(compiled, false);
+        verify(sourceFingerprintsMock).store(aggregator, false);
+        verify(sourceFingerprintsMock, never()).store(eq(validated), Mockito.anyBoolean());
+        verify(sourceFingerprintsMock, never()).store(eq(failed), Mockito.anyBoolean());
+    }
+
+    @Test
+    public void afterSessionEnd_reuseUpstreamOutputs_onException() throws Exception {
+        projectProperties.setProperty(Property.reuseUpstreamOutputs.fullName(), "true");
+        when(mavenSessionMock.getProjects()).thenThrow(new IllegalStateException("FAIL !!!"));
+
+        underTest.afterSessionEnd(mavenSessionMock);
+
+        verify(loggerSpy).warn(contains("source fingerprints"), (Object) Mockito.any());
+    }
+
+    @Test
+    public void afterSessionEnd_pruneDownstreamOnUnchangedAbi() throws Exception {
+        projectProperties.setProperty(Property.pruneDownstreamOnUnchangedAbi.fullName(), "true");
+        MavenProject compiled = mockProject("jar", "compile", "package");
+        MavenProject failed = mockProject("jar", "compile", "package", "install");
+        when(mavenSessionMock.getProjects()).thenReturn(Arrays.asList(compiled, failed));
+        MavenExecutionResult resultMock = mock(MavenExecutionResult.class);
+        when(resultMock.getBuildSummary(compiled)).thenReturn(new BuildSuccess(compiled, 0));
+        when(resultMock.getBuildSummary(failed)).thenReturn(new BuildFailure(failed, 0, new RuntimeException()));
+        when(mavenSessionMock.getResult()).thenReturn(resultMock);
+
+        underTest.afterSessionEnd(mavenSessionMock);
+
+        verify(sourceFingerprintsMock).refreshStatus();
+        verifyNoInteractions(abiFingerprintsMock);
+    }
+
+    @Test
+    public void afterSessionEnd_pruneDownstreamOnUnchangedAbi_onException() throws Exception {
+        projectProperties.setProperty(Property.pruneDownstreamOnUnchangedAbi.fullName(), "true");
+        when(mavenSessionMock.getProjects()).thenThrow(new IllegalStateException("FAIL !!!"));
+
+        underTest.afterSessionEnd(mavenSessionMock);
+
+        verify(loggerSpy).warn(contains("API fingerprints"), (Object) Mockito.any());
+    }
+
+    @Test
+    public void afterSessionEnd_writeMetricsTo() throws Exception {
+        projectProperties.setProperty(Property.writeMetricsTo.fullName(), "metrics.prom");
+        MavenProject built = mockProject("jar", "compile");
+        MavenProject validated = mockProject("jar");
+        MavenProject failed = mockProject("jar", "compile");
+        when(mavenSessionMock.getProjects()).thenReturn(Arrays.asList(built, validated, failed));
+        MavenExecutionResult resultMock = mock(MavenExecutionResult.class);
+        when(resultMock.getBuildSummary(built)).thenReturn(new BuildSuccess(built, 1234));
+        when(resultMock.getBuildSummary(validated)).thenReturn(new BuildSuccess(validated, 10));
+        when(resultMock.getBuildSummary(failed)).thenReturn(new BuildFailure(failed, 0, new RuntimeException()));
+        when(mavenSessionMock.getResult()).thenReturn(resultMock);
+
+        underTest.afterSessionEnd(mavenSessionMock);
+
+        verify(buildDurationsMock).store(Collections.singletonMap(built, Duration.ofMillis(1234)));
+        verifyNoInteractions(sourceFingerprintsMock);
+    }
+
+    private static MavenProject mockProject(String packaging, String... phases) {
+        MavenProject project = mock(MavenProject.class, Mockito.withSettings().lenient());
+        when(project.getPackaging()).thenReturn(packaging);
+        Arrays.stream(phases).forEach(phase -> when(project.hasLifecyclePhase(phase)).thenReturn(true));
+        return project;
+    }
+
     private void mockCurrentBranch(String branchName) throws IOException {
         Git git = mock(Git.class);
         Repository repository = mock(Repository.class);
@@ -0,0 +1,232 @@
+package com.vackosar.gitflowincrementalbuild.boundary;
+
+import static com.vackosar.gitflowincrementalbuild.boundary.MavenIntegrationTest.createPathToSettingsXml;
+import static com.vackosar.gitflowincrementalbuild.boundary.MavenIntegrationTest.createUrlToRemoteRepo;
+import static com.vackosar.gitflowincrementalbuild.boundary.MavenIntegrationTest.prop;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.vackosar.gitflowincrementalbuild.ProcessUtils;
+import com.vackosar.gitflowincrementalbuild.control.Property;
+
+import org.apache.commons.lang3.Validate;
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.function.ToIntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Integration test running the {@code mvn} command on generated reactors of up to 5,000 modules (with deep dependency chains) to detect
+ * performance regressions of {@code gitflow-incremental-builder}.
+ * <p/>
+ * For each run, the duration and the bytes allocated by the extension (as reported in its timings summary) are checked against absolute budgets
+ * and against the respective values of the smallest run: the overhead must not grow super-linearly with the reactor size or with the size
+ * of the diff.
+ * <p/>
+ * This test is only executed with {@code -DgibScalingITs} since it takes several minutes. Otherwise, it has the same requirements as
+ * {@link MavenIntegrationTest}.
+ */
+@EnabledIfSystemProperty(named = "gibScalingITs", matches = "true")
+public class MavenScalingIntegrationTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MavenScalingIntegrationTest.class);
+
+    private static final int CHAIN_LENGTH = 50;
+
+    // overhead growth that is tolerated on top of linear growth, e.g. due to JIT compilation or GC
+    private static final double TOLERANCE = 2.0;
+    // values below these floors are dominated by JVM warmup and are therefore raised to the floor before comparing them
+    private static final long MILLIS_FLOOR = 1_000;
+    private static final long BYTES_FLOOR = 64L * 1024 * 1024;
+
+    private static final Pattern APPLY_PLUGIN_MILLIS = Pattern.compile("gitflow-incremental-builder timings: .*applyPlugin (\\d+) ms");
+    private static final Pattern BYTES_ALLOCATED = Pattern.compile("gitflow-incremental-builder timings: .*bytes allocated: (\\d+)");
+
+    private static List<String> defaultArgs;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeAll
+    static void evaluateSystemProperties() throws URISyntaxException, MalformedURLException {
+        Validate.notEmpty(System.getProperty("project.version"), "project.version not set");
+
+        defaultArgs = Arrays.asList(
+                "--settings=" + createPathToSettingsXml(),
+                "-DgibIntegrationTestRepoRemote=" + createUrlToRemoteRepo(),
+                "--batch-mode");
+    }
+
+    @Test
+    public void reactorSize() throws Exception {
+        List<Overhead> overheads = new ArrayList<>();
+        overheads.add(measure(100, 10, 5_000, 256));
+        overheads.add(measure(1_000, 10, 15_000, 1_024));
+        overheads.add(measure(5_000, 10, 60_000, 4_096));
+
+        assertAtMostLinear(overheads, overhead -> overhead.modules);
+    }
+
+    @Test
+    public void diffSize() throws Exception {
+        List<Overhead> overheads = new ArrayList<>();
+        overheads.add(measure(1_000, 10, 15_000, 1_024));
+        overheads.add(measure(1_000, 100, 15_000, 1_024));
+        overheads.add(measure(1_000, 1_000, 30_000, 2_048));
+
+        assertAtMostLinear(overheads, overhead -> overhead.changedModules);
+    }
+
+    private Overhead measure(int modules, int changedModules, long maxMillis, long maxAllocatedMegabytes) throws Exception {
+        Path projectDir = Files.createDirectory(tempDir.resolve(modules + "-" + changedModules));
+        generateProject(projectDir, modules, changedModules);
+
+        List<String> command = new ArrayList<>(Arrays.asList("mvn", "validate", "--file=" + projectDir.resolve("pom.xml"),
+                prop(Property.referenceBranch, "refs/heads/develop")));
+        command.addAll(defaultArgs);
+        String output = ProcessUtils.startAndWaitForProcess(command, projectDir.toFile());
+
+        Overhead overhead = new Overhead(modules, changedModules, find(APPLY_PLUGIN_MILLIS, output).orElseThrow(
+                () -> new AssertionError("No timings found in output:\n" + output)), find(BYTES_ALLOCATED, output));
+        LOGGER.info("{}", overhead);
+
+        assertThat(output).contains("Changed Artifacts:");
+        assertThat(overhead.millis).as("duration of %s in ms", overhead).isLessThanOrEqualTo(maxMillis);
+        overhead.bytesAllocated.ifPresent(bytes -> assertThat(bytes / 1024 / 1024)
+                .as("MB allocated by %s", overhead).isLessThanOrEqualTo(maxAllocatedMegabytes));
+        return overhead;
+    }
+
+    private static void assertAtMostLinear(List<Overhead> overheads, ToIntFunction<Overhead> size) {
+        Overhead first = overheads.get(0);
+        for (Overhead overhead : overheads.subList(1, overheads.size())) {
+            double maxRatio = TOLERANCE * size.applyAsInt(overhead) / size.applyAsInt(first);
+            assertThat(ratio(overhead.millis, first.millis, MILLIS_FLOOR))
+                    .as("duration growth from %s to %s", first, overhead).isLessThanOrEqualTo(maxRatio);
+            if (overhead.bytesAllocated.isPresent() && first.bytesAllocated.isPresent()) {
+                assertThat(ratio(overhead.bytesAllocated.getAsLong(), first.bytesAllocated.getAsLong(), BYTES_FLOOR))
+                        .as("allocation growth from %s to %s", first, overhead).isLessThanOrEqualTo(maxRatio);
+            }
+        }
+    }
+
+    private static double ratio(long value, long reference, long floor) {
+        return (double) Math.max(value, floor) / Math.max(reference, floor);
+    }
+
+    private static OptionalLong find(Pattern pattern, String output) {
+        Matcher matcher = pattern.matcher(output);
+        return matcher.find() ? OptionalLong.of(Long.parseLong(matcher.group(1))) : OptionalLong.empty();
+    }
+
+    /**
+     * Generates an aggregator with the given number of modules in which each module depends on its predecessor (within chains of
+     * {@value #CHAIN_LENGTH} modules). {@code develop} contains all modules, the checked out branch {@code feature} changes a file in
+     * {@code changedModules} modules that are evenly spread across the reactor.
+     */
+    private static void generateProject(Path projectDir, int modules, int changedModules) throws Exception {
+        StringBuilder moduleElements = new StringBuilder();
+        for (int i = 0; i < modules; i++) {
+            String artifactId = moduleName(i);
+            moduleElements.append("        <module>").append(artifactId).append("</module>\n");
+            String dependency = i % CHAIN_LENGTH == 0 ? ""
+                    : "    <dependencies>\n"
+                    + "        <dependency>\n"
+                    + "            <groupId>scaling</groupId>\n"
+                    + "            <artifactId>" + moduleName(i - 1) + "</artifactId>\n"
+                    + "            <version>1.0-SNAPSHOT</version>\n"
+                    + "        </dependency>\n"
+                    + "    </dependencies>\n";
+            Path moduleDir = Files.createDirectories(projectDir.resolve(artifactId).resolve("src/main/java"));
+            write(projectDir.resolve(artifactId).resolve("pom.xml"), "<project>\n"
+                    + "    <modelVersion>4.0.0</modelVersion>\n"
+                    + "    <parent>\n"
+                    + "        <groupId>scaling</groupId>\n"
+                    + "        <artifactId>parent</artifactId>\n"
+                    + "        <version>1.0-SNAPSHOT</version>\n"
+                    + "    </parent>\n"
+                    + "    <artifactId>" + artifactId + "</artifactId>\n"
+                    + dependency
+                    + "</project>\n");
+            write(moduleDir.resolve("Source.java"), "class Source {\n}\n");
+        }
+        write(projectDir.resolve("pom.xml"), "<project>\n"
+                + "    <modelVersion>4.0.0</modelVersion>\n"
+                + "    <groupId>scaling</groupId>\n"
+                + "    <artifactId>parent</artifactId>\n"
+                + "    <version>1.0-SNAPSHOT</version>\n"
+                + "    <packaging>pom</packaging>\n"
+                + "    <modules>\n"
+                + moduleElements
+                + "    </modules>\n"
+                + "    <build>\n"
+                + "        <extensions>\n"
+                + "            <extension>\n"
+                + "                <groupId>com.vackosar.gitflowincrementalbuilder</groupId>\n"
+                + "                <artifactId>gitflow-incremental-builder</artifactId>\n"
+                + "                <version>${gibVersion}</version>\n"
+                + "            </extension>\n"
+                + "        </extensions>\n"
+                + "    </build>\n"
+                + "</project>\n");
+
+        try (Git git = Git.init().setDirectory(projectDir.toFile()).call()) {
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("initial").call();
+            git.branchCreate().setName("develop").call();
+            git.checkout().setCreateBranch(true).setName("feature").call();
+            for (int k = 0; k < changedModules; k++) {
+                String source = moduleName(k * modules / changedModules) + "/src/main/java/Source.java";
+                Files.write(projectDir.resolve(source), "// changed\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+                git.add().addFilepattern(source).call();
+            }
+            git.commit().setMessage("feature").call();
+        }
+    }
+
+    private static String moduleName(int index) {
+        return String.format("module-%05d", index);
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static class Overhead {
+
+        private final int modules;
+        private final int changedModules;
+        private final long millis;
+        private final OptionalLong bytesAllocated;
+
+        Overhead(int modules, int changedModules, long millis, OptionalLong bytesAllocated) {
+            this.modules = modules;
+            this.changedModules = changedModules;
+            this.millis = millis;
+            this.bytesAllocated = bytesAllocated;
+        }
+
+        @Override
+        public String toString() {
+            return modules + " modules with " + changedModules + " changed: " + millis + " ms"
+                    + (bytesAllocated.isPresent() ? ", " + bytesAllocated.getAsLong() / 1024 / 1024 + " MB allocated" : "");
+        }
+    }
+}
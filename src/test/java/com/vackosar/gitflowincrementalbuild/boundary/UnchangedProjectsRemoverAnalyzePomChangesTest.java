@@ -0,0 +1,79 @@
+package com.vackosar.gitflowincrementalbuild.boundary;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+
+import org.apache.maven.project.MavenProject;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.vackosar.gitflowincrementalbuild.control.Property;
+
+/**
+ * Tests {@link UnchangedProjectsRemover} with Mockito mocks in context of {@link Property#analyzePomChanges}.
+ */
+public class UnchangedProjectsRemoverAnalyzePomChangesTest extends BaseUnchangedProjectsRemoverTest {
+
+    private static final Set<Path> CHANGED_FILES = Collections.singleton(Paths.get("module-B/pom.xml"));
+
+    private MavenProject changedModuleMock;
+    private MavenProject affectedModuleMock;
+    private MavenProject unaffectedModuleMock;
+    private MavenProject downstreamOfAffectedModuleMock;
+
+    @BeforeEach
+    void beforeThis() {
+        addGibProperty(Property.analyzePomChanges, "true");
+
+        changedModuleMock = addModuleMock(AID_MODULE_B, true, "pom");
+        affectedModuleMock = addModuleMock(AID_MODULE_C, false);
+        unaffectedModuleMock = addModuleMock(AID_MODULE_D, false);
+        downstreamOfAffectedModuleMock = addModuleMock(AID_MODULE_E, false);
+        setUpstreamProjects(affectedModuleMock, changedModuleMock, moduleA);
+        setUpstreamProjects(unaffectedModuleMock, changedModuleMock, moduleA);
+        setUpstreamProjects(downstreamOfAffectedModuleMock, affectedModuleMock, changedModuleMock, moduleA);
+        setDownstreamProjects(changedModuleMock, affectedModuleMock, unaffectedModuleMock, downstreamOfAffectedModuleMock);
+        setDownstreamProjects(affectedModuleMock, downstreamOfAffectedModuleMock);
+        when(changedProjectsMock.getChangedFiles(changedModuleMock)).thenReturn(CHANGED_FILES);
+        when(pomChangeAnalyzerMock.findAffectedDownstreamProjects(changedModuleMock, CHANGED_FILES)).thenReturn(Optional.empty());
+    }
+
+    @Test
+    public void analyzed() throws GitAPIException, IOException {
+        when(pomChangeAnalyzerMock.findAffectedDownstreamProjects(changedModuleMock, CHANGED_FILES))
+                .thenReturn(Optional.of(Collections.singleton(affectedModuleMock)));
+
+        underTest.act();
+
+        verify(mavenSessionMock).setProjects(Arrays.asList(changedModuleMock, affectedModuleMock, downstreamOfAffectedModuleMock));
+    }
+
+    @Test
+    public void notAnalyzable() throws GitAPIException, IOException {
+        underTest.act();
+
+        verify(mavenSessionMock).setProjects(
+                Arrays.asList(changedModuleMock, affectedModuleMock, unaffectedModuleMock, downstreamOfAffectedModuleMock));
+    }
+
+    @Test
+    public void analyzed_disabled() throws GitAPIException, IOException {
+        addGibProperty(Property.analyzePomChanges, "false");
+        when(pomChangeAnalyzerMock.findAffectedDownstreamProjects(changedModuleMock, CHANGED_FILES))
+                .thenReturn(Optional.of(Collections.singleton(affectedModuleMock)));
+
+        underTest.act();
+
+        verify(mavenSessionMock).setProjects(
+                Arrays.asList(changedModuleMock, affectedModuleMock, unaffectedModuleMock, downstreamOfAffectedModuleMock));
+    }
+}
@@ -0,0 +1,71 @@
+package com.vackosar.gitflowincrementalbuild.boundary;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import org.apache.maven.project.MavenProject;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.vackosar.gitflowincrementalbuild.control.Property;
+
+/**
+ * Tests {@link UnchangedProjectsRemover} with Mockito mocks in context of {@link Property#classifyJavaChanges}.
+ */
+public class UnchangedProjectsRemoverClassifyJavaChangesTest extends BaseUnchangedProjectsRemoverTest {
+
+    private static final Set<Path> CHANGED_FILES = Collections.singleton(Paths.get("module-B/src/main/java/Foo.java"));
+
+    private MavenProject changedModuleMock;
+    private MavenProject dependentModuleMock;
+    private MavenProject transitiveDependentModuleMock;
+
+    @BeforeEach
+    void beforeThis() {
+        addGibProperty(Property.classifyJavaChanges, "true");
+
+        changedModuleMock = addModuleMock(AID_MODULE_B, true);
+        dependentModuleMock = addModuleMock(AID_MODULE_C, false);
+        transitiveDependentModuleMock = addModuleMock(AID_MODULE_D, false);
+        setUpstreamProjects(dependentModuleMock, changedModuleMock, moduleA);
+        setUpstreamProjects(transitiveDependentModuleMock, dependentModuleMock, changedModuleMock, moduleA);
+        setDownstreamProjects(changedModuleMock, dependentModuleMock, transitiveDependentModuleMock);
+        setDownstreamProjects(dependentModuleMock, transitiveDependentModuleMock);
+        when(projectDependencyGraphMock.getDownstreamProjects(changedModuleMock, false)).thenReturn(Arrays.asList(dependentModuleMock));
+        when(changedProjectsMock.getChangedFiles(changedModuleMock)).thenReturn(CHANGED_FILES);
+    }
+
+    @Test
+    public void implementationOnly() throws GitAPIException, IOException {
+        when(changeClassifierMock.isImplementationOnly(CHANGED_FILES)).thenReturn(true);
+
+        underTest.act();
+
+        verify(mavenSessionMock).setProjects(Arrays.asList(changedModuleMock, dependentModuleMock));
+    }
+
+    @Test
+    public void apiChange() throws GitAPIException, IOException {
+        underTest.act();
+
+        verify(mavenSessionMock).setProjects(Arrays.asList(changedModuleMock, dependentModuleMock, transitiveDependentModuleMock));
+    }
+
+    @Test
+    public void implementationOnly_disabled() throws GitAPIException, IOException {
+        addGibProperty(Property.classifyJavaChanges, "false");
+        when(changeClassifierMock.isImplementationOnly(CHANGED_FILES)).thenReturn(true);
+
+        underTest.act();
+
+        verify(mavenSessionMock).setProjects(Arrays.asList(changedModuleMock, dependentModuleMock, transitiveDependentModuleMock));
+    }
+}
@@ -0,0 +1,54 @@
+package com.vackosar.gitflowincrementalbuild.boundary;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.maven.project.MavenProject;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.vackosar.gitflowincrementalbuild.control.Property;
+
+/**
+ * Tests {@link UnchangedProjectsRemover} with Mockito mocks in context of {@link Property#limitDownstreamByScope}.
+ */
+public class UnchangedProjectsRemoverLimitDownstreamByScopeTest extends BaseUnchangedProjectsRemoverTest {
+
+    @Test
+    public void limited() throws GitAPIException, IOException {
+        addGibProperty(Property.limitDownstreamByScope, "test=1");
+        MavenProject changedModuleMock = addModuleMock(AID_MODULE_B, true);
+        MavenProject dependentModuleMock = addModuleMock(AID_MODULE_C, false);
+        MavenProject transitiveDependentModuleMock = addModuleMock(AID_MODULE_D, false);
+        setUpstreamProjects(dependentModuleMock, changedModuleMock, moduleA);
+        setUpstreamProjects(transitiveDependentModuleMock, dependentModuleMock, changedModuleMock, moduleA);
+        setDownstreamProjects(changedModuleMock, dependentModuleMock, transitiveDependentModuleMock);
+        when(downstreamPropagationMock.getDownstreamProjects(changedModuleMock, ImmutableMap.of("test", 1)))
+                .thenReturn(Collections.singletonList(dependentModuleMock));
+
+        underTest.act();
+
+        verify(mavenSessionMock).setProjects(Arrays.asList(changedModuleMock, dependentModuleMock));
+    }
+
+    @Test
+    public void limited_excludeDownstreamModulesPackagedAs() throws GitAPIException, IOException {
+        addGibProperty(Property.limitDownstreamByScope, "test=1");
+        addGibProperty(Property.excludeDownstreamModulesPackagedAs, "war");
+        MavenProject changedModuleMock = addModuleMock(AID_MODULE_B, true);
+        MavenProject dependentModuleMock = addModuleMock(AID_MODULE_C, false, "war");
+        setUpstreamProjects(dependentModuleMock, changedModuleMock, moduleA);
+        setDownstreamProjects(changedModuleMock, dependentModuleMock);
+        when(downstreamPropagationMock.getDownstreamProjects(changedModuleMock, ImmutableMap.of("test", 1)))
+                .thenReturn(Collections.singletonList(dependentModuleMock));
+
+        underTest.act();
+
+        verify(mavenSessionMock).setProjects(Collections.singletonList(changedModuleMock));
+    }
+}
@@ -0,0 +1,80 @@
+package com.vackosar.gitflowincrementalbuild.boundary;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.apache.maven.project.MavenProject;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.vackosar.gitflowincrementalbuild.control.Property;
+
+/**
+ * Tests {@link UnchangedProjectsRemover} with Mockito mocks in context of {@link Property#pruneDownstreamOnUnchangedAbi}.
+ */
+public class UnchangedProjectsRemoverPruneDownstreamTest extends BaseUnchangedProjectsRemoverTest {
+
+    @BeforeEach
+    void beforeThis() throws IOException {
+        addGibProperty(Property.pruneDownstreamOnUnchangedAbi, "true");
+        when(differentFilesMock.getReferenceTree()).thenReturn(Optional.of(ObjectId.zeroId()));
+    }
+
+    @Test
+    public void singleChanged_withDownstream() throws GitAPIException, IOException {
+        MavenProject changedModuleMock = addModuleMock(AID_MODULE_B, true);
+        MavenProject dependentModuleMock = addModuleMock(AID_MODULE_C, false);
+        setUpstreamProjects(dependentModuleMock, changedModuleMock, moduleA);
+        setDownstreamProjects(changedModuleMock, dependentModuleMock);
+
+        underTest.act();
+
+        verify(mavenSessionMock).setProjects(Arrays.asList(changedModuleMock, dependentModuleMock));
+        verify(mavenExecutionRequestMock).setExecutionListener(isA(DownstreamPruningListener.class));
+    }
+
+    @Test
+    public void singleChanged_withDownstream_referenceUnresolvable() throws GitAPIException, IOException {
+        MavenProject changedModuleMock = addModuleMock(AID_MODULE_B, true);
+        MavenProject dependentModuleMock = addModuleMock(AID_MODULE_C, false);
+        setUpstreamProjects(dependentModuleMock, changedModuleMock, moduleA);
+        setDownstreamProjects(changedModuleMock, dependentModuleMock);
+        when(differentFilesMock.getReferenceTree()).thenReturn(Optional.empty());
+
+        underTest.act();
+
+        verify(mavenSessionMock).setProjects(Arrays.asList(changedModuleMock, dependentModuleMock));
+        verify(mavenExecutionRequestMock, never()).setExecutionListener(any());
+    }
+
+    @Test
+    public void singleChanged_withoutDownstream() throws GitAPIException, IOException {
+        addModuleMock(AID_MODULE_B, true);
+
+        underTest.act();
+
+        verify(mavenExecutionRequestMock, never()).setExecutionListener(any());
+    }
+
+    @Test
+    public void singleChanged_buildDownstreamDisabled() throws GitAPIException, IOException {
+        MavenProject changedModuleMock = addModuleMock(AID_MODULE_B, true);
+        MavenProject dependentModuleMock = addModuleMock(AID_MODULE_C, false);
+        setUpstreamProjects(dependentModuleMock, changedModuleMock, moduleA);
+        setDownstreamProjects(changedModuleMock, dependentModuleMock);
+        addGibProperty(Property.buildDownstream, "false");
+
+        underTest.act();
+
+        verify(mavenExecutionRequestMock, never()).setExecutionListener(any());
+    }
+}
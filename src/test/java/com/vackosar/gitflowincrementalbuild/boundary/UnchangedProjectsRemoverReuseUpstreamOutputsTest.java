@@ -0,0 +1,89 @@
+package com.vackosar.gitflowincrementalbuild.boundary;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.maven.model.Build;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.vackosar.gitflowincrementalbuild.control.Property;
+
+/**
+ * Tests {@link UnchangedProjectsRemover} with Mockito mocks in context of {@link Property#reuseUpstreamOutputs}.
+ */
+public class UnchangedProjectsRemoverReuseUpstreamOutputsTest extends BaseUnchangedProjectsRemoverTest {
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void beforeThis() throws IOException {
+        addGibProperty(Property.buildUpstream, "true");
+        addGibProperty(Property.reuseUpstreamOutputs, "true");
+        when(upstreamOutputsReaderMock.isActive()).thenReturn(true);
+
+        Build build = new Build();
+        build.setOutputDirectory(Files.createDirectory(tempDir.resolve("classes")).toString());
+        when(moduleA.getBuild()).thenReturn(build);
+    }
+
+    @Test
+    public void singleChanged_fingerprintMatches() throws GitAPIException, IOException {
+        MavenProject changedModuleMock = addModuleMock(AID_MODULE_B, true);
+        when(sourceFingerprintsMock.matchesStored(moduleA)).thenReturn(true);
+        when(sourceFingerprintsMock.wasPackaged(moduleA)).thenReturn(true);
+
+        underTest.act();
+
+        verify(mavenSessionMock).setProjects(Collections.singletonList(changedModuleMock));
+        verify(upstreamOutputsReaderMock).register(moduleA, true);
+    }
+
+    @Test
+    public void singleChanged_fingerprintMatches_outputsMissing() throws GitAPIException, IOException {
+        MavenProject changedModuleMock = addModuleMock(AID_MODULE_B, true);
+        when(sourceFingerprintsMock.matchesStored(moduleA)).thenReturn(true);
+        moduleA.getBuild().setOutputDirectory(tempDir.resolve("missing").toString());
+
+        underTest.act();
+
+        verify(mavenSessionMock).setProjects(Arrays.asList(moduleA, changedModuleMock));
+        verify(upstreamOutputsReaderMock, never()).register(any(), anyBoolean());
+    }
+
+    @Test
+    public void singleChanged_fingerprintDiffers() throws GitAPIException, IOException {
+        MavenProject changedModuleMock = addModuleMock(AID_MODULE_B, true);
+        when(sourceFingerprintsMock.matchesStored(moduleA)).thenReturn(false);
+
+        underTest.act();
+
+        verify(mavenSessionMock).setProjects(Arrays.asList(moduleA, changedModuleMock));
+        verify(upstreamOutputsReaderMock, never()).register(any(), anyBoolean());
+    }
+
+    @Test
+    public void singleChanged_readerInactive() throws GitAPIException, IOException {
+        MavenProject changedModuleMock = addModuleMock(AID_MODULE_B, true);
+        when(upstreamOutputsReaderMock.isActive()).thenReturn(false);
+        when(sourceFingerprintsMock.matchesStored(moduleA)).thenReturn(true);
+
+        underTest.act();
+
+        verify(mavenSessionMock).setProjects(Arrays.asList(moduleA, changedModuleMock));
+        verify(upstreamOutputsReaderMock, never()).register(any(), anyBoolean());
+    }
+}
@@ -0,0 +1,94 @@
+package com.vackosar.gitflowincrementalbuild.boundary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.maven.project.MavenProject;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.powermock.reflect.Whitebox;
+
+import com.vackosar.gitflowincrementalbuild.control.Property;
+import com.vackosar.gitflowincrementalbuild.control.TestSelection;
+
+/**
+ * Tests {@link UnchangedProjectsRemover} with Mockito mocks in context of {@link Property#selectTests}.
+ */
+public class UnchangedProjectsRemoverSelectTestsTest extends BaseUnchangedProjectsRemoverTest {
+
+    @Mock(lenient = true)
+    private TestSelection testSelectionMock;
+
+    private final Properties userProperties = new Properties();
+
+    @BeforeEach
+    void beforeThis() {
+        addGibProperty(Property.selectTests, "true");
+        Whitebox.setInternalState(underTest, testSelectionMock);
+        when(mavenSessionMock.getUserProperties()).thenReturn(userProperties);
+    }
+
+    @Test
+    public void selected() throws GitAPIException, IOException {
+        MavenProject changedModuleMock = addModuleMock(AID_MODULE_B, true);
+        Set<Path> changedFiles = Collections.singleton(Paths.get("module-B/src/main/java/b/B.java"));
+        when(changedProjectsMock.getChangedFiles(changedModuleMock)).thenReturn(changedFiles);
+        when(testSelectionMock.select(changedModuleMock, changedFiles))
+                .thenReturn(Optional.of(new TreeSet<>(Arrays.asList("b.BTest", "b.OtherTest"))));
+
+        underTest.act();
+
+        assertEquals("b.BTest,b.OtherTest", changedModuleMock.getProperties().getProperty("test"));
+        assertEquals("false", changedModuleMock.getProperties().getProperty("surefire.failIfNoSpecifiedTests"));
+        assertFalse(changedModuleMock.getProperties().containsKey("skipTests"));
+    }
+
+    @Test
+    public void noAffectedTests() throws GitAPIException, IOException {
+        MavenProject changedModuleMock = addModuleMock(AID_MODULE_B, true);
+        when(testSelectionMock.select(any(), anySet())).thenReturn(Optional.of(new HashSet<>()));
+
+        underTest.act();
+
+        assertEquals("true", changedModuleMock.getProperties().getProperty("skipTests"));
+        assertFalse(changedModuleMock.getProperties().containsKey("test"));
+    }
+
+    @Test
+    public void fallback() throws GitAPIException, IOException {
+        MavenProject changedModuleMock = addModuleMock(AID_MODULE_B, true);
+        when(testSelectionMock.select(any(), anySet())).thenReturn(Optional.empty());
+
+        underTest.act();
+
+        assertProjectPropertiesEqual(changedModuleMock, Collections.emptyMap());
+    }
+
+    @Test
+    public void explicitTestSelection() throws GitAPIException, IOException {
+        addModuleMock(AID_MODULE_B, true);
+        userProperties.setProperty("test", "b.BTest");
+
+        underTest.act();
+
+        verify(testSelectionMock, never()).select(any(), anySet());
+    }
+}
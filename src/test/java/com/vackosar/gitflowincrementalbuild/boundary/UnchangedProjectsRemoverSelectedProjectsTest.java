@@ -9,6 +9,7 @@ import static org.mockito.Mockito.when;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -132,6 +133,27 @@ public class UnchangedProjectsRemoverSelectedProjectsTest extends BaseUnchangedP
         assertProjectPropertiesEqual(moduleB, Collections.emptyMap());
     }
 
+    // mvn -pl :module-B -amd
+    // A <- B <- C
+    // A <- D
+    @Test
+    public void changeDetectionLimitedToSessionAndUpstreamProjects() throws GitAPIException, IOException {
+        MavenProject moduleB = addModuleMock(AID_MODULE_B, false);
+        MavenProject moduleC = addModuleMock(AID_MODULE_C, false);
+        addModuleMock(AID_MODULE_D, false);
+        setUpstreamProjects(moduleC, moduleB, moduleA);
+        setDownstreamProjects(moduleB, moduleC);
+
+        setProjectSelections(moduleB);
+        overrideProjects(moduleB, moduleC);
+
+        when(mavenExecutionRequestMock.getMakeBehavior()).thenReturn(MavenExecutionRequest.REACTOR_MAKE_DOWNSTREAM);
+
+        underTest.act();
+
+        verify(changedProjectsMock).get(new HashSet<>(Arrays.asList(moduleA, moduleB, moduleC)));
+    }
+
     // mvn -pl :module-B,:module-D -amd
     // A <- B <- C
     // A <- D <- E
@@ -0,0 +1,82 @@
+package com.vackosar.gitflowincrementalbuild.boundary;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.vackosar.gitflowincrementalbuild.control.Property;
+
+/**
+ * Tests {@link UnchangedProjectsRemover} with Mockito mocks in context of {@link Property#skipDownstreamOnTestOnlyChanges}.
+ */
+public class UnchangedProjectsRemoverSkipDownstreamOnTestOnlyChangesTest extends BaseUnchangedProjectsRemoverTest {
+
+    private static final Set<Path> CHANGED_FILES = Collections.singleton(Paths.get("module-B/src/test/java/FooTest.java"));
+
+    private MavenProject changedModuleMock;
+    private MavenProject dependentModuleMock;
+
+    @BeforeEach
+    void beforeThis() {
+        addGibProperty(Property.skipDownstreamOnTestOnlyChanges, "true");
+
+        changedModuleMock = addModuleMock(AID_MODULE_B, true);
+        dependentModuleMock = addModuleMock(AID_MODULE_C, false);
+        setUpstreamProjects(dependentModuleMock, changedModuleMock, moduleA);
+        setDownstreamProjects(changedModuleMock, dependentModuleMock);
+        when(changedProjectsMock.getChangedFiles(changedModuleMock)).thenReturn(CHANGED_FILES);
+    }
+
+    @Test
+    public void testOnly() throws GitAPIException, IOException {
+        when(changeClassifierMock.isTestOnly(changedModuleMock, CHANGED_FILES)).thenReturn(true);
+
+        underTest.act();
+
+        verify(mavenSessionMock).setProjects(Collections.singletonList(changedModuleMock));
+    }
+
+    @Test
+    public void testOnly_testJar() throws GitAPIException, IOException {
+        when(changeClassifierMock.isTestOnly(changedModuleMock, CHANGED_FILES)).thenReturn(true);
+        Plugin plugin = new Plugin();
+        PluginExecution execution = new PluginExecution();
+        execution.addGoal("test-jar");
+        plugin.addExecution(execution);
+        when(changedModuleMock.getBuildPlugins()).thenReturn(Collections.singletonList(plugin));
+
+        underTest.act();
+
+        verify(mavenSessionMock).setProjects(Arrays.asList(changedModuleMock, dependentModuleMock));
+    }
+
+    @Test
+    public void mainChange() throws GitAPIException, IOException {
+        underTest.act();
+
+        verify(mavenSessionMock).setProjects(Arrays.asList(changedModuleMock, dependentModuleMock));
+    }
+
+    @Test
+    public void testOnly_disabled() throws GitAPIException, IOException {
+        addGibProperty(Property.skipDownstreamOnTestOnlyChanges, "false");
+        when(changeClassifierMock.isTestOnly(changedModuleMock, CHANGED_FILES)).thenReturn(true);
+
+        underTest.act();
+
+        verify(mavenSessionMock).setProjects(Arrays.asList(changedModuleMock, dependentModuleMock));
+    }
+}
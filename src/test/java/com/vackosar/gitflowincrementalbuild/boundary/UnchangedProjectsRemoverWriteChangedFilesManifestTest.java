@@ -0,0 +1,89 @@
+package com.vackosar.gitflowincrementalbuild.boundary;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.maven.model.Build;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.vackosar.gitflowincrementalbuild.control.Property;
+
+/**
+ * Tests {@link UnchangedProjectsRemover} with Mockito mocks in context of {@link Property#writeChangedFilesManifest}.
+ */
+public class UnchangedProjectsRemoverWriteChangedFilesManifestTest extends BaseUnchangedProjectsRemoverTest {
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void beforeThis() {
+        addGibProperty(Property.writeChangedFilesManifest, "true");
+
+        // let the session reflect the modified project list
+        AtomicReference<List<MavenProject>> sessionProjects = new AtomicReference<>(mavenSessionMock.getProjects());
+        when(mavenSessionMock.getProjects()).thenAnswer(invocation -> sessionProjects.get());
+        doAnswer(invocation -> {
+            sessionProjects.set(invocation.getArgument(0));
+            return null;
+        }).when(mavenSessionMock).setProjects(anyList());
+    }
+
+    @Test
+    public void singleChanged_withDownstream() throws GitAPIException, IOException {
+        MavenProject changedModuleMock = addModuleMockWithBuild(AID_MODULE_B, true);
+        MavenProject dependentModuleMock = addModuleMockWithBuild(AID_MODULE_C, false);
+        setUpstreamProjects(dependentModuleMock, changedModuleMock, moduleA);
+        setDownstreamProjects(changedModuleMock, dependentModuleMock);
+
+        Path basedir = changedModuleMock.getBasedir().toPath();
+        Path changedFile = Files.createDirectories(basedir.resolve("src/main/java")).resolve("B.java");
+        Path otherChangedFile = Files.createFile(basedir.resolve("pom.xml"));
+        Path deletedFile = basedir.resolve("src/main/java/Deleted.java");
+        when(changedProjectsMock.getChangedFiles(changedModuleMock))
+                .thenReturn(new LinkedHashSet<>(Arrays.asList(Files.createFile(changedFile), otherChangedFile, deletedFile)));
+
+        underTest.act();
+
+        Path manifest = tempDir.resolve(AID_MODULE_B + "/target/" + UnchangedProjectsRemover.CHANGED_FILES_MANIFEST);
+        assertThat(Files.readAllLines(manifest, StandardCharsets.UTF_8)).containsExactly("pom.xml", "src/main/java/B.java");
+        assertEquals("pom.xml,src/main/java/B.java", changedModuleMock.getProperties().getProperty(UnchangedProjectsRemover.PROPERTY_CHANGED_FILES));
+        assertEquals(manifest.toString(), changedModuleMock.getProperties().getProperty(UnchangedProjectsRemover.PROPERTY_CHANGED_FILES_MANIFEST));
+
+        // empty for modules that are built without changes of their own
+        Path dependentManifest = tempDir.resolve(AID_MODULE_C + "/target/" + UnchangedProjectsRemover.CHANGED_FILES_MANIFEST);
+        assertThat(Files.readAllLines(dependentManifest, StandardCharsets.UTF_8)).isEmpty();
+        assertEquals("", dependentModuleMock.getProperties().getProperty(UnchangedProjectsRemover.PROPERTY_CHANGED_FILES));
+
+        // not built
+        assertFalse(moduleA.getProperties().containsKey(UnchangedProjectsRemover.PROPERTY_CHANGED_FILES));
+    }
+
+    private MavenProject addModuleMockWithBuild(String moduleArtifactId, boolean addToChanged) {
+        MavenProject moduleMock = addModuleMock(moduleArtifactId, addToChanged);
+        File basedir = tempDir.resolve(moduleArtifactId).toFile();
+        when(moduleMock.getBasedir()).thenReturn(basedir);
+        Build build = new Build();
+        build.setDirectory(new File(basedir, "target").getPath());
+        when(moduleMock.getBuild()).thenReturn(build);
+        return moduleMock;
+    }
+}
@@ -0,0 +1,112 @@
+package com.vackosar.gitflowincrementalbuild.boundary;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.maven.project.MavenProject;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.vackosar.gitflowincrementalbuild.control.Property;
+
+/**
+ * Tests {@link UnchangedProjectsRemover} with Mockito mocks in context of {@link Property#writeImpactReportTo}.
+ */
+public class UnchangedProjectsRemoverWriteImpactReportTest extends BaseUnchangedProjectsRemoverTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path reportFilePath;
+
+    @BeforeEach
+    void beforeThis() {
+        reportFilePath = tempDir.resolve("report/impact.json");
+        addGibProperty(Property.writeImpactReportTo, reportFilePath.toAbsolutePath().toString());
+
+        // let the session reflect the modified project list
+        AtomicReference<List<MavenProject>> sessionProjects = new AtomicReference<>(mavenSessionMock.getProjects());
+        when(mavenSessionMock.getProjects()).thenAnswer(invocation -> sessionProjects.get());
+        doAnswer(invocation -> {
+            sessionProjects.set(invocation.getArgument(0));
+            return null;
+        }).when(mavenSessionMock).setProjects(anyList());
+    }
+
+    @Test
+    public void nothingChanged() throws GitAPIException, IOException {
+        addModuleMock(AID_MODULE_B, false);
+
+        underTest.act();
+
+        assertThat(readReport()).containsExactly(
+                "{",
+                "  \"modules\": [",
+                "    {\"artifactId\": \"module-A\", \"path\": \".\", \"role\": \"unchanged\", \"changedFiles\": [], \"dependencyPath\": []}",
+                "  ]",
+                "}");
+    }
+
+    @Test
+    public void singleChanged_withTransitiveDownstream() throws GitAPIException, IOException {
+        MavenProject changedModuleMock = addModuleMock(AID_MODULE_B, true);
+        MavenProject dependentModuleMock = addModuleMock(AID_MODULE_C, false);
+        MavenProject transitiveDependentModuleMock = addModuleMock(AID_MODULE_D, false);
+        addModuleMock(AID_MODULE_E, false);
+
+        setUpstreamProjects(dependentModuleMock, changedModuleMock, moduleA);
+        setUpstreamProjects(transitiveDependentModuleMock, dependentModuleMock, changedModuleMock, moduleA);
+        setDownstreamProjects(changedModuleMock, dependentModuleMock, transitiveDependentModuleMock);
+        setDownstreamProjects(dependentModuleMock, transitiveDependentModuleMock);
+        when(projectDependencyGraphMock.getDownstreamProjects(changedModuleMock, false)).thenReturn(Arrays.asList(dependentModuleMock));
+        when(projectDependencyGraphMock.getDownstreamProjects(dependentModuleMock, false))
+                .thenReturn(Arrays.asList(transitiveDependentModuleMock));
+        when(changedProjectsMock.getChangedFiles(changedModuleMock))
+                .thenReturn(Collections.singleton(Paths.get(AID_MODULE_B, "src/main/java/\"B\".java").toAbsolutePath()));
+
+        underTest.act();
+
+        assertThat(readReport()).containsExactly(
+                "{",
+                "  \"modules\": [",
+                "    {\"artifactId\": \"module-B\", \"path\": \"../module-B\", \"role\": \"changed\","
+                        + " \"changedFiles\": [\"../module-B/src/main/java/\\\"B\\\".java\"], \"dependencyPath\": [\"module-B\"]},",
+                "    {\"artifactId\": \"module-C\", \"path\": \"../module-C\", \"role\": \"downstream\","
+                        + " \"changedFiles\": [\"../module-B/src/main/java/\\\"B\\\".java\"], \"dependencyPath\": [\"module-B\", \"module-C\"]},",
+                "    {\"artifactId\": \"module-D\", \"path\": \"../module-D\", \"role\": \"downstream\","
+                        + " \"changedFiles\": [\"../module-B/src/main/java/\\\"B\\\".java\"],"
+                        + " \"dependencyPath\": [\"module-B\", \"module-C\", \"module-D\"]}",
+                "  ]",
+                "}");
+    }
+
+    @Test
+    public void forced() throws GitAPIException, IOException {
+        addModuleMock(AID_MODULE_B, true);
+        addModuleMock(AID_MODULE_C, false);
+        addGibProperty(Property.forceBuildModules, AID_MODULE_C);
+
+        underTest.act();
+
+        assertThat(readReport()).contains("    {\"artifactId\": \"module-C\", \"path\": \"../module-C\", \"role\": \"forced\","
+                + " \"changedFiles\": [], \"dependencyPath\": []}");
+    }
+
+    private List<String> readReport() throws IOException {
+        return Files.readAllLines(reportFilePath, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,105 @@
+package com.vackosar.gitflowincrementalbuild.boundary;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.maven.project.MavenProject;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.powermock.reflect.Whitebox;
+
+import com.google.common.collect.ImmutableMap;
+import com.vackosar.gitflowincrementalbuild.control.BuildDurations;
+import com.vackosar.gitflowincrementalbuild.control.BuildMetrics;
+import com.vackosar.gitflowincrementalbuild.control.Property;
+
+/**
+ * Tests {@link UnchangedProjectsRemover} with Mockito mocks in context of {@link Property#writeMetricsTo}.
+ */
+public class UnchangedProjectsRemoverWriteMetricsTest extends BaseUnchangedProjectsRemoverTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Mock(lenient = true)
+    private BuildDurations buildDurationsMock;
+
+    private Path metricsFilePath;
+
+    @BeforeEach
+    void beforeThis() throws GitAPIException, IOException {
+        metricsFilePath = tempDir.resolve("metrics/gib.prom");
+        addGibProperty(Property.writeMetricsTo, metricsFilePath.toAbsolutePath().toString());
+
+        BuildMetrics buildMetrics = new BuildMetrics();
+        Whitebox.setInternalState(buildMetrics, mavenSessionMock, phaseTimingsSpy, buildDurationsMock);
+        Whitebox.setInternalState(underTest, buildMetrics);
+
+        // let the session reflect the modified project list
+        AtomicReference<List<MavenProject>> sessionProjects = new AtomicReference<>(mavenSessionMock.getProjects());
+        when(mavenSessionMock.getProjects()).thenAnswer(invocation -> sessionProjects.get());
+        doAnswer(invocation -> {
+            sessionProjects.set(invocation.getArgument(0));
+            return null;
+        }).when(mavenSessionMock).setProjects(anyList());
+    }
+
+    @Test
+    public void nothingChanged() throws GitAPIException, IOException {
+        MavenProject moduleB = addModuleMock(AID_MODULE_B, false);
+        when(moduleB.getGroupId()).thenReturn("group");
+        when(buildDurationsMock.load()).thenReturn(ImmutableMap.of("group:" + AID_MODULE_B, Duration.ofMillis(2500)));
+
+        underTest.act();
+
+        assertThat(Files.readAllLines(metricsFilePath)).contains(
+                "gib_reactor_modules 2",
+                "gib_modules{kind=\"changed\"} 0",
+                "gib_modules{kind=\"built\"} 1",
+                "gib_modules{kind=\"skipped\"} 1",
+                "gib_estimated_skipped_build_time_seconds 2.500",
+                "gib_skipped_modules_without_duration 0");
+    }
+
+    @Test
+    public void singleChanged_withDownstream() throws GitAPIException, IOException {
+        MavenProject changedModuleMock = addModuleMock(AID_MODULE_B, true);
+        MavenProject dependentModuleMock = addModuleMock(AID_MODULE_C, false);
+        MavenProject independentModuleMock = addModuleMock(AID_MODULE_D, false);
+
+        setUpstreamProjects(dependentModuleMock, changedModuleMock, moduleA);
+        setDownstreamProjects(changedModuleMock, dependentModuleMock);
+        setUpstreamProjects(independentModuleMock, moduleA);
+        when(independentModuleMock.getGroupId()).thenReturn("group");
+        when(buildDurationsMock.load()).thenReturn(ImmutableMap.of("group:" + AID_MODULE_D, Duration.ofSeconds(3)));
+
+        underTest.act();
+
+        List<String> lines = Files.readAllLines(metricsFilePath);
+        assertThat(lines).contains(
+                "# TYPE gib_reactor_modules gauge",
+                "gib_reactor_modules 4",
+                "gib_modules{kind=\"changed\"} 1",
+                "gib_modules{kind=\"impacted\"} 2",
+                "gib_modules{kind=\"forced\"} 0",
+                "gib_modules{kind=\"built\"} 2",
+                "gib_modules{kind=\"skipped\"} 2",
+                "# UNIT gib_estimated_skipped_build_time_seconds seconds",
+                "gib_estimated_skipped_build_time_seconds 3.000",
+                "gib_skipped_modules_without_duration 1");
+        assertThat(lines).anyMatch(line -> line.matches("gib_phase_duration_seconds\\{phase=\"calculateImpacted\"\\} \\d+\\.\\d{3}"));
+        assertThat(lines).last().isEqualTo("# EOF");
+    }
+}
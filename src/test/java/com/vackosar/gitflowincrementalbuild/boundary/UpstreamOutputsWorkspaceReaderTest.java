@@ -0,0 +1,96 @@
+package com.vackosar.gitflowincrementalbuild.boundary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class UpstreamOutputsWorkspaceReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final UpstreamOutputsWorkspaceReader underTest = new UpstreamOutputsWorkspaceReader();
+
+    private MavenProject project;
+
+    @BeforeEach
+    void before() throws Exception {
+        Model model = new Model();
+        model.setGroupId("g");
+        model.setArtifactId("a");
+        model.setVersion("1");
+        Build build = new Build();
+        build.setDirectory(tempDir.resolve("target").toString());
+        build.setOutputDirectory(Files.createDirectories(tempDir.resolve("target/classes")).toString());
+        build.setTestOutputDirectory(tempDir.resolve("target/test-classes").toString());
+        build.setFinalName("a-1");
+        model.setBuild(build);
+        project = new MavenProject(model);
+        project.setFile(tempDir.resolve("pom.xml").toFile());
+    }
+
+    @Test
+    public void isActive() {
+        assertFalse(underTest.isActive());
+
+        underTest.getRepository();
+
+        assertTrue(underTest.isActive());
+    }
+
+    @Test
+    public void findArtifact_notRegistered() {
+        assertNull(underTest.findArtifact(new DefaultArtifact("g:a:1")));
+        assertEquals(Collections.emptyList(), underTest.findVersions(new DefaultArtifact("g:a:1")));
+    }
+
+    @Test
+    public void findArtifact_pom() {
+        underTest.register(project, false);
+
+        assertEquals(project.getFile(), underTest.findArtifact(new DefaultArtifact("g:a:pom:1")));
+        assertEquals(Collections.singletonList("1"), underTest.findVersions(new DefaultArtifact("g:a:1")));
+    }
+
+    @Test
+    public void findArtifact_classes() {
+        underTest.register(project, false);
+
+        assertEquals(new File(project.getBuild().getOutputDirectory()), underTest.findArtifact(new DefaultArtifact("g:a:1")));
+        assertNull(underTest.findArtifact(new DefaultArtifact("g:a:jar:tests:1")));
+    }
+
+    @Test
+    public void findArtifact_packaged() throws Exception {
+        Path jar = Files.createFile(tempDir.resolve("target/a-1.jar"));
+        Path testJar = Files.createFile(tempDir.resolve("target/a-1-tests.jar"));
+
+        underTest.register(project, true);
+
+        assertEquals(jar.toFile(), underTest.findArtifact(new DefaultArtifact("g:a:1")));
+        assertEquals(testJar.toFile(), underTest.findArtifact(new DefaultArtifact("g:a:jar:tests:1")));
+    }
+
+    @Test
+    public void findArtifact_packaged_butNotPackagedAtFingerprint() throws Exception {
+        Files.createFile(tempDir.resolve("target/a-1.jar"));
+
+        underTest.register(project, false);
+
+        assertEquals(new File(project.getBuild().getOutputDirectory()), underTest.findArtifact(new DefaultArtifact("g:a:1")));
+    }
+}
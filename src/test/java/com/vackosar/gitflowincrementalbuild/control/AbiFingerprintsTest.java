@@ -0,0 +1,181 @@
+package com.vackosar.gitflowincrementalbuild.control;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class AbiFingerprintsTest {
+
+    private static final String API_SOURCE = "package api;\n"
+            + "public class Api<T> extends java.util.ArrayList<T> implements Comparable<Api<T>> {\n"
+            + "    public static final String CONSTANT = \"constant\";\n"
+            + "    protected long field;\n"
+            + "    private int secret;\n"
+            + "    public Api() { }\n"
+            + "    public int compareTo(Api<T> other) { return %s; }\n"
+            + "    public void run() throws java.io.IOException { Runnable r = () -> { }; r.run(); new Object() { }; }\n"
+            + "    %s\n"
+            + "    public enum Kind { A, B }\n"
+            + "    private static class Hidden { public void hidden() { } }\n"
+            + "}\n";
+
+    @TempDir
+    Path tempDir;
+
+    private final AbiFingerprints underTest = new AbiFingerprints();
+
+    @Test
+    public void missing() throws IOException {
+        assertEquals(Optional.empty(), underTest.compute(tempDir.resolve("missing")));
+    }
+
+    @Test
+    public void empty() throws IOException {
+        assertTrue(underTest.compute(tempDir).isPresent());
+    }
+
+    @Test
+    public void implementationChangeOnly() throws IOException {
+        String fingerprint = compileAndCompute("v1", "0", "");
+
+        assertEquals(fingerprint, compileAndCompute("v2", "1", "private void added() { }"));
+    }
+
+    @Test
+    public void apiChange() throws IOException {
+        String fingerprint = compileAndCompute("v1", "0", "");
+
+        assertNotEquals(fingerprint, compileAndCompute("v2", "0", "public void added() { }"));
+        assertNotEquals(fingerprint, compileAndCompute("v3", "0", "public static final int ADDED = 1;"));
+    }
+
+    @Test
+    public void constantValueChange() throws IOException {
+        String fingerprint = compileAndCompute("v1", "0", "public static final int VALUE = 1;");
+
+        assertNotEquals(fingerprint, compileAndCompute("v2", "0", "public static final int VALUE = 2;"));
+    }
+
+    @Test
+    public void annotationChange() throws IOException {
+        String fingerprint = compileAndCompute("v1", "0", annotated("class", "default", "field", "method", "parameter"));
+
+        assertEquals(fingerprint, compileAndCompute("v2", "1", annotated("class", "default", "field", "method", "parameter")));
+        assertNotEquals(fingerprint, compileAndCompute("v3", "0", annotated("changed", "default", "field", "method", "parameter")));
+        assertNotEquals(fingerprint, compileAndCompute("v4", "0", annotated("class", "changed", "field", "method", "parameter")));
+        assertNotEquals(fingerprint, compileAndCompute("v5", "0", annotated("class", "default", "changed", "method", "parameter")));
+        assertNotEquals(fingerprint, compileAndCompute("v6", "0", annotated("class", "default", "field", "changed", "parameter")));
+        assertNotEquals(fingerprint, compileAndCompute("v7", "0", annotated("class", "default", "field", "method", "changed")));
+    }
+
+    @Test
+    public void directoryAndJar() throws IOException {
+        Path classesDir = compile("v1", "0", "");
+        Path jar = tempDir.resolve("v1.jar");
+        List<Path> classFiles;
+        try (Stream<Path> paths = Files.walk(classesDir)) {
+            classFiles = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar))) {
+            out.putNextEntry(new ZipEntry("META-INF/"));
+            out.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+            out.write("Manifest-Version: 1.0\n".getBytes(StandardCharsets.UTF_8));
+            for (Path classFile : classFiles) {
+                out.putNextEntry(new ZipEntry(classesDir.relativize(classFile).toString().replace('\\', '/')));
+                Files.copy(classFile, out);
+            }
+        }
+
+        assertEquals(underTest.compute(classesDir), underTest.compute(jar));
+    }
+
+    @Test
+    public void notAClassFile() throws IOException {
+        Path classFile = tempDir.resolve("Broken.class");
+        try (OutputStream out = Files.newOutputStream(classFile)) {
+            out.write(new byte[] { 1, 2, 3, 4 });
+        }
+
+        assertThrows(IOException.class, () -> underTest.compute(tempDir));
+    }
+
+    @Test
+    public void storeAndReadStored() throws IOException {
+        Path jar = Files.write(tempDir.resolve("a.jar"), new byte[] { 1 });
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(1000));
+
+        assertEquals(Optional.empty(), underTest.readStored(jar, "sources"));
+
+        underTest.store(jar, "sources", "abi");
+
+        assertEquals(Optional.of("abi"), underTest.readStored(jar, "sources"));
+        assertEquals(Optional.empty(), underTest.readStored(jar, "other-sources"));
+
+        // e.g. replaced by a build that did not store a fingerprint
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(2000));
+        assertEquals(Optional.empty(), underTest.readStored(jar, "sources"));
+
+        underTest.deleteStored(jar);
+        assertEquals(Optional.empty(), underTest.readStored(jar, "sources"));
+        assertFalse(Files.exists(tempDir.resolve("a.jar" + AbiFingerprints.STORED_SUFFIX)));
+    }
+
+    @Test
+    public void readReferences() throws IOException {
+        Path classesDir = compile("v1", "0", "public java.util.Map<String, java.time.Duration[]> map() { return null; }");
+
+        AbiFingerprints.ClassReferences references;
+        try (InputStream in = Files.newInputStream(classesDir.resolve("api/Api.class"))) {
+            references = AbiFingerprints.readReferences(in);
+        }
+
+        assertEquals("api/Api", references.name);
+        assertEquals("Api.java", references.sourceFile);
+        assertThat(references.references).contains("java/util/ArrayList", "java/lang/Comparable", "java/io/IOException", "java/util/Map",
+                "java/time/Duration", "api/Api$Kind", "api/Api$1").doesNotContain("api/Api");
+    }
+
+    private static String annotated(String classValue, String defaultValue, String fieldValue, String methodValue, String parameterValue) {
+        return "@Ann(\"" + classValue + "\") @java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)\n"
+                + "    public @interface Ann { String value() default \"" + defaultValue + "\"; Kind[] kinds() default { Kind.A }; }\n"
+                + "    @Ann(\"" + fieldValue + "\") public int annotatedField;\n"
+                + "    @Ann(value = \"" + methodValue + "\", kinds = { Kind.B }) public void annotatedMethod(@Ann(\"" + parameterValue + "\") int p) { }";
+    }
+
+    private String compileAndCompute(String version, String returnValue, String additionalMember) throws IOException {
+        return underTest.compute(compile(version, returnValue, additionalMember)).get();
+    }
+
+    private Path compile(String version, String returnValue, String additionalMember) throws IOException {
+        Path sourceFile = tempDir.resolve(version + "/src/api/Api.java");
+        Files.createDirectories(sourceFile.getParent());
+        Files.write(sourceFile, String.format(API_SOURCE, returnValue, additionalMember).getBytes(StandardCharsets.UTF_8));
+        Path classesDir = Files.createDirectories(tempDir.resolve(version + "/classes"));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertEquals(0, compiler.run(null, null, null, "-g", "-d", classesDir.toString(), sourceFile.toString()), "compilation failed");
+        return classesDir;
+    }
+}
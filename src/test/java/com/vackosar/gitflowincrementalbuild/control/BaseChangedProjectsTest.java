@@ -1,6 +1,10 @@
 package com.vackosar.gitflowincrementalbuild.control;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import com.vackosar.gitflowincrementalbuild.BaseRepoTest;
 import com.vackosar.gitflowincrementalbuild.boundary.Configuration;
@@ -11,14 +15,17 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.powermock.reflect.Whitebox;
 
 import java.io.File;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -41,6 +48,12 @@ public abstract class BaseChangedProjectsTest extends BaseRepoTest {
     @Spy
     protected Modules modulesSpy;
 
+    @Mock(lenient = true)
+    protected PomChangeAnalyzer pomChangeAnalyzerMock;
+
+    @Spy
+    protected PhaseTimings phaseTimingsSpy;
+
     @InjectMocks
     protected ChangedProjects underTest;
 
@@ -53,8 +66,9 @@ public abstract class BaseChangedProjectsTest extends BaseRepoTest {
     @BeforeEach
     void injectMavenSessionMock() throws Exception {
         mavenSessionMock = getMavenSessionMock();
-        Whitebox.setInternalState(differentFilesSpy, mavenSessionMock, new Configuration.Provider(mavenSessionMock));
-        Whitebox.setInternalState(underTest, mavenSessionMock);
+        Configuration.Provider configProvider = new Configuration.Provider(mavenSessionMock);
+        Whitebox.setInternalState(differentFilesSpy, mavenSessionMock, configProvider);
+        Whitebox.setInternalState(underTest, mavenSessionMock, configProvider);
     }
 
     @Test
@@ -75,6 +89,57 @@ public abstract class BaseChangedProjectsTest extends BaseRepoTest {
         assertEquals(expected, actual);
     }
 
+    @Test
+    public void list_ignoreCosmeticPomChanges() throws Exception {
+        projectProperties.setProperty(Property.ignoreCosmeticPomChanges.fullName(), "true");
+        when(pomChangeAnalyzerMock.isCosmeticChange(repoPath.resolve("parent/child4/pom.xml"))).thenReturn(true);
+        final Set<Path> expected = new HashSet<>(Arrays.asList(
+                Paths.get("parent/child2/subchild2"),
+                Paths.get("parent/child3"),
+                Paths.get("parent/testJarDependent")
+        ));
+
+        final Set<Path> actual = underTest.get().stream()
+                .map(MavenProject::getBasedir)
+                    .map(File::toPath)
+                    .map(localRepoMock.getBaseCanonicalBaseFolder().toPath()::relativize)
+                .collect(Collectors.toSet());
+
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void list_ignoreCosmeticPomChanges_nonModulePom() throws Exception {
+        projectProperties.setProperty(Property.ignoreCosmeticPomChanges.fullName(), "true");
+        projectProperties.setProperty(Property.untracked.fullName(), "true");
+        Path resourcePom = repoPath.resolve("parent/child1/src/resources/pom.xml");
+        Files.write(resourcePom, "<project/>".getBytes());
+        when(pomChangeAnalyzerMock.isCosmeticChange(any())).thenReturn(true);
+
+        underTest.get();
+
+        verify(pomChangeAnalyzerMock).isCosmeticChange(repoPath.resolve("parent/child4/pom.xml"));
+        verify(pomChangeAnalyzerMock, never()).isCosmeticChange(resourcePom);
+    }
+
+    @Test
+    public void getChangedFiles() throws Exception {
+        MavenProject child3 = underTest.get().stream()
+                .filter(proj -> proj.getArtifactId().equals("child3"))
+                .findFirst()
+                .get();
+
+        assertEquals(Collections.singleton(Paths.get("parent/child3/src/resources/file1")),
+                underTest.getChangedFiles(child3).stream()
+                        .map(localRepoMock.getBaseCanonicalBaseFolder().toPath()::relativize)
+                        .collect(Collectors.toSet()));
+        MavenProject child1 = mavenSessionMock.getAllProjects().stream()
+                .filter(proj -> proj.getArtifactId().equals("child1"))
+                .findFirst()
+                .get();
+        assertEquals(Collections.emptySet(), underTest.getChangedFiles(child1));
+    }
+
     @Test
     public void list_ignoreChangedNonReactorModule() throws Exception {
         // remove child3 (which contains changes) from the reactor/session
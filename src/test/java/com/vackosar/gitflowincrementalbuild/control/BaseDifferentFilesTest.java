@@ -32,6 +32,8 @@ public abstract class BaseDifferentFilesTest extends BaseRepoTest {
     protected final Logger loggerSpy = LoggerSpyUtil.buildSpiedLoggerFor(DifferentFiles.class);
 
     protected Path userHome;
+    protected DifferentFiles underTest;
+    protected PhaseTimings phaseTimings = new PhaseTimings();
     private File jGitUserHomeBackup;
 
     public BaseDifferentFilesTest(TestServerType remoteRepoServerType) {
@@ -76,8 +78,8 @@ public abstract class BaseDifferentFilesTest extends BaseRepoTest {
     protected Set<Path> invokeUnderTest(final MavenSession mavenSessionMock) throws Exception {
         mavenSessionMock.getTopLevelProject().getProperties().putAll(projectProperties);
 
-        DifferentFiles underTest = new DifferentFiles();
-        Whitebox.setInternalState(underTest, mavenSessionMock, new Configuration.Provider(mavenSessionMock), loggerSpy);
+        underTest = new DifferentFiles();
+        Whitebox.setInternalState(underTest, mavenSessionMock, new Configuration.Provider(mavenSessionMock), loggerSpy, phaseTimings);
 
         // isolate a possible native git invocation from the settings of the system the test is runing on
         underTest.putAdditionalNativeGitEnvironment("GIT_CONFIG_NOSYSTEM", "1");
@@ -0,0 +1,78 @@
+package com.vackosar.gitflowincrementalbuild.control;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.powermock.reflect.Whitebox;
+
+import com.google.common.collect.ImmutableMap;
+import com.vackosar.gitflowincrementalbuild.BaseRepoTest;
+import com.vackosar.gitflowincrementalbuild.boundary.Configuration;
+
+public class BuildDurationsTest extends BaseRepoTest {
+
+    private BuildDurations underTest;
+
+    private MavenProject child1;
+    private MavenProject child2;
+
+    @Override
+    @BeforeEach
+    protected void before(TestInfo testInfo) throws Exception {
+        super.before(testInfo);
+
+        MavenSession mavenSessionMock = getMavenSessionMock();
+        child1 = getProject(mavenSessionMock, "child1");
+        child2 = getProject(mavenSessionMock, "child2");
+
+        underTest = new BuildDurations();
+        Whitebox.setInternalState(underTest, mavenSessionMock, new Configuration.Provider(mavenSessionMock));
+    }
+
+    @Test
+    public void load_nothingStored() throws Exception {
+        assertEquals(Collections.emptyMap(), underTest.load());
+    }
+
+    @Test
+    public void store_load() throws Exception {
+        Map<MavenProject, Duration> durations = new LinkedHashMap<>();
+        durations.put(child1, Duration.ofMillis(1500));
+        durations.put(child2, Duration.ofMillis(200));
+        underTest.store(durations);
+
+        assertTrue(Files.exists(localRepoMock.getGit().getRepository().getDirectory().toPath().resolve(BuildDurations.DURATIONS_FILE)));
+        assertEquals(
+                ImmutableMap.of(BuildDurations.keyOf(child1), Duration.ofMillis(1500), BuildDurations.keyOf(child2), Duration.ofMillis(200)),
+                underTest.load());
+    }
+
+    @Test
+    public void store_merge() throws Exception {
+        underTest.store(ImmutableMap.of(child1, Duration.ofMillis(1500), child2, Duration.ofMillis(200)));
+
+        underTest.store(Collections.singletonMap(child1, Duration.ofMillis(900)));
+
+        assertEquals(
+                ImmutableMap.of(BuildDurations.keyOf(child1), Duration.ofMillis(900), BuildDurations.keyOf(child2), Duration.ofMillis(200)),
+                underTest.load());
+    }
+
+    private static MavenProject getProject(MavenSession mavenSession, String artifactId) {
+        return mavenSession.getAllProjects().stream()
+                .filter(proj -> proj.getArtifactId().equals(artifactId))
+                .findFirst()
+                .get();
+    }
+}
@@ -0,0 +1,121 @@
+package com.vackosar.gitflowincrementalbuild.control;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Optional;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Resource;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class ChangeClassifierTest {
+
+    private static final Path JAVA_FILE = Paths.get("/repo/module/src/main/java/Foo.java").toAbsolutePath();
+    private static final Path OTHER_JAVA_FILE = Paths.get("/repo/module/src/main/java/Bar.java").toAbsolutePath();
+
+    @Mock
+    private DifferentFiles differentFilesMock;
+
+    @InjectMocks
+    private ChangeClassifier underTest;
+
+    @Test
+    public void noChanges() {
+        assertFalse(underTest.isImplementationOnly(Collections.emptySet()));
+    }
+
+    @Test
+    public void implementationOnly() throws IOException {
+        mockContents(JAVA_FILE, "class Foo { void foo() { } }", "class Foo { void foo() { foo(); } }");
+        mockContents(OTHER_JAVA_FILE, "class Bar { }", "class Bar { private int x; }");
+
+        assertTrue(underTest.isImplementationOnly(new HashSet<>(Arrays.asList(JAVA_FILE, OTHER_JAVA_FILE))));
+    }
+
+    @Test
+    public void apiChange() throws IOException {
+        mockContents(OTHER_JAVA_FILE, "class Bar { }", "class Bar { int x; }");
+
+        assertFalse(underTest.isImplementationOnly(Collections.singleton(OTHER_JAVA_FILE)));
+    }
+
+    @Test
+    public void added() throws IOException {
+        when(differentFilesMock.readReferenceContent(JAVA_FILE)).thenReturn(Optional.empty());
+        when(differentFilesMock.readCurrentContent(JAVA_FILE)).thenReturn(Optional.of("class Foo { }".getBytes()));
+
+        assertFalse(underTest.isImplementationOnly(Collections.singleton(JAVA_FILE)));
+    }
+
+    @Test
+    public void malformed() throws IOException {
+        mockContents(JAVA_FILE, "class Foo { void foo() { } }", "class Foo { void foo() { }");
+
+        assertFalse(underTest.isImplementationOnly(Collections.singleton(JAVA_FILE)));
+    }
+
+    @Test
+    public void readFailure() throws IOException {
+        when(differentFilesMock.readReferenceContent(JAVA_FILE)).thenThrow(new IOException("FAIL !!!"));
+
+        assertFalse(underTest.isImplementationOnly(Collections.singleton(JAVA_FILE)));
+    }
+
+    @Test
+    public void nonJavaFile() {
+        assertFalse(underTest.isImplementationOnly(Collections.singleton(Paths.get("/repo/module/pom.xml"))));
+    }
+
+    @Test
+    public void testOnly() {
+        MavenProject project = createProject();
+
+        assertTrue(underTest.isTestOnly(project, new HashSet<>(Arrays.asList(
+                Paths.get("/repo/module/src/test/java/FooTest.java").toAbsolutePath(),
+                Paths.get("/repo/module/src/test/resources/foo.txt").toAbsolutePath(),
+                Paths.get("/repo/module/src/it-resources/bar.txt").toAbsolutePath()))));
+    }
+
+    @Test
+    public void testOnly_mainChange() {
+        MavenProject project = createProject();
+
+        assertFalse(underTest.isTestOnly(project, new HashSet<>(Arrays.asList(
+                Paths.get("/repo/module/src/test/java/FooTest.java").toAbsolutePath(),
+                JAVA_FILE))));
+    }
+
+    @Test
+    public void testOnly_noChanges() {
+        assertFalse(underTest.isTestOnly(createProject(), Collections.emptySet()));
+    }
+
+    private static MavenProject createProject() {
+        MavenProject project = new MavenProject(new Model());
+        project.setFile(Paths.get("/repo/module/pom.xml").toAbsolutePath().toFile());
+        project.getBuild().setTestSourceDirectory("src/test/java");
+        Resource testResource = new Resource();
+        testResource.setDirectory("src/it-resources");
+        project.getBuild().addTestResource(testResource);
+        return project;
+    }
+
+    private void mockContents(Path path, String reference, String current) throws IOException {
+        when(differentFilesMock.readReferenceContent(path)).thenReturn(Optional.of(reference.getBytes()));
+        when(differentFilesMock.readCurrentContent(path)).thenReturn(Optional.of(current.getBytes()));
+    }
+}
@@ -4,12 +4,18 @@ import static com.vackosar.gitflowincrementalbuild.mocks.server.TestServerType.H
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.ResetCommand;
 import org.eclipse.jgit.lib.StoredConfig;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import com.vackosar.gitflowincrementalbuild.control.jgit.GitFactory;
+import com.vackosar.gitflowincrementalbuild.control.jgit.HttpDelegatingCredentialsProvider;
+
 public class DifferentFilesHttpFetchBasicAuthTest extends BaseDifferentFilesTest {
 
     public DifferentFilesHttpFetchBasicAuthTest() {
@@ -44,6 +50,33 @@ public class DifferentFilesHttpFetchBasicAuthTest extends BaseDifferentFilesTest
         assertCommitExists(FETCH_FILE, localGit);
     }
 
+    @Test
+    public void fetch_credentialsCache() throws Exception {
+        addCommitToRemoteRepo(FETCH_FILE);
+        projectProperties.setProperty(Property.fetchReferenceBranch.fullName(), "true");
+        projectProperties.setProperty(Property.referenceBranch.fullName(), REMOTE_DEVELOP);
+        projectProperties.setProperty(Property.credentialsCacheTtl.fullName(), "3600");
+        Path credentialsFile = Files.write(userHome.resolve(".git-credentials"), buildCredentialsFileContent().getBytes());
+
+        invokeUnderTest();
+
+        // native Git can't provide the credentials anymore, so the second fetch has to use the cached credentials
+        Files.delete(credentialsFile);
+        addCommitToRemoteRepo(FETCH_FILE + "2");
+        GitFactory.destroy();
+        invokeUnderTest();
+
+        Git localGit = localRepoMock.getGit();
+        localGit.reset().setMode(ResetCommand.ResetType.HARD).call();
+        localGit.checkout().setName(REMOTE_DEVELOP).call();
+        assertCommitExists(FETCH_FILE + "2", localGit);
+    }
+
+    @AfterEach
+    void clearCredentialsCache() {
+        HttpDelegatingCredentialsProvider.clearCache();
+    }
+
     private String buildCredentialsFileContent() {
         String usrPass = HTTP_PROTOCOL_BASIC_AUTH.getUserName() + ":" + HTTP_PROTOCOL_BASIC_AUTH.getUserSecret() + "@";
         return localRepoMock.getRemoteRepo().repoUri.toString().replace("://", "://" + usrPass);
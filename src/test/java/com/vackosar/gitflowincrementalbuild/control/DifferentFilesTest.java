@@ -4,7 +4,10 @@ import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 import java.io.IOException;
@@ -12,16 +15,28 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Optional;
 import java.util.Set;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.project.MavenProject;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.ResetCommand;
+import org.eclipse.jgit.lib.BatchRefUpdate;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.ReceiveCommand;
 import org.junit.jupiter.api.Test;
 
+import com.vackosar.gitflowincrementalbuild.control.jgit.GitFactory;
 import com.vackosar.gitflowincrementalbuild.entity.SkipExecutionException;
 import com.vackosar.gitflowincrementalbuild.mocks.MavenSessionMock;
 import com.vackosar.gitflowincrementalbuild.mocks.server.TestServerType;
@@ -30,6 +45,7 @@ public class DifferentFilesTest extends BaseDifferentFilesTest {
 
     private static final String REFS_HEADS_FEATURE_2 = "refs/heads/feature/2";
     private static final String HEAD = "HEAD";
+    private static final String TAG_PREFIX = "refs/tags/gib-";
 
     public DifferentFilesTest() {
         super(TestServerType.GIT_PROTOCOL);
@@ -68,6 +84,21 @@ public class DifferentFilesTest extends BaseDifferentFilesTest {
         assertFalse(invokeUnderTest().contains(modifiedFilePath));
     }
 
+    @Test
+    public void listWithUncommitted_excluded_timings() throws Exception {
+        Path modifiedFilePath = modifyTrackedFile(repoPath);
+        projectProperties.setProperty(Property.uncommited.fullName(), "true");
+        projectProperties.setProperty(Property.excludePathRegex.fullName(), Pattern.quote(repoPath.relativize(modifiedFilePath).toString()));
+
+        Set<Path> result = invokeUnderTest();
+
+        assertEquals(Arrays.asList("fetch", "checkout", "resolveRefs", "treeDiffAndStatus"),
+                new ArrayList<>(phaseTimings.getDurations().keySet()));
+        // the excluded file is diffed but not matched
+        assertEquals(result.size() + 1, phaseTimings.getCounts().get(PhaseTimings.FILES_DIFFED));
+        assertEquals(result.size(), phaseTimings.getCounts().get(PhaseTimings.PATHS_MATCHED));
+    }
+
     @Test
     public void listWithUntracked() throws Exception {
         Path newFilePath = createNewUntrackedFile(repoPath);
@@ -93,6 +124,131 @@ public class DifferentFilesTest extends BaseDifferentFilesTest {
         assertFalse(invokeUnderTest().contains(newFilePath));
     }
 
+    @Test
+    public void listWithUncommittedAndUntracked_singlePassEqualsStatus() throws Exception {
+        Git localGit = localRepoMock.getGit();
+        localGit.reset().setRef(HEAD).setMode(ResetCommand.ResetType.HARD).call();
+        modifyTrackedFile(repoPath);
+        createNewUntrackedFile(repoPath);
+        Path addedFile = repoPath.resolve("parent/child1/src/resources/fileAdded");
+        Files.write(addedFile, "added".getBytes());
+        localGit.add().addFilepattern("parent/child1/src/resources/fileAdded").call();
+        localGit.rm().addFilepattern("parent/child5/src/resources/file5").call();
+        Files.delete(repoPath.resolve("parent/child6/src/resources/file5"));
+        Files.createDirectories(repoPath.resolve("parent/child1/target"));
+        Files.write(repoPath.resolve("parent/child1/target/ignored"), "ignored".getBytes());
+        projectProperties.setProperty(Property.uncommited.fullName(), "true");
+        projectProperties.setProperty(Property.untracked.fullName(), "true");
+
+        Set<Path> singlePass = invokeUnderTest();
+        GitFactory.destroy();
+        // same commit as HEAD, but not "HEAD" which requires the separate status command
+        projectProperties.setProperty(Property.baseBranch.fullName(), localGit.getRepository().getFullBranch());
+        Set<Path> twoPass = invokeUnderTest();
+
+        assertEquals(twoPass, singlePass);
+        assertTrue(singlePass.containsAll(Arrays.asList(
+                addedFile,
+                repoPath.resolve("parent/child1/src/resources/file1"),
+                repoPath.resolve("parent/child1/src/resources/fileNew"),
+                repoPath.resolve("parent/child5/src/resources/file5"),
+                repoPath.resolve("parent/child6/src/resources/file5"),
+                repoPath.resolve("parent/child3/src/resources/file1"))), "Unexpected: " + singlePass);
+        assertFalse(singlePass.contains(repoPath.resolve("parent/child1/target/ignored")));
+    }
+
+    @Test
+    public void listWithUncommittedAndUntracked_parallelWorkingTreeScan() throws Exception {
+        Git localGit = localRepoMock.getGit();
+        localGit.reset().setRef(HEAD).setMode(ResetCommand.ResetType.HARD).call();
+        modifyTrackedFile(repoPath);
+        createNewUntrackedFile(repoPath);
+        Files.write(repoPath.resolve("untrackedTopLevelFile"), "untracked".getBytes());
+        Files.createDirectories(repoPath.resolve("parent/child1/target"));
+        Files.write(repoPath.resolve("parent/child1/target/ignored"), "ignored".getBytes());
+        projectProperties.setProperty(Property.uncommited.fullName(), "true");
+        projectProperties.setProperty(Property.untracked.fullName(), "true");
+
+        Set<Path> sequential = invokeUnderTest();
+        GitFactory.destroy();
+        projectProperties.setProperty(Property.parallelWorkingTreeScan.fullName(), "true");
+        Set<Path> parallel = invokeUnderTest();
+
+        assertEquals(sequential, parallel);
+        assertTrue(parallel.containsAll(Arrays.asList(
+                repoPath.resolve("untrackedTopLevelFile"),
+                repoPath.resolve("parent/child1/src/resources/file1"),
+                repoPath.resolve("parent/child1/src/resources/fileNew"),
+                repoPath.resolve("parent/child3/src/resources/file1"))), "Unexpected: " + parallel);
+        assertFalse(parallel.contains(repoPath.resolve("parent/child1/target/ignored")));
+    }
+
+    @Test
+    public void listWithUncommitted_disableBranchComparison_parallelWorkingTreeScan() throws Exception {
+        localRepoMock.getGit().reset().setRef(HEAD).setMode(ResetCommand.ResetType.HARD).call();
+        modifyTrackedFile(repoPath);
+        createNewUntrackedFile(repoPath);
+        projectProperties.setProperty(Property.disableBranchComparison.fullName(), "true");
+        projectProperties.setProperty(Property.uncommited.fullName(), "true");
+        projectProperties.setProperty(Property.untracked.fullName(), "true");
+
+        Set<Path> status = invokeUnderTest();
+        GitFactory.destroy();
+        projectProperties.setProperty(Property.parallelWorkingTreeScan.fullName(), "true");
+        Set<Path> parallel = invokeUnderTest();
+
+        assertEquals(status, parallel);
+        assertTrue(parallel.containsAll(Arrays.asList(
+                repoPath.resolve("parent/child1/src/resources/file1"),
+                repoPath.resolve("parent/child1/src/resources/fileNew"))), "Unexpected: " + parallel);
+        assertFalse(parallel.contains(repoPath.resolve("parent/child3/src/resources/file1")));
+    }
+
+    @Test
+    public void listWithUncommitted_trustStatData() throws Exception {
+        localRepoMock.getGit().reset().setRef(HEAD).setMode(ResetCommand.ResetType.HARD).call();
+        modifyTrackedFile(repoPath);
+        projectProperties.setProperty(Property.disableBranchComparison.fullName(), "true");
+        projectProperties.setProperty(Property.uncommited.fullName(), "true");
+        projectProperties.setProperty(Property.trustStatData.fullName(), "true");
+
+        assertEquals(Collections.singleton(repoPath.resolve("parent/child1/src/resources/file1")), invokeUnderTest());
+    }
+
+    @Test
+    public void listWithScope() throws Exception {
+        localRepoMock.getGit().reset().setRef(HEAD).setMode(ResetCommand.ResetType.HARD).call();
+        modifyTrackedFile(repoPath);
+        projectProperties.setProperty(Property.uncommited.fullName(), "true");
+        projectProperties.setProperty(Property.untracked.fullName(), "true");
+        MavenSession mavenSession = getMavenSessionMock();
+        invokeUnderTest(mavenSession);
+
+        Set<Path> scoped = underTest.get(getProjects(mavenSession, "parent", "child3"));
+
+        // changes in the nested modules of "parent" (e.g. child1) are not in scope
+        assertEquals(Collections.singleton(repoPath.resolve("parent/child3/src/resources/file1")), scoped);
+    }
+
+    @Test
+    public void listWithScope_disableBranchComparison() throws Exception {
+        localRepoMock.getGit().reset().setRef(HEAD).setMode(ResetCommand.ResetType.HARD).call();
+        modifyTrackedFile(repoPath);
+        createNewUntrackedFile(repoPath);
+        Files.write(repoPath.resolve("parent/child3/src/resources/fileNew"), "untracked".getBytes());
+        projectProperties.setProperty(Property.disableBranchComparison.fullName(), "true");
+        projectProperties.setProperty(Property.uncommited.fullName(), "true");
+        projectProperties.setProperty(Property.untracked.fullName(), "true");
+        MavenSession mavenSession = getMavenSessionMock();
+        invokeUnderTest(mavenSession);
+
+        Set<Path> scoped = underTest.get(getProjects(mavenSession, "child1"));
+
+        assertEquals(new HashSet<>(Arrays.asList(
+                repoPath.resolve("parent/child1/src/resources/file1"),
+                repoPath.resolve("parent/child1/src/resources/fileNew"))), scoped);
+    }
+
     @Test
     public void listWithCheckout() throws Exception {
         localRepoMock.getGit().reset().setRef(HEAD).setMode(ResetCommand.ResetType.HARD).call();
@@ -185,6 +341,50 @@ public class DifferentFilesTest extends BaseDifferentFilesTest {
         verify(loggerSpy).info(contains("59dc82fa887d9ca82a0d3d1790c6d767e738e71a"));
     }
 
+    @Test
+    public void listComparedToReferenceHead() throws Exception {
+        Path changedFile = repoPath.resolve("parent/child3/src/resources/file1");
+        addCommitToDevelopWithContentOfHead(changedFile);
+        projectProperties.setProperty(Property.referenceBranch.fullName(), DEVELOP);
+        projectProperties.setProperty(Property.compareToMergeBase.fullName(), "true");
+        projectProperties.setProperty(Property.compareToReferenceHead.fullName(), "true");
+
+        Set<Path> result = invokeUnderTest();
+
+        assertFalse(result.contains(changedFile), "Change already present in reference head should not be listed");
+        assertTrue(result.contains(repoPath.resolve("parent/child4/pom.xml")));
+    }
+
+    @Test
+    public void listComparedToReferenceHead_withoutStatus() throws Exception {
+        Path changedFile = repoPath.resolve("parent/child3/src/resources/file1");
+        addCommitToDevelopWithContentOfHead(changedFile);
+        Path developOnlyFile = repoPath.resolve("parent/child1/src/resources/developOnly");
+        addCommitToDevelop(developOnlyFile);
+        // baseBranch != HEAD: tree diff without status
+        projectProperties.setProperty(Property.baseBranch.fullName(), localRepoMock.getGit().getRepository().getFullBranch());
+        projectProperties.setProperty(Property.referenceBranch.fullName(), DEVELOP);
+        projectProperties.setProperty(Property.compareToMergeBase.fullName(), "true");
+        projectProperties.setProperty(Property.compareToReferenceHead.fullName(), "true");
+        projectProperties.setProperty(Property.uncommited.fullName(), "false");
+
+        Set<Path> result = invokeUnderTest();
+
+        assertFalse(result.contains(changedFile), "Change already present in reference head should not be listed");
+        assertFalse(result.contains(developOnlyFile), "Change only present in reference head should not be listed");
+        assertTrue(result.contains(repoPath.resolve("parent/child4/pom.xml")));
+    }
+
+    @Test
+    public void listComparedToReferenceHead_disabled() throws Exception {
+        Path changedFile = repoPath.resolve("parent/child3/src/resources/file1");
+        addCommitToDevelopWithContentOfHead(changedFile);
+        projectProperties.setProperty(Property.referenceBranch.fullName(), DEVELOP);
+        projectProperties.setProperty(Property.compareToMergeBase.fullName(), "true");
+
+        assertTrue(invokeUnderTest().contains(changedFile));
+    }
+
     @Test
     public void fetch() throws Exception {
         addCommitToRemoteRepo(FETCH_FILE);
@@ -199,6 +399,100 @@ public class DifferentFilesTest extends BaseDifferentFilesTest {
         assertCommitExists(FETCH_FILE, localGit);
     }
 
+    @Test
+    public void fetch_offline() throws Exception {
+        addCommitToRemoteRepo(FETCH_FILE);
+        projectProperties.setProperty(Property.fetchReferenceBranch.fullName(), "true");
+        projectProperties.setProperty(Property.referenceBranch.fullName(), REMOTE_DEVELOP);
+        projectProperties.setProperty(Property.offline.fullName(), "true");
+
+        // the remote branch does not exist locally since it has not been fetched
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(this::invokeUnderTest)
+                .withMessageContaining(REMOTE_DEVELOP);
+        verify(loggerSpy).info(contains("offline"));
+    }
+
+    @Test
+    public void fetch_freshnessWindow() throws Exception {
+        addCommitToRemoteRepo(FETCH_FILE);
+        projectProperties.setProperty(Property.fetchReferenceBranch.fullName(), "true");
+        projectProperties.setProperty(Property.referenceBranch.fullName(), REMOTE_DEVELOP);
+        projectProperties.setProperty(Property.fetchFreshnessWindow.fullName(), "3600");
+
+        invokeUnderTest();
+        assertEquals(FETCH_FILE, getCommitMessage(REMOTE_DEVELOP));
+
+        addCommitToRemoteRepo(FETCH_FILE + "2");
+        GitFactory.destroy();
+        invokeUnderTest();
+
+        verify(loggerSpy).info(contains("has been fetched"), eq(REMOTE_DEVELOP), anyLong());
+        assertEquals(FETCH_FILE, getCommitMessage(REMOTE_DEVELOP));
+    }
+
+    @Test
+    public void fetch_mirror() throws Exception {
+        addCommitToRemoteRepo(FETCH_FILE);
+        Path mirror = tempDir.resolve("mirror");
+        Git.cloneRepository()
+                .setURI(localRepoMock.getRemoteRepo().getGit().getRepository().getDirectory().getAbsolutePath())
+                .setDirectory(mirror.toFile())
+                .setBare(true)
+                .call()
+                .close();
+        projectProperties.setProperty(Property.fetchReferenceBranch.fullName(), "true");
+        projectProperties.setProperty(Property.referenceBranch.fullName(), REMOTE_DEVELOP);
+        projectProperties.setProperty(Property.fetchMirrors.fullName(), mirror.toString());
+
+        invokeUnderTest();
+
+        assertEquals(FETCH_FILE, getCommitMessage(REMOTE_DEVELOP));
+        verify(loggerSpy, never()).info("Fetching branch " + REMOTE_DEVELOP);
+    }
+
+    @Test
+    public void fetch_mirrorWithoutBranch() throws Exception {
+        addCommitToRemoteRepo(FETCH_FILE);
+        Path mirror = tempDir.resolve("mirror");
+        Git.init().setDirectory(mirror.toFile()).setBare(true).call().close();
+        projectProperties.setProperty(Property.fetchReferenceBranch.fullName(), "true");
+        projectProperties.setProperty(Property.referenceBranch.fullName(), REMOTE_DEVELOP);
+        projectProperties.setProperty(Property.fetchMirrors.fullName(), mirror.toString());
+
+        invokeUnderTest();
+
+        assertEquals(FETCH_FILE, getCommitMessage(REMOTE_DEVELOP));
+        verify(loggerSpy).info("Fetching branch " + REMOTE_DEVELOP);
+    }
+
+    @Test
+    public void fetch_manyTags() throws Exception {
+        addCommitToRemoteRepo(FETCH_FILE);
+        addTagsToRemoteRepo(2000);
+        projectProperties.setProperty(Property.fetchReferenceBranch.fullName(), "true");
+        projectProperties.setProperty(Property.referenceBranch.fullName(), REMOTE_DEVELOP);
+
+        invokeUnderTest();
+
+        assertEquals(FETCH_FILE, getCommitMessage(REMOTE_DEVELOP));
+        // tags pointing to the fetched commit are followed automatically
+        assertEquals(2000, localRepoMock.getGit().getRepository().getRefDatabase().getRefsByPrefix(TAG_PREFIX).size());
+    }
+
+    @Test
+    public void fetch_manyTags_fetchWithoutTags() throws Exception {
+        addCommitToRemoteRepo(FETCH_FILE);
+        addTagsToRemoteRepo(2000);
+        projectProperties.setProperty(Property.fetchReferenceBranch.fullName(), "true");
+        projectProperties.setProperty(Property.referenceBranch.fullName(), REMOTE_DEVELOP);
+        projectProperties.setProperty(Property.fetchWithoutTags.fullName(), "true");
+
+        invokeUnderTest();
+
+        assertEquals(FETCH_FILE, getCommitMessage(REMOTE_DEVELOP));
+        assertEquals(Collections.emptyList(), localRepoMock.getGit().getRepository().getRefDatabase().getRefsByPrefix(TAG_PREFIX));
+    }
+
     @Test
     public void fetchNonExistent() throws Exception {
         addCommitToRemoteRepo(FETCH_FILE);
@@ -215,6 +509,91 @@ public class DifferentFilesTest extends BaseDifferentFilesTest {
         assertCommitExists(FETCH_FILE, localGit);
     }
 
+    @Test
+    public void readContent() throws Exception {
+        invokeUnderTest();
+
+        Path changedFile = repoPath.resolve("parent/child3/src/resources/file1");
+        assertEquals(Optional.of(""), underTest.readReferenceContent(changedFile).map(String::new));
+        assertEquals(Optional.of("changed line"), underTest.readCurrentContent(changedFile).map(String::new));
+        Path addedFile = repoPath.resolve("parent/child2/subchild2/src/resources/file22");
+        assertEquals(Optional.empty(), underTest.readReferenceContent(addedFile));
+        assertEquals(Optional.empty(), underTest.readReferenceContent(repoPath.resolve("parent/child3/src")));
+    }
+
+    @Test
+    public void readContent_uncommittedAndUntrackedDisabled() throws Exception {
+        projectProperties.setProperty(Property.uncommited.fullName(), "false");
+        projectProperties.setProperty(Property.untracked.fullName(), "false");
+        Path changedFile = repoPath.resolve("parent/child3/src/resources/file1");
+        Files.write(changedFile, "\nuncommitted".getBytes(), StandardOpenOption.APPEND);
+
+        invokeUnderTest();
+
+        assertEquals(Optional.of("changed line"), underTest.readCurrentContent(changedFile).map(String::new));
+    }
+
+    @Test
+    public void readContent_disabledBranchComparison() throws Exception {
+        projectProperties.setProperty(Property.disableBranchComparison.fullName(), "true");
+
+        invokeUnderTest();
+
+        Path changedFile = repoPath.resolve("parent/child3/src/resources/file1");
+        assertEquals(Optional.of("changed line"), underTest.readReferenceContent(changedFile).map(String::new));
+    }
+
+    // e.g. a cherry-pick of a change of the current branch to develop
+    private void addCommitToDevelop(Path newFile) throws Exception {
+        Git localGit = localRepoMock.getGit();
+        localGit.reset().setRef(HEAD).setMode(ResetCommand.ResetType.HARD).call();
+        String currentBranch = localGit.getRepository().getFullBranch();
+        localGit.checkout().setName(DEVELOP).call();
+        Files.createDirectories(newFile.getParent());
+        Files.write(newFile, "develop only".getBytes());
+        localGit.add().addFilepattern(repoPath.relativize(newFile).toString().replace('\\', '/')).call();
+        localGit.commit().setMessage("develop only").call();
+        localGit.checkout().setName(currentBranch).call();
+    }
+
+    private void addCommitToDevelopWithContentOfHead(Path file) throws Exception {
+        Git localGit = localRepoMock.getGit();
+        localGit.reset().setRef(HEAD).setMode(ResetCommand.ResetType.HARD).call();
+        String currentBranch = localGit.getRepository().getFullBranch();
+        byte[] content = Files.readAllBytes(file);
+        localGit.checkout().setName(DEVELOP).call();
+        Files.write(file, content);
+        localGit.add().addFilepattern(repoPath.relativize(file).toString().replace('\\', '/')).call();
+        localGit.commit().setMessage("cherry-pick").call();
+        localGit.checkout().setName(currentBranch).call();
+    }
+
+    // creates lightweight tags pointing to the head of develop
+    private void addTagsToRemoteRepo(int count) throws Exception {
+        Repository remoteRepo = localRepoMock.getRemoteRepo().getGit().getRepository();
+        ObjectId developHead = remoteRepo.resolve(DEVELOP);
+        BatchRefUpdate batchRefUpdate = remoteRepo.getRefDatabase().newBatchUpdate();
+        for (int i = 0; i < count; i++) {
+            batchRefUpdate.addCommand(new ReceiveCommand(ObjectId.zeroId(), developHead, TAG_PREFIX + "tag" + i));
+        }
+        try (RevWalk revWalk = new RevWalk(remoteRepo)) {
+            batchRefUpdate.execute(revWalk, NullProgressMonitor.INSTANCE);
+        }
+    }
+
+    private String getCommitMessage(String branchName) throws Exception {
+        Repository repository = localRepoMock.getGit().getRepository();
+        try (RevWalk revWalk = new RevWalk(repository)) {
+            return revWalk.parseCommit(repository.resolve(branchName)).getFullMessage();
+        }
+    }
+
+    private static Set<MavenProject> getProjects(MavenSession mavenSession, String... artifactIds) {
+        return mavenSession.getAllProjects().stream()
+                .filter(proj -> Arrays.asList(artifactIds).contains(proj.getArtifactId()))
+                .collect(Collectors.toSet());
+    }
+
     private Path modifyTrackedFile(Path repoPath) throws IOException {
         Path modifiedFilePath = repoPath.resolve("parent/child1/src/resources/file1");
         Files.write(modifiedFilePath, "\nuncommitted".getBytes(), StandardOpenOption.APPEND);
@@ -0,0 +1,163 @@
+package com.vackosar.gitflowincrementalbuild.control;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.execution.ProjectDependencyGraph;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.google.common.collect.ImmutableMap;
+
+@ExtendWith(MockitoExtension.class)
+public class DownstreamPropagationTest {
+
+    @Mock(lenient = true)
+    private MavenSession mavenSessionMock;
+
+    @Mock(lenient = true)
+    private ProjectDependencyGraph projectDependencyGraphMock;
+
+    @InjectMocks
+    private DownstreamPropagation underTest;
+
+    private final List<MavenProject> projects = new ArrayList<>();
+
+    private MavenProject changed;
+
+    @BeforeEach
+    void before() {
+        when(mavenSessionMock.getProjectDependencyGraph()).thenReturn(projectDependencyGraphMock);
+        changed = addProject("changed");
+    }
+
+    @Test
+    public void noRules() {
+        MavenProject testDependent = addProject("test-dependent", dependency(changed, "test", false));
+        MavenProject transitive = addProject("transitive", dependency(testDependent, null, false));
+
+        assertEquals(Arrays.asList(testDependent, transitive), underTest.getDownstreamProjects(changed, Collections.emptyMap()));
+    }
+
+    @Test
+    public void testScope_oneHop() {
+        MavenProject testDependent = addProject("test-dependent", dependency(changed, "test", false));
+        addProject("transitive", dependency(testDependent, "compile", false));
+        MavenProject compileDependent = addProject("compile-dependent", dependency(changed, null, false));
+        MavenProject transitiveOfCompile = addProject("transitive-of-compile", dependency(compileDependent, "compile", false));
+
+        assertEquals(Arrays.asList(testDependent, compileDependent, transitiveOfCompile),
+                underTest.getDownstreamProjects(changed, ImmutableMap.of("test", 1)));
+    }
+
+    @Test
+    public void testScope_butAlsoCompileScope() {
+        MavenProject dependent = addProject("dependent", dependency(changed, "test", false), dependency(changed, "compile", false));
+        MavenProject transitive = addProject("transitive", dependency(dependent, "compile", false));
+
+        assertEquals(Arrays.asList(dependent, transitive), underTest.getDownstreamProjects(changed, ImmutableMap.of("test", 1)));
+    }
+
+    @Test
+    public void optional_twoHops() {
+        MavenProject dependent = addProject("dependent", dependency(changed, "compile", true));
+        MavenProject transitive = addProject("transitive", dependency(dependent, "compile", false));
+        addProject("transitive2", dependency(transitive, "compile", false));
+
+        assertEquals(Arrays.asList(dependent, transitive),
+                underTest.getDownstreamProjects(changed, ImmutableMap.of("test", 1, DownstreamPropagation.OPTIONAL, 2)));
+    }
+
+    @Test
+    public void shorterPathDoesNotHideLongerPath() {
+        MavenProject testDependent = addProject("test-dependent", dependency(changed, "test", false));
+        MavenProject compileDependent = addProject("compile-dependent", dependency(changed, "compile", false));
+        // reached first via the test dependency (without remaining hops), later via the compile dependency
+        MavenProject transitive = addProject("transitive", dependency(testDependent, "test", false), dependency(compileDependent, "compile", false));
+        MavenProject transitive2 = addProject("transitive2", dependency(transitive, "compile", false));
+
+        assertEquals(Arrays.asList(testDependent, compileDependent, transitive, transitive2),
+                underTest.getDownstreamProjects(changed, ImmutableMap.of("test", 1)));
+    }
+
+    @Test
+    public void undeclaredRelation() {
+        MavenProject child = addProject("child");
+        Parent parent = new Parent();
+        parent.setArtifactId(changed.getArtifactId());
+        child.getModel().setParent(parent);
+        updateGraph();
+        MavenProject testDependent = addProject("test-dependent", dependency(child, "test", false));
+        addProject("transitive", dependency(testDependent, "compile", false));
+
+        assertEquals(Arrays.asList(child, testDependent), underTest.getDownstreamProjects(changed, ImmutableMap.of("test", 1)));
+    }
+
+    private MavenProject addProject(String artifactId, Dependency... dependencies) {
+        Model model = new Model();
+        model.setGroupId("g");
+        model.setArtifactId(artifactId);
+        model.setVersion("1");
+        model.setDependencies(new ArrayList<>(Arrays.asList(dependencies)));
+        MavenProject project = new MavenProject(model);
+        projects.add(project);
+        updateGraph();
+        return project;
+    }
+
+    // (re)calculates direct and transitive downstream projects from the declared dependencies and parents
+    private void updateGraph() {
+        for (MavenProject project : projects) {
+            List<MavenProject> direct = new ArrayList<>();
+            for (MavenProject candidate : projects) {
+                Parent parent = candidate.getModel().getParent();
+                if (candidate.getDependencies().stream().anyMatch(dep -> dep.getArtifactId().equals(project.getArtifactId()))
+                        || parent != null && parent.getArtifactId().equals(project.getArtifactId())) {
+                    direct.add(candidate);
+                }
+            }
+            when(projectDependencyGraphMock.getDownstreamProjects(project, false)).thenReturn(direct);
+        }
+        for (MavenProject project : projects) {
+            Set<MavenProject> transitive = new LinkedHashSet<>();
+            collectDownstream(project, transitive);
+            List<MavenProject> sorted = new ArrayList<>(projects);
+            sorted.retainAll(transitive);
+            when(projectDependencyGraphMock.getDownstreamProjects(project, true)).thenReturn(sorted);
+        }
+    }
+
+    private void collectDownstream(MavenProject project, Set<MavenProject> collected) {
+        for (MavenProject downstream : projectDependencyGraphMock.getDownstreamProjects(project, false)) {
+            if (collected.add(downstream)) {
+                collectDownstream(downstream, collected);
+            }
+        }
+    }
+
+    private static Dependency dependency(MavenProject project, String scope, boolean optional) {
+        Dependency dependency = new Dependency();
+        dependency.setGroupId(project.getGroupId());
+        dependency.setArtifactId(project.getArtifactId());
+        dependency.setVersion(project.getVersion());
+        dependency.setScope(scope);
+        dependency.setOptional(optional);
+        return dependency;
+    }
+}
@@ -0,0 +1,101 @@
+package com.vackosar.gitflowincrementalbuild.control;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+public class JavaApiSkeletonTest {
+
+    private static final String SOURCE = "package foo;\n"
+            + "\n"
+            + "import java.util.List;\n"
+            + "\n"
+            + "/** Javadoc. */\n"
+            + "@SuppressWarnings({ \"unchecked\" })\n"
+            + "public class Foo<T extends Comparable<T>> implements Runnable {\n"
+            + "    public static final String CONSTANT = \"{ not a block }\";\n"
+            + "    private final List<T> items = new java.util.ArrayList<T>() { { add(null); } };\n"
+            + "    static { System.out.println(\"init\"); }\n"
+            + "    public Foo() { this(null); }\n"
+            + "    Foo(List<T> items) { }\n"
+            + "    @Override\n"
+            + "    public void run() { Runnable r = () -> { }; r.run(); /* comment } */ }\n"
+            + "    protected <X> X convert(Class<X> type) throws Exception { return type.cast('}'); }\n"
+            + "    private void helper() { }\n"
+            + "    public enum Kind { A { void x() { } }, B; public int code() { return 1; } }\n"
+            + "    private static class Hidden { }\n"
+            + "    public interface Callback { void call(); default void record() { } }\n"
+            + "    public @interface Marker { String value() default \"\"; }\n"
+            + "}\n";
+
+    @Test
+    public void sameSource() {
+        assertEquals(JavaApiSkeleton.of(SOURCE), JavaApiSkeleton.of(SOURCE));
+    }
+
+    @Test
+    public void skeleton() {
+        assertEquals("package foo ; import java . util . List ;"
+                + " @ SuppressWarnings ( { \"unchecked\" } ) public class Foo < T extends Comparable < T > > implements Runnable {"
+                + " public static final String CONSTANT = \"{ not a block }\" ;"
+                + " public Foo ( ) {} Foo ( List < T > items ) {} @ Override public void run ( ) {}"
+                + " protected < X > X convert ( Class < X > type ) throws Exception {}"
+                + " public enum Kind { A { void x ( ) { } } , B ; public int code ( ) {} }"
+                + " public interface Callback { void call ( ) ; default void record ( ) {} }"
+                + " public @ interface Marker { String value ( ) default \"\" ; } }",
+                JavaApiSkeleton.of(SOURCE));
+    }
+
+    @Test
+    public void implementationOnly() {
+        assertImplementationOnly("public void run() { Runnable r", "public void run() { System.gc(); Runnable r");
+        assertImplementationOnly("return type.cast('}');", "return null;");
+        assertImplementationOnly("/** Javadoc. */", "/** Other javadoc. */ // and a line comment");
+        assertImplementationOnly("    private void helper() { }\n", "    private void helper() { }\n    private int added;\n");
+        assertImplementationOnly("static { System.out.println(\"init\"); }", "static { }");
+        assertImplementationOnly("private static class Hidden { }", "private static class Hidden { public void x() { } }");
+        assertImplementationOnly("items = new java.util.ArrayList<T>()", "items = new java.util.LinkedList<T>()");
+    }
+
+    @Test
+    public void apiChange() {
+        assertApiChange("public void run()", "public void run(int times)");
+        assertApiChange("public static final String CONSTANT = \"{ not a block }\";", "public static final String CONSTANT = \"other\";");
+        assertApiChange("    private void helper() { }\n", "    private void helper() { }\n    public void added() { }\n");
+        assertApiChange("import java.util.List;", "import java.awt.List;");
+        assertApiChange("Foo(List<T> items)", "private Foo(List<T> items)");
+        assertApiChange("B; public", "B, C; public");
+        assertApiChange("private static class Hidden", "static class Hidden");
+        assertApiChange("@Override\n    public void run()", "public void run()");
+    }
+
+    @Test
+    public void malformed() {
+        assertThrows(IllegalArgumentException.class, () -> JavaApiSkeleton.of("class Foo { void foo() { }"));
+        assertThrows(IllegalArgumentException.class, () -> JavaApiSkeleton.of("class Foo { } }"));
+        assertThrows(IllegalArgumentException.class, () -> JavaApiSkeleton.of("class Foo { int x = 1"));
+        assertThrows(IllegalArgumentException.class, () -> JavaApiSkeleton.of("class Foo { void foo()"));
+        assertThrows(IllegalArgumentException.class, () -> JavaApiSkeleton.of("class Foo { "));
+    }
+
+    @Test
+    public void textBlock() {
+        String textBlock = "class Foo { String s = \"\"\"\n  { \"\n  \"\"\"; void foo() { } }";
+        assertEquals("class Foo { String s = \"\"\"\n  { \"\n  \"\"\" ; void foo ( ) {} }", JavaApiSkeleton.of(textBlock));
+    }
+
+    private static void assertImplementationOnly(String original, String replacement) {
+        assertEquals(JavaApiSkeleton.of(SOURCE), JavaApiSkeleton.of(replace(original, replacement)));
+    }
+
+    private static void assertApiChange(String original, String replacement) {
+        assertNotEquals(JavaApiSkeleton.of(SOURCE), JavaApiSkeleton.of(replace(original, replacement)));
+    }
+
+    private static String replace(String original, String replacement) {
+        assertNotEquals(-1, SOURCE.indexOf(original), "Not found: " + original);
+        return SOURCE.replace(original, replacement);
+    }
+}
@@ -0,0 +1,82 @@
+package com.vackosar.gitflowincrementalbuild.control;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Test;
+
+public class ModuleScopeFilterTest {
+
+    private final Path workTree = Paths.get("/repo").toAbsolutePath();
+
+    private final MavenProject root = project("");
+    private final MavenProject child1 = project("child1");
+    private final MavenProject child2 = project("child2");
+    private final MavenProject subchild = project("child2/subchild");
+    private final List<MavenProject> allProjects = Arrays.asList(root, child1, child2, subchild);
+
+    @Test
+    public void emptyScope() {
+        assertFalse(ModuleScopeFilter.create(workTree, allProjects, Collections.emptySet()).isPresent());
+    }
+
+    @Test
+    public void moduleOutsideOfWorkTree() {
+        MavenProject outside = new MavenProject(new Model());
+        outside.setFile(workTree.resolveSibling("other").resolve("pom.xml").toFile());
+
+        assertFalse(ModuleScopeFilter.create(workTree, Arrays.asList(root, outside), Collections.singleton(root)).isPresent());
+    }
+
+    @Test
+    public void includes() {
+        ModuleScopeFilter underTest = create(root, child2);
+
+        assertTrue(underTest.includes("pom.xml"));
+        assertTrue(underTest.includes("src/main/java/Foo.java"));
+        assertFalse(underTest.includes("child1/pom.xml"));
+        assertFalse(underTest.includes("child1/src/Foo.java"));
+        assertTrue(underTest.includes("child2/src/Foo.java"));
+        assertFalse(underTest.includes("child2/subchild/src/Foo.java"));
+    }
+
+    @Test
+    public void includes_nestedModuleOnly() {
+        ModuleScopeFilter underTest = create(subchild);
+
+        assertFalse(underTest.includes("pom.xml"));
+        assertFalse(underTest.includes("child2/pom.xml"));
+        assertTrue(underTest.includes("child2/subchild/pom.xml"));
+        assertTrue(underTest.includes("child2/subchild/child2/pom.xml"));
+    }
+
+    @Test
+    public void getRootDirs() {
+        assertEquals(new HashSet<>(Arrays.asList("child1", "child2")), create(child1, child2, subchild).getRootDirs());
+        assertEquals(Collections.singleton(""), create(root, subchild).getRootDirs());
+    }
+
+    private ModuleScopeFilter create(MavenProject... scope) {
+        Optional<ModuleScopeFilter> filter = ModuleScopeFilter.create(workTree, allProjects, Arrays.asList(scope));
+        assertTrue(filter.isPresent());
+        return filter.get();
+    }
+
+    private MavenProject project(String relativePath) {
+        MavenProject project = new MavenProject(new Model());
+        project.setFile(new File(workTree.resolve(relativePath).toFile(), "pom.xml"));
+        return project;
+    }
+}
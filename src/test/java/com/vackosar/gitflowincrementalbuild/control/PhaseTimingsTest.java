@@ -0,0 +1,103 @@
+package com.vackosar.gitflowincrementalbuild.control;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+public class PhaseTimingsTest {
+
+    private final PhaseTimings underTest = new PhaseTimings();
+
+    @Test
+    public void durations() throws InterruptedException {
+        try (PhaseTimings.Phase outer = underTest.start("outer")) {
+            try (PhaseTimings.Phase inner = underTest.start("inner")) {
+                Thread.sleep(10);
+            }
+            try (PhaseTimings.Phase inner = underTest.start("inner")) {
+                Thread.sleep(10);
+            }
+        }
+
+        assertEquals(Arrays.asList("inner", "outer"), Arrays.asList(underTest.getDurations().keySet().toArray()));
+        Duration inner = underTest.getDurations().get("inner");
+        assertTrue(inner.toMillis() >= 20, "Unexpected duration of inner: " + inner);
+        assertTrue(underTest.getDurations().get("outer").compareTo(inner) >= 0);
+    }
+
+    @Test
+    public void allocations() {
+        byte[][] allocated = new byte[16][];
+        try (PhaseTimings.Phase phase = underTest.startMeasuringAllocations("outer")) {
+            for (int i = 0; i < allocated.length; i++) {
+                allocated[i] = new byte[1024 * 1024];
+            }
+        }
+
+        Long bytesAllocated = underTest.getCounts().get(PhaseTimings.BYTES_ALLOCATED);
+        // not supported by every JVM
+        if (bytesAllocated != null) {
+            assertTrue(bytesAllocated >= 16 * 1024 * 1024, "Unexpected bytes allocated: " + bytesAllocated);
+        }
+    }
+
+    @Test
+    public void allocations_notMeasured() {
+        try (PhaseTimings.Phase phase = underTest.start("outer")) {
+            // nothing
+        }
+
+        assertEquals(Collections.emptyMap(), underTest.getCounts());
+    }
+
+    @Test
+    public void counts() {
+        underTest.count(PhaseTimings.FILES_DIFFED, 2);
+        underTest.count(PhaseTimings.PATHS_MATCHED, 1);
+        underTest.count(PhaseTimings.FILES_DIFFED, 3);
+
+        assertEquals(5, underTest.getCounts().get(PhaseTimings.FILES_DIFFED));
+        assertEquals(1, underTest.getCounts().get(PhaseTimings.PATHS_MATCHED));
+    }
+
+    @Test
+    public void summarize() {
+        try (PhaseTimings.Phase phase = underTest.start("fetch")) {
+            // nothing
+        }
+        underTest.count(PhaseTimings.MODULES_CHANGED, 2);
+        underTest.count(PhaseTimings.MODULES_IMPACTED, 5);
+
+        assertTrue(underTest.summarize().matches("fetch \\d+ ms; modules changed: 2, modules impacted: 5"), underTest.summarize());
+    }
+
+    @Test
+    public void reset() {
+        try (PhaseTimings.Phase phase = underTest.start("fetch")) {
+            underTest.count(PhaseTimings.FILES_DIFFED, 1);
+        }
+
+        underTest.reset();
+
+        assertEquals(Collections.emptyMap(), underTest.getDurations());
+        assertEquals(Collections.emptyMap(), underTest.getCounts());
+        assertEquals("", underTest.summarize());
+    }
+
+    @Test
+    public void flightRecorderEventsAvailableIfJfrPresent() {
+        boolean jfrPresent;
+        try {
+            Class.forName("jdk.jfr.EventFactory");
+            jfrPresent = true;
+        } catch (ClassNotFoundException e) {
+            jfrPresent = false;
+        }
+        assertEquals(jfrPresent, FlightRecorderEvents.isAvailable());
+    }
+}
@@ -0,0 +1,285 @@
+package com.vackosar.gitflowincrementalbuild.control;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.execution.ProjectDependencyGraph;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class PomChangeAnalyzerTest {
+
+    private static final String POM = "<project>\n"
+            + "  <modelVersion>4.0.0</modelVersion>\n"
+            + "  <groupId>g</groupId>\n"
+            + "  <artifactId>parent</artifactId>\n"
+            + "  <version>1</version>\n"
+            + "  <packaging>pom</packaging>\n"
+            + "  <properties>\n"
+            + "    <foo.version>%s</foo.version>\n"
+            + "    <bar.version>%s</bar.version>\n"
+            + "    <baz>%s</baz>\n"
+            + "    <derived>${baz}-derived</derived>\n"
+            + "  </properties>\n"
+            + "  <dependencyManagement>\n"
+            + "    <dependencies>\n"
+            + "      <dependency><groupId>foo</groupId><artifactId>foo</artifactId><version>${foo.version}</version></dependency>\n"
+            + "      <dependency><groupId>other</groupId><artifactId>other</artifactId><version>%s</version></dependency>\n"
+            + "    </dependencies>\n"
+            + "  </dependencyManagement>\n"
+            + "  <build>\n"
+            + "    <pluginManagement>\n"
+            + "      <plugins>\n"
+            + "        <plugin><groupId>bar</groupId><artifactId>bar-plugin</artifactId><version>${bar.version}</version></plugin>\n"
+            + "      </plugins>\n"
+            + "    </pluginManagement>\n"
+            + "  </build>\n"
+            + "%s"
+            + "</project>\n";
+
+    @Mock(lenient = true)
+    private DifferentFiles differentFilesMock;
+
+    @Mock(lenient = true)
+    private MavenSession mavenSessionMock;
+
+    @Mock(lenient = true)
+    private ProjectDependencyGraph projectDependencyGraphMock;
+
+    @InjectMocks
+    private PomChangeAnalyzer underTest;
+
+    private MavenProject parent;
+    private Path parentPom;
+    private MavenProject fooUser;
+    private MavenProject barUser;
+    private MavenProject derivedUser;
+    private MavenProject otherUser;
+
+    @BeforeEach
+    void before() {
+        when(mavenSessionMock.getProjectDependencyGraph()).thenReturn(projectDependencyGraphMock);
+        parent = createProject("parent");
+        parentPom = parent.getBasedir().toPath().normalize().toAbsolutePath().resolve("pom.xml");
+        fooUser = createProject("foo-user");
+        fooUser.getDependencies().add(dependency("foo", "foo"));
+        barUser = createProject("bar-user");
+        Plugin plugin = new Plugin();
+        plugin.setGroupId("bar");
+        plugin.setArtifactId("bar-plugin");
+        barUser.getBuild().addPlugin(plugin);
+        derivedUser = createProject("derived-user");
+        derivedUser.getOriginalModel().addProperty("x", "${derived}");
+        otherUser = createProject("other-user");
+        otherUser.getDependencies().add(dependency("other", "other"));
+        when(projectDependencyGraphMock.getDownstreamProjects(parent, true)).thenReturn(Arrays.asList(fooUser, barUser, derivedUser, otherUser));
+    }
+
+    @Test
+    public void propertyReferencedByManagedDependency() throws IOException {
+        mockPoms(pom("1", "1", "1", "1", ""), pom("2", "1", "1", "1", ""));
+
+        // other modules might use foo transitively
+        assertEquals(Optional.empty(), analyze());
+    }
+
+    @Test
+    public void propertyReferencedByManagedPlugin() throws IOException {
+        mockPoms(pom("1", "1", "1", "1", ""), pom("1", "2", "1", "1", ""));
+
+        assertEquals(Optional.of(Collections.singleton(barUser)), analyze());
+    }
+
+    @Test
+    public void propertyReferencedByDerivedProperty() throws IOException {
+        mockPoms(pom("1", "1", "1", "1", ""), pom("1", "1", "2", "1", ""));
+
+        // not only used by managed entries, so other modules might read it implicitly
+        assertEquals(Optional.empty(), analyze());
+    }
+
+    @Test
+    public void propertyDerivingManagedPluginProperty() throws IOException {
+        String derivedVersion = "<bar.version>${bar.major}.0</bar.version><bar.major>%s</bar.major>";
+        mockPoms(pom("1", "1", "1", "1", "").replace("<bar.version>1</bar.version>", String.format(derivedVersion, "1")),
+                pom("1", "1", "1", "1", "").replace("<bar.version>1</bar.version>", String.format(derivedVersion, "2")));
+
+        assertEquals(Optional.of(Collections.singleton(barUser)), analyze());
+    }
+
+    @Test
+    public void implicitlyUsedPropertyReferencedByDownstream() throws IOException {
+        derivedUser.getOriginalModel().addProperty("y", "${maven.compiler.release}");
+        String release = "<properties>\n<maven.compiler.release>%s</maven.compiler.release>";
+        mockPoms(pom("1", "1", "1", "1", "").replace("<properties>\n", String.format(release, "8")),
+                pom("1", "1", "1", "1", "").replace("<properties>\n", String.format(release, "11")));
+
+        assertEquals(Optional.empty(), analyze());
+    }
+
+    @Test
+    public void managedDependency() throws IOException {
+        mockPoms(pom("1", "1", "1", "1", ""), pom("1", "1", "1", "2", ""));
+
+        // declared by otherUser, but any other module might use it transitively
+        assertEquals(Optional.empty(), analyze());
+    }
+
+    @Test
+    public void managedDependency_importedBom() throws IOException {
+        String otherDependency = "<artifactId>other</artifactId><version>2</version>";
+        String bom = otherDependency + "<type>pom</type><scope>import</scope>";
+        mockPoms(pom("1", "1", "1", "1", "").replace(otherDependency.replace("2", "1"), bom.replace("2", "1")),
+                pom("1", "1", "1", "2", "").replace(otherDependency, bom));
+
+        assertEquals(Optional.empty(), analyze());
+    }
+
+    @Test
+    public void managedDependency_transitive() throws IOException {
+        otherUser.getDependencies().clear();
+        mockPoms(pom("1", "1", "1", "1", ""), pom("1", "1", "1", "2", ""));
+
+        assertEquals(Optional.empty(), analyze());
+    }
+
+    @Test
+    public void formattingOnly() throws IOException {
+        mockPoms(pom("1", "1", "1", "1", ""), pom("1", "1", "1", "1", "").replace("  ", "\t"));
+
+        assertEquals(Optional.of(Collections.emptySet()), analyze());
+    }
+
+    @Test
+    public void unanalyzedChange() throws IOException {
+        mockPoms(pom("1", "1", "1", "1", ""), pom("1", "1", "1", "1", "  <name>changed</name>\n"));
+
+        assertEquals(Optional.empty(), analyze());
+    }
+
+    @Test
+    public void propertyReferencedOutsideOfAnalyzedSections() throws IOException {
+        String build = "  <dependencies><dependency><groupId>foo</groupId><artifactId>foo</artifactId></dependency></dependencies>\n"
+                + "  <url>${foo.version}</url>\n";
+        mockPoms(pom("1", "1", "1", "1", build), pom("2", "1", "1", "1", build));
+
+        assertEquals(Optional.empty(), analyze());
+    }
+
+    @Test
+    public void unreferencedProperty() throws IOException {
+        mockPoms(pom("1", "1", "1", "1", ""), pom("1", "1", "1", "1", "").replace("<properties>\n", "<properties>\n<maven.compiler.source>11</maven.compiler.source>"));
+
+        assertEquals(Optional.empty(), analyze());
+    }
+
+    @Test
+    public void otherFilesChanged() {
+        Set<Path> changedFiles = new LinkedHashSet<>(Arrays.asList(parentPom, parentPom.resolveSibling("src/main/resources/foo.txt")));
+
+        assertEquals(Optional.empty(), underTest.findAffectedDownstreamProjects(parent, changedFiles));
+    }
+
+    @Test
+    public void added() throws IOException {
+        when(differentFilesMock.readReferenceContent(parentPom)).thenReturn(Optional.empty());
+        when(differentFilesMock.readCurrentContent(parentPom)).thenReturn(Optional.of(pom("1", "1", "1", "1", "").getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(Optional.empty(), analyze());
+    }
+
+    @Test
+    public void malformed() throws IOException {
+        mockPoms(pom("1", "1", "1", "1", ""), "<project>");
+
+        assertEquals(Optional.empty(), analyze());
+    }
+
+    @Test
+    public void isCosmeticChange() throws IOException {
+        String reordered = pom("1", "1", "1", "1", "  <profiles><profile><id>p</id><properties><b>2</b><a>1</a></properties></profile></profiles>\n")
+                .replace("    <foo.version>1</foo.version>\n    <bar.version>1</bar.version>\n", "    <bar.version>1</bar.version>\n    <foo.version>1</foo.version>\n")
+                .replace("<packaging>pom</packaging>", "<packaging>pom</packaging>  <!-- comment -->");
+        mockPoms(pom("1", "1", "1", "1", "  <profiles><profile><id>p</id><properties><a>1</a><b>2</b></properties></profile></profiles>\n"), reordered);
+
+        assertTrue(underTest.isCosmeticChange(parentPom));
+    }
+
+    @Test
+    public void isCosmeticChange_propertyChanged() throws IOException {
+        mockPoms(pom("1", "1", "1", "1", ""), pom("1", "1", "2", "1", ""));
+
+        assertFalse(underTest.isCosmeticChange(parentPom));
+    }
+
+    @Test
+    public void isCosmeticChange_added() throws IOException {
+        when(differentFilesMock.readReferenceContent(parentPom)).thenReturn(Optional.empty());
+        when(differentFilesMock.readCurrentContent(parentPom)).thenReturn(Optional.of(pom("1", "1", "1", "1", "").getBytes(StandardCharsets.UTF_8)));
+
+        assertFalse(underTest.isCosmeticChange(parentPom));
+    }
+
+    @Test
+    public void isCosmeticChange_malformed() throws IOException {
+        mockPoms(pom("1", "1", "1", "1", ""), "<project>");
+
+        assertFalse(underTest.isCosmeticChange(parentPom));
+    }
+
+    private Optional<Set<MavenProject>> analyze() {
+        return underTest.findAffectedDownstreamProjects(parent, Collections.singleton(parentPom));
+    }
+
+    private void mockPoms(String reference, String current) throws IOException {
+        when(differentFilesMock.readReferenceContent(parentPom)).thenReturn(Optional.of(reference.getBytes(StandardCharsets.UTF_8)));
+        when(differentFilesMock.readCurrentContent(parentPom)).thenReturn(Optional.of(current.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String pom(String fooVersion, String barVersion, String baz, String otherVersion, String additional) {
+        return String.format(POM, fooVersion, barVersion, baz, otherVersion, additional);
+    }
+
+    private static MavenProject createProject(String artifactId) {
+        Model model = new Model();
+        model.setGroupId("g");
+        model.setArtifactId(artifactId);
+        model.setVersion("1");
+        model.setBuild(new Build());
+        MavenProject project = new MavenProject(model);
+        project.setOriginalModel(model.clone());
+        project.setFile(new File(Paths.get(artifactId).toAbsolutePath().toFile(), "pom.xml"));
+        return project;
+    }
+
+    private static Dependency dependency(String groupId, String artifactId) {
+        Dependency dependency = new Dependency();
+        dependency.setGroupId(groupId);
+        dependency.setArtifactId(artifactId);
+        return dependency;
+    }
+}
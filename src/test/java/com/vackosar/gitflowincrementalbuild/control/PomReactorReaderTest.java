@@ -0,0 +1,120 @@
+package com.vackosar.gitflowincrementalbuild.control;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.vackosar.gitflowincrementalbuild.BaseRepoTest;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class PomReactorReaderTest extends BaseRepoTest {
+
+    private final PomReactorReader underTest = new PomReactorReader();
+
+    @Test
+    public void read() throws Exception {
+        List<MavenProject> projects = underTest.read(repoPath.resolve("parent"));
+
+        assertThat(projects.stream().map(MavenProject::getArtifactId).collect(Collectors.toList())).containsExactly(
+                "parent", "child1", "child2", "subchild1", "subchild2", "child3", "child4", "subchild41", "subchild42", "child5", "child6",
+                "testJarDependent", "testJarDependency");
+        MavenProject parent = projects.get(0);
+        assertEquals(repoPath.resolve("parent/pom.xml").toFile(), parent.getFile());
+        assertEquals("pom", parent.getPackaging());
+        // inherited from build-parent which is not part of the reactor
+        assertEquals("refs/heads/develop", parent.getProperties().getProperty(Property.referenceBranch.fullName()));
+        assertEquals(repoPath.resolve("parent/target/classes").toString(), parent.getBuild().getOutputDirectory());
+
+        MavenProject child3 = projects.get(5);
+        assertEquals("jar", child3.getPackaging());
+        assertThat(child3.getDependencies()).extracting(Dependency::getManagementKey).containsExactly("child6:child6:jar");
+        assertEquals("1.0-SNAPSHOT", child3.getDependencies().get(0).getVersion());
+    }
+
+    @Test
+    public void read_inheritanceAndInterpolation() throws Exception {
+        writePom(tempDir.resolve("pom.xml"), "<groupId>g</groupId><artifactId>root</artifactId><version>1</version><packaging>pom</packaging>"
+                + "<properties><revision>2</revision><dep.group>${project.groupId}</dep.group></properties>"
+                + "<modules><module>a</module><module>b/pom.xml</module><module>c</module></modules>");
+        writePom(tempDir.resolve("a/pom.xml"), "<parent><groupId>g</groupId><artifactId>root</artifactId><version>1</version></parent>"
+                + "<artifactId>a</artifactId>"
+                + "<dependencies><dependency><groupId>${dep.group}</groupId><artifactId>b</artifactId><scope>test</scope></dependency>"
+                + "<dependency><groupId>other</groupId><artifactId>other</artifactId></dependency></dependencies>"
+                + "<dependencyManagement><dependencies><dependency><groupId>x</groupId><artifactId>y</artifactId></dependency>"
+                + "</dependencies></dependencyManagement>");
+        writePom(tempDir.resolve("b/pom.xml"), "<parent><groupId>g</groupId><artifactId>root</artifactId><version>1</version></parent>"
+                + "<artifactId>b</artifactId><version>${revision}</version>");
+        writePom(tempDir.resolve("c/pom.xml"), "<parent><groupId>g</groupId><artifactId>root</artifactId><version>1</version>"
+                + "<relativePath/></parent><artifactId>c</artifactId>");
+
+        List<MavenProject> projects = underTest.read(tempDir.resolve("pom.xml"));
+
+        assertThat(projects).extracting(MavenProject::getId).containsExactly("g:root:pom:1", "g:a:jar:1", "g:b:jar:2", "g:c:jar:1");
+        MavenProject a = projects.get(1);
+        assertSame(projects.get(0), a.getParent());
+        assertEquals(2, a.getDependencies().size());
+        Dependency reactorDependency = a.getDependencies().get(0);
+        assertEquals("g", reactorDependency.getGroupId());
+        // aligned to the version of the module
+        assertEquals("2", reactorDependency.getVersion());
+        assertEquals("test", reactorDependency.getScope());
+        assertNull(a.getDependencies().get(1).getVersion());
+        assertEquals("2", a.getProperties().getProperty("revision"));
+        // as declared
+        assertEquals("${dep.group}", a.getOriginalModel().getDependencies().get(0).getGroupId());
+        assertNull(a.getOriginalModel().getGroupId());
+        // empty relativePath: nothing is inherited but the coordinates of the parent
+        assertThat(projects.get(3).getProperties()).isEmpty();
+    }
+
+    @Test
+    public void read_inheritedDependencies() throws Exception {
+        writePom(tempDir.resolve("pom.xml"), "<groupId>g</groupId><artifactId>root</artifactId><version>1</version><packaging>pom</packaging>"
+                + "<properties><common.version>1</common.version></properties>"
+                + "<modules><module>a</module></modules>"
+                + "<dependencies><dependency><groupId>x</groupId><artifactId>common</artifactId><version>${common.version}</version></dependency>"
+                + "<dependency><groupId>x</groupId><artifactId>overridden</artifactId><version>1</version></dependency></dependencies>");
+        writePom(tempDir.resolve("a/pom.xml"), "<parent><groupId>g</groupId><artifactId>root</artifactId><version>1</version></parent>"
+                + "<artifactId>a</artifactId><packaging>pom</packaging>"
+                + "<properties><common.version>2</common.version></properties>"
+                + "<modules><module>aa</module></modules>"
+                + "<dependencies><dependency><groupId>x</groupId><artifactId>overridden</artifactId><version>3</version></dependency></dependencies>");
+        writePom(tempDir.resolve("a/aa/pom.xml"), "<parent><groupId>g</groupId><artifactId>a</artifactId><version>1</version></parent>"
+                + "<artifactId>aa</artifactId>");
+
+        List<MavenProject> projects = underTest.read(tempDir);
+
+        assertThat(projects.get(0).getDependencies()).extracting(Dependency::getVersion).containsExactly("1", "1");
+        assertThat(projects.get(1).getDependencies()).extracting(dep -> dep.getArtifactId() + ":" + dep.getVersion())
+                .containsExactly("overridden:3", "common:2");
+        // inherited transitively
+        assertThat(projects.get(2).getDependencies()).extracting(dep -> dep.getArtifactId() + ":" + dep.getVersion())
+                .containsExactly("overridden:3", "common:2");
+    }
+
+    @Test
+    public void read_missingModule() throws Exception {
+        writePom(tempDir.resolve("pom.xml"), "<groupId>g</groupId><artifactId>root</artifactId><version>1</version>"
+                + "<modules><module>missing</module></modules>");
+
+        IOException e = assertThrows(IOException.class, () -> underTest.read(tempDir));
+        assertThat(e).hasMessageContaining("missing");
+    }
+
+    private static void writePom(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, ("<project><modelVersion>4.0.0</modelVersion>" + content + "</project>").getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,162 @@
+package com.vackosar.gitflowincrementalbuild.control;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.graph.DefaultProjectDependencyGraph;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.powermock.reflect.Whitebox;
+
+import com.vackosar.gitflowincrementalbuild.BaseRepoTest;
+import com.vackosar.gitflowincrementalbuild.boundary.Configuration;
+
+public class SourceFingerprintsTest extends BaseRepoTest {
+
+    private static final String MODULE_PARENT = "<parent><groupId>g</groupId><artifactId>root</artifactId><version>1</version></parent>";
+
+    private SourceFingerprints underTest;
+
+    private MavenSession mavenSessionMock;
+    private MavenProject child1;
+
+    @Override
+    @BeforeEach
+    protected void before(TestInfo testInfo) throws Exception {
+        super.before(testInfo);
+        localRepoMock.getGit().reset().setMode(ResetCommand.ResetType.HARD).call();
+
+        mavenSessionMock = getMavenSessionMock();
+        child1 = mavenSessionMock.getAllProjects().stream()
+                .filter(proj -> proj.getArtifactId().equals("child1"))
+                .findFirst()
+                .get();
+        child1.getBuild().setDirectory(child1.getBasedir().toPath().resolve("target").toString());
+
+        underTest = new SourceFingerprints();
+        Whitebox.setInternalState(underTest, mavenSessionMock, new Configuration.Provider(mavenSessionMock));
+    }
+
+    @Test
+    public void store_matches() throws Exception {
+        underTest.store(child1, true);
+
+        assertTrue(underTest.matchesStored(child1));
+        assertTrue(underTest.wasPackaged(child1));
+    }
+
+    @Test
+    public void store_notPackaged() throws Exception {
+        underTest.store(child1, false);
+
+        assertTrue(underTest.matchesStored(child1));
+        assertFalse(underTest.wasPackaged(child1));
+    }
+
+    @Test
+    public void notStored() throws Exception {
+        assertFalse(underTest.matchesStored(child1));
+        assertFalse(underTest.wasPackaged(child1));
+    }
+
+    @Test
+    public void store_uncommittedChange() throws Exception {
+        underTest.store(child1, true);
+        Files.write(child1.getBasedir().toPath().resolve("src/resources/file1"), "\nuncommitted".getBytes(), StandardOpenOption.APPEND);
+        underTest.refreshStatus();
+
+        assertFalse(underTest.matchesStored(child1));
+    }
+
+    @Test
+    public void store_uncommittedChange_statusOfSession() throws Exception {
+        underTest.store(child1, true);
+        Files.write(child1.getBasedir().toPath().resolve("src/resources/file1"), "\nuncommitted".getBytes(), StandardOpenOption.APPEND);
+
+        // status is only computed once per session
+        assertTrue(underTest.matchesStored(child1));
+        underTest.refreshStatus();
+        assertFalse(underTest.matchesStored(child1));
+    }
+
+    @Test
+    public void store_upstreamChanges() throws Exception {
+        // a standard layout with the aggregator in the root of the repository, which is a parent and thus upstream of all modules
+        writePom("", "<groupId>g</groupId><artifactId>root</artifactId><version>1</version><packaging>pom</packaging>"
+                + "<modules><module>a</module><module>b</module><module>c</module></modules>");
+        writePom("a/", MODULE_PARENT + "<artifactId>a</artifactId>");
+        writePom("b/", MODULE_PARENT + "<artifactId>b</artifactId>");
+        writePom("c/", MODULE_PARENT + "<artifactId>c</artifactId>"
+                + "<dependencies><dependency><groupId>g</groupId><artifactId>b</artifactId><version>1</version></dependency></dependencies>");
+        Git git = localRepoMock.getGit();
+        git.add().addFilepattern(".").call();
+        git.commit().setMessage("modules").call();
+        List<MavenProject> projects = new PomReactorReader().read(repoPath);
+        when(mavenSessionMock.getProjectDependencyGraph()).thenReturn(new DefaultProjectDependencyGraph(projects));
+        MavenProject c = projects.get(3);
+        underTest.store(c, true);
+
+        // unrelated changes
+        Files.write(repoPath.resolve("a/fileNew"), "committed".getBytes());
+        git.add().addFilepattern("a").call();
+        git.commit().setMessage("unrelated change").call();
+        Files.write(repoPath.resolve("parent/child1/src/resources/fileNew"), "untracked".getBytes());
+        underTest.refreshStatus();
+        assertTrue(underTest.matchesStored(c));
+
+        Files.write(repoPath.resolve("b/fileNew"), "committed".getBytes());
+        git.add().addFilepattern("b").call();
+        git.commit().setMessage("upstream change").call();
+        assertFalse(underTest.matchesStored(c));
+    }
+
+    @Test
+    public void store_whileUncommittedChange() throws Exception {
+        Path changedFile = child1.getBasedir().toPath().resolve("src/resources/fileNew");
+        Files.write(changedFile, "untracked".getBytes());
+
+        underTest.store(child1, true);
+
+        assertFalse(Files.exists(child1.getBasedir().toPath().resolve("target").resolve(SourceFingerprints.FINGERPRINT_FILE)));
+        Files.delete(changedFile);
+        assertFalse(underTest.matchesStored(child1));
+    }
+
+    @Test
+    public void computeAt() throws Exception {
+        Git git = localRepoMock.getGit();
+        ObjectId previousTree = git.getRepository().resolve("HEAD^{tree}");
+        Optional<String> previous = underTest.compute(child1);
+        Files.write(child1.getBasedir().toPath().resolve("src/resources/fileNew"), "committed".getBytes());
+        git.add().addFilepattern(".").call();
+        git.commit().setMessage("change").call();
+        Files.write(child1.getBasedir().toPath().resolve("src/resources/file1"), "\nuncommitted".getBytes(), StandardOpenOption.APPEND);
+
+        assertTrue(previous.isPresent());
+        assertEquals(previous, underTest.computeAt(child1, previousTree));
+        assertNotEquals(previous, underTest.computeAt(child1, git.getRepository().resolve("HEAD^{tree}")));
+    }
+
+    private void writePom(String directory, String content) throws IOException {
+        Path pomFile = repoPath.resolve(directory + "pom.xml");
+        Files.createDirectories(pomFile.getParent());
+        Files.write(pomFile, ("<project><modelVersion>4.0.0</modelVersion>" + content + "</project>").getBytes(StandardCharsets.UTF_8));
+    }
+}
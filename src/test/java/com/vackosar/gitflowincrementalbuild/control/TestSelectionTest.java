@@ -0,0 +1,151 @@
+package com.vackosar.gitflowincrementalbuild.control;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TestSelectionTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final TestSelection underTest = new TestSelection();
+
+    private MavenProject project;
+    private Path sourceDir;
+    private Path testSourceDir;
+
+    @BeforeEach
+    void before() throws IOException {
+        project = new MavenProject(new Model());
+        project.setFile(tempDir.resolve("pom.xml").toFile());
+        Build build = new Build();
+        build.setDirectory(tempDir.resolve("target").toString());
+        build.setOutputDirectory(tempDir.resolve("target/classes").toString());
+        build.setTestOutputDirectory(tempDir.resolve("target/test-classes").toString());
+        project.setBuild(build);
+        sourceDir = tempDir.resolve("src/main/java");
+        testSourceDir = tempDir.resolve("src/test/java");
+        project.addCompileSourceRoot(sourceDir.toString());
+        project.addTestCompileSourceRoot(testSourceDir.toString());
+
+        // B uses A (via a nested class), C is independent
+        Path a = writeSource(sourceDir, "a/A.java", "package a; public class A { public static int value() { return 1; } }");
+        Path b = writeSource(sourceDir, "b/B.java", "package b; public class B { static class Nested { int value() { return a.A.value(); } } }");
+        Path c = writeSource(sourceDir, "c/C.java", "package c; public class C { }");
+        Path util = writeSource(testSourceDir, "a/TestUtil.java", "package a; public class TestUtil { public static Object create() { return new A(); } }");
+        Path aTest = writeSource(testSourceDir, "a/ATest.java", "package a; public class ATest { Object a = TestUtil.create(); }");
+        Path bTest = writeSource(testSourceDir, "b/BTest.java", "package b; public class BTest { Object b = new B(); }");
+        Path cTest = writeSource(testSourceDir, "c/CTest.java", "package c; public class CTest { Object c = new C(); }");
+        compile("classes", a, b, c);
+        compile("test-classes", util, aTest, bTest, cTest);
+    }
+
+    @Test
+    public void select_transitive() throws IOException {
+        Optional<Set<String>> selected = underTest.select(project, changed(sourceDir.resolve("a/A.java")));
+
+        assertEquals(Optional.of(new HashSet<>(Arrays.asList("a.ATest", "a.TestUtil", "b.BTest"))), selected);
+        assertTrue(Files.isRegularFile(tempDir.resolve("target").resolve(TestSelection.INDEX_FILE)));
+    }
+
+    @Test
+    public void select_changedTest() throws IOException {
+        Path newTest = writeSource(testSourceDir, "c/NewTest.java", "package c; public class NewTest { }");
+
+        Optional<Set<String>> selected = underTest.select(project, changed(testSourceDir.resolve("c/CTest.java"), newTest));
+
+        assertEquals(Optional.of(new HashSet<>(Arrays.asList("c.CTest", "c.NewTest"))), selected);
+    }
+
+    @Test
+    public void select_noAffectedTests() throws IOException {
+        Path d = writeSource(sourceDir, "d/D.java", "package d; public class D { }");
+
+        assertEquals(Optional.of(Collections.emptySet()), underTest.select(project, changed(d)));
+    }
+
+    @Test
+    public void select_incrementalIndex() throws IOException {
+        underTest.select(project, changed(sourceDir.resolve("c/C.java")));
+        Path indexFile = tempDir.resolve("target").resolve(TestSelection.INDEX_FILE);
+        List<String> index = Files.readAllLines(indexFile);
+
+        // an updated class file is read again
+        Path cTestClass = tempDir.resolve("target/test-classes/c/CTest.class");
+        long lastModified = Files.getLastModifiedTime(cTestClass).toMillis() + 1000;
+        Files.setLastModifiedTime(cTestClass, FileTime.fromMillis(lastModified));
+        underTest.select(project, changed(sourceDir.resolve("c/C.java")));
+
+        List<String> refreshedIndex = Files.readAllLines(indexFile);
+        assertThat(refreshedIndex).hasSameSizeAs(index);
+        assertThat(refreshedIndex).filteredOn(line -> line.startsWith("test:c/CTest.class\t"))
+                .allMatch(line -> line.contains("\t" + lastModified + "\t"))
+                .hasSize(1);
+    }
+
+    @Test
+    public void select_nonSourceChange() throws IOException {
+        Path resource = Files.createDirectories(tempDir.resolve("src/main/resources")).resolve("config.properties");
+
+        assertEquals(Optional.empty(), underTest.select(project, changed(sourceDir.resolve("a/A.java"), resource)));
+    }
+
+    @Test
+    public void select_staleClasses() throws IOException {
+        // e.g. after switching branches without building
+        Path c = sourceDir.resolve("c/C.java");
+        Files.setLastModifiedTime(c, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+
+        assertEquals(Optional.empty(), underTest.select(project, changed(sourceDir.resolve("a/A.java"))));
+    }
+
+    @Test
+    public void select_noTestClasses() throws IOException {
+        project.getBuild().setTestOutputDirectory(tempDir.resolve("target/missing").toString());
+
+        assertEquals(Optional.empty(), underTest.select(project, changed(sourceDir.resolve("a/A.java"))));
+    }
+
+    private static Set<Path> changed(Path... files) {
+        return Arrays.stream(files).map(Path::toAbsolutePath).collect(Collectors.toSet());
+    }
+
+    private static Path writeSource(Path sourceRoot, String path, String content) throws IOException {
+        Path sourceFile = sourceRoot.resolve(path);
+        Files.createDirectories(sourceFile.getParent());
+        return Files.write(sourceFile, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void compile(String outputDir, Path... sourceFiles) throws IOException {
+        Path classesDir = Files.createDirectories(tempDir.resolve("target").resolve(outputDir));
+        List<String> args = new ArrayList<>(Arrays.asList("-d", classesDir.toString(), "-cp", tempDir.resolve("target/classes").toString()));
+        Arrays.stream(sourceFiles).map(Path::toString).forEach(args::add);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertEquals(0, compiler.run(null, null, null, args.toArray(new String[0])), "compilation failed");
+    }
+}